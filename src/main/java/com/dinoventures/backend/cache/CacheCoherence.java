@@ -0,0 +1,216 @@
+package com.dinoventures.backend.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps node-local caches coherent across nodes. Committed changes queue the
+ * keys they touched; every batch interval the queue goes out as one message
+ * (or a few, if it exceeds the transport's payload limit) and the other nodes
+ * hand the keys to their {@link CacheInvalidationListener}s.
+ *
+ * Messages carry the sender's node id and a sequence number. A receiver that
+ * sees a sequence jump, or a transport reset, cannot know what it missed and
+ * flushes every cache; so does a sender whose queue overflowed.
+ *
+ * The committing node keeps its own caches up to date itself; its messages
+ * come back to it and are ignored.
+ *
+ * Message format: {@code <node> <sequence>} on the first line, then one
+ * {@code <region code>:<key>} per line, or a single {@code *} for a full flush.
+ */
+@Component
+@Slf4j
+public class CacheCoherence {
+
+    private static final String FLUSH_ALL = "*";
+
+    private final InvalidationTransport transport;
+    private final ObjectProvider<CacheInvalidationListener> listeners;
+    private final String nodeId = UUID.randomUUID().toString().substring(0, 8);
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<String, Long> lastSequences = new ConcurrentHashMap<>();
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean overflowed = new AtomicBoolean();
+    private final int maxPendingKeys;
+    private final Counter sent;
+    private final Counter sendFailures;
+    private final Counter fullFlushes;
+
+    public CacheCoherence(InvalidationTransport transport,
+                          ObjectProvider<CacheInvalidationListener> listeners,
+                          MeterRegistry meterRegistry,
+                          @Value("${app.cache.coherence.max-pending-keys:10000}") int maxPendingKeys) {
+        this.transport = transport;
+        this.listeners = listeners;
+        this.maxPendingKeys = maxPendingKeys;
+        this.sent = Counter.builder("cache.coherence.sent")
+                .description("Invalidation messages sent to other nodes")
+                .register(meterRegistry);
+        this.sendFailures = Counter.builder("cache.coherence.send.failures")
+                .description("Invalidation messages that could not be sent; receivers flush on the gap")
+                .register(meterRegistry);
+        this.fullFlushes = Counter.builder("cache.coherence.full.flushes")
+                .description("Times every local cache was dropped after missed invalidations")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        transport.listen(this::receive, () -> invalidateAllLocal("transport reset"));
+        log.info("Cache coherence started: node={}", nodeId);
+    }
+
+    /**
+     * Queues the keys once the current transaction commits, or at once when
+     * there is none. Must not be called from an after-commit callback, where a
+     * new synchronization would never run; use {@link #publish} there.
+     */
+    public void afterCommit(CacheRegion region, Collection<String> keys) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish(region, keys);
+                }
+            });
+        } else {
+            publish(region, keys);
+        }
+    }
+
+    /**
+     * Queues keys whose change has already committed.
+     */
+    public void publish(CacheRegion region, Collection<String> keys) {
+        for (String key : keys) {
+            if (pending.size() >= maxPendingKeys) {
+                overflowed.set(true);
+                return;
+            }
+            pending.add(region.code() + ":" + key);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.cache.coherence.batch-interval-ms:50}")
+    public synchronized void flush() {
+        List<String> keys = new ArrayList<>();
+        for (Iterator<String> it = pending.iterator(); it.hasNext(); ) {
+            keys.add(it.next());
+            it.remove();
+        }
+        if (overflowed.getAndSet(false)) {
+            send(FLUSH_ALL);
+            return;
+        }
+        StringBuilder body = new StringBuilder();
+        int bodyBytes = 0;
+        // Leaves room for the header line
+        int budget = transport.maxPayloadBytes() - 32;
+        for (String key : keys) {
+            int keyBytes = key.getBytes(StandardCharsets.UTF_8).length + 1;
+            if (bodyBytes > 0 && bodyBytes + keyBytes > budget) {
+                send(body.toString());
+                body.setLength(0);
+                bodyBytes = 0;
+            }
+            if (bodyBytes > 0) {
+                body.append('\n');
+            }
+            body.append(key);
+            bodyBytes += keyBytes;
+        }
+        if (bodyBytes > 0) {
+            send(body.toString());
+        }
+    }
+
+    synchronized void receive(String payload) {
+        try {
+            int headerEnd = payload.indexOf('\n');
+            String[] header = (headerEnd < 0 ? payload : payload.substring(0, headerEnd)).split(" ");
+            String sender = header[0];
+            if (sender.equals(nodeId)) {
+                return;
+            }
+            long seq = Long.parseLong(header[1]);
+            Long previous = lastSequences.put(sender, seq);
+            if (previous != null && seq <= previous) {
+                // Redelivered; the transport does not reorder
+                lastSequences.put(sender, previous);
+                return;
+            }
+            String body = headerEnd < 0 ? "" : payload.substring(headerEnd + 1);
+            if (previous != null && seq != previous + 1) {
+                invalidateAllLocal("sequence gap from node " + sender + ": " + previous + " -> " + seq);
+            } else if (FLUSH_ALL.equals(body)) {
+                invalidateAllLocal("full flush requested by node " + sender);
+            } else {
+                dispatch(body);
+            }
+        } catch (RuntimeException e) {
+            invalidateAllLocal("unreadable message: " + e.getMessage());
+        }
+    }
+
+    public String nodeId() {
+        return nodeId;
+    }
+
+    private void send(String body) {
+        String payload = nodeId + " " + sequence.incrementAndGet() + "\n" + body;
+        try {
+            transport.send(payload);
+            sent.increment();
+        } catch (Exception e) {
+            sendFailures.increment();
+            log.warn("Could not send cache invalidation, other nodes will flush on the gap: {}", e.getMessage());
+        }
+    }
+
+    private void dispatch(String body) {
+        Map<CacheRegion, List<String>> byRegion = new EnumMap<>(CacheRegion.class);
+        for (String line : body.split("\n")) {
+            if (line.isEmpty()) {
+                continue;
+            }
+            int separator = line.indexOf(':');
+            byRegion.computeIfAbsent(CacheRegion.fromCode(line.substring(0, separator)), region -> new ArrayList<>())
+                    .add(line.substring(separator + 1));
+        }
+        listeners.orderedStream().forEach(listener -> {
+            List<String> keys = byRegion.get(listener.region());
+            if (keys != null) {
+                listener.invalidate(keys);
+            }
+        });
+    }
+
+    private void invalidateAllLocal(String reason) {
+        fullFlushes.increment();
+        log.warn("Flushing all local caches: {}", reason);
+        listeners.orderedStream().forEach(CacheInvalidationListener::invalidateAll);
+    }
+}
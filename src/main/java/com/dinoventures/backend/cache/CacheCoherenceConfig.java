@@ -0,0 +1,39 @@
+package com.dinoventures.backend.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Chooses the invalidation transport from {@code app.cache.coherence.transport}:
+ * local (default, single node) or postgres (LISTEN/NOTIFY, for several nodes
+ * sharing one database).
+ */
+@Configuration
+public class CacheCoherenceConfig {
+
+    @Bean
+    @ConditionalOnMissingBean(InvalidationTransport.class)
+    @ConditionalOnProperty(name = "app.cache.coherence.transport", havingValue = "postgres")
+    public InvalidationTransport postgresInvalidationTransport(
+            JdbcTemplate jdbcTemplate,
+            DataSourceProperties dataSourceProperties,
+            @Value("${app.cache.coherence.channel:cache_invalidation}") String channel,
+            @Value("${app.cache.coherence.poll-ms:500}") long pollMs,
+            @Value("${app.cache.coherence.reconnect-delay-ms:1000}") long reconnectDelayMs) {
+        return new PostgresInvalidationTransport(jdbcTemplate, channel, dataSourceProperties.determineUrl(),
+                dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword(),
+                pollMs, reconnectDelayMs);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(InvalidationTransport.class)
+    @ConditionalOnProperty(name = "app.cache.coherence.transport", havingValue = "local", matchIfMissing = true)
+    public InvalidationTransport localInvalidationTransport() {
+        return new LocalInvalidationTransport();
+    }
+}
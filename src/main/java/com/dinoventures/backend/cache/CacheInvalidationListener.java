@@ -0,0 +1,18 @@
+package com.dinoventures.backend.cache;
+
+import java.util.Collection;
+
+/**
+ * A node-local cache that drops entries when another node commits a change to them.
+ */
+public interface CacheInvalidationListener {
+
+    CacheRegion region();
+
+    void invalidate(Collection<String> keys);
+
+    /**
+     * Called when invalidations may have been missed; nothing cached can be trusted.
+     */
+    void invalidateAll();
+}
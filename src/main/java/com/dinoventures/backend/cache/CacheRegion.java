@@ -0,0 +1,37 @@
+package com.dinoventures.backend.cache;
+
+/**
+ * Kinds of cached data kept coherent across nodes, plus the balance changes
+ * relayed to other nodes' balance streams. The code prefixes each key in an
+ * invalidation message, so it must stay short and unique.
+ */
+public enum CacheRegion {
+
+    /** Key: {@code userId:assetCode} */
+    BALANCE("B"),
+    /** Key: user id or email */
+    USER("U"),
+    /** Key: asset code */
+    ASSET("A"),
+    /** Key: {@code userId:balance:version:assetCode}, version {@code -} when unknown */
+    STREAM("S");
+
+    private final String code;
+
+    CacheRegion(String code) {
+        this.code = code;
+    }
+
+    public String code() {
+        return code;
+    }
+
+    public static CacheRegion fromCode(String code) {
+        for (CacheRegion region : values()) {
+            if (region.code.equals(code)) {
+                return region;
+            }
+        }
+        throw new IllegalArgumentException("Unknown cache region: " + code);
+    }
+}
@@ -0,0 +1,25 @@
+package com.dinoventures.backend.cache;
+
+import java.util.function.Consumer;
+
+/**
+ * Broadcasts invalidation messages to every node, including the sender.
+ * Delivery may be lost (the receiver notices the sequence gap) but must not
+ * reorder messages from one sender.
+ */
+public interface InvalidationTransport {
+
+    void send(String payload) throws Exception;
+
+    /**
+     * @param onMessage receives every message broadcast after this call
+     * @param onReset   called when the transport may have dropped messages,
+     *                  e.g. after reconnecting
+     */
+    void listen(Consumer<String> onMessage, Runnable onReset);
+
+    /**
+     * Largest payload the transport accepts, in bytes.
+     */
+    int maxPayloadBytes();
+}
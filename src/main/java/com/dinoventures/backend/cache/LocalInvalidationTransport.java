@@ -0,0 +1,30 @@
+package com.dinoventures.backend.cache;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * In-process stand-in for the database channel: delivers each message
+ * synchronously to every listener of this instance. Enough for a single node,
+ * and for tests that wire several coherence instances to one transport.
+ */
+public class LocalInvalidationTransport implements InvalidationTransport {
+
+    private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void send(String payload) {
+        listeners.forEach(listener -> listener.accept(payload));
+    }
+
+    @Override
+    public void listen(Consumer<String> onMessage, Runnable onReset) {
+        listeners.add(onMessage);
+    }
+
+    @Override
+    public int maxPayloadBytes() {
+        return 7900;
+    }
+}
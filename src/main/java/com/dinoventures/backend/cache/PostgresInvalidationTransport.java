@@ -0,0 +1,111 @@
+package com.dinoventures.backend.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.function.Consumer;
+
+/**
+ * Carries invalidations over PostgreSQL LISTEN/NOTIFY. Messages are sent on a
+ * pooled connection outside any transaction, so they go out at once; the
+ * listener keeps one dedicated connection outside the pool and reconnects
+ * after a failure. Notifications sent while it was disconnected are lost, so
+ * every reconnect is reported as a reset.
+ */
+@Slf4j
+public class PostgresInvalidationTransport implements InvalidationTransport, AutoCloseable {
+
+    // NOTIFY payloads are limited to 8000 bytes
+    private static final int MAX_PAYLOAD_BYTES = 7900;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String channel;
+    private final String url;
+    private final String username;
+    private final String password;
+    private final long pollMs;
+    private final long reconnectDelayMs;
+    private volatile boolean running = true;
+    private Thread listener;
+
+    public PostgresInvalidationTransport(JdbcTemplate jdbcTemplate, String channel, String url, String username,
+                                         String password, long pollMs, long reconnectDelayMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.channel = channel;
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.pollMs = pollMs;
+        this.reconnectDelayMs = reconnectDelayMs;
+    }
+
+    @Override
+    public void send(String payload) {
+        jdbcTemplate.queryForObject("SELECT pg_notify(?, ?)", Object.class, channel, payload);
+    }
+
+    @Override
+    public synchronized void listen(Consumer<String> onMessage, Runnable onReset) {
+        listener = new Thread(() -> receive(onMessage, onReset), "cache-coherence-listener");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    @Override
+    public int maxPayloadBytes() {
+        return MAX_PAYLOAD_BYTES;
+    }
+
+    @Override
+    public synchronized void close() {
+        running = false;
+        if (listener != null) {
+            listener.interrupt();
+        }
+    }
+
+    private void receive(Consumer<String> onMessage, Runnable onReset) {
+        boolean connectedBefore = false;
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(url, username, password)) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + channel);
+                }
+                if (connectedBefore) {
+                    log.info("Cache coherence listener reconnected");
+                    onReset.run();
+                }
+                connectedBefore = true;
+                PGConnection pg = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pg.getNotifications((int) pollMs);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            onMessage.accept(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Cache coherence listener lost its connection, reconnecting: {}", e.getMessage());
+                try {
+                    Thread.sleep(reconnectDelayMs);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            } catch (RuntimeException e) {
+                // Keep listening; the reconnect reports a reset, so nothing stale survives
+                log.error("Cache coherence listener failed to handle a message", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.dinoventures.backend.cluster;
+
+import com.dinoventures.backend.security.JwtTokenProvider;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+/**
+ * Cluster mode: wallet requests are served by the node owning the caller, see
+ * {@link ClusterRouter}. Only the endpoints that read or write the caller's
+ * own wallets are routed; the read API, streams and campaigns are served by
+ * whichever node receives them. Balance streams still see every change, since
+ * changes are relayed to all nodes through the coherence transport.
+ *
+ * Nodes also write wallets they do not own, so cluster mode refuses to start
+ * without a cross-node cache coherence transport; with the local one an
+ * owner's cached balances would never hear of those writes.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.cluster.enabled", havingValue = "true")
+public class ClusterConfig {
+
+    private static final String[] ROUTED_PATHS = {
+            "/wallets/top-up", "/wallets/bonus", "/wallets/spend", "/wallets/batch",
+            "/wallets/balance/*", "/wallets/operations/*"};
+
+    public ClusterConfig(@Value("${app.cache.coherence.transport:local}") String coherenceTransport) {
+        if ("local".equalsIgnoreCase(coherenceTransport.trim())) {
+            throw new IllegalStateException("app.cluster.enabled requires a cross-node cache coherence transport; "
+                    + "set app.cache.coherence.transport=postgres");
+        }
+    }
+
+    @Bean
+    public FilterRegistrationBean<ClusterForwardingFilter> clusterForwardingFilter(
+            ClusterRouter clusterRouter,
+            JwtTokenProvider jwtTokenProvider,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${app.cluster.secret:}") String secret,
+            @Value("${app.cluster.connect-timeout-ms:500}") long connectTimeoutMs,
+            @Value("${app.cluster.request-timeout-ms:5000}") long requestTimeoutMs) {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+
+        FilterRegistrationBean<ClusterForwardingFilter> registration = new FilterRegistrationBean<>(
+                new ClusterForwardingFilter(clusterRouter, jwtTokenProvider, httpClient,
+                        Duration.ofMillis(requestTimeoutMs), secret, objectMapper, meterRegistry));
+        registration.addUrlPatterns(ROUTED_PATHS);
+        // Ahead of the throttling filters: a forwarded request is limited by its owner
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER - 30);
+        return registration;
+    }
+}
@@ -0,0 +1,266 @@
+package com.dinoventures.backend.cluster;
+
+import com.dinoventures.backend.dto.ApiResponse;
+import com.dinoventures.backend.security.JwtTokenProvider;
+import com.dinoventures.backend.wallet.controller.WalletOperationController;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Sends a caller's wallet requests to the node that owns their wallets.
+ *
+ * Runs before the throttling and security filters. The caller is read from the
+ * bearer token; when another node owns them, the request is replayed there
+ * with its headers and body and the owner's response is relayed as it is. The
+ * hop is marked with {@value #FORWARDED_HEADER} (and the shared
+ * {@value #SECRET_HEADER} when one is configured), and a marked request is
+ * always served where it lands, so nodes that briefly disagree on membership
+ * cannot bounce a request between them.
+ *
+ * When the owner cannot be connected to, the request is served locally; it
+ * never reached the owner, and the database stays the source of truth. Once
+ * the request was sent, the owner may be running it, so a timeout answers 504
+ * and any other failure 502 rather than running it a second time here.
+ * Long-polls get their {@code wait} on top of the request timeout.
+ * Requests without a valid token are left to the local security filters.
+ */
+@Slf4j
+public class ClusterForwardingFilter extends OncePerRequestFilter {
+
+    public static final String FORWARDED_HEADER = "X-Cluster-Forwarded-By";
+    public static final String SECRET_HEADER = "X-Cluster-Secret";
+
+    /** Only meaningful for a single hop, or set by the HTTP client itself */
+    private static final Set<String> HOP_HEADERS = Set.of("connection", "content-length", "date", "expect", "from",
+            "host", "keep-alive", "proxy-authenticate", "proxy-authorization", "te", "trailer", "transfer-encoding",
+            "upgrade", "via", "warning");
+
+    private final ClusterRouter clusterRouter;
+    private final JwtTokenProvider jwtTokenProvider;
+    private final HttpClient httpClient;
+    private final Duration requestTimeout;
+    private final byte[] secret;
+    private final ObjectMapper objectMapper;
+    private final Map<String, Counter> routed;
+
+    public ClusterForwardingFilter(ClusterRouter clusterRouter, JwtTokenProvider jwtTokenProvider,
+                                   HttpClient httpClient, Duration requestTimeout, String secret,
+                                   ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.clusterRouter = clusterRouter;
+        this.jwtTokenProvider = jwtTokenProvider;
+        this.httpClient = httpClient;
+        this.requestTimeout = requestTimeout;
+        this.secret = secret.getBytes(StandardCharsets.UTF_8);
+        this.objectMapper = objectMapper;
+        this.routed = Map.of(
+                "local", routed(meterRegistry, "local"),
+                "forwarded", routed(meterRegistry, "forwarded"),
+                "received", routed(meterRegistry, "received"),
+                "fallback", routed(meterRegistry, "fallback"),
+                "failed", routed(meterRegistry, "failed"));
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return HttpMethod.OPTIONS.matches(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (request.getHeader(FORWARDED_HEADER) != null && hasSecret(request)) {
+            routed.get("received").increment();
+            chain.doFilter(request, response);
+            return;
+        }
+
+        String email = jwtTokenProvider.resolveUsername(request);
+        String ownerUrl = email != null ? clusterRouter.ownerUrl(clusterRouter.userIdFor(email)) : null;
+        if (ownerUrl == null) {
+            routed.get("local").increment();
+            chain.doFilter(request, response);
+            return;
+        }
+
+        byte[] body = request.getInputStream().readAllBytes();
+        try {
+            relay(forward(request, body, ownerUrl), response);
+            routed.get("forwarded").increment();
+        } catch (ConnectException | HttpConnectTimeoutException e) {
+            log.warn("Owner node unreachable, serving locally: owner={}, error={}", ownerUrl, e.getMessage());
+            routed.get("fallback").increment();
+            chain.doFilter(new BufferedBodyRequest(request, body), response);
+        } catch (HttpTimeoutException e) {
+            log.warn("Owner node did not answer in time: owner={}, path={}", ownerUrl, request.getRequestURI());
+            routed.get("failed").increment();
+            fail(response, HttpStatus.GATEWAY_TIMEOUT, "The request timed out and may still complete; "
+                    + "retry with the same idempotency key");
+        } catch (IOException e) {
+            log.warn("Forwarding to owner node failed: owner={}, error={}", ownerUrl, e.getMessage());
+            routed.get("failed").increment();
+            fail(response, HttpStatus.BAD_GATEWAY, "The request may not have completed; "
+                    + "retry with the same idempotency key");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServletException("Interrupted while forwarding to " + ownerUrl, e);
+        }
+    }
+
+    private HttpResponse<byte[]> forward(HttpServletRequest request, byte[] body, String ownerUrl)
+            throws IOException, InterruptedException {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        String query = request.getQueryString();
+        URI target = URI.create(ownerUrl + path + (query != null ? "?" + query : ""));
+        HttpRequest.Builder forwarded = HttpRequest.newBuilder(target)
+                .timeout(requestTimeout.plusSeconds(waitSeconds(request)))
+                .method(request.getMethod(), body.length > 0
+                        ? HttpRequest.BodyPublishers.ofByteArray(body)
+                        : HttpRequest.BodyPublishers.noBody());
+        for (String name : Collections.list(request.getHeaderNames())) {
+            if (!isHopHeader(name) && !FORWARDED_HEADER.equalsIgnoreCase(name) && !SECRET_HEADER.equalsIgnoreCase(name)) {
+                for (String value : Collections.list(request.getHeaders(name))) {
+                    forwarded.header(name, value);
+                }
+            }
+        }
+        forwarded.header(FORWARDED_HEADER, clusterRouter.selfId());
+        if (secret.length > 0) {
+            forwarded.header(SECRET_HEADER, new String(secret, StandardCharsets.UTF_8));
+        }
+        return httpClient.send(forwarded.build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    /**
+     * Seconds a long-poll may be held by the owner before it answers.
+     */
+    static long waitSeconds(HttpServletRequest request) {
+        if (!HttpMethod.GET.matches(request.getMethod())) {
+            return 0;
+        }
+        String wait = request.getParameter("wait");
+        try {
+            return wait != null
+                    ? Math.max(0, Math.min(Long.parseLong(wait), WalletOperationController.MAX_WAIT_SECONDS))
+                    : 0;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private void fail(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new ApiResponse<>(status.value(), message));
+    }
+
+    private static void relay(HttpResponse<byte[]> forwarded, HttpServletResponse response) throws IOException {
+        response.setStatus(forwarded.statusCode());
+        forwarded.headers().map().forEach((name, values) -> {
+            if (!isHopHeader(name) && !name.startsWith(":")) {
+                values.forEach(value -> response.addHeader(name, value));
+            }
+        });
+        byte[] body = forwarded.body();
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    private boolean hasSecret(HttpServletRequest request) {
+        if (secret.length == 0) {
+            return true;
+        }
+        String presented = request.getHeader(SECRET_HEADER);
+        return presented != null && MessageDigest.isEqual(secret, presented.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static boolean isHopHeader(String name) {
+        return HOP_HEADERS.contains(name.toLowerCase());
+    }
+
+    private static Counter routed(MeterRegistry meterRegistry, String route) {
+        return Counter.builder("cluster.requests")
+                .description("Wallet requests by where they were served")
+                .tag("route", route)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Replays a body that was already read for forwarding.
+     */
+    private static class BufferedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        BufferedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream input = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public int read() {
+                    return input.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return input.read(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.dinoventures.backend.cluster;
+
+import com.dinoventures.backend.shard.ShardRing;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Consistent-hash ring mapping user ids to cluster nodes.
+ *
+ * A node's points depend only on its id, not on the other members, so a node
+ * joining or leaving moves only the users on its own points. Immutable; a
+ * membership change builds a new ring.
+ */
+public class ClusterRing {
+
+    private final NavigableMap<Long, String> points = new TreeMap<>();
+    private final Map<String, String> members;
+
+    /**
+     * @param members base URL of every node by node id
+     */
+    public ClusterRing(Map<String, String> members, int virtualNodes) {
+        this.members = Collections.unmodifiableMap(new LinkedHashMap<>(members));
+        for (String nodeId : members.keySet()) {
+            long seed = hash(nodeId);
+            for (int node = 0; node < Math.max(1, virtualNodes); node++) {
+                points.putIfAbsent(ShardRing.mix(seed + node), nodeId);
+            }
+        }
+    }
+
+    public Map<String, String> members() {
+        return members;
+    }
+
+    /**
+     * Id of the node owning the user, or null when the ring is empty.
+     */
+    public String ownerOf(long userId) {
+        if (points.isEmpty()) {
+            return null;
+        }
+        Map.Entry<Long, String> point = points.ceilingEntry(ShardRing.mix(userId));
+        return (point != null ? point : points.firstEntry()).getValue();
+    }
+
+    /**
+     * 64-bit FNV-1a of the node id, spread further by the ring's mix.
+     */
+    private static long hash(String nodeId) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : nodeId.getBytes(StandardCharsets.UTF_8)) {
+            hash = (hash ^ (b & 0xff)) * 0x100000001b3L;
+        }
+        return ShardRing.mix(hash);
+    }
+}
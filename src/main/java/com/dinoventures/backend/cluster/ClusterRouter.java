@@ -0,0 +1,160 @@
+package com.dinoventures.backend.cluster;
+
+import com.dinoventures.backend.model.User;
+import com.dinoventures.backend.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Decides which cluster node owns a user's wallets.
+ *
+ * With {@code app.cluster.enabled} the nodes form a consistent-hash ring over
+ * user ids. Members are {@code id=baseUrl} pairs, listed in
+ * {@code app.cluster.nodes} or, one per line, in {@code app.cluster.members-file};
+ * the file is re-read when it changes, so nodes can be added or removed
+ * without a restart. Disabled, every node owns nothing and serves everything.
+ */
+@Component
+@Slf4j
+public class ClusterRouter {
+
+    private final UserRepository userRepository;
+    private final boolean enabled;
+    private final String selfId;
+    private final Path membersFile;
+    private final int virtualNodes;
+    private final int maxCachedUsers;
+    private final Map<String, Long> userIds = new ConcurrentHashMap<>();
+    private volatile ClusterRing ring;
+    private volatile FileTime membersFileModified;
+
+    public ClusterRouter(UserRepository userRepository,
+                         @Value("${app.cluster.enabled:false}") boolean enabled,
+                         @Value("${app.cluster.node-id:node-1}") String selfId,
+                         @Value("${app.cluster.nodes:}") String staticMembers,
+                         @Value("${app.cluster.members-file:}") String membersFile,
+                         @Value("${app.cluster.virtual-nodes:128}") int virtualNodes,
+                         @Value("${app.cluster.user-cache-size:100000}") int maxCachedUsers) {
+        this.userRepository = userRepository;
+        this.enabled = enabled;
+        this.selfId = selfId;
+        this.membersFile = membersFile.isBlank() ? null : Path.of(membersFile);
+        this.virtualNodes = virtualNodes;
+        this.maxCachedUsers = maxCachedUsers;
+        this.ring = new ClusterRing(enabled && this.membersFile == null
+                ? parseMembers(Stream.of(staticMembers.split(","))) : Map.of(), virtualNodes);
+        if (enabled && this.membersFile == null) {
+            log.info("Cluster members configured: self={}, members={}", selfId, ring.members().keySet());
+        }
+        refreshMembers();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String selfId() {
+        return selfId;
+    }
+
+    public ClusterRing ring() {
+        return ring;
+    }
+
+    /**
+     * Whether this node owns the user; false when clustering is off, since then
+     * no node is the only one writing a user's wallets.
+     */
+    public boolean owns(Long userId) {
+        return enabled && userId != null && selfId.equals(ring.ownerOf(userId));
+    }
+
+    /**
+     * Base URL of the node owning the user, or null when this node should serve
+     * the request itself.
+     */
+    public String ownerUrl(Long userId) {
+        if (!enabled || userId == null) {
+            return null;
+        }
+        ClusterRing current = ring;
+        String owner = current.ownerOf(userId);
+        return owner == null || owner.equals(selfId) ? null : current.members().get(owner);
+    }
+
+    /**
+     * Id of the user behind a token subject; ids never change, so they are kept.
+     */
+    public Long userIdFor(String email) {
+        Long cached = userIds.get(email);
+        if (cached != null) {
+            return cached;
+        }
+        Long userId = userRepository.findByEmail(email).map(User::getId).orElse(null);
+        if (userId != null) {
+            if (userIds.size() >= maxCachedUsers) {
+                // Only saves a lookup; forgetting costs one query per user
+                userIds.clear();
+            }
+            userIds.put(email, userId);
+        }
+        return userId;
+    }
+
+    @Scheduled(fixedDelayString = "${app.cluster.members-refresh-ms:5000}")
+    public void refreshMembers() {
+        if (!enabled || membersFile == null) {
+            return;
+        }
+        try {
+            FileTime modified = Files.getLastModifiedTime(membersFile);
+            if (modified.equals(membersFileModified)) {
+                return;
+            }
+            Map<String, String> members;
+            try (Stream<String> lines = Files.lines(membersFile)) {
+                members = parseMembers(lines);
+            }
+            ring = new ClusterRing(members, virtualNodes);
+            membersFileModified = modified;
+            log.info("Cluster members loaded: self={}, members={}", selfId, members.keySet());
+            if (!members.containsKey(selfId)) {
+                log.warn("This node is not a cluster member and forwards every wallet request: self={}", selfId);
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            // Keep the last known membership
+            log.warn("Cluster members file could not be read: path={}, error={}", membersFile, e.getMessage());
+        }
+    }
+
+    /**
+     * Parses {@code id=baseUrl} entries; blank entries and lines starting with
+     * '#' are ignored.
+     */
+    static Map<String, String> parseMembers(Stream<String> entries) {
+        Map<String, String> members = new LinkedHashMap<>();
+        entries.map(String::trim)
+                .filter(entry -> !entry.isEmpty() && !entry.startsWith("#"))
+                .forEach(entry -> {
+                    int separator = entry.indexOf('=');
+                    if (separator <= 0 || separator == entry.length() - 1) {
+                        throw new IllegalArgumentException("Cluster member must be id=baseUrl: " + entry);
+                    }
+                    String url = entry.substring(separator + 1).trim();
+                    members.put(entry.substring(0, separator).trim(),
+                            url.endsWith("/") ? url.substring(0, url.length() - 1) : url);
+                });
+        return members;
+    }
+}
@@ -1,5 +1,6 @@
 package com.dinoventures.backend.config;
 
+import com.dinoventures.backend.datasource.ReadYourWrites;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.cors.CorsConfiguration;
@@ -54,6 +55,8 @@ public class CorsConfig {
             configuration.setAllowedHeaders(Collections.singletonList("*"));
         }
 
+        // Browsers only hand the read-your-writes token to scripts when exposed
+        configuration.addExposedHeader(ReadYourWrites.TOKEN_HEADER);
         configuration.setAllowCredentials(allowCredentials);
         configuration.setMaxAge(maxAge);
 
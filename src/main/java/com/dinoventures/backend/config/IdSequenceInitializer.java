@@ -0,0 +1,99 @@
+package com.dinoventures.backend.config;
+
+import com.dinoventures.backend.model.SchemaMarker;
+import com.dinoventures.backend.repository.SchemaMarkerRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+import java.util.Map;
+
+/**
+ * Moves the id sequences past ids that were assigned by the former IDENTITY
+ * columns, so existing databases keep working after the switch to pooled
+ * sequence allocation.
+ *
+ * Runs once the schema exists but before the web server accepts requests or any
+ * startup loader inserts rows. On PostgreSQL an advisory lock makes nodes
+ * starting together wait for the first one instead of realigning the sequences
+ * under each other's inserts.
+ */
+@Component
+@Slf4j
+public class IdSequenceInitializer implements SmartInitializingSingleton {
+
+    static final String ID_SEQUENCES_MARKER = "id.sequences";
+
+    private static final Map<String, String> SEQUENCES = Map.of(
+            "users", "users_seq",
+            "transactions", "transactions_seq",
+            "budgets", "budgets_seq",
+            "wallets", "wallets_seq",
+            "ledger_entries", "ledger_entries_seq"
+    );
+
+    /** Serializes the realignment across nodes; any constant shared by all nodes will do */
+    private static final long SEQUENCES_LOCK = 0x69647365L;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final SchemaMarkerRepository schemaMarkerRepository;
+    private final boolean postgres;
+
+    public IdSequenceInitializer(JdbcTemplate jdbcTemplate,
+                                 PlatformTransactionManager transactionManager,
+                                 SchemaMarkerRepository schemaMarkerRepository,
+                                 DataSource dataSource) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.schemaMarkerRepository = schemaMarkerRepository;
+        this.postgres = isPostgres(dataSource);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (schemaMarkerRepository.existsById(ID_SEQUENCES_MARKER)) {
+            return;
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            if (postgres) {
+                jdbcTemplate.queryForList("SELECT pg_advisory_xact_lock(?)", SEQUENCES_LOCK);
+                // Another node may have finished while this one waited
+                if (schemaMarkerRepository.existsById(ID_SEQUENCES_MARKER)) {
+                    return;
+                }
+            }
+
+            SEQUENCES.forEach((table, sequence) -> {
+                Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+                if (maxId != null && maxId > 0) {
+                    jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " RESTART WITH " + (maxId + 1));
+                    log.info("Id sequence aligned: sequence={}, nextId={}", sequence, maxId + 1);
+                }
+            });
+
+            schemaMarkerRepository.save(SchemaMarker.builder()
+                    .name(ID_SEQUENCES_MARKER)
+                    .version(1)
+                    .build());
+        });
+    }
+
+    private static boolean isPostgres(DataSource dataSource) {
+        try {
+            String product = JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName);
+            return "PostgreSQL".equals(product);
+        } catch (MetaDataAccessException e) {
+            log.warn("Could not determine database product, id sequences aligned without a lock: {}", e.getMessage());
+            return false;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.dinoventures.backend.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * Per-thread routing hints for {@link ReplicaRoutingDataSource}.
+ *
+ * Read-only transactions are routed automatically. Plain JDBC reads that run
+ * outside a transaction opt in with {@link #readOnly}, which also carries the
+ * caller's read-your-writes requirement over to the executor thread that runs
+ * the query.
+ */
+public final class ReadRoutingContext {
+
+    private static final ThreadLocal<Boolean> PRIMARY_REQUIRED = new ThreadLocal<>();
+    private static final ThreadLocal<Boolean> READ_ONLY = new ThreadLocal<>();
+    private static final ThreadLocal<Boolean> REPLICA_READ = new ThreadLocal<>();
+
+    private ReadRoutingContext() {
+    }
+
+    /**
+     * Sends this thread's reads to the primary, e.g. because the caller has just written.
+     */
+    public static void requirePrimary(boolean required) {
+        if (required) {
+            PRIMARY_REQUIRED.set(Boolean.TRUE);
+        } else {
+            PRIMARY_REQUIRED.remove();
+        }
+    }
+
+    public static boolean isPrimaryRequired() {
+        return Boolean.TRUE.equals(PRIMARY_REQUIRED.get());
+    }
+
+    static boolean isReadOnlyScope() {
+        return Boolean.TRUE.equals(READ_ONLY.get());
+    }
+
+    /**
+     * Whether the last connection this thread obtained came from the replica.
+     * Callers that cache what they read use it to skip possibly stale values.
+     */
+    public static boolean isReplicaRead() {
+        return Boolean.TRUE.equals(REPLICA_READ.get());
+    }
+
+    static void markReplicaRead(boolean replica) {
+        if (replica) {
+            REPLICA_READ.set(Boolean.TRUE);
+        } else {
+            REPLICA_READ.remove();
+        }
+    }
+
+    /**
+     * Wraps a read so it may be served by the replica wherever it runs. Call on
+     * the requesting thread: the primary requirement is captured here.
+     */
+    public static <T> Supplier<T> readOnly(Supplier<T> read) {
+        boolean primary = isPrimaryRequired();
+        return () -> {
+            Boolean outerPrimary = PRIMARY_REQUIRED.get();
+            Boolean outerReadOnly = READ_ONLY.get();
+            requirePrimary(primary);
+            READ_ONLY.set(Boolean.TRUE);
+            try {
+                return read.get();
+            } finally {
+                restore(PRIMARY_REQUIRED, outerPrimary);
+                restore(READ_ONLY, outerReadOnly);
+            }
+        };
+    }
+
+    public static Runnable readOnly(Runnable read) {
+        Supplier<Void> wrapped = readOnly(() -> {
+            read.run();
+            return null;
+        });
+        return wrapped::get;
+    }
+
+    private static void restore(ThreadLocal<Boolean> local, Boolean value) {
+        if (value == null) {
+            local.remove();
+        } else {
+            local.set(value);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.dinoventures.backend.datasource;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Remembers when each user last committed a write, so their reads stay on the
+ * primary until the replica is known to have caught up. Writes made through
+ * another node are covered by the {@value #TOKEN_HEADER} token: the commit time
+ * handed out with every successful write, which clients send back on reads.
+ */
+public class ReadYourWrites {
+
+    public static final String TOKEN_HEADER = "X-Read-After";
+
+    private final Map<String, Long> lastWrites = new ConcurrentHashMap<>();
+    private final ReplicaLagMonitor lagMonitor;
+    private final int maxEntries;
+    private final LongSupplier clock;
+
+    public ReadYourWrites(ReplicaLagMonitor lagMonitor, int maxEntries) {
+        this(lagMonitor, maxEntries, System::currentTimeMillis);
+    }
+
+    ReadYourWrites(ReplicaLagMonitor lagMonitor, int maxEntries, LongSupplier clock) {
+        this.lagMonitor = lagMonitor;
+        this.maxEntries = maxEntries;
+        this.clock = clock;
+    }
+
+    /**
+     * @return the token to hand back to the client
+     */
+    public long recordWrite(String user) {
+        long now = clock.getAsLong();
+        if (lastWrites.size() >= maxEntries) {
+            // Only writers still inside the window are kept, however many there are
+            long window = lagMonitor.readYourWritesWindowMs();
+            lastWrites.values().removeIf(writtenAt -> now - writtenAt >= window);
+        }
+        lastWrites.put(user, now);
+        return now;
+    }
+
+    /**
+     * @param token the client's {@value #TOKEN_HEADER} value, or null
+     */
+    public boolean mustReadPrimary(String user, Long token) {
+        long now = clock.getAsLong();
+        long window = lagMonitor.readYourWritesWindowMs();
+        Long writtenAt = user != null ? lastWrites.get(user) : null;
+        return (writtenAt != null && now - writtenAt < window)
+                || (token != null && now - Math.min(token, now) < window);
+    }
+}
@@ -0,0 +1,50 @@
+package com.dinoventures.backend.datasource;
+
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Stamps successful writes with a {@value ReadYourWrites#TOKEN_HEADER} token.
+ * Runs after the handler returned, so the write has committed, and before the
+ * body is written, while headers can still be set.
+ */
+@ControllerAdvice
+@ConditionalOnExpression(ReplicaRoutingConfig.REPLICA_CONFIGURED)
+public class ReadYourWritesAdvice implements ResponseBodyAdvice<Object> {
+
+    private final ReadYourWrites readYourWrites;
+
+    public ReadYourWritesAdvice(ReadYourWrites readYourWrites) {
+        this.readYourWrites = readYourWrites;
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType contentType,
+                                  Class<? extends HttpMessageConverter<?>> converterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        HttpMethod method = request.getMethod();
+        if (HttpMethod.GET.equals(method) || HttpMethod.HEAD.equals(method) || HttpMethod.OPTIONS.equals(method)) {
+            return body;
+        }
+        String user = ReadYourWritesFilter.currentUser();
+        if (user != null && response instanceof ServletServerHttpResponse servletResponse
+                && servletResponse.getServletResponse().getStatus() < HttpServletResponse.SC_BAD_REQUEST) {
+            response.getHeaders().set(ReadYourWrites.TOKEN_HEADER, String.valueOf(readYourWrites.recordWrite(user)));
+        }
+        return body;
+    }
+}
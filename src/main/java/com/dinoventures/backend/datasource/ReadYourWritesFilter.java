@@ -0,0 +1,56 @@
+package com.dinoventures.backend.datasource;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Keeps a caller's reads on the primary right after their own writes: when
+ * this node saw the caller write recently, or the request carries a recent
+ * {@value ReadYourWrites#TOKEN_HEADER} token. Runs after the security filters,
+ * so the caller is known. Writes are stamped by {@link ReadYourWritesAdvice}.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    private final ReadYourWrites readYourWrites;
+
+    public ReadYourWritesFilter(ReadYourWrites readYourWrites) {
+        this.readYourWrites = readYourWrites;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        ReadRoutingContext.requirePrimary(readYourWrites.mustReadPrimary(currentUser(), token(request)));
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ReadRoutingContext.requirePrimary(false);
+        }
+    }
+
+    static String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.isAuthenticated()
+                && !(authentication instanceof AnonymousAuthenticationToken) ? authentication.getName() : null;
+    }
+
+    private static Long token(HttpServletRequest request) {
+        String value = request.getHeader(ReadYourWrites.TOKEN_HEADER);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
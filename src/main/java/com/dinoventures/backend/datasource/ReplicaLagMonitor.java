@@ -0,0 +1,83 @@
+package com.dinoventures.backend.datasource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+
+/**
+ * Measures how far the replica trails the primary and keeps it out of rotation
+ * while the lag is over the staleness budget or the replica cannot be reached.
+ * Until the first successful check every read goes to the primary.
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+
+    private final JdbcTemplate replica;
+    private final String lagQuery;
+    private final long maxLagMs;
+    private final long checkIntervalMs;
+    private volatile boolean usable;
+    private volatile long lagMs = -1;
+
+    public ReplicaLagMonitor(DataSource replica, String lagQuery, long maxLagMs, long checkIntervalMs,
+                             int queryTimeoutSeconds, MeterRegistry meterRegistry) {
+        this.replica = new JdbcTemplate(replica);
+        this.replica.setQueryTimeout(queryTimeoutSeconds);
+        this.lagQuery = lagQuery;
+        this.maxLagMs = maxLagMs;
+        this.checkIntervalMs = checkIntervalMs;
+        Gauge.builder("datasource.replica.lag", this, monitor -> monitor.lagMs)
+                .description("Replica replay lag in milliseconds; -1 while unreachable")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        Gauge.builder("datasource.replica.usable", this, monitor -> monitor.usable ? 1 : 0)
+                .description("1 while read-only work is routed to the replica")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.replica.check-interval-ms:1000}")
+    public void check() {
+        try {
+            Number lag = replica.queryForObject(lagQuery, Number.class);
+            lagMs = lag != null ? lag.longValue() : 0;
+            setUsable(lagMs <= maxLagMs, "lag " + lagMs + " ms");
+        } catch (RuntimeException e) {
+            lagMs = -1;
+            setUsable(false, e.getMessage());
+        }
+    }
+
+    public boolean isUsable() {
+        return usable;
+    }
+
+    /**
+     * Takes the replica out of rotation until the next successful check.
+     */
+    public void markFailed(String reason) {
+        setUsable(false, reason);
+    }
+
+    /**
+     * How long after a commit a read may still miss it on the replica: the
+     * budget, plus the time until a larger lag would be noticed.
+     */
+    public long readYourWritesWindowMs() {
+        return maxLagMs + checkIntervalMs;
+    }
+
+    private void setUsable(boolean value, String reason) {
+        if (usable != value) {
+            if (value) {
+                log.info("Replica back in rotation: {}", reason);
+            } else {
+                log.warn("Replica out of rotation, reads go to the primary: {}", reason);
+            }
+        }
+        usable = value;
+    }
+}
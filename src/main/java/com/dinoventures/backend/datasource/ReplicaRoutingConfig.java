@@ -0,0 +1,100 @@
+package com.dinoventures.backend.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * Routes read-only work to a replica when {@code app.datasource.replica.url} is
+ * set; without it the auto-configured primary pool is used for everything.
+ *
+ * The primary pool keeps the {@code spring.datasource} settings; the replica
+ * pool takes its Hikari settings from {@code app.datasource.replica.hikari}.
+ */
+@Configuration
+@ConditionalOnExpression(ReplicaRoutingConfig.REPLICA_CONFIGURED)
+public class ReplicaRoutingConfig {
+
+    /**
+     * Sharding brings its own routing data source, so a replica is ignored there.
+     */
+    static final String REPLICA_CONFIGURED = "!'${app.datasource.replica.url:}'.isBlank()"
+            + " and '${app.sharding.urls:}'.isBlank()";
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("app.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(
+            DataSourceProperties properties,
+            @Value("${app.datasource.replica.url}") String url,
+            @Value("${app.datasource.replica.username:${spring.datasource.username:}}") String username,
+            @Value("${app.datasource.replica.password:${spring.datasource.password:}}") String password) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("replica");
+        dataSource.setDriverClassName(properties.determineDriverClassName());
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(username);
+        dataSource.setPassword(password);
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(
+            @Qualifier("replicaDataSource") DataSource replica,
+            MeterRegistry meterRegistry,
+            @Value("${app.datasource.replica.lag-query}") String lagQuery,
+            @Value("${app.datasource.replica.max-lag-ms:1000}") long maxLagMs,
+            @Value("${app.datasource.replica.check-interval-ms:1000}") long checkIntervalMs,
+            @Value("${app.datasource.replica.check-timeout-seconds:1}") int checkTimeoutSeconds) {
+        return new ReplicaLagMonitor(replica, lagQuery, maxLagMs, checkIntervalMs, checkTimeoutSeconds, meterRegistry);
+    }
+
+    /**
+     * The lazy proxy defers the routing decision to the first statement, when the
+     * transaction's read-only flag is set.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                 @Qualifier("replicaDataSource") DataSource replica,
+                                 ReplicaLagMonitor replicaLagMonitor,
+                                 MeterRegistry meterRegistry) {
+        return new LazyConnectionDataSourceProxy(
+                new ReplicaRoutingDataSource(primary, replica, replicaLagMonitor, meterRegistry));
+    }
+
+    @Bean
+    public ReadYourWrites readYourWrites(ReplicaLagMonitor replicaLagMonitor,
+                                         @Value("${app.datasource.replica.read-your-writes.max-users:100000}") int maxUsers) {
+        return new ReadYourWrites(replicaLagMonitor, maxUsers);
+    }
+
+    @Bean
+    public FilterRegistrationBean<ReadYourWritesFilter> readYourWritesFilter(ReadYourWrites readYourWrites) {
+        FilterRegistrationBean<ReadYourWritesFilter> registration =
+                new FilterRegistrationBean<>(new ReadYourWritesFilter(readYourWrites));
+        // After the security filters, which identify the caller
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER + 10);
+        return registration;
+    }
+}
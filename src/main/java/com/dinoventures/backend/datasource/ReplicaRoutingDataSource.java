@@ -0,0 +1,78 @@
+package com.dinoventures.backend.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+
+/**
+ * Sends read-only work to the replica and everything else to the primary. Must
+ * sit behind a LazyConnectionDataSourceProxy, so the decision is taken at the
+ * first statement, once the transaction's read-only flag is known.
+ *
+ * The primary is used instead when the replica is over its staleness budget,
+ * when the caller needs to read its own writes, or when the replica refuses a
+ * connection.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Target {
+        PRIMARY, REPLICA
+    }
+
+    private final DataSource primary;
+    private final ReplicaLagMonitor lagMonitor;
+    private final Counter primaryReads;
+    private final Counter replicaReads;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, ReplicaLagMonitor lagMonitor,
+                                    MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.lagMonitor = lagMonitor;
+        this.primaryReads = readCounter(meterRegistry, Target.PRIMARY);
+        this.replicaReads = readCounter(meterRegistry, Target.REPLICA);
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        try {
+            return super.getConnection();
+        } catch (SQLException e) {
+            if (!ReadRoutingContext.isReplicaRead()) {
+                throw e;
+            }
+            lagMonitor.markFailed(e.getMessage());
+            ReadRoutingContext.markReplicaRead(false);
+            return primary.getConnection();
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        boolean readOnly = TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                || ReadRoutingContext.isReadOnlyScope();
+        boolean replica = readOnly && !ReadRoutingContext.isPrimaryRequired() && lagMonitor.isUsable();
+        ReadRoutingContext.markReplicaRead(replica);
+        if (readOnly) {
+            (replica ? replicaReads : primaryReads).increment();
+        }
+        return replica ? Target.REPLICA : Target.PRIMARY;
+    }
+
+    private static Counter readCounter(MeterRegistry meterRegistry, Target target) {
+        return Counter.builder("datasource.reads")
+                .description("Read-only connections handed out, by the database that served them")
+                .tag("target", target.name().toLowerCase())
+                .register(meterRegistry);
+    }
+}
@@ -4,13 +4,15 @@ import java.math.BigDecimal;
 
 /**
  * Exception thrown when a wallet operation fails due to insufficient balance.
+ * An expected business outcome rather than a fault, so it carries no stack
+ * trace: rejected spends are common and should stay cheap.
  */
 public class InsufficientBalanceException extends RuntimeException {
     private final BigDecimal availableBalance;
     private final BigDecimal requiredAmount;
 
     public InsufficientBalanceException(String message, BigDecimal availableBalance, BigDecimal requiredAmount) {
-        super(message);
+        super(message, null, false, false);
         this.availableBalance = availableBalance;
         this.requiredAmount = requiredAmount;
     }
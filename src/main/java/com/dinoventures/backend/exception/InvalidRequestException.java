@@ -0,0 +1,16 @@
+package com.dinoventures.backend.exception;
+
+/**
+ * Exception thrown when a request is well-formed but cannot be acted on as given.
+ * Without a cause it carries no stack trace, since it reports a business outcome.
+ */
+public class InvalidRequestException extends RuntimeException {
+
+    public InvalidRequestException(String message) {
+        super(message, null, false, false);
+    }
+
+    public InvalidRequestException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
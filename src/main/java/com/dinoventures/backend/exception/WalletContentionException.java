@@ -0,0 +1,13 @@
+package com.dinoventures.backend.exception;
+
+/**
+ * Exception thrown when a wallet operation kept losing lock or serialization
+ * races and gave up. Nothing was applied, so the client may safely retry with
+ * the same idempotency key.
+ */
+public class WalletContentionException extends RuntimeException {
+
+    public WalletContentionException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,31 @@
+package com.dinoventures.backend.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Records which version of a one-off data step has been applied, so startup
+ * jobs can skip work that already ran against this database.
+ */
+@Entity
+@Table(name = "schema_markers")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SchemaMarker {
+
+    @Id
+    @Column(length = 100)
+    private String name;
+
+    @Column(nullable = false)
+    private Integer version;
+
+    @UpdateTimestamp
+    @Column(name = "applied_at")
+    private LocalDateTime appliedAt;
+}
@@ -0,0 +1,9 @@
+package com.dinoventures.backend.repository;
+
+import com.dinoventures.backend.model.SchemaMarker;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface SchemaMarkerRepository extends JpaRepository<SchemaMarker, String> {
+}
@@ -4,10 +4,12 @@ import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
 
 import javax.crypto.SecretKey;
 import java.util.Date;
@@ -16,6 +18,9 @@ import java.util.Date;
 @Slf4j
 public class JwtTokenProvider {
 
+    private static final String USERNAME_ATTRIBUTE = JwtTokenProvider.class.getName() + ".USERNAME";
+    private static final String NO_USERNAME = "";
+
     @Value("${app.jwt.secret}")
     private String jwtSecret;
 
@@ -61,6 +66,27 @@ public class JwtTokenProvider {
         }
     }
 
+    /**
+     * Returns the subject of the request's bearer token, or null when there is no
+     * valid token. The token is parsed once per request; the request throttling
+     * filters and the authentication filter share the result.
+     */
+    public String resolveUsername(HttpServletRequest request) {
+        Object cached = request.getAttribute(USERNAME_ATTRIBUTE);
+        if (cached instanceof String username) {
+            return username.isEmpty() ? null : username;
+        }
+
+        String username = null;
+        String bearerToken = request.getHeader("Authorization");
+        if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
+            // Parsing verifies the signature and expiry, so a subject means a valid token
+            username = getUsernameFromToken(bearerToken.substring(7));
+        }
+        request.setAttribute(USERNAME_ATTRIBUTE, username != null ? username : NO_USERNAME);
+        return username;
+    }
+
     public boolean validateToken(String token) {
         try {
             Jwts.parser()
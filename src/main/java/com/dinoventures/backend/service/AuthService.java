@@ -8,7 +8,6 @@ import com.dinoventures.backend.exception.InvalidCredentialsException;
 import com.dinoventures.backend.model.User;
 import com.dinoventures.backend.repository.UserRepository;
 import com.dinoventures.backend.security.JwtTokenProvider;
-import com.dinoventures.backend.wallet.service.WalletService;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -28,7 +27,6 @@ public class AuthService {
     private final PasswordEncoder passwordEncoder;
     private final JwtTokenProvider jwtTokenProvider;
     private final AuthenticationManager authenticationManager;
-    private final WalletService walletService;
 
     @Transactional
     public AuthResponse register(RegisterRequest request) {
@@ -53,10 +51,6 @@ public class AuthService {
         User savedUser = userRepository.save(user);
         log.info("User registered successfully: {}", savedUser.getId());
 
-        // Auto-initialize wallets for all active assets
-        walletService.initializeUserWallets(savedUser);
-        log.info("Wallets initialized for user: {}", savedUser.getId());
-
         String accessToken = jwtTokenProvider.generateToken(savedUser);
         String refreshToken = jwtTokenProvider.generateRefreshToken(savedUser);
 
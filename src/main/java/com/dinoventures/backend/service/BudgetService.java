@@ -6,6 +6,7 @@ import com.dinoventures.backend.model.Budget;
 import com.dinoventures.backend.model.User;
 import com.dinoventures.backend.repository.BudgetRepository;
 import com.dinoventures.backend.repository.UserRepository;
+import com.dinoventures.backend.shard.ShardKey;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -24,7 +25,7 @@ public class BudgetService {
     private final UserRepository userRepository;
 
     @Transactional
-    public BudgetDTO createBudget(Long userId, BudgetDTO dto) {
+    public BudgetDTO createBudget(@ShardKey Long userId, BudgetDTO dto) {
         log.info("Creating budget for user: {}", userId);
 
         User user = userRepository.findById(userId)
@@ -43,14 +44,14 @@ public class BudgetService {
                 .active(true)
                 .build();
 
-        Budget saved = budgetRepository.save(budget);
+        Budget saved = budgetRepository.saveAndFlush(budget);
         log.info("Budget created successfully: {}", saved.getId());
 
         return mapToDTO(saved);
     }
 
     @Transactional(readOnly = true)
-    public Page<BudgetDTO> getUserBudgets(Long userId, Pageable pageable) {
+    public Page<BudgetDTO> getUserBudgets(@ShardKey Long userId, Pageable pageable) {
         log.info("Fetching budgets for user: {}", userId);
 
         if (!userRepository.existsById(userId)) {
@@ -62,7 +63,7 @@ public class BudgetService {
     }
 
     @Transactional(readOnly = true)
-    public Page<BudgetDTO> getActiveBudgets(Long userId, Pageable pageable) {
+    public Page<BudgetDTO> getActiveBudgets(@ShardKey Long userId, Pageable pageable) {
         log.info("Fetching active budgets for user: {}", userId);
 
         if (!userRepository.existsById(userId)) {
@@ -74,7 +75,7 @@ public class BudgetService {
     }
 
     @Transactional(readOnly = true)
-    public BudgetDTO getBudgetById(Long userId, Long budgetId) {
+    public BudgetDTO getBudgetById(@ShardKey Long userId, Long budgetId) {
         log.info("Fetching budget: {} for user: {}", budgetId, userId);
 
         Budget budget = budgetRepository.findById(budgetId)
@@ -88,7 +89,7 @@ public class BudgetService {
     }
 
     @Transactional
-    public BudgetDTO updateBudget(Long userId, Long budgetId, BudgetDTO dto) {
+    public BudgetDTO updateBudget(@ShardKey Long userId, Long budgetId, BudgetDTO dto) {
         log.info("Updating budget: {} for user: {}", budgetId, userId);
 
         Budget budget = budgetRepository.findById(budgetId)
@@ -110,7 +111,7 @@ public class BudgetService {
     }
 
     @Transactional
-    public void deleteBudget(Long userId, Long budgetId) {
+    public void deleteBudget(@ShardKey Long userId, Long budgetId) {
         log.info("Deleting budget: {} for user: {}", budgetId, userId);
 
         Budget budget = budgetRepository.findById(budgetId)
@@ -6,6 +6,7 @@ import com.dinoventures.backend.model.Transaction;
 import com.dinoventures.backend.model.User;
 import com.dinoventures.backend.repository.TransactionRepository;
 import com.dinoventures.backend.repository.UserRepository;
+import com.dinoventures.backend.shard.ShardKey;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -26,7 +27,7 @@ public class TransactionService {
     private final UserRepository userRepository;
 
     @Transactional
-    public TransactionDTO createTransaction(Long userId, TransactionDTO dto) {
+    public TransactionDTO createTransaction(@ShardKey Long userId, TransactionDTO dto) {
         log.info("Creating transaction for user: {}", userId);
 
         User user = userRepository.findById(userId)
@@ -41,14 +42,14 @@ public class TransactionService {
                 .transactionDate(dto.getTransactionDate() != null ? dto.getTransactionDate() : LocalDateTime.now())
                 .build();
 
-        Transaction saved = transactionRepository.save(transaction);
+        Transaction saved = transactionRepository.saveAndFlush(transaction);
         log.info("Transaction created successfully: {}", saved.getId());
 
         return mapToDTO(saved);
     }
 
     @Transactional(readOnly = true)
-    public Page<TransactionDTO> getUserTransactions(Long userId, Pageable pageable) {
+    public Page<TransactionDTO> getUserTransactions(@ShardKey Long userId, Pageable pageable) {
         log.info("Fetching transactions for user: {}", userId);
 
         if (!userRepository.existsById(userId)) {
@@ -60,7 +61,7 @@ public class TransactionService {
     }
 
     @Transactional(readOnly = true)
-    public Page<TransactionDTO> getUserTransactionsByType(Long userId, String type, Pageable pageable) {
+    public Page<TransactionDTO> getUserTransactionsByType(@ShardKey Long userId, String type, Pageable pageable) {
         log.info("Fetching {} transactions for user: {}", type, userId);
 
         if (!userRepository.existsById(userId)) {
@@ -73,7 +74,7 @@ public class TransactionService {
     }
 
     @Transactional(readOnly = true)
-    public TransactionDTO getTransactionById(Long userId, Long transactionId) {
+    public TransactionDTO getTransactionById(@ShardKey Long userId, Long transactionId) {
         log.info("Fetching transaction: {} for user: {}", transactionId, userId);
 
         Transaction transaction = transactionRepository.findById(transactionId)
@@ -87,7 +88,7 @@ public class TransactionService {
     }
 
     @Transactional
-    public TransactionDTO updateTransaction(Long userId, Long transactionId, TransactionDTO dto) {
+    public TransactionDTO updateTransaction(@ShardKey Long userId, Long transactionId, TransactionDTO dto) {
         log.info("Updating transaction: {} for user: {}", transactionId, userId);
 
         Transaction transaction = transactionRepository.findById(transactionId)
@@ -112,7 +113,7 @@ public class TransactionService {
     }
 
     @Transactional
-    public void deleteTransaction(Long userId, Long transactionId) {
+    public void deleteTransaction(@ShardKey Long userId, Long transactionId) {
         log.info("Deleting transaction: {} for user: {}", transactionId, userId);
 
         Transaction transaction = transactionRepository.findById(transactionId)
@@ -1,5 +1,7 @@
 package com.dinoventures.backend.service;
 
+import com.dinoventures.backend.cache.CacheCoherence;
+import com.dinoventures.backend.cache.CacheRegion;
 import com.dinoventures.backend.dto.UserDTO;
 import com.dinoventures.backend.exception.ResourceNotFoundException;
 import com.dinoventures.backend.model.User;
@@ -9,12 +11,15 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
+
 @Service
 @AllArgsConstructor
 @Slf4j
 public class UserService {
 
     private final UserRepository userRepository;
+    private final CacheCoherence cacheCoherence;
 
     @Transactional(readOnly = true)
     public UserDTO getUserProfile(Long userId) {
@@ -44,6 +49,7 @@ public class UserService {
         }
 
         User updated = userRepository.save(user);
+        cacheCoherence.afterCommit(CacheRegion.USER, userKeys(updated));
         log.info("User profile updated successfully: {}", updated.getId());
 
         return mapToDTO(updated);
@@ -53,14 +59,18 @@ public class UserService {
     public void deleteUser(Long userId) {
         log.info("Deleting user: {}", userId);
 
-        if (!userRepository.existsById(userId)) {
-            throw new ResourceNotFoundException("User not found");
-        }
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
 
-        userRepository.deleteById(userId);
+        userRepository.delete(user);
+        cacheCoherence.afterCommit(CacheRegion.USER, userKeys(user));
         log.info("User deleted successfully: {}", userId);
     }
 
+    private static List<String> userKeys(User user) {
+        return List.of(String.valueOf(user.getId()), user.getEmail());
+    }
+
     private UserDTO mapToDTO(User user) {
         return UserDTO.builder()
                 .id(user.getId())
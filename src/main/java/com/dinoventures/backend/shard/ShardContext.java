@@ -0,0 +1,31 @@
+package com.dinoventures.backend.shard;
+
+/**
+ * The shard the current thread works on, read by {@link ShardRoutingDataSource}
+ * when a connection is opened. Set through {@link ShardRouter}; a thread that
+ * never set one works on the home shard.
+ */
+public final class ShardContext {
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    public static int currentShard() {
+        Integer shard = CURRENT.get();
+        return shard != null ? shard : ShardRouter.HOME_SHARD;
+    }
+
+    static Integer get() {
+        return CURRENT.get();
+    }
+
+    static void set(Integer shard) {
+        if (shard == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(shard);
+        }
+    }
+}
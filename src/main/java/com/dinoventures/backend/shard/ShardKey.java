@@ -0,0 +1,17 @@
+package com.dinoventures.backend.shard;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks the parameter that decides which shard a service call runs on: a user
+ * id or a {@link com.dinoventures.backend.model.User}. With sharding enabled the
+ * call, and any transaction it opens, runs on that user's shard; a null value
+ * leaves the call on the current shard.
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ShardKey {
+}
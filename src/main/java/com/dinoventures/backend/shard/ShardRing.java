@@ -0,0 +1,51 @@
+package com.dinoventures.backend.shard;
+
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Consistent-hash ring mapping user ids to shards.
+ *
+ * Every shard owns {@code virtualNodes} points on the ring, and a user belongs
+ * to the shard owning the first point at or after the hash of their id. A
+ * shard's points depend only on its index, so adding a shard moves only the
+ * users that land on the new shard's points, about 1/N of them.
+ */
+public class ShardRing {
+
+    private final NavigableMap<Long, Integer> points = new TreeMap<>();
+    private final int shards;
+
+    public ShardRing(int shards, int virtualNodes) {
+        this.shards = Math.max(1, shards);
+        for (int shard = 0; shard < this.shards; shard++) {
+            for (int node = 0; node < Math.max(1, virtualNodes); node++) {
+                // Complemented, so point seeds never coincide with small user ids
+                points.putIfAbsent(mix(~(((long) shard << 32) | node)), shard);
+            }
+        }
+    }
+
+    public int size() {
+        return shards;
+    }
+
+    public int shardFor(long key) {
+        if (shards == 1) {
+            return 0;
+        }
+        Map.Entry<Long, Integer> point = points.ceilingEntry(mix(key));
+        return (point != null ? point : points.firstEntry()).getValue();
+    }
+
+    /**
+     * SplitMix64 finalizer: spreads sequential ids evenly over the ring.
+     */
+    public static long mix(long value) {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,207 @@
+package com.dinoventures.backend.shard;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Decides which shard a user's rows live on and runs work there.
+ *
+ * User-owned rows (wallets, ledger entries, transactions, budgets, queued
+ * operations, outbox events) live on the user's shard. Users, assets and bonus
+ * campaigns live on the home shard, shard 0. The other shards keep copies of the
+ * asset rows and of the users they host, with the same ids, so their foreign
+ * keys hold; the copies are written once and never read for anything else.
+ *
+ * Without sharding there is one shard and every call runs in place.
+ */
+@Slf4j
+public class ShardRouter {
+
+    public static final int HOME_SHARD = 0;
+
+    private static final int MAX_KNOWN_USERS = 1_000_000;
+
+    private final ShardRing ring;
+    private final List<DataSource> dataSources;
+    private final List<JdbcTemplate> shards;
+    private final Set<Long> copiedUsers = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param shards one pool per shard, home shard first; used directly, outside
+     *               the routing and any transaction, to copy reference rows
+     */
+    public ShardRouter(ShardRing ring, List<DataSource> shards) {
+        this.ring = ring;
+        this.dataSources = List.copyOf(shards);
+        this.shards = shards.stream().map(JdbcTemplate::new).toList();
+    }
+
+    public static ShardRouter single() {
+        return new ShardRouter(new ShardRing(1, 1), List.of());
+    }
+
+    /**
+     * One pool per shard, home shard first.
+     */
+    public List<DataSource> dataSources() {
+        return dataSources;
+    }
+
+    public boolean isSharded() {
+        return ring.size() > 1;
+    }
+
+    public int shardCount() {
+        return ring.size();
+    }
+
+    public int shardOf(Long userId) {
+        return ring.shardFor(userId);
+    }
+
+    public boolean isOnCurrentShard(Long userId) {
+        return shardOf(userId) == ShardContext.currentShard();
+    }
+
+    public <T> T onShard(int shard, Supplier<T> work) {
+        Integer previous = enter(shard);
+        try {
+            return work.get();
+        } finally {
+            ShardContext.set(previous);
+        }
+    }
+
+    public void onShard(int shard, Runnable work) {
+        onShard(shard, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    /**
+     * Runs work on the user's shard, after making sure the shard knows the user.
+     */
+    public <T> T onShardOf(Long userId, Supplier<T> work) {
+        copyUsers(List.of(userId));
+        return onShard(shardOf(userId), work);
+    }
+
+    public void forEachShard(Runnable work) {
+        for (int shard = 0; shard < shardCount(); shard++) {
+            onShard(shard, work);
+        }
+    }
+
+    public boolean anyShard(BooleanSupplier check) {
+        for (int shard = 0; shard < shardCount(); shard++) {
+            if (onShard(shard, check::getAsBoolean)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Switches the thread to a shard and returns the shard it was on. A
+     * transaction is bound to the connection it opened with, so switching inside
+     * one would silently keep using the old shard; that is refused instead.
+     */
+    Integer enter(int shard) {
+        int current = ShardContext.currentShard();
+        if (current != shard && TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Cannot move from shard " + current + " to shard " + shard
+                    + " inside a transaction");
+        }
+        Integer previous = ShardContext.get();
+        ShardContext.set(shard);
+        return previous;
+    }
+
+    /**
+     * Copies users to the shards that host them, unless this node already did.
+     */
+    public void copyUsers(Collection<Long> userIds) {
+        if (!isSharded()) {
+            return;
+        }
+        Map<Integer, List<Long>> byShard = new TreeMap<>();
+        for (Long userId : userIds) {
+            int shard = shardOf(userId);
+            if (shard != HOME_SHARD && !copiedUsers.contains(userId)) {
+                byShard.computeIfAbsent(shard, key -> new ArrayList<>()).add(userId);
+            }
+        }
+        byShard.forEach((shard, ids) -> copyRows("users", ids, shard));
+        if (copiedUsers.size() >= MAX_KNOWN_USERS) {
+            // Only saves a lookup; forgetting costs one query per user
+            copiedUsers.clear();
+        }
+        byShard.values().forEach(copiedUsers::addAll);
+    }
+
+    /**
+     * Copies home shard rows to every other shard, keeping their ids. Rows a
+     * shard already has are left alone.
+     */
+    public void replicate(String table, Collection<Long> ids) {
+        for (int shard = 1; shard < shardCount(); shard++) {
+            copyRows(table, ids, shard);
+        }
+    }
+
+    private void copyRows(String table, Collection<Long> ids, int shard) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        JdbcTemplate target = shards.get(shard);
+        Set<Long> missing = new HashSet<>(ids);
+        missing.removeAll(target.queryForList("SELECT id FROM " + table + " WHERE id IN (" + placeholders(ids.size()) + ")",
+                Long.class, ids.toArray()));
+        if (missing.isEmpty()) {
+            return;
+        }
+
+        List<Map<String, Object>> rows = shards.get(HOME_SHARD).queryForList(
+                "SELECT * FROM " + table + " WHERE id IN (" + placeholders(missing.size()) + ")", missing.toArray());
+        for (Map<String, Object> row : rows) {
+            String columns = String.join(", ", row.keySet());
+            try {
+                target.update("INSERT INTO " + table + " (" + columns + ") VALUES (" + placeholders(row.size()) + ")",
+                        row.values().toArray());
+            } catch (DuplicateKeyException e) {
+                // Another node copied it first
+            }
+        }
+        log.info("Rows copied to shard: table={}, shard={}, rows={}", table, shard, rows.size());
+    }
+
+    /**
+     * Closes the pools of the extra shards; the home shard's pool is a bean of its own.
+     */
+    public void close() {
+        dataSources.stream().skip(1)
+                .filter(HikariDataSource.class::isInstance)
+                .forEach(dataSource -> ((HikariDataSource) dataSource).close());
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+}
@@ -0,0 +1,61 @@
+package com.dinoventures.backend.shard;
+
+import com.dinoventures.backend.model.User;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Runs service methods with a {@link ShardKey} parameter on that user's shard.
+ * Ordered first, so the shard is chosen before a transaction opens a connection.
+ */
+@Aspect
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ShardRoutingAspect {
+
+    private final ShardRouter shardRouter;
+    private final Map<Method, Integer> keyIndexes = new ConcurrentHashMap<>();
+
+    public ShardRoutingAspect(ShardRouter shardRouter) {
+        this.shardRouter = shardRouter;
+    }
+
+    @Around("execution(* com.dinoventures.backend..*(.., @com.dinoventures.backend.shard.ShardKey (*), ..))")
+    public Object route(ProceedingJoinPoint joinPoint) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        Object key = joinPoint.getArgs()[keyIndexes.computeIfAbsent(method, ShardRoutingAspect::keyIndex)];
+        Long userId = key instanceof User user ? user.getId() : (Long) key;
+        if (userId == null) {
+            return joinPoint.proceed();
+        }
+
+        shardRouter.copyUsers(List.of(userId));
+        Integer previous = shardRouter.enter(shardRouter.shardOf(userId));
+        try {
+            return joinPoint.proceed();
+        } finally {
+            ShardContext.set(previous);
+        }
+    }
+
+    private static int keyIndex(Method method) {
+        Annotation[][] annotations = method.getParameterAnnotations();
+        for (int i = 0; i < annotations.length; i++) {
+            for (Annotation annotation : annotations[i]) {
+                if (annotation instanceof ShardKey) {
+                    return i;
+                }
+            }
+        }
+        throw new IllegalStateException("No @ShardKey parameter on " + method);
+    }
+}
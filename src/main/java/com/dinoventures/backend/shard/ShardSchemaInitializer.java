@@ -0,0 +1,77 @@
+package com.dinoventures.backend.shard;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.hibernate.tool.schema.spi.SchemaManagementToolCoordinator;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+/**
+ * Brings the other shards up to the home shard's schema and gives each shard
+ * its own id range.
+ *
+ * Hibernate applies {@code ddl-auto} to the home shard only; this applies the
+ * same action to every other shard once the context is up. Each shard's id
+ * sequences then start at {@code shard * 2^48}, once per shard, so ids stay
+ * unique across shards and no row has to be renumbered when it moves. A block
+ * of ids fetched from one shard's sequence may be spent on another; it is still
+ * handed out only once.
+ */
+@Slf4j
+public class ShardSchemaInitializer implements Integrator, SmartInitializingSingleton {
+
+    static final long SHARD_ID_SPACE = 1L << 48;
+    static final String ID_RANGE_MARKER = "shard.id-range";
+
+    private final ShardRouter shardRouter;
+    private volatile Metadata metadata;
+    private volatile SessionFactoryImplementor sessionFactory;
+
+    public ShardSchemaInitializer(ShardRouter shardRouter) {
+        this.shardRouter = shardRouter;
+    }
+
+    @Override
+    public void integrate(Metadata metadata, BootstrapContext bootstrapContext, SessionFactoryImplementor sessionFactory) {
+        this.metadata = metadata;
+        this.sessionFactory = sessionFactory;
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        for (int shard = 1; shard < shardRouter.shardCount(); shard++) {
+            shardRouter.onShard(shard, () -> SchemaManagementToolCoordinator.process(metadata,
+                    sessionFactory.getServiceRegistry(), sessionFactory.getProperties(), action -> {
+                    }));
+            assignIdRange(shard);
+        }
+    }
+
+    private void assignIdRange(int shard) {
+        JdbcTemplate jdbc = new JdbcTemplate(shardRouter.dataSources().get(shard));
+        Integer applied = jdbc.queryForObject("SELECT COUNT(*) FROM schema_markers WHERE name = ?",
+                Integer.class, ID_RANGE_MARKER);
+        if (applied != null && applied > 0) {
+            return;
+        }
+
+        long start = shard * SHARD_ID_SPACE + 1;
+        List<String> sequences = jdbc.queryForList("SELECT sequence_name FROM information_schema.sequences "
+                + "WHERE sequence_schema = CURRENT_SCHEMA", String.class);
+        sequences.forEach(sequence -> jdbc.execute("ALTER SEQUENCE " + sequence + " RESTART WITH " + start));
+        jdbc.update("INSERT INTO schema_markers (name, version, applied_at) VALUES (?, 1, CURRENT_TIMESTAMP)",
+                ID_RANGE_MARKER);
+
+        log.info("Shard id range assigned: shard={}, firstId={}, sequences={}", shard, start, sequences.size());
+    }
+}
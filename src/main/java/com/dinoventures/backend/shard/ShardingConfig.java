@@ -0,0 +1,108 @@
+package com.dinoventures.backend.shard;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.hibernate.jpa.boot.spi.JpaSettings;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Shards user-owned data when {@code app.sharding.urls} lists extra databases.
+ *
+ * The {@code spring.datasource} database is shard 0, the home shard; each URL
+ * adds the next shard, with Hikari settings from {@code app.sharding.hikari}.
+ * Without URLs there is one shard and the auto-configured pool is used as before.
+ */
+@Configuration
+public class ShardingConfig {
+
+    public static final String SHARDED = "!'${app.sharding.urls:}'.isBlank()";
+
+    @Bean
+    @ConditionalOnExpression("!(" + SHARDED + ")")
+    public ShardRouter unshardedRouter() {
+        return ShardRouter.single();
+    }
+
+    @Configuration
+    @ConditionalOnExpression(SHARDED)
+    static class Sharded {
+
+        @Bean
+        @ConfigurationProperties("spring.datasource.hikari")
+        public HikariDataSource homeShardDataSource(DataSourceProperties properties) {
+            HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+            dataSource.setPoolName("shard-0");
+            return dataSource;
+        }
+
+        /**
+         * The router owns the pools of the extra shards and closes them on shutdown.
+         */
+        @Bean
+        public ShardRouter shardRouter(
+                @Qualifier("homeShardDataSource") DataSource homeShard,
+                DataSourceProperties properties,
+                Environment environment,
+                @Value("${app.sharding.urls}") String urls,
+                @Value("${app.sharding.username:${spring.datasource.username:}}") String username,
+                @Value("${app.sharding.password:${spring.datasource.password:}}") String password,
+                @Value("${app.sharding.virtual-nodes:256}") int virtualNodes) {
+            List<DataSource> shards = new ArrayList<>();
+            shards.add(homeShard);
+            List<String> extraUrls = Stream.of(urls.split(",")).map(String::trim).filter(url -> !url.isEmpty()).toList();
+            for (String url : extraUrls) {
+                HikariDataSource dataSource = new HikariDataSource();
+                Binder.get(environment).bind("app.sharding.hikari", Bindable.ofInstance(dataSource));
+                dataSource.setPoolName("shard-" + shards.size());
+                dataSource.setDriverClassName(properties.determineDriverClassName());
+                dataSource.setJdbcUrl(url);
+                dataSource.setUsername(username);
+                dataSource.setPassword(password);
+                shards.add(dataSource);
+            }
+            return new ShardRouter(new ShardRing(shards.size(), virtualNodes), shards);
+        }
+
+        @Bean
+        @Primary
+        public DataSource dataSource(ShardRouter shardRouter) {
+            return new ShardRoutingDataSource(shardRouter.dataSources());
+        }
+
+        @Bean
+        public ShardRoutingAspect shardRoutingAspect(ShardRouter shardRouter) {
+            return new ShardRoutingAspect(shardRouter);
+        }
+
+        @Bean
+        public ShardSchemaInitializer shardSchemaInitializer(ShardRouter shardRouter) {
+            return new ShardSchemaInitializer(shardRouter);
+        }
+
+        /**
+         * Hands Hibernate's boot metadata to the initializer, which replays the
+         * schema action on the other shards.
+         */
+        @Bean
+        public HibernatePropertiesCustomizer shardSchemaIntegrator(ShardSchemaInitializer shardSchemaInitializer) {
+            IntegratorProvider integrators = () -> List.of(shardSchemaInitializer);
+            return properties -> properties.put(JpaSettings.INTEGRATOR_PROVIDER, integrators);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.dinoventures.backend.throttle;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrency limit that adapts to measured latency, after the gradient
+ * algorithm of Netflix concurrency-limits.
+ *
+ * Two moving averages of request latency are kept: a long one that tracks the
+ * no-load baseline and a short one that tracks the present. While they agree
+ * the limit grows by about sqrt(limit) per sample; when the short average rises
+ * above the baseline (requests are queueing in the database or the connection
+ * pool) the limit shrinks in proportion. Failed requests cut the limit
+ * multiplicatively. Requests beyond the limit are refused at once, so the work
+ * that is admitted keeps finishing at capacity instead of everything timing out.
+ *
+ * Acquire and release are a CAS on the in-flight counter. Limit updates take a
+ * lock with tryLock and skip the sample when another thread is updating.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final int SHORT_WINDOW = 10;
+    private static final int LONG_WINDOW = 600;
+    private static final double TOLERANCE = 1.5;
+    private static final double SMOOTHING = 0.2;
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final ReentrantLock updateLock = new ReentrantLock();
+
+    private volatile double estimatedLimit;
+    private volatile int limit;
+    private double shortRttNanos;
+    private double longRttNanos;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Limits must satisfy 1 <= min <= max");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.estimatedLimit = Math.max(minLimit, Math.min(initialLimit, maxLimit));
+        this.limit = (int) estimatedLimit;
+    }
+
+    /**
+     * Claims a slot if the number of requests in flight is below the current limit.
+     *
+     * @return false when the request must be shed; nothing has to be released then
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Releases a slot claimed by {@link #tryAcquire()} and feeds its latency into the limit.
+     *
+     * @param dropped true when the request failed in a way that signals overload
+     */
+    public void release(long rttNanos, boolean dropped) {
+        int inFlightBeforeRelease = inFlight.getAndDecrement();
+        if (updateLock.tryLock()) {
+            try {
+                update(rttNanos, inFlightBeforeRelease, dropped);
+            } finally {
+                updateLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Releases a slot without a latency sample, for requests whose duration says
+     * nothing about the protected resource.
+     */
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    private void update(long rttNanos, int inFlightAtSample, boolean dropped) {
+        double current = estimatedLimit;
+        if (dropped) {
+            setLimit(current * BACKOFF_RATIO);
+            return;
+        }
+        if (longRttNanos == 0) {
+            shortRttNanos = rttNanos;
+            longRttNanos = rttNanos;
+            return;
+        }
+        shortRttNanos += (rttNanos - shortRttNanos) / SHORT_WINDOW;
+        longRttNanos += (rttNanos - longRttNanos) / LONG_WINDOW;
+
+        // After a sustained slowdown let the baseline recover faster, otherwise the
+        // limit stays depressed long after latency has settled at a new normal
+        if (longRttNanos / shortRttNanos > 2) {
+            longRttNanos *= 0.95;
+        }
+
+        // Only grow when the limit is actually being used
+        if (inFlightAtSample < current / 2) {
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRttNanos / shortRttNanos));
+        double queueSize = Math.sqrt(current);
+        double target = current * gradient + queueSize;
+        setLimit(current * (1 - SMOOTHING) + target * SMOOTHING);
+    }
+
+    private void setLimit(double newLimit) {
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+        limit = (int) estimatedLimit;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Short-term latency average in milliseconds, 0 before the first sample.
+     */
+    public double getShortRttMillis() {
+        return shortRttNanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,91 @@
+package com.dinoventures.backend.throttle;
+
+import com.dinoventures.backend.dto.ApiResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Sheds wallet and transaction requests beyond the adaptive concurrency limit
+ * with 503 and Retry-After. GET and HEAD requests count against the read
+ * limiter, everything else against the write limiter, so slow writes cannot
+ * starve balance reads and the other way round.
+ *
+ * Runs ahead of the security filters, which already query the database to load
+ * the caller. Requests that go asynchronous give their slot back as soon as the
+ * handler returns: their remaining work is bounded by its own executor, and a
+ * long-poll duration says nothing about database latency.
+ */
+@Slf4j
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private final AdaptiveConcurrencyLimiter readLimiter;
+    private final AdaptiveConcurrencyLimiter writeLimiter;
+    private final Counter readRejections;
+    private final Counter writeRejections;
+    private final ObjectMapper objectMapper;
+    private final String retryAfterSeconds;
+
+    public ConcurrencyLimitFilter(AdaptiveConcurrencyLimiter readLimiter, AdaptiveConcurrencyLimiter writeLimiter,
+                                  Counter readRejections, Counter writeRejections,
+                                  ObjectMapper objectMapper, int retryAfterSeconds) {
+        this.readLimiter = readLimiter;
+        this.writeLimiter = writeLimiter;
+        this.readRejections = readRejections;
+        this.writeRejections = writeRejections;
+        this.objectMapper = objectMapper;
+        this.retryAfterSeconds = String.valueOf(retryAfterSeconds);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return HttpMethod.OPTIONS.matches(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        boolean read = HttpMethod.GET.matches(request.getMethod()) || HttpMethod.HEAD.matches(request.getMethod());
+        AdaptiveConcurrencyLimiter limiter = read ? readLimiter : writeLimiter;
+
+        if (!limiter.tryAcquire()) {
+            (read ? readRejections : writeRejections).increment();
+            log.debug("Shedding {} {}: {} in flight, limit {}", request.getMethod(), request.getRequestURI(),
+                    limiter.getInFlight(), limiter.getLimit());
+            reject(response);
+            return;
+        }
+
+        long start = System.nanoTime();
+        boolean dropped = true;
+        try {
+            chain.doFilter(request, response);
+            dropped = response.getStatus() >= HttpStatus.INTERNAL_SERVER_ERROR.value();
+        } finally {
+            if (request.isAsyncStarted()) {
+                limiter.release();
+            } else {
+                limiter.release(System.nanoTime() - start, dropped);
+            }
+        }
+    }
+
+    private void reject(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new ApiResponse<>(
+                HttpStatus.SERVICE_UNAVAILABLE.value(), "Server is busy. Please retry shortly."));
+    }
+}
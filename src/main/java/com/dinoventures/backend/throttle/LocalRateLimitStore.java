@@ -0,0 +1,146 @@
+package com.dinoventures.backend.throttle;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * In-process token buckets in a fixed-size, lock-free hash table.
+ *
+ * Each slot is two longs: a 64-bit fingerprint of (subject, policy) and the
+ * bucket state, with the last refill time in the upper 40 bits and the tokens
+ * left, in thousandths, in the lower 24. A check hashes the subject in place,
+ * probes a few slots and updates the state with one CAS, so it allocates
+ * nothing and never blocks.
+ *
+ * Memory is bounded by the slot count. A subject without a bucket anywhere in
+ * its probe window takes an empty slot or one idle past the timeout there, and
+ * failing that evicts the least
+ * recently refilled bucket there, which only ever errs towards letting a
+ * request through. Fingerprints stand in for keys, so two subjects share a
+ * bucket only on a 64-bit hash collision.
+ */
+public class LocalRateLimitStore implements RateLimitStore {
+
+    private static final int PROBES = 8;
+    private static final int TOKEN_BITS = 24;
+    private static final long TOKEN_MASK = (1L << TOKEN_BITS) - 1;
+    private static final long TOKEN_SCALE = 1000;
+    private static final long MAX_CAPACITY = TOKEN_MASK / TOKEN_SCALE;
+    private static final long EMPTY = 0;
+
+    private final AtomicLongArray fingerprints;
+    private final AtomicLongArray states;
+    private final int mask;
+    private final long idleTimeoutMillis;
+    private final long startNanos = System.nanoTime();
+
+    public LocalRateLimitStore(int slots, long idleTimeoutMillis) {
+        int size = Integer.highestOneBit(Math.max(PROBES, slots - 1)) << 1;
+        this.fingerprints = new AtomicLongArray(size);
+        this.states = new AtomicLongArray(size);
+        this.mask = size - 1;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+    }
+
+    @Override
+    public long tryConsume(CharSequence subject, RateLimitPolicy policy) {
+        if (policy.capacity() > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Rate limit capacity above " + MAX_CAPACITY + " is not supported");
+        }
+        long fingerprint = fingerprint(subject, policy.id());
+        long now = nowMillis();
+        int home = (int) fingerprint & mask;
+
+        for (int attempt = 0; attempt < PROBES; attempt++) {
+            // The whole window is searched for this bucket before any slot is
+            // claimed, or a free slot ahead of it would orphan it and reset the limit
+            int free = -1;
+            long freeFingerprint = EMPTY;
+            int victim = -1;
+            long victimFingerprint = EMPTY;
+            long oldestRefill = Long.MAX_VALUE;
+            for (int probe = 0; probe < PROBES; probe++) {
+                int slot = (home + probe) & mask;
+                long current = fingerprints.get(slot);
+                if (current == fingerprint) {
+                    return consume(slot, policy, now);
+                }
+                if (free >= 0) {
+                    continue;
+                }
+                long lastRefill = states.get(slot) >>> TOKEN_BITS;
+                if (current == EMPTY || now - lastRefill > idleTimeoutMillis) {
+                    free = slot;
+                    freeFingerprint = current;
+                } else if (lastRefill < oldestRefill) {
+                    oldestRefill = lastRefill;
+                    victim = slot;
+                    victimFingerprint = current;
+                }
+            }
+
+            int slot = free >= 0 ? free : victim;
+            long expected = free >= 0 ? freeFingerprint : victimFingerprint;
+            if (slot >= 0 && claim(slot, expected, fingerprint, policy, now)) {
+                return consume(slot, policy, now);
+            }
+            // Lost the slot to another caller, possibly one claiming this same bucket; search again
+        }
+        // Lost every race for a slot; admit rather than fail closed
+        return 0;
+    }
+
+    private boolean claim(int slot, long expected, long fingerprint, RateLimitPolicy policy, long now) {
+        if (!fingerprints.compareAndSet(slot, expected, fingerprint)) {
+            return false;
+        }
+        states.set(slot, pack(now, policy.capacity() * TOKEN_SCALE));
+        return true;
+    }
+
+    private long consume(int slot, RateLimitPolicy policy, long now) {
+        long capacity = policy.capacity() * TOKEN_SCALE;
+        while (true) {
+            long state = states.get(slot);
+            long lastRefill = state >>> TOKEN_BITS;
+            long elapsed = Math.max(0, now - lastRefill);
+            // refillPerSecond tokens per second is the same number of thousandths per millisecond
+            long tokens = Math.min(capacity, (state & TOKEN_MASK) + elapsed * policy.refillPerSecond());
+            if (tokens < TOKEN_SCALE) {
+                return Math.max(1, (TOKEN_SCALE - tokens + policy.refillPerSecond() - 1) / policy.refillPerSecond());
+            }
+            if (states.compareAndSet(slot, state, pack(Math.max(now, lastRefill), tokens - TOKEN_SCALE))) {
+                return 0;
+            }
+        }
+    }
+
+    private long nowMillis() {
+        // Offset by one so a claimed slot is never mistaken for an idle one at time zero
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos) + 1;
+    }
+
+    private static long pack(long refillMillis, long tokens) {
+        return (refillMillis << TOKEN_BITS) | tokens;
+    }
+
+    /**
+     * FNV-1a over the subject's characters and the policy id, finished with the
+     * MurmurHash3 mixer so that nearby keys spread across the table.
+     */
+    static long fingerprint(CharSequence subject, int policyId) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < subject.length(); i++) {
+            hash ^= subject.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= policyId;
+        hash *= 0x100000001b3L;
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash == EMPTY ? 1 : hash;
+    }
+}
@@ -0,0 +1,107 @@
+package com.dinoventures.backend.throttle;
+
+import com.dinoventures.backend.dto.ApiResponse;
+import com.dinoventures.backend.security.JwtTokenProvider;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Per-caller token bucket limits, checked before the request takes a
+ * concurrency slot or touches the database. Callers are identified by the
+ * subject of their bearer token, or by address when they have none. Spending
+ * has its own, tighter bucket, since every spend locks the caller's wallet;
+ * other writes and reads each share one bucket per caller.
+ *
+ * Requests over the limit get 429 with the seconds until the next token in
+ * Retry-After.
+ */
+@Slf4j
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final String SPEND_PATH = "/wallets/spend";
+
+    private final RateLimitStore store;
+    private final JwtTokenProvider jwtTokenProvider;
+    private final RateLimitPolicy readPolicy;
+    private final RateLimitPolicy writePolicy;
+    private final RateLimitPolicy spendPolicy;
+    private final Map<String, Counter> rejections;
+    private final ObjectMapper objectMapper;
+
+    public RateLimitFilter(RateLimitStore store, JwtTokenProvider jwtTokenProvider,
+                           RateLimitPolicy readPolicy, RateLimitPolicy writePolicy, RateLimitPolicy spendPolicy,
+                           Map<String, Counter> rejections, ObjectMapper objectMapper) {
+        this.store = store;
+        this.jwtTokenProvider = jwtTokenProvider;
+        this.readPolicy = readPolicy;
+        this.writePolicy = writePolicy;
+        this.spendPolicy = spendPolicy;
+        this.rejections = rejections;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return HttpMethod.OPTIONS.matches(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String subject = jwtTokenProvider.resolveUsername(request);
+        if (subject == null) {
+            subject = request.getRemoteAddr();
+        }
+        RateLimitPolicy policy = policyFor(request);
+
+        long waitMillis = store.tryConsume(subject, policy);
+        if (waitMillis > 0) {
+            rejections.get(policy.name()).increment();
+            log.debug("Rate limit {} exceeded by {}", policy.name(), subject);
+            reject(response, waitMillis);
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+
+    private RateLimitPolicy policyFor(HttpServletRequest request) {
+        String method = request.getMethod();
+        if (HttpMethod.GET.matches(method) || HttpMethod.HEAD.matches(method)) {
+            return readPolicy;
+        }
+        if (HttpMethod.POST.matches(method) && isPath(request, SPEND_PATH)) {
+            return spendPolicy;
+        }
+        return writePolicy;
+    }
+
+    /**
+     * Compares the path below the context path without building a substring.
+     */
+    private static boolean isPath(HttpServletRequest request, String path) {
+        String uri = request.getRequestURI();
+        int offset = request.getContextPath().length();
+        return uri.length() == offset + path.length() && uri.startsWith(path, offset);
+    }
+
+    private void reject(HttpServletResponse response, long waitMillis) throws IOException {
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf((waitMillis + 999) / 1000));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new ApiResponse<>(
+                HttpStatus.TOO_MANY_REQUESTS.value(), "Too many requests. Please slow down."));
+    }
+}
@@ -0,0 +1,27 @@
+package com.dinoventures.backend.throttle;
+
+/**
+ * Token bucket parameters for one class of endpoint. Every caller gets its own
+ * bucket per policy, holding up to {@code capacity} requests and refilling at
+ * {@code refillPerSecond}.
+ *
+ * @param id small number distinguishing the policy inside bucket keys
+ */
+public record RateLimitPolicy(String name, int id, int capacity, int refillPerSecond) {
+
+    public RateLimitPolicy {
+        if (capacity < 1 || refillPerSecond < 1) {
+            throw new IllegalArgumentException("Rate limit policy " + name + " needs a positive capacity and refill rate");
+        }
+    }
+
+    /**
+     * The same policy with its budget split evenly across the given number of nodes.
+     */
+    public RateLimitPolicy perNode(int nodes) {
+        if (nodes <= 1) {
+            return this;
+        }
+        return new RateLimitPolicy(name, id, Math.max(1, capacity / nodes), Math.max(1, refillPerSecond / nodes));
+    }
+}
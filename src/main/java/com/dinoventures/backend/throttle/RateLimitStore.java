@@ -0,0 +1,16 @@
+package com.dinoventures.backend.throttle;
+
+/**
+ * Holds the token buckets behind request rate limiting. The in-process
+ * {@link LocalRateLimitStore} is used unless another implementation is
+ * registered as a bean, for example one backed by a store shared by all nodes.
+ */
+public interface RateLimitStore {
+
+    /**
+     * Takes one token from the subject's bucket for the policy.
+     *
+     * @return 0 when the request may proceed, otherwise the milliseconds until a token is available
+     */
+    long tryConsume(CharSequence subject, RateLimitPolicy policy);
+}
@@ -0,0 +1,130 @@
+package com.dinoventures.backend.throttle;
+
+import com.dinoventures.backend.security.JwtTokenProvider;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Map;
+
+/**
+ * Registers request throttling for the wallet and transaction APIs. Health and
+ * actuator endpoints are outside the filtered paths and are never shed.
+ */
+@Configuration
+public class ThrottleConfig {
+
+    private static final String[] THROTTLED_PATHS = {"/wallets/*", "/transactions/*"};
+
+    @Bean
+    @ConditionalOnProperty(name = "app.throttle.concurrency.enabled", havingValue = "true", matchIfMissing = true)
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(
+            MeterRegistry meterRegistry,
+            ObjectMapper objectMapper,
+            @Value("${app.throttle.concurrency.retry-after-seconds:1}") int retryAfterSeconds,
+            @Value("${app.throttle.concurrency.read.initial-limit:50}") int readInitial,
+            @Value("${app.throttle.concurrency.read.min-limit:10}") int readMin,
+            @Value("${app.throttle.concurrency.read.max-limit:500}") int readMax,
+            @Value("${app.throttle.concurrency.write.initial-limit:20}") int writeInitial,
+            @Value("${app.throttle.concurrency.write.min-limit:4}") int writeMin,
+            @Value("${app.throttle.concurrency.write.max-limit:100}") int writeMax) {
+        AdaptiveConcurrencyLimiter readLimiter = new AdaptiveConcurrencyLimiter(readInitial, readMin, readMax);
+        AdaptiveConcurrencyLimiter writeLimiter = new AdaptiveConcurrencyLimiter(writeInitial, writeMin, writeMax);
+
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(readLimiter, writeLimiter,
+                rejections(meterRegistry, "read"), rejections(meterRegistry, "write"),
+                objectMapper, retryAfterSeconds);
+        registerGauges(meterRegistry, "read", readLimiter);
+        registerGauges(meterRegistry, "write", writeLimiter);
+
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.addUrlPatterns(THROTTLED_PATHS);
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER - 10);
+        return registration;
+    }
+
+    /**
+     * In-process buckets. With several nodes each one enforces its share of the
+     * limits (see cluster-nodes) unless a shared {@link RateLimitStore} bean is
+     * provided instead.
+     */
+    @Bean
+    @ConditionalOnMissingBean(RateLimitStore.class)
+    public RateLimitStore localRateLimitStore(
+            @Value("${app.throttle.rate.slots:65536}") int slots,
+            @Value("${app.throttle.rate.idle-timeout-ms:600000}") long idleTimeoutMs) {
+        return new LocalRateLimitStore(slots, idleTimeoutMs);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.throttle.rate.enabled", havingValue = "true", matchIfMissing = true)
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilter(
+            RateLimitStore rateLimitStore,
+            JwtTokenProvider jwtTokenProvider,
+            MeterRegistry meterRegistry,
+            ObjectMapper objectMapper,
+            @Value("${app.throttle.rate.cluster-nodes:1}") int clusterNodes,
+            @Value("${app.throttle.rate.read.capacity:100}") int readCapacity,
+            @Value("${app.throttle.rate.read.refill-per-second:50}") int readRefill,
+            @Value("${app.throttle.rate.write.capacity:30}") int writeCapacity,
+            @Value("${app.throttle.rate.write.refill-per-second:10}") int writeRefill,
+            @Value("${app.throttle.rate.spend.capacity:10}") int spendCapacity,
+            @Value("${app.throttle.rate.spend.refill-per-second:5}") int spendRefill) {
+        // A shared store enforces the whole budget itself; only local buckets are split per node
+        int nodes = rateLimitStore instanceof LocalRateLimitStore ? clusterNodes : 1;
+        RateLimitPolicy read = new RateLimitPolicy("read", 1, readCapacity, readRefill).perNode(nodes);
+        RateLimitPolicy write = new RateLimitPolicy("write", 2, writeCapacity, writeRefill).perNode(nodes);
+        RateLimitPolicy spend = new RateLimitPolicy("spend", 3, spendCapacity, spendRefill).perNode(nodes);
+
+        Map<String, Counter> rejections = Map.of(
+                read.name(), rateLimited(meterRegistry, read.name()),
+                write.name(), rateLimited(meterRegistry, write.name()),
+                spend.name(), rateLimited(meterRegistry, spend.name()));
+
+        FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(new RateLimitFilter(
+                rateLimitStore, jwtTokenProvider, read, write, spend, rejections, objectMapper));
+        registration.addUrlPatterns(THROTTLED_PATHS);
+        // Ahead of the concurrency limiter, so a flooding caller never holds a slot
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER - 20);
+        return registration;
+    }
+
+    private static Counter rateLimited(MeterRegistry meterRegistry, String policy) {
+        return Counter.builder("http.ratelimit.rejected")
+                .description("Requests refused by per-caller rate limits")
+                .tag("policy", policy)
+                .register(meterRegistry);
+    }
+
+    private static Counter rejections(MeterRegistry meterRegistry, String requestClass) {
+        return Counter.builder("http.concurrency.rejected")
+                .description("Requests shed by the adaptive concurrency limiter")
+                .tag("class", requestClass)
+                .register(meterRegistry);
+    }
+
+    private static void registerGauges(MeterRegistry meterRegistry, String requestClass,
+                                       AdaptiveConcurrencyLimiter limiter) {
+        Gauge.builder("http.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Current adaptive concurrency limit")
+                .tag("class", requestClass)
+                .register(meterRegistry);
+        Gauge.builder("http.concurrency.inflight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                .description("Requests currently admitted by the limiter")
+                .tag("class", requestClass)
+                .register(meterRegistry);
+        Gauge.builder("http.concurrency.latency", limiter, AdaptiveConcurrencyLimiter::getShortRttMillis)
+                .description("Short-term average latency of admitted requests")
+                .tag("class", requestClass)
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+}
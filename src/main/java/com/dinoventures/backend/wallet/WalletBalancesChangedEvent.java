@@ -0,0 +1,22 @@
+package com.dinoventures.backend.wallet;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Published inside a transaction that changed user wallet balances. Listeners
+ * bound to the commit phase see only changes that were actually committed.
+ *
+ * @param changes         new balances of the user wallets involved
+ * @param idempotencyKeys keys of the ledger entries the transaction wrote
+ */
+public record WalletBalancesChangedEvent(List<BalanceChange> changes, Collection<String> idempotencyKeys) {
+
+    /**
+     * @param version wallet version matching {@code balance}, or null when the
+     *                writer updated the row without reading it back
+     */
+    public record BalanceChange(Long userId, String assetCode, BigDecimal balance, Long version) {
+    }
+}
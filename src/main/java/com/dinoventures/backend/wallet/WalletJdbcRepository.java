@@ -0,0 +1,101 @@
+package com.dinoventures.backend.wallet;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Set-based wallet statements for bulk operations. These run inside the caller's
+ * transaction and bypass the persistence context, so they bump the version and
+ * updated_at columns themselves.
+ */
+@Repository
+@RequiredArgsConstructor
+public class WalletJdbcRepository {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * Creates the missing asset wallets of the given users in one statement.
+     * Ids that do not belong to a user are ignored.
+     */
+    public int insertUserWalletsIfAbsent(Long assetId, Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return 0;
+        }
+        String sql = "INSERT INTO wallets (id, user_id, asset_id, balance, is_system_wallet, created_at, updated_at, version) " +
+                "SELECT nextval('wallets_seq'), u.id, :assetId, 0, false, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, 0 FROM users u " +
+                "WHERE u.id IN (:userIds) " +
+                "AND NOT EXISTS (SELECT 1 FROM wallets w WHERE w.user_id = u.id AND w.asset_id = :assetId) " +
+                "ON CONFLICT DO NOTHING";
+        return jdbcTemplate.update(sql, new MapSqlParameterSource()
+                .addValue("assetId", assetId)
+                .addValue("userIds", userIds));
+    }
+
+    /**
+     * Resolves the user and system wallets of one asset without locking them,
+     * so callers can lock wallets of several assets in a single id-ordered statement.
+     */
+    public List<WalletRef> findWalletRefs(Long assetId, Collection<Long> userIds, Collection<String> systemWalletIds) {
+        if (userIds.isEmpty() && systemWalletIds.isEmpty()) {
+            return List.of();
+        }
+        String sql = "SELECT id, user_id, system_wallet_id FROM wallets WHERE asset_id = :assetId " +
+                "AND (user_id IN (:userIds) OR system_wallet_id IN (:systemWalletIds))";
+        return jdbcTemplate.query(sql, new MapSqlParameterSource()
+                        .addValue("assetId", assetId)
+                        .addValue("userIds", userIds.isEmpty() ? List.of(-1L) : userIds)
+                        .addValue("systemWalletIds", systemWalletIds.isEmpty() ? List.of("") : systemWalletIds),
+                (rs, rowNum) -> new WalletRef(rs.getLong("id"), assetId,
+                        rs.getObject("user_id", Long.class), rs.getString("system_wallet_id")));
+    }
+
+    /**
+     * Locks wallets in id order, the order of {@code WalletLocks}, and returns their current balances.
+     */
+    public Map<Long, BigDecimal> lockWallets(Collection<Long> walletIds) {
+        Map<Long, BigDecimal> balances = new LinkedHashMap<>();
+        if (walletIds.isEmpty()) {
+            return balances;
+        }
+        jdbcTemplate.query("SELECT id, balance FROM wallets WHERE id IN (:ids) ORDER BY id FOR UPDATE",
+                new MapSqlParameterSource("ids", walletIds),
+                rs -> {
+                    balances.put(rs.getLong("id"), rs.getBigDecimal("balance"));
+                });
+        return balances;
+    }
+
+    /**
+     * Adds the given amounts, negative for debits, to wallets in a single JDBC batch.
+     * Callers must hold the wallet locks and have checked that no balance goes negative.
+     */
+    public void adjustBalances(Map<Long, BigDecimal> amountsByWalletId) {
+        if (amountsByWalletId.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        SqlParameterSource[] batch = amountsByWalletId.entrySet().stream()
+                .map(entry -> new MapSqlParameterSource()
+                        .addValue("id", entry.getKey())
+                        .addValue("amount", entry.getValue())
+                        .addValue("now", now))
+                .toArray(SqlParameterSource[]::new);
+        jdbcTemplate.batchUpdate("UPDATE wallets SET balance = balance + :amount, version = version + 1, updated_at = :now " +
+                "WHERE id = :id", batch);
+    }
+
+    public record WalletRef(Long id, Long assetId, Long userId, String systemWalletId) {
+    }
+}
@@ -4,11 +4,15 @@ import com.dinoventures.backend.model.User;
 import com.dinoventures.backend.wallet.asset.Asset;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import jakarta.persistence.LockModeType;
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,15 +23,51 @@ public interface WalletRepository extends JpaRepository<Wallet, Long> {
     @Query("SELECT w FROM Wallet w WHERE w.id = :id")
     Optional<Wallet> findByIdForUpdate(@Param("id") Long id);
 
+    /**
+     * Locks several wallets in one statement. Rows are locked in the order they are
+     * returned, so the ORDER BY is what keeps concurrent callers deadlock-free.
+     */
     @Lock(LockModeType.PESSIMISTIC_WRITE)
-    @Query("SELECT w FROM Wallet w WHERE w.user = :user AND w.asset = :asset")
-    Optional<Wallet> findUserWalletForUpdate(@Param("user") User user, @Param("asset") Asset asset);
+    @Query("SELECT w FROM Wallet w WHERE w.id IN :ids ORDER BY w.id")
+    List<Wallet> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Claims a shard of a system wallet that covers {@code minBalance}, skipping shards
+     * other transactions hold; empty when every such shard is taken or none covers it.
+     */
+    @Query(value = "SELECT * FROM wallets WHERE asset_id = :assetId AND system_wallet_id IN (:shardIds) " +
+            "AND balance >= :minBalance ORDER BY id LIMIT 1 FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    Optional<Wallet> claimFreeSystemWalletShard(@Param("assetId") Long assetId, @Param("shardIds") Collection<String> shardIds,
+                                                @Param("minBalance") BigDecimal minBalance);
+
+    @Query("SELECT w.id FROM Wallet w WHERE w.user = :user AND w.asset = :asset")
+    Optional<Long> findUserWalletId(@Param("user") User user, @Param("asset") Asset asset);
+
+    @Query("SELECT w.id FROM Wallet w WHERE w.systemWalletId = :systemWalletId AND w.asset = :asset")
+    Optional<Long> findSystemWalletId(@Param("systemWalletId") String systemWalletId, @Param("asset") Asset asset);
 
     Optional<Wallet> findByUserAndAsset(User user, Asset asset);
 
-    @Lock(LockModeType.PESSIMISTIC_WRITE)
-    @Query("SELECT w FROM Wallet w WHERE w.systemWalletId = :systemWalletId AND w.asset = :asset")
-    Optional<Wallet> findSystemWalletForUpdate(@Param("systemWalletId") String systemWalletId, @Param("asset") Asset asset);
+    /**
+     * Creates an empty user wallet unless one already exists for the user and asset.
+     * Safe to race: concurrent first credits converge on the same row.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO wallets (id, user_id, asset_id, balance, is_system_wallet, created_at, updated_at, version) " +
+            "VALUES (nextval('wallets_seq'), :userId, :assetId, 0, false, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, 0) " +
+            "ON CONFLICT DO NOTHING", nativeQuery = true)
+    int insertUserWalletIfAbsent(@Param("userId") Long userId, @Param("assetId") Long assetId);
+
+    /**
+     * Set-based seeding: one statement creates the missing wallet of every user for an asset.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO wallets (id, user_id, asset_id, balance, is_system_wallet, created_at, updated_at, version) " +
+            "SELECT nextval('wallets_seq'), u.id, :assetId, :balance, false, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, 0 FROM users u " +
+            "WHERE NOT EXISTS (SELECT 1 FROM wallets w WHERE w.user_id = u.id AND w.asset_id = :assetId) " +
+            "ON CONFLICT DO NOTHING", nativeQuery = true)
+    int insertMissingUserWallets(@Param("assetId") Long assetId, @Param("balance") BigDecimal balance);
 
     Optional<Wallet> findBySystemWalletIdAndAsset(String systemWalletId, Asset asset);
 
@@ -0,0 +1,539 @@
+package com.dinoventures.backend.wallet.archive;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Append-only columnar file of archived ledger entries.
+ *
+ * A file is a sequence of blocks, one per archiving batch. Each block stores
+ * its rows column by column, every column deflated on its own, and ends with a
+ * footer holding the row count, the min/max of the id, wallet and time
+ * columns, and the column sizes. A scan reads the footers through a memory
+ * map, skips blocks whose ranges cannot match, inflates the wallet and time
+ * columns of the rest, and inflates the other columns only for blocks with a
+ * matching row.
+ *
+ * Blocks are written whole and forced to disk. A block left incomplete or
+ * failing its checksum after a crash is cut off by the next append.
+ *
+ * Version 2 blocks add the debit and credit balances after each entry.
+ * Version 1 blocks, written before, are still read; their balances read as null.
+ */
+final class LedgerArchiveFile {
+
+    static final int MAGIC = 0x4c414331;
+    static final int VERSION = 2;
+
+    private static final int ID = 0;
+    private static final int DEBIT_WALLET = 1;
+    private static final int CREDIT_WALLET = 2;
+    private static final int CREATED_AT = 3;
+    private static final int AMOUNT = 4;
+    private static final int TYPE = 5;
+    private static final int KEY = 6;
+    private static final int DESCRIPTION = 7;
+    private static final int DEBIT_BALANCE = 8;
+    private static final int CREDIT_BALANCE = 9;
+    private static final int COLUMNS = 10;
+    /** Columns of each version, by version */
+    private static final int[] VERSION_COLUMNS = {0, 8, COLUMNS};
+
+    /** Magic and payload length */
+    private static final int HEADER_SIZE = 8;
+    private static final int MIN_FOOTER_SIZE = footerSize(VERSION_COLUMNS[1]);
+    private static final int MAX_FOOTER_SIZE = footerSize(COLUMNS);
+
+    private LedgerArchiveFile() {
+    }
+
+    /**
+     * Rows one scan is looking for. Null bounds match everything.
+     *
+     * @param to       exclusive
+     * @param beforeId exclusive
+     */
+    record Filter(Set<Long> walletIds, LocalDateTime from, LocalDateTime to, Long beforeId) {
+    }
+
+    /**
+     * Appends one block holding the rows, in ascending id order. Trailing
+     * blocks with ids from {@code rows} onwards are dropped first: they were
+     * written by a batch whose rows never left the database, and are written
+     * again now.
+     */
+    static void append(Path path, List<LedgerArchiveRow> rows) throws IOException {
+        if (rows.isEmpty()) {
+            return;
+        }
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        ByteBuffer block = encode(rows);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            FileLock lock = channel.lock();
+            try {
+                long end = committedLength(channel, rows.get(0).id());
+                channel.truncate(end);
+                channel.position(end);
+                while (block.hasRemaining()) {
+                    channel.write(block);
+                }
+                channel.force(false);
+            } finally {
+                lock.release();
+            }
+        }
+    }
+
+    /**
+     * Passes every row matching the filter to the sink, block by block.
+     */
+    static void scan(Path path, Filter filter, Consumer<LedgerArchiveRow> sink) throws IOException {
+        long fromMicros = filter.from() != null ? micros(filter.from()) : Long.MIN_VALUE;
+        long toMicros = filter.to() != null ? micros(filter.to()) : Long.MAX_VALUE;
+        long beforeId = filter.beforeId() != null ? filter.beforeId() : Long.MAX_VALUE;
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Ledger archive file too large to map: " + path);
+            }
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            int position = 0;
+            Footer footer;
+            while ((footer = footerAt(map, position)) != null) {
+                int payload = position + HEADER_SIZE;
+                position = payload + footer.payloadLength() + footer.size();
+                if (footer.maxCreatedAt() < fromMicros || footer.minCreatedAt() >= toMicros
+                        || footer.minId() >= beforeId
+                        || (filter.walletIds() != null && !anyIn(filter.walletIds(), footer))) {
+                    continue;
+                }
+
+                long[] ids = decodeDeltas(column(map, payload, footer, ID), footer.rowCount());
+                long[] debits = decodeLongs(column(map, payload, footer, DEBIT_WALLET), footer.rowCount());
+                long[] credits = decodeLongs(column(map, payload, footer, CREDIT_WALLET), footer.rowCount());
+                long[] createdAt = decodeDeltas(column(map, payload, footer, CREATED_AT), footer.rowCount());
+                BitSet matches = new BitSet(footer.rowCount());
+                for (int row = 0; row < footer.rowCount(); row++) {
+                    if (ids[row] < beforeId && createdAt[row] >= fromMicros && createdAt[row] < toMicros
+                            && (filter.walletIds() == null || filter.walletIds().contains(debits[row])
+                            || filter.walletIds().contains(credits[row]))) {
+                        matches.set(row);
+                    }
+                }
+                if (matches.isEmpty()) {
+                    continue;
+                }
+
+                Reader amounts = new Reader(column(map, payload, footer, AMOUNT));
+                Reader types = new Reader(column(map, payload, footer, TYPE));
+                Reader keys = new Reader(column(map, payload, footer, KEY));
+                Reader descriptions = new Reader(column(map, payload, footer, DESCRIPTION));
+                boolean hasBalances = footer.columns() > CREDIT_BALANCE;
+                Reader debitBalances = hasBalances ? new Reader(column(map, payload, footer, DEBIT_BALANCE)) : null;
+                Reader creditBalances = hasBalances ? new Reader(column(map, payload, footer, CREDIT_BALANCE)) : null;
+                for (int row = 0; row < footer.rowCount(); row++) {
+                    BigDecimal amount = amounts.readDecimal();
+                    String type = types.readString();
+                    String key = keys.readString();
+                    String description = descriptions.readString();
+                    BigDecimal debitBalance = hasBalances ? debitBalances.readDecimal() : null;
+                    BigDecimal creditBalance = hasBalances ? creditBalances.readDecimal() : null;
+                    if (matches.get(row)) {
+                        sink.accept(new LedgerArchiveRow(ids[row], debits[row], credits[row], amount, type, key,
+                                description, fromMicros(createdAt[row]), debitBalance, creditBalance));
+                    }
+                }
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt ledger archive file: " + path, e);
+        }
+    }
+
+    /**
+     * Length of the file up to the last intact block written before
+     * {@code firstId}.
+     */
+    private static long committedLength(FileChannel channel, long firstId) throws IOException {
+        long size = channel.size();
+        long position = 0;
+        long lastStart = -1;
+        while (position + HEADER_SIZE + MIN_FOOTER_SIZE <= size) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            channel.read(header, position);
+            header.flip();
+            int payloadLength = header.getInt(4);
+            if (header.getInt(0) != MAGIC || payloadLength < 0
+                    || position + HEADER_SIZE + payloadLength + MIN_FOOTER_SIZE > size) {
+                break;
+            }
+            Footer footer = readFooter(channel, position + HEADER_SIZE + payloadLength, size);
+            if (footer == null || footer.maxId() >= firstId) {
+                break;
+            }
+            lastStart = position;
+            position += HEADER_SIZE + payloadLength + footer.size();
+        }
+        if (lastStart >= 0 && !intact(channel, lastStart)) {
+            // Only the last block can have been torn
+            return lastStart;
+        }
+        return position;
+    }
+
+    private static boolean intact(FileChannel channel, long start) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        channel.read(header, start);
+        int payloadLength = header.getInt(4);
+        ByteBuffer payload = ByteBuffer.allocate(payloadLength);
+        channel.read(payload, start + HEADER_SIZE);
+        Footer footer = readFooter(channel, start + HEADER_SIZE + payloadLength, channel.size());
+        CRC32 crc = new CRC32();
+        crc.update(payload.flip());
+        return footer != null && footer.checksum() == (int) crc.getValue();
+    }
+
+    private static Footer readFooter(FileChannel channel, long start, long size) throws IOException {
+        ByteBuffer footerBytes = ByteBuffer.allocate((int) Math.min(MAX_FOOTER_SIZE, size - start));
+        channel.read(footerBytes, start);
+        return Footer.read(footerBytes.flip());
+    }
+
+    private static Footer footerAt(ByteBuffer map, int position) {
+        if (position + HEADER_SIZE + MIN_FOOTER_SIZE > map.limit() || map.getInt(position) != MAGIC) {
+            return null;
+        }
+        int payloadLength = map.getInt(position + 4);
+        long start = (long) position + HEADER_SIZE + payloadLength;
+        if (payloadLength < 0 || start + MIN_FOOTER_SIZE > map.limit()) {
+            return null;
+        }
+        return Footer.read(map.slice((int) start, (int) Math.min(MAX_FOOTER_SIZE, map.limit() - start)));
+    }
+
+    /**
+     * Row count, eight min/max longs, compressed and raw column sizes, checksum, version, magic
+     */
+    private static int footerSize(int columns) {
+        return 4 + 8 * 8 + 2 * 4 * columns + 3 * 4;
+    }
+
+    private static byte[] column(ByteBuffer map, int payload, Footer footer, int column) throws DataFormatException {
+        int offset = payload;
+        for (int previous = 0; previous < column; previous++) {
+            offset += footer.compressed()[previous];
+        }
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(map.slice(offset, footer.compressed()[column]));
+            byte[] raw = new byte[footer.raw()[column]];
+            int read = 0;
+            while (read < raw.length && !inflater.finished()) {
+                int inflated = inflater.inflate(raw, read, raw.length - read);
+                if (inflated == 0 && inflater.needsInput()) {
+                    throw new DataFormatException("Truncated ledger archive column");
+                }
+                read += inflated;
+            }
+            return raw;
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static ByteBuffer encode(List<LedgerArchiveRow> rows) {
+        Writer[] columns = new Writer[COLUMNS];
+        for (int column = 0; column < COLUMNS; column++) {
+            columns[column] = new Writer();
+        }
+        long minId = Long.MAX_VALUE, maxId = Long.MIN_VALUE;
+        long minDebit = Long.MAX_VALUE, maxDebit = Long.MIN_VALUE;
+        long minCredit = Long.MAX_VALUE, maxCredit = Long.MIN_VALUE;
+        long minCreatedAt = Long.MAX_VALUE, maxCreatedAt = Long.MIN_VALUE;
+        long previousId = 0;
+        long previousCreatedAt = 0;
+        for (LedgerArchiveRow row : rows) {
+            long createdAt = micros(row.createdAt());
+            columns[ID].writeSigned(row.id() - previousId);
+            columns[DEBIT_WALLET].writeSigned(row.debitWalletId());
+            columns[CREDIT_WALLET].writeSigned(row.creditWalletId());
+            columns[CREATED_AT].writeSigned(createdAt - previousCreatedAt);
+            columns[AMOUNT].writeDecimal(row.amount());
+            columns[TYPE].writeString(row.transactionType());
+            columns[KEY].writeString(row.idempotencyKey());
+            columns[DESCRIPTION].writeString(row.description());
+            columns[DEBIT_BALANCE].writeDecimal(row.debitBalanceAfter());
+            columns[CREDIT_BALANCE].writeDecimal(row.creditBalanceAfter());
+            previousId = row.id();
+            previousCreatedAt = createdAt;
+
+            minId = Math.min(minId, row.id());
+            maxId = Math.max(maxId, row.id());
+            minDebit = Math.min(minDebit, row.debitWalletId());
+            maxDebit = Math.max(maxDebit, row.debitWalletId());
+            minCredit = Math.min(minCredit, row.creditWalletId());
+            maxCredit = Math.max(maxCredit, row.creditWalletId());
+            minCreatedAt = Math.min(minCreatedAt, createdAt);
+            maxCreatedAt = Math.max(maxCreatedAt, createdAt);
+        }
+
+        byte[][] compressed = new byte[COLUMNS][];
+        int payloadLength = 0;
+        for (int column = 0; column < COLUMNS; column++) {
+            compressed[column] = deflate(columns[column].toByteArray());
+            payloadLength += compressed[column].length;
+        }
+
+        ByteBuffer block = ByteBuffer.allocate(HEADER_SIZE + payloadLength + MAX_FOOTER_SIZE);
+        block.putInt(MAGIC).putInt(payloadLength);
+        CRC32 crc = new CRC32();
+        for (byte[] column : compressed) {
+            block.put(column);
+            crc.update(column);
+        }
+        block.putInt(rows.size())
+                .putLong(minId).putLong(maxId)
+                .putLong(minDebit).putLong(maxDebit)
+                .putLong(minCredit).putLong(maxCredit)
+                .putLong(minCreatedAt).putLong(maxCreatedAt);
+        for (byte[] column : compressed) {
+            block.putInt(column.length);
+        }
+        for (Writer column : columns) {
+            block.putInt(column.size());
+        }
+        block.putInt((int) crc.getValue()).putInt(VERSION).putInt(MAGIC);
+        return block.flip();
+    }
+
+    private static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, raw.length / 4));
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static boolean anyIn(Set<Long> walletIds, Footer footer) {
+        for (Long walletId : walletIds) {
+            if ((walletId >= footer.minDebit() && walletId <= footer.maxDebit())
+                    || (walletId >= footer.minCredit() && walletId <= footer.maxCredit())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long[] decodeDeltas(byte[] column, int rows) {
+        Reader reader = new Reader(column);
+        long[] values = new long[rows];
+        long previous = 0;
+        for (int row = 0; row < rows; row++) {
+            previous += reader.readSigned();
+            values[row] = previous;
+        }
+        return values;
+    }
+
+    private static long[] decodeLongs(byte[] column, int rows) {
+        Reader reader = new Reader(column);
+        long[] values = new long[rows];
+        for (int row = 0; row < rows; row++) {
+            values[row] = reader.readSigned();
+        }
+        return values;
+    }
+
+    private static long micros(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + time.getNano() / 1_000;
+    }
+
+    private static LocalDateTime fromMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000),
+                Math.floorMod(micros, 1_000_000) * 1_000, ZoneOffset.UTC);
+    }
+
+    private record Footer(int rowCount, long minId, long maxId, long minDebit, long maxDebit,
+                          long minCredit, long maxCredit, long minCreatedAt, long maxCreatedAt,
+                          int[] compressed, int[] raw, int checksum) {
+
+        int payloadLength() {
+            int length = 0;
+            for (int size : compressed) {
+                length += size;
+            }
+            return length;
+        }
+
+        int columns() {
+            return compressed.length;
+        }
+
+        int size() {
+            return footerSize(columns());
+        }
+
+        /**
+         * Null unless the bytes start with a complete footer of a known version.
+         */
+        static Footer read(ByteBuffer bytes) {
+            int columns = columns(bytes);
+            if (columns == 0) {
+                return null;
+            }
+            int rowCount = bytes.getInt();
+            long[] ranges = new long[8];
+            for (int i = 0; i < ranges.length; i++) {
+                ranges[i] = bytes.getLong();
+            }
+            int[] compressed = new int[columns];
+            for (int column = 0; column < columns; column++) {
+                compressed[column] = bytes.getInt();
+            }
+            int[] raw = new int[columns];
+            for (int column = 0; column < columns; column++) {
+                raw[column] = bytes.getInt();
+            }
+            return new Footer(rowCount, ranges[0], ranges[1], ranges[2], ranges[3], ranges[4], ranges[5],
+                    ranges[6], ranges[7], compressed, raw, bytes.getInt());
+        }
+
+        /**
+         * Column count of the footer's version, 0 if none matches. Older versions
+         * are tried first: their version and magic fall on column sizes in a
+         * newer footer, which never reach the magic's value.
+         */
+        private static int columns(ByteBuffer bytes) {
+            for (int version = 1; version <= VERSION; version++) {
+                int size = footerSize(VERSION_COLUMNS[version]);
+                if (bytes.remaining() >= size && bytes.getInt(bytes.position() + size - 4) == MAGIC
+                        && bytes.getInt(bytes.position() + size - 8) == version) {
+                    return VERSION_COLUMNS[version];
+                }
+            }
+            return 0;
+        }
+    }
+
+    /**
+     * Zig-zag varints, length-prefixed strings (0 for null) and decimals as
+     * scale plus unscaled bytes (none for null).
+     */
+    private static final class Writer extends ByteArrayOutputStream {
+
+        void writeSigned(long value) {
+            writeUnsigned((value << 1) ^ (value >> 63));
+        }
+
+        void writeUnsigned(long value) {
+            while ((value & ~0x7fL) != 0) {
+                write((int) ((value & 0x7f) | 0x80));
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        void writeString(String value) {
+            if (value == null) {
+                writeUnsigned(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeUnsigned(bytes.length + 1L);
+            write(bytes, 0, bytes.length);
+        }
+
+        void writeDecimal(BigDecimal value) {
+            if (value == null) {
+                writeSigned(0);
+                writeUnsigned(0);
+                return;
+            }
+            writeSigned(value.scale());
+            byte[] unscaled = value.unscaledValue().toByteArray();
+            writeUnsigned(unscaled.length);
+            write(unscaled, 0, unscaled.length);
+        }
+    }
+
+    private static final class Reader {
+
+        private final byte[] bytes;
+        private int position;
+
+        Reader(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        long readSigned() {
+            long value = readUnsigned();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        long readUnsigned() {
+            long value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = bytes[position++];
+                value |= (long) (b & 0x7f) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+
+        String readString() {
+            int length = (int) readUnsigned();
+            if (length == 0) {
+                return null;
+            }
+            String value = new String(bytes, position, length - 1, StandardCharsets.UTF_8);
+            position += length - 1;
+            return value;
+        }
+
+        BigDecimal readDecimal() {
+            int scale = (int) readSigned();
+            int length = (int) readUnsigned();
+            if (length == 0) {
+                return null;
+            }
+            byte[] unscaled = new byte[length];
+            System.arraycopy(bytes, position, unscaled, 0, length);
+            position += length;
+            return new BigDecimal(new BigInteger(unscaled), scale);
+        }
+    }
+}
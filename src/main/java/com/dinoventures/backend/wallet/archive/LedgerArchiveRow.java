@@ -0,0 +1,19 @@
+package com.dinoventures.backend.wallet.archive;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A ledger entry as it is kept in the archive: flat columns, wallets by id.
+ */
+public record LedgerArchiveRow(long id,
+                               long debitWalletId,
+                               long creditWalletId,
+                               BigDecimal amount,
+                               String transactionType,
+                               String idempotencyKey,
+                               String description,
+                               LocalDateTime createdAt,
+                               BigDecimal debitBalanceAfter,
+                               BigDecimal creditBalanceAfter) {
+}
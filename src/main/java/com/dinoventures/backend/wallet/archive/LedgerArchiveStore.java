@@ -0,0 +1,132 @@
+package com.dinoventures.backend.wallet.archive;
+
+import com.dinoventures.backend.wallet.dto.LedgerEntryView;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Where archived ledger entries live on disk: one {@link LedgerArchiveFile}
+ * per shard, asset and month, at {@code <directory>/shard-<n>/<asset>/<yyyy-MM>.lca}.
+ * Months outside a scan's time range are skipped by their file name.
+ */
+@Component
+@Slf4j
+public class LedgerArchiveStore {
+
+    private static final String EXTENSION = ".lca";
+    private static final Pattern ASSET_CODE = Pattern.compile("[A-Za-z0-9_-]{1,50}");
+
+    private final Path directory;
+
+    public LedgerArchiveStore(@Value("${app.ledger.archive.directory:data/ledger-archive}") String directory) {
+        this.directory = Path.of(directory);
+    }
+
+    public void append(int shard, String assetCode, YearMonth month, List<LedgerArchiveRow> rows) throws IOException {
+        if (!ASSET_CODE.matcher(assetCode).matches()) {
+            throw new IOException("Asset code cannot name an archive directory: " + assetCode);
+        }
+        LedgerArchiveFile.append(shardDirectory(shard).resolve(assetCode).resolve(month + EXTENSION), rows);
+    }
+
+    /**
+     * Newest-first archived entries touching the given wallets, below the
+     * {@code beforeId} cursor and within {@code from} (inclusive) to
+     * {@code to} (exclusive) when given; all assets when {@code assetCode} is null.
+     */
+    public List<LedgerEntryView> scan(int shard, String assetCode, Set<Long> walletIds,
+                                      LocalDateTime from, LocalDateTime to, Long beforeId, int limit) {
+        if (walletIds.isEmpty() || (assetCode != null && !ASSET_CODE.matcher(assetCode).matches())) {
+            return List.of();
+        }
+        LedgerArchiveFile.Filter filter = new LedgerArchiveFile.Filter(walletIds, from, to, beforeId);
+        // Keeps the newest entries seen so far, oldest on top
+        PriorityQueue<LedgerEntryView> newest = new PriorityQueue<>(Comparator.comparing(LedgerEntryView::getId));
+        try {
+            for (Path asset : assetDirectories(shard, assetCode)) {
+                String code = asset.getFileName().toString();
+                for (Path file : monthFiles(asset, from, to)) {
+                    LedgerArchiveFile.scan(file, filter, row -> {
+                        newest.add(view(code, row, walletIds));
+                        if (newest.size() > limit) {
+                            newest.poll();
+                        }
+                    });
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ledger archive could not be read", e);
+        }
+        List<LedgerEntryView> entries = new ArrayList<>(newest);
+        entries.sort(Comparator.comparing(LedgerEntryView::getId).reversed());
+        return entries;
+    }
+
+    private Path shardDirectory(int shard) {
+        return directory.resolve("shard-" + shard);
+    }
+
+    private List<Path> assetDirectories(int shard, String assetCode) throws IOException {
+        Path shardDirectory = shardDirectory(shard);
+        if (assetCode != null) {
+            Path asset = shardDirectory.resolve(assetCode);
+            return Files.isDirectory(asset) ? List.of(asset) : List.of();
+        }
+        if (!Files.isDirectory(shardDirectory)) {
+            return List.of();
+        }
+        try (Stream<Path> assets = Files.list(shardDirectory)) {
+            return assets.filter(Files::isDirectory).toList();
+        }
+    }
+
+    private static List<Path> monthFiles(Path asset, LocalDateTime from, LocalDateTime to) throws IOException {
+        try (Stream<Path> files = Files.list(asset)) {
+            return files.filter(file -> {
+                String name = file.getFileName().toString();
+                if (!name.endsWith(EXTENSION)) {
+                    return false;
+                }
+                try {
+                    YearMonth month = YearMonth.parse(name.substring(0, name.length() - EXTENSION.length()));
+                    return (from == null || month.plusMonths(1).atDay(1).atStartOfDay().isAfter(from))
+                            && (to == null || month.atDay(1).atStartOfDay().isBefore(to));
+                } catch (DateTimeParseException e) {
+                    log.warn("Ignoring unexpected file in ledger archive: {}", file);
+                    return false;
+                }
+            }).toList();
+        }
+    }
+
+    private static LedgerEntryView view(String assetCode, LedgerArchiveRow row, Set<Long> walletIds) {
+        boolean credit = walletIds.contains(row.creditWalletId());
+        return LedgerEntryView.builder()
+                .id(row.id())
+                .assetCode(assetCode)
+                .transactionType(row.transactionType())
+                .direction(credit ? LedgerEntryView.Direction.CREDIT : LedgerEntryView.Direction.DEBIT)
+                .amount(row.amount())
+                .balanceAfter(credit ? row.creditBalanceAfter() : row.debitBalanceAfter())
+                .idempotencyKey(row.idempotencyKey())
+                .description(row.description())
+                .createdAt(row.createdAt())
+                .build();
+    }
+}
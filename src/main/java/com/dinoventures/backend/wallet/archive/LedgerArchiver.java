@@ -0,0 +1,158 @@
+package com.dinoventures.backend.wallet.archive;
+
+import com.dinoventures.backend.shard.ShardRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Moves closed months of ledger history out of the database into the
+ * {@link LedgerArchiveStore}.
+ *
+ * A month is closed once it is {@code after-months} old. Its entries are
+ * archived oldest first, in batches of ascending ids: each batch is appended to
+ * the files of its assets and forced to disk, then deleted from
+ * {@code ledger_entries}. A batch whose delete does not commit is read again by
+ * the next run, and its file block is replaced rather than duplicated.
+ *
+ * This is the only way ledger history leaves the database; on a partitioned
+ * ledger the emptied months are then dropped by the
+ * {@link com.dinoventures.backend.wallet.ledger.LedgerPartitionManager}.
+ *
+ * Replaying the idempotency key of an archived entry no longer returns the
+ * earlier result, so archive only months old enough that no client retries
+ * them. The files are local, so enable this on one node only.
+ */
+@Component
+@Slf4j
+public class LedgerArchiver {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ShardRouter shardRouter;
+    private final LedgerArchiveStore archiveStore;
+    private final boolean enabled;
+    private final int afterMonths;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final Counter archived;
+
+    public LedgerArchiver(NamedParameterJdbcTemplate jdbcTemplate,
+                          TransactionTemplate transactionTemplate,
+                          ShardRouter shardRouter,
+                          LedgerArchiveStore archiveStore,
+                          MeterRegistry meterRegistry,
+                          @Value("${app.ledger.archive.enabled:false}") boolean enabled,
+                          @Value("${app.ledger.archive.after-months:12}") int afterMonths,
+                          @Value("${app.ledger.archive.batch-size:5000}") int batchSize,
+                          @Value("${app.ledger.archive.max-batches-per-run:20}") int maxBatchesPerRun) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.shardRouter = shardRouter;
+        this.archiveStore = archiveStore;
+        this.enabled = enabled;
+        this.afterMonths = Math.max(1, afterMonths);
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.archived = Counter.builder("ledger.archive.entries")
+                .description("Ledger entries moved from the database to the archive")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.ledger.archive.interval-ms:3600000}",
+            initialDelayString = "${app.ledger.archive.initial-delay-ms:60000}")
+    public void archive() {
+        if (!enabled || !running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+                int current = shard;
+                shardRouter.onShard(shard, () -> archiveShard(current));
+            }
+        } catch (RuntimeException e) {
+            log.warn("Ledger archiving failed, will retry: {}", e.getMessage());
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private void archiveShard(int shard) {
+        LocalDateTime cutoff = YearMonth.now().minusMonths(afterMonths).atDay(1).atStartOfDay();
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            if (archiveBatch(shard, cutoff) == 0) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Archives the next batch of the oldest closed month.
+     *
+     * @return entries archived, 0 when no closed month is left
+     */
+    private int archiveBatch(int shard, LocalDateTime cutoff) {
+        LocalDateTime oldest = jdbcTemplate.queryForObject(
+                "SELECT MIN(created_at) FROM ledger_entries WHERE created_at < :cutoff",
+                new MapSqlParameterSource("cutoff", cutoff), LocalDateTime.class);
+        if (oldest == null) {
+            return 0;
+        }
+        YearMonth month = YearMonth.from(oldest);
+        MapSqlParameterSource monthRange = new MapSqlParameterSource()
+                .addValue("start", month.atDay(1).atStartOfDay())
+                .addValue("end", month.plusMonths(1).atDay(1).atStartOfDay())
+                .addValue("limit", batchSize);
+
+        Map<String, List<LedgerArchiveRow>> byAsset = new LinkedHashMap<>();
+        List<Long> ids = new ArrayList<>();
+        jdbcTemplate.query("SELECT l.id, l.debit_wallet_id, l.credit_wallet_id, l.amount, l.transaction_type, "
+                        + "l.idempotency_key, l.description, l.created_at, l.debit_balance_after, "
+                        + "l.credit_balance_after, a.code FROM ledger_entries l "
+                        + "JOIN wallets w ON w.id = l.credit_wallet_id JOIN assets a ON a.id = w.asset_id "
+                        + "WHERE l.created_at >= :start AND l.created_at < :end ORDER BY l.id LIMIT :limit",
+                monthRange, rs -> {
+                    ids.add(rs.getLong("id"));
+                    byAsset.computeIfAbsent(rs.getString("code"), code -> new ArrayList<>())
+                            .add(new LedgerArchiveRow(rs.getLong("id"), rs.getLong("debit_wallet_id"),
+                                    rs.getLong("credit_wallet_id"), rs.getBigDecimal("amount"),
+                                    rs.getString("transaction_type"), rs.getString("idempotency_key"),
+                                    rs.getString("description"), rs.getTimestamp("created_at").toLocalDateTime(),
+                                    rs.getBigDecimal("debit_balance_after"), rs.getBigDecimal("credit_balance_after")));
+                });
+
+        try {
+            for (Map.Entry<String, List<LedgerArchiveRow>> asset : byAsset.entrySet()) {
+                archiveStore.append(shard, asset.getKey(), month, asset.getValue());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ledger archive could not be written", e);
+        }
+
+        // The month range lets a partitioned ledger delete from that month's partition alone
+        Integer deleted = transactionTemplate.execute(status -> jdbcTemplate.update(
+                "DELETE FROM ledger_entries WHERE id IN (:ids) AND created_at >= :start AND created_at < :end",
+                monthRange.addValue("ids", ids)));
+        archived.increment(ids.size());
+        log.info("Ledger entries archived: shard={}, month={}, entries={}, deleted={}",
+                shard, month, ids.size(), deleted);
+        return ids.size();
+    }
+}
@@ -3,10 +3,13 @@ package com.dinoventures.backend.wallet.asset;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface AssetRepository extends JpaRepository<Asset, Long> {
     Optional<Asset> findByCode(String code);
     Optional<Asset> findByCodeAndActiveTrue(String code);
+    List<Asset> findByCodeInAndActiveTrue(Collection<String> codes);
 }
@@ -0,0 +1,236 @@
+package com.dinoventures.backend.wallet.cache;
+
+import com.dinoventures.backend.cache.CacheCoherence;
+import com.dinoventures.backend.cache.CacheInvalidationListener;
+import com.dinoventures.backend.cache.CacheRegion;
+import com.dinoventures.backend.cluster.ClusterRouter;
+import com.dinoventures.backend.exception.InsufficientBalanceException;
+import com.dinoventures.backend.wallet.WalletBalancesChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recently seen user wallet balances, used to turn away spends that clearly
+ * cannot be afforded before a transaction is opened or a row is locked.
+ *
+ * The cache only ever speeds up a rejection; spends it lets through are still
+ * checked under lock. To keep it from rejecting a spend the user can afford,
+ * an entry is trusted only for a short time, commits replace it when their
+ * version is newer, and writers that do not know the new version leave a
+ * tombstone that blocks reads begun before the commit from putting an older
+ * balance back.
+ *
+ * Spends whose idempotency key committed recently on this node skip the
+ * pre-check, so a retried spend still gets its original result even if the
+ * balance has since dropped.
+ *
+ * Changes committed on this node update the cache directly and are announced
+ * to the other nodes through {@link CacheCoherence}; changes announced by other
+ * nodes leave a tombstone.
+ *
+ * In cluster mode the wallets of the users this node owns are mostly written
+ * through this node, so their entries are hot balances: served to balance
+ * reads and trusted for the longer owned ttl. Other nodes still write owned
+ * wallets (local fallback, batch transfer credits, campaigns, the async
+ * worker), so owned entries rely on cross-node invalidation, which cluster
+ * mode requires, and the owned ttl bounds how long a missed one can last.
+ */
+@Component
+@Slf4j
+public class BalanceCache implements CacheInvalidationListener {
+
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, Boolean> recentKeys = new ConcurrentHashMap<>();
+    private final Queue<String> recentKeyOrder = new ConcurrentLinkedQueue<>();
+    private final boolean enabled;
+    private final long ttlNanos;
+    private final long ownedTtlNanos;
+    private final int maxEntries;
+    private final int maxRecentKeys;
+    private final Counter rejections;
+    private final CacheCoherence cacheCoherence;
+    private final ClusterRouter clusterRouter;
+
+    public BalanceCache(@Value("${app.wallet.balance-cache.enabled:true}") boolean enabled,
+                        @Value("${app.wallet.balance-cache.ttl-ms:5000}") long ttlMs,
+                        @Value("${app.wallet.balance-cache.owned-ttl-ms:30000}") long ownedTtlMs,
+                        @Value("${app.wallet.balance-cache.max-entries:100000}") int maxEntries,
+                        @Value("${app.wallet.balance-cache.recent-keys:100000}") int maxRecentKeys,
+                        MeterRegistry meterRegistry,
+                        CacheCoherence cacheCoherence,
+                        ClusterRouter clusterRouter) {
+        this.enabled = enabled;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+        this.ownedTtlNanos = TimeUnit.MILLISECONDS.toNanos(ownedTtlMs);
+        this.maxEntries = maxEntries;
+        this.maxRecentKeys = maxRecentKeys;
+        this.rejections = Counter.builder("wallet.spend.precheck.rejected")
+                .description("Spends rejected from the cached balance without a database round trip")
+                .register(meterRegistry);
+        this.cacheCoherence = cacheCoherence;
+        this.clusterRouter = clusterRouter;
+    }
+
+    /**
+     * Rejects the spend when a fresh cached balance is below the amount. Does
+     * nothing on a cache miss or for a recently committed idempotency key.
+     */
+    public void checkAffordable(Long userId, String assetCode, BigDecimal amount, String idempotencyKey) {
+        if (!enabled || recentKeys.containsKey(idempotencyKey)) {
+            return;
+        }
+        Entry entry = trusted(userId, assetCode);
+        if (entry == null) {
+            return;
+        }
+        if (entry.balance().compareTo(amount) < 0) {
+            rejections.increment();
+            throw new InsufficientBalanceException("Insufficient balance", entry.balance(), amount);
+        }
+    }
+
+    /**
+     * Hot balance of a user this node owns in cluster mode; empty for everyone
+     * else, and whenever the balance has to be read from the database.
+     */
+    public Optional<BigDecimal> ownedBalance(Long userId, String assetCode) {
+        if (!enabled || !clusterRouter.owns(userId)) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(trusted(userId, assetCode)).map(Entry::balance);
+    }
+
+    /**
+     * Records a balance read outside of a write.
+     *
+     * @param observedAt {@link System#nanoTime()} taken before the balance was read
+     */
+    public void recordObserved(Long userId, String assetCode, BigDecimal balance, Long version, long observedAt) {
+        if (!enabled || version == null || !hasRoom()) {
+            return;
+        }
+        entries.compute(new Key(userId, assetCode), (key, current) -> {
+            if (current == null) {
+                return new Entry(balance, version, observedAt);
+            }
+            if (current.balance() == null) {
+                return observedAt > current.stamp() ? new Entry(balance, version, observedAt) : current;
+            }
+            return version > current.version() ? new Entry(balance, version, observedAt) : current;
+        });
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onBalancesChanged(WalletBalancesChangedEvent event) {
+        cacheCoherence.publish(CacheRegion.BALANCE, event.changes().stream()
+                .map(change -> change.userId() + ":" + change.assetCode())
+                .toList());
+        if (!enabled) {
+            return;
+        }
+        long now = System.nanoTime();
+        for (WalletBalancesChangedEvent.BalanceChange change : event.changes()) {
+            Key key = new Key(change.userId(), change.assetCode());
+            if (change.version() == null) {
+                entries.put(key, new Entry(null, -1, now));
+                continue;
+            }
+            entries.compute(key, (k, current) ->
+                    current == null || current.balance() == null || change.version() > current.version()
+                            ? new Entry(change.balance(), change.version(), now)
+                            : current);
+        }
+        event.idempotencyKeys().forEach(this::rememberKey);
+    }
+
+    @Override
+    public CacheRegion region() {
+        return CacheRegion.BALANCE;
+    }
+
+    /**
+     * @param keys {@code userId:assetCode}
+     */
+    @Override
+    public void invalidate(Collection<String> keys) {
+        if (!enabled) {
+            return;
+        }
+        long now = System.nanoTime();
+        for (String key : keys) {
+            int separator = key.indexOf(':');
+            entries.put(new Key(Long.valueOf(key.substring(0, separator)), key.substring(separator + 1)),
+                    new Entry(null, -1, now));
+        }
+    }
+
+    @Override
+    public void invalidateAll() {
+        long now = System.nanoTime();
+        entries.replaceAll((key, entry) -> new Entry(null, -1, now));
+    }
+
+    private Entry trusted(Long userId, String assetCode) {
+        Entry entry = entries.get(new Key(userId, assetCode));
+        if (entry == null || entry.balance() == null) {
+            return null;
+        }
+        long age = System.nanoTime() - entry.stamp();
+        return age <= ttlNanos || (age <= ownedTtlNanos && clusterRouter.owns(userId)) ? entry : null;
+    }
+
+    private void rememberKey(String idempotencyKey) {
+        if (recentKeys.put(idempotencyKey, Boolean.TRUE) == null) {
+            recentKeyOrder.add(idempotencyKey);
+            while (recentKeys.size() > maxRecentKeys) {
+                String oldest = recentKeyOrder.poll();
+                if (oldest == null) {
+                    break;
+                }
+                recentKeys.remove(oldest);
+            }
+        }
+    }
+
+    /**
+     * Drops expired entries once the cache is full; new reads are not cached
+     * while it stays full. Tombstones only matter until the ttl, after which
+     * an entry is not trusted anyway; owned balances are kept to the owned ttl.
+     */
+    private boolean hasRoom() {
+        if (entries.size() < maxEntries) {
+            return true;
+        }
+        long now = System.nanoTime();
+        entries.entrySet().removeIf(entry -> {
+            long age = now - entry.getValue().stamp();
+            return age > ttlNanos && (age > ownedTtlNanos || entry.getValue().balance() == null
+                    || !clusterRouter.owns(entry.getKey().userId()));
+        });
+        return entries.size() < maxEntries;
+    }
+
+    private record Key(Long userId, String assetCode) {
+    }
+
+    /**
+     * @param balance null for a tombstone
+     * @param stamp   {@link System#nanoTime()} when the balance was read or invalidated
+     */
+    private record Entry(BigDecimal balance, long version, long stamp) {
+    }
+}
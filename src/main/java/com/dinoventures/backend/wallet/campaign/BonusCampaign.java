@@ -0,0 +1,92 @@
+package com.dinoventures.backend.wallet.campaign;
+
+import com.dinoventures.backend.model.PooledSequenceIdGenerator;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.annotations.UpdateTimestamp;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A bulk credit of BONUS_POOL funds to a segment of users. Progress is tracked
+ * with a keyset cursor over the segment's user ids, so a paused or interrupted
+ * campaign resumes where it stopped. A running campaign is coordinated by one
+ * node at a time, which holds a lease on it.
+ */
+@Entity
+@Table(name = "bonus_campaigns")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BonusCampaign {
+
+    @Id
+    @GeneratedValue(generator = "bonus_campaigns_seq")
+    @GenericGenerator(name = "bonus_campaigns_seq", type = PooledSequenceIdGenerator.class,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "bonus_campaigns_seq"))
+    private Long id;
+
+    @Column(nullable = false, length = 50)
+    private String assetCode;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal amountPerUser;
+
+    @Column(length = 500)
+    private String description;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private CampaignStatus status;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Long totalUsers = 0L;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Long processedUsers = 0L;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Long creditedUsers = 0L;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Long cursorUserId = 0L;
+
+    @Column(length = 500)
+    private String failureReason;
+
+    /** Node whose coordinator runs the campaign, while {@link #leaseUntil} has not passed */
+    @Column(length = 64)
+    private String coordinator;
+
+    @Column(name = "lease_until")
+    private LocalDateTime leaseUntil;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    public enum CampaignStatus {
+        PENDING,
+        RUNNING,
+        PAUSED,
+        COMPLETED,
+        FAILED
+    }
+}
@@ -0,0 +1,143 @@
+package com.dinoventures.backend.wallet.campaign;
+
+import com.dinoventures.backend.exception.InsufficientBalanceException;
+import com.dinoventures.backend.wallet.Wallet;
+import com.dinoventures.backend.wallet.WalletBalancesChangedEvent;
+import com.dinoventures.backend.wallet.WalletBalancesChangedEvent.BalanceChange;
+import com.dinoventures.backend.wallet.WalletJdbcRepository;
+import com.dinoventures.backend.wallet.WalletJdbcRepository.WalletRef;
+import com.dinoventures.backend.wallet.ledger.LedgerBatchWriter;
+import com.dinoventures.backend.wallet.ledger.LedgerEntry;
+import com.dinoventures.backend.wallet.ledger.LedgerRepository;
+import com.dinoventures.backend.wallet.outbox.WalletOutbox;
+import com.dinoventures.backend.wallet.outbox.WalletOutboxEvent;
+import com.dinoventures.backend.wallet.service.WalletLocks;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Credits one chunk of a campaign segment in a single transaction.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BonusCampaignChunkProcessor {
+
+    private final WalletJdbcRepository walletJdbcRepository;
+    private final LedgerRepository ledgerRepository;
+    private final LedgerBatchWriter ledgerBatchWriter;
+    private final EntityManager entityManager;
+    private final ApplicationEventPublisher eventPublisher;
+    private final WalletOutbox walletOutbox;
+
+    /**
+     * Users that already have this campaign's ledger entry are skipped, so a chunk
+     * can be replayed safely after a pause or failure; they are checked again
+     * once the locks are held. The user wallets and the bonus pool are locked
+     * together in the lock order of {@link WalletLocks}, the pool is debited
+     * once for the whole chunk, the users are credited in the same batched
+     * update, and the entries are recorded with one batched ledger insert.
+     */
+    @Transactional
+    public ChunkResult processChunk(CampaignRun run, List<Long> userIds) {
+        Map<String, Long> usersByKey = new LinkedHashMap<>();
+        userIds.forEach(userId -> usersByKey.put(run.idempotencyKey(userId), userId));
+
+        Set<String> alreadyCredited = new HashSet<>(ledgerRepository.findExistingIdempotencyKeys(usersByKey.keySet()));
+        List<Long> pending = usersByKey.entrySet().stream()
+                .filter(entry -> !alreadyCredited.contains(entry.getKey()))
+                .map(Map.Entry::getValue)
+                .toList();
+        if (pending.isEmpty()) {
+            return new ChunkResult(userIds.size(), 0);
+        }
+
+        walletJdbcRepository.insertUserWalletsIfAbsent(run.assetId(), pending);
+        List<WalletRef> wallets = walletJdbcRepository.findWalletRefs(run.assetId(), pending, Set.of()).stream()
+                .sorted(Comparator.comparing(WalletRef::id))
+                .toList();
+        if (wallets.isEmpty()) {
+            return new ChunkResult(userIds.size(), 0);
+        }
+
+        List<Long> walletIds = new ArrayList<>(wallets.size() + 1);
+        wallets.forEach(wallet -> walletIds.add(wallet.id()));
+        walletIds.add(run.poolWalletId());
+        Map<Long, BigDecimal> balances = walletJdbcRepository.lockWallets(WalletLocks.lockOrder(walletIds));
+
+        // A coordinator that took over this campaign may have credited some of them while the locks were awaited
+        Set<String> creditedMeanwhile = new HashSet<>(ledgerRepository.findExistingIdempotencyKeys(
+                wallets.stream().map(wallet -> run.idempotencyKey(wallet.userId())).toList()));
+        if (!creditedMeanwhile.isEmpty()) {
+            wallets = wallets.stream()
+                    .filter(wallet -> !creditedMeanwhile.contains(run.idempotencyKey(wallet.userId())))
+                    .toList();
+            if (wallets.isEmpty()) {
+                return new ChunkResult(userIds.size(), 0);
+            }
+        }
+
+        BigDecimal total = run.amountPerUser().multiply(BigDecimal.valueOf(wallets.size()));
+        BigDecimal poolBefore = balances.getOrDefault(run.poolWalletId(), BigDecimal.ZERO);
+        if (poolBefore.compareTo(total) < 0) {
+            throw new InsufficientBalanceException("Insufficient bonus pool balance", poolBefore, total);
+        }
+
+        Map<Long, BigDecimal> adjustments = new LinkedHashMap<>();
+        adjustments.put(run.poolWalletId(), total.negate());
+        wallets.forEach(wallet -> adjustments.put(wallet.id(), run.amountPerUser()));
+        walletJdbcRepository.adjustBalances(adjustments);
+
+        Wallet pool = entityManager.getReference(Wallet.class, run.poolWalletId());
+        List<LedgerEntry> entries = new ArrayList<>(wallets.size());
+        for (int i = 0; i < wallets.size(); i++) {
+            WalletRef wallet = wallets.get(i);
+            entries.add(LedgerEntry.builder()
+                    .debitWallet(pool)
+                    .creditWallet(entityManager.getReference(Wallet.class, wallet.id()))
+                    .debitBalanceAfter(poolBefore.subtract(run.amountPerUser().multiply(BigDecimal.valueOf(i + 1L))))
+                    .creditBalanceAfter(balances.get(wallet.id()).add(run.amountPerUser()))
+                    .amount(run.amountPerUser())
+                    .transactionType(LedgerEntry.TransactionType.BONUS)
+                    .idempotencyKey(run.idempotencyKey(wallet.userId()))
+                    .description(run.description())
+                    .build());
+        }
+        ledgerBatchWriter.writeAll(entries);
+
+        List<WalletOutboxEvent> events = new ArrayList<>(wallets.size());
+        for (int i = 0; i < wallets.size(); i++) {
+            WalletRef wallet = wallets.get(i);
+            events.add(WalletOutboxEvent.of(entries.get(i), wallet.userId(), run.assetCode(),
+                    balances.get(wallet.id()).add(run.amountPerUser())));
+        }
+        walletOutbox.append(events);
+
+        eventPublisher.publishEvent(new WalletBalancesChangedEvent(
+                wallets.stream()
+                        .map(wallet -> new BalanceChange(wallet.userId(), run.assetCode(),
+                                balances.get(wallet.id()).add(run.amountPerUser()), null))
+                        .toList(),
+                entries.stream().map(LedgerEntry::getIdempotencyKey).toList()));
+
+        log.debug("Campaign chunk credited: campaignId={}, users={}, total={}", run.campaignId(), wallets.size(), total);
+
+        return new ChunkResult(userIds.size(), wallets.size());
+    }
+
+    public record ChunkResult(int processed, int credited) {
+    }
+}
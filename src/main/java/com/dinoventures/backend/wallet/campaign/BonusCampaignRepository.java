@@ -0,0 +1,71 @@
+package com.dinoventures.backend.wallet.campaign;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface BonusCampaignRepository extends JpaRepository<BonusCampaign, Long> {
+
+    List<BonusCampaign> findByStatus(BonusCampaign.CampaignStatus status);
+
+    /**
+     * Compare-and-set status change; returns 0 when the campaign was not in one of the expected states.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE BonusCampaign c SET c.status = :to, c.failureReason = :reason, c.updatedAt = CURRENT_TIMESTAMP " +
+            "WHERE c.id = :id AND c.status IN :from")
+    int transition(@Param("id") Long id,
+                   @Param("from") Collection<BonusCampaign.CampaignStatus> from,
+                   @Param("to") BonusCampaign.CampaignStatus to,
+                   @Param("reason") String reason);
+
+    /**
+     * Claims or renews the coordinator lease of a running campaign; returns 0
+     * when the campaign stopped running or another node holds an unexpired lease.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE BonusCampaign c SET c.coordinator = :node, c.leaseUntil = :until " +
+            "WHERE c.id = :id AND c.status = 'RUNNING' " +
+            "AND (c.coordinator IS NULL OR c.coordinator = :node OR c.leaseUntil < :now)")
+    int claimLease(@Param("id") Long id,
+                   @Param("node") String node,
+                   @Param("now") LocalDateTime now,
+                   @Param("until") LocalDateTime until);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE BonusCampaign c SET c.coordinator = NULL, c.leaseUntil = NULL " +
+            "WHERE c.id = :id AND c.coordinator = :node")
+    int releaseLease(@Param("id") Long id, @Param("node") String node);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE BonusCampaign c SET c.cursorUserId = :cursor, c.processedUsers = c.processedUsers + :processed, " +
+            "c.creditedUsers = c.creditedUsers + :credited, c.updatedAt = CURRENT_TIMESTAMP WHERE c.id = :id")
+    int recordProgress(@Param("id") Long id,
+                       @Param("cursor") Long cursor,
+                       @Param("processed") long processed,
+                       @Param("credited") long credited);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE BonusCampaign c SET c.creditedUsers = c.creditedUsers + :credited, c.updatedAt = CURRENT_TIMESTAMP " +
+            "WHERE c.id = :id")
+    int recordCredits(@Param("id") Long id, @Param("credited") long credited);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE BonusCampaign c SET c.status = 'COMPLETED', c.completedAt = :completedAt, c.updatedAt = CURRENT_TIMESTAMP " +
+            "WHERE c.id = :id AND c.status = 'RUNNING'")
+    int markCompleted(@Param("id") Long id, @Param("completedAt") LocalDateTime completedAt);
+}
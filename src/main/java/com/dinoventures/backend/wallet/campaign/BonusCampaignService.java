@@ -0,0 +1,342 @@
+package com.dinoventures.backend.wallet.campaign;
+
+import com.dinoventures.backend.exception.InsufficientBalanceException;
+import com.dinoventures.backend.exception.InvalidRequestException;
+import com.dinoventures.backend.exception.ResourceNotFoundException;
+import com.dinoventures.backend.shard.ShardRouter;
+import com.dinoventures.backend.wallet.Wallet;
+import com.dinoventures.backend.wallet.WalletRepository;
+import com.dinoventures.backend.wallet.asset.Asset;
+import com.dinoventures.backend.wallet.asset.AssetRepository;
+import com.dinoventures.backend.wallet.campaign.BonusCampaign.CampaignStatus;
+import com.dinoventures.backend.wallet.campaign.BonusCampaignChunkProcessor.ChunkResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Runs bulk bonus campaigns.
+ *
+ * A campaign's segment is stored once, then a coordinator walks it in waves of
+ * {@code chunkSize * parallelism} users. Each wave is split into chunks that are
+ * credited in parallel on the worker pool; the cursor only advances after the
+ * whole wave commits, and every credit carries a deterministic idempotency key,
+ * so replaying a wave after a pause, failure or restart never credits a user twice.
+ *
+ * Only the node holding a campaign's lease coordinates it. The lease is
+ * renewed before every wave, so it has to outlast one; running campaigns
+ * whose lease has lapsed, because their node stopped, are adopted on startup
+ * and every lease period.
+ */
+@Service
+@Slf4j
+public class BonusCampaignService {
+
+    private static final int TARGET_INSERT_BATCH = 1_000;
+    private static final String BONUS_POOL = "BONUS_POOL";
+
+    private final BonusCampaignRepository campaignRepository;
+    private final BonusCampaignTargetRepository targetRepository;
+    private final BonusCampaignChunkProcessor chunkProcessor;
+    private final AssetRepository assetRepository;
+    private final WalletRepository walletRepository;
+    private final ShardRouter shardRouter;
+    private final TaskExecutor coordinatorExecutor;
+    private final TaskExecutor workerExecutor;
+    private final int chunkSize;
+    private final int parallelism;
+    private final Duration lease;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Counter creditedCounter;
+    private final MeterRegistry meterRegistry;
+    private final Set<Long> activeCampaigns = ConcurrentHashMap.newKeySet();
+
+    public BonusCampaignService(BonusCampaignRepository campaignRepository,
+                                BonusCampaignTargetRepository targetRepository,
+                                BonusCampaignChunkProcessor chunkProcessor,
+                                AssetRepository assetRepository,
+                                WalletRepository walletRepository,
+                                ShardRouter shardRouter,
+                                @Qualifier("campaignCoordinatorExecutor") TaskExecutor coordinatorExecutor,
+                                @Qualifier("campaignWorkerExecutor") TaskExecutor workerExecutor,
+                                @Value("${app.wallet.campaign.chunk-size:500}") int chunkSize,
+                                @Value("${app.wallet.campaign.parallelism:4}") int parallelism,
+                                @Value("${app.wallet.campaign.lease-ms:60000}") long leaseMs,
+                                MeterRegistry meterRegistry) {
+        this.campaignRepository = campaignRepository;
+        this.targetRepository = targetRepository;
+        this.chunkProcessor = chunkProcessor;
+        this.assetRepository = assetRepository;
+        this.walletRepository = walletRepository;
+        this.shardRouter = shardRouter;
+        this.coordinatorExecutor = coordinatorExecutor;
+        this.workerExecutor = workerExecutor;
+        this.chunkSize = chunkSize;
+        this.parallelism = parallelism;
+        this.lease = Duration.ofMillis(leaseMs);
+        this.meterRegistry = meterRegistry;
+        this.creditedCounter = Counter.builder("wallet.campaign.users.credited")
+                .description("Users credited by bonus campaigns")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Creates a campaign for the given user ids and starts it. Not available with
+     * sharding: a campaign credits its segment in batches, and a batch stays on one shard.
+     */
+    public BonusCampaign create(String assetCode, BigDecimal amountPerUser, String description, Iterator<Long> userIds) {
+        if (shardRouter.isSharded()) {
+            throw new InvalidRequestException("Bonus campaigns are not available while sharding is enabled");
+        }
+        Asset asset = assetRepository.findByCodeAndActiveTrue(assetCode)
+                .orElseThrow(() -> new ResourceNotFoundException("Asset not found: " + assetCode));
+        walletRepository.findBySystemWalletIdAndAsset(BONUS_POOL, asset)
+                .orElseThrow(() -> new ResourceNotFoundException("Bonus pool not found"));
+
+        BonusCampaign campaign = campaignRepository.saveAndFlush(BonusCampaign.builder()
+                .assetCode(asset.getCode())
+                .amountPerUser(amountPerUser)
+                .description(description)
+                .status(CampaignStatus.PENDING)
+                .build());
+
+        try {
+            storeTargets(campaign.getId(), userIds);
+        } catch (RuntimeException e) {
+            campaignRepository.transition(campaign.getId(), EnumSet.of(CampaignStatus.PENDING), CampaignStatus.FAILED,
+                    "Segment could not be stored");
+            throw e;
+        }
+
+        campaign.setTotalUsers(targetRepository.countTargets(campaign.getId()));
+        campaign.setStatus(CampaignStatus.RUNNING);
+        campaign = campaignRepository.saveAndFlush(campaign);
+
+        log.info("Bonus campaign created: id={}, assetCode={}, amountPerUser={}, users={}",
+                campaign.getId(), asset.getCode(), amountPerUser, campaign.getTotalUsers());
+
+        launch(campaign.getId());
+        return campaign;
+    }
+
+    /**
+     * Creates a campaign from an uploaded segment file with one user id per line.
+     * Blank lines and lines starting with '#' are ignored.
+     */
+    public BonusCampaign createFromFile(String assetCode, BigDecimal amountPerUser, String description, InputStream file) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(file, StandardCharsets.UTF_8))) {
+            Iterator<Long> userIds = reader.lines()
+                    .map(String::trim)
+                    .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+                    .map(this::parseUserId)
+                    .iterator();
+            return create(assetCode, amountPerUser, description, userIds);
+        } catch (IOException e) {
+            throw new InvalidRequestException("Could not read segment file", e);
+        }
+    }
+
+    public BonusCampaign getCampaign(Long campaignId) {
+        return campaignRepository.findById(campaignId)
+                .orElseThrow(() -> new ResourceNotFoundException("Campaign not found: " + campaignId));
+    }
+
+    /**
+     * Stops the campaign after the wave in progress commits.
+     */
+    public BonusCampaign pause(Long campaignId) {
+        if (campaignRepository.transition(campaignId, EnumSet.of(CampaignStatus.RUNNING), CampaignStatus.PAUSED, null) == 0) {
+            throw new InvalidRequestException("Only running campaigns can be paused");
+        }
+        log.info("Bonus campaign paused: id={}", campaignId);
+        return getCampaign(campaignId);
+    }
+
+    /**
+     * Continues a paused or failed campaign from its last committed cursor.
+     */
+    public BonusCampaign resume(Long campaignId) {
+        if (campaignRepository.transition(campaignId,
+                EnumSet.of(CampaignStatus.PAUSED, CampaignStatus.FAILED), CampaignStatus.RUNNING, null) == 0) {
+            throw new InvalidRequestException("Only paused or failed campaigns can be resumed");
+        }
+        log.info("Bonus campaign resumed: id={}", campaignId);
+        launch(campaignId);
+        return getCampaign(campaignId);
+    }
+
+    /**
+     * Running campaigns without a live coordinator, because their node stopped,
+     * pick up where they left off.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.wallet.campaign.lease-ms:60000}",
+            initialDelayString = "${app.wallet.campaign.lease-ms:60000}")
+    public void resumeInterruptedCampaigns() {
+        LocalDateTime now = LocalDateTime.now();
+        campaignRepository.findByStatus(CampaignStatus.RUNNING).stream()
+                .filter(campaign -> campaign.getLeaseUntil() == null || campaign.getLeaseUntil().isBefore(now))
+                .forEach(campaign -> {
+                    log.info("Resuming interrupted bonus campaign: id={}", campaign.getId());
+                    launch(campaign.getId());
+                });
+    }
+
+    private void storeTargets(Long campaignId, Iterator<Long> userIds) {
+        List<Long> batch = new ArrayList<>(TARGET_INSERT_BATCH);
+        while (userIds.hasNext()) {
+            batch.add(userIds.next());
+            if (batch.size() == TARGET_INSERT_BATCH) {
+                targetRepository.insertTargets(campaignId, batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            targetRepository.insertTargets(campaignId, batch);
+        }
+    }
+
+    private void launch(Long campaignId) {
+        if (activeCampaigns.add(campaignId)) {
+            coordinatorExecutor.execute(() -> coordinate(campaignId));
+        }
+    }
+
+    private void coordinate(Long campaignId) {
+        if (!claimLease(campaignId)) {
+            activeCampaigns.remove(campaignId);
+            log.debug("Bonus campaign not started, it is stopped or coordinated elsewhere: id={}", campaignId);
+            return;
+        }
+        try {
+            BonusCampaign campaign = getCampaign(campaignId);
+            Asset asset = assetRepository.findByCodeAndActiveTrue(campaign.getAssetCode())
+                    .orElseThrow(() -> new ResourceNotFoundException("Asset not found: " + campaign.getAssetCode()));
+            Wallet pool = walletRepository.findBySystemWalletIdAndAsset(BONUS_POOL, asset)
+                    .orElseThrow(() -> new ResourceNotFoundException("Bonus pool not found"));
+            CampaignRun run = new CampaignRun(campaign.getId(), asset.getId(), asset.getCode(), pool.getId(),
+                    campaign.getAmountPerUser(), campaign.getDescription());
+
+            Long cursor = campaign.getCursorUserId();
+            // Stops once the campaign is paused, or another node took over a lease that lapsed
+            while (claimLease(campaignId)) {
+                List<Long> wave = targetRepository.findUserIdsAfter(campaignId, cursor, chunkSize * parallelism);
+                if (wave.isEmpty()) {
+                    campaignRepository.markCompleted(campaignId, LocalDateTime.now());
+                    log.info("Bonus campaign completed: id={}", campaignId);
+                    break;
+                }
+                processWave(run, wave);
+                cursor = wave.get(wave.size() - 1);
+            }
+        } catch (InsufficientBalanceException e) {
+            log.warn("Bonus campaign paused, pool exhausted: id={}, available={}, required={}",
+                    campaignId, e.getAvailableBalance(), e.getRequiredAmount());
+            campaignRepository.transition(campaignId, EnumSet.of(CampaignStatus.RUNNING), CampaignStatus.PAUSED,
+                    "Insufficient bonus pool balance");
+        } catch (Exception e) {
+            log.error("Bonus campaign failed: id={}", campaignId, e);
+            campaignRepository.transition(campaignId, EnumSet.of(CampaignStatus.RUNNING), CampaignStatus.FAILED,
+                    truncate(e.getMessage()));
+        } finally {
+            campaignRepository.releaseLease(campaignId, nodeId);
+            activeCampaigns.remove(campaignId);
+        }
+
+        // A resume that raced with this coordinator shutting down found it still registered
+        if (campaignRepository.findById(campaignId).map(c -> c.getStatus() == CampaignStatus.RUNNING).orElse(false)) {
+            launch(campaignId);
+        }
+    }
+
+    private boolean claimLease(Long campaignId) {
+        LocalDateTime now = LocalDateTime.now();
+        return campaignRepository.claimLease(campaignId, nodeId, now, now.plus(lease)) == 1;
+    }
+
+    private void processWave(CampaignRun run, List<Long> wave) {
+        List<CompletableFuture<ChunkResult>> chunks = new ArrayList<>();
+        for (int from = 0; from < wave.size(); from += chunkSize) {
+            List<Long> chunk = wave.subList(from, Math.min(from + chunkSize, wave.size()));
+            chunks.add(CompletableFuture.supplyAsync(() -> processChunk(run, chunk), workerExecutor));
+        }
+
+        long processed = 0;
+        long credited = 0;
+        RuntimeException failure = null;
+        for (CompletableFuture<ChunkResult> chunk : chunks) {
+            try {
+                ChunkResult result = chunk.join();
+                processed += result.processed();
+                credited += result.credited();
+            } catch (CompletionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof RuntimeException cause ? cause : e;
+                }
+            }
+        }
+
+        if (failure != null) {
+            // Committed chunks stay credited; the cursor does not move, so the wave is replayed on resume
+            campaignRepository.recordCredits(run.campaignId(), credited);
+            throw failure;
+        }
+        campaignRepository.recordProgress(run.campaignId(), wave.get(wave.size() - 1), processed, credited);
+    }
+
+    private ChunkResult processChunk(CampaignRun run, List<Long> userIds) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        try {
+            ChunkResult result = chunkProcessor.processChunk(run, userIds);
+            creditedCounter.increment(result.credited());
+            return result;
+        } catch (RuntimeException e) {
+            outcome = "failure";
+            throw e;
+        } finally {
+            sample.stop(meterRegistry.timer("wallet.campaign.chunk", "outcome", outcome));
+        }
+    }
+
+    private Long parseUserId(String line) {
+        try {
+            return Long.parseLong(line);
+        } catch (NumberFormatException e) {
+            throw new InvalidRequestException("Invalid user id in segment file: " + line);
+        }
+    }
+
+    private String truncate(String message) {
+        if (message == null || message.length() <= 500) {
+            return message;
+        }
+        return message.substring(0, 500);
+    }
+}
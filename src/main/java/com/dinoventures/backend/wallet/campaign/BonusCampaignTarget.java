@@ -0,0 +1,37 @@
+package com.dinoventures.backend.wallet.campaign;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * One user in a campaign segment. Rows are written and read with plain JDBC;
+ * the mapping exists so the table is managed with the rest of the schema.
+ */
+@Entity
+@Table(name = "bonus_campaign_targets")
+@IdClass(BonusCampaignTarget.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BonusCampaignTarget {
+
+    @Id
+    @Column(name = "campaign_id")
+    private Long campaignId;
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long campaignId;
+        private Long userId;
+    }
+}
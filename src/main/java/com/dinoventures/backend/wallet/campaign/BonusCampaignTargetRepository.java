@@ -0,0 +1,47 @@
+package com.dinoventures.backend.wallet.campaign;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * JDBC access to campaign segments; segments can hold millions of rows, so they
+ * are written in batches and read back by keyset pages instead of as entities.
+ */
+@Repository
+@RequiredArgsConstructor
+public class BonusCampaignTargetRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Adds users to a segment in one JDBC batch; duplicates are ignored.
+     */
+    public void insertTargets(Long campaignId, List<Long> userIds) {
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO bonus_campaign_targets (campaign_id, user_id) VALUES (?, ?) ON CONFLICT DO NOTHING",
+                userIds,
+                userIds.size(),
+                (ps, userId) -> {
+                    ps.setLong(1, campaignId);
+                    ps.setLong(2, userId);
+                });
+    }
+
+    public long countTargets(Long campaignId) {
+        Long count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM bonus_campaign_targets WHERE campaign_id = ?", Long.class, campaignId);
+        return count != null ? count : 0L;
+    }
+
+    /**
+     * Next page of the segment after the cursor, in ascending user id order.
+     */
+    public List<Long> findUserIdsAfter(Long campaignId, Long cursorUserId, int limit) {
+        return jdbcTemplate.queryForList(
+                "SELECT user_id FROM bonus_campaign_targets WHERE campaign_id = ? AND user_id > ? ORDER BY user_id LIMIT ?",
+                Long.class, campaignId, cursorUserId, limit);
+    }
+}
@@ -0,0 +1,34 @@
+package com.dinoventures.backend.wallet.campaign;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Users allowed to start and steer bonus campaigns, which pay the bonus pool
+ * out to any users they name. Operators are listed by email; with none
+ * configured nobody can run campaigns.
+ */
+@Component("campaignOperators")
+public class CampaignOperators {
+
+    private final Set<String> emails;
+
+    public CampaignOperators(@Value("${app.wallet.campaign.operators:}") String operators) {
+        this.emails = Stream.of(operators.split(","))
+                .map(email -> email.trim().toLowerCase(Locale.ROOT))
+                .filter(email -> !email.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    public boolean isOperator(Authentication authentication) {
+        return authentication != null
+                && authentication.isAuthenticated()
+                && emails.contains(authentication.getName().toLowerCase(Locale.ROOT));
+    }
+}
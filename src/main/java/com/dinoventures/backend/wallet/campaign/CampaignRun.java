@@ -0,0 +1,13 @@
+package com.dinoventures.backend.wallet.campaign;
+
+import java.math.BigDecimal;
+
+/**
+ * Immutable facts about a campaign that every chunk needs, resolved once per run.
+ */
+record CampaignRun(Long campaignId, Long assetId, String assetCode, Long poolWalletId, BigDecimal amountPerUser, String description) {
+
+    String idempotencyKey(Long userId) {
+        return "campaign-" + campaignId + "-user-" + userId;
+    }
+}
@@ -1,26 +1,43 @@
 package com.dinoventures.backend.wallet.config;
 
-import com.dinoventures.backend.model.User;
-import com.dinoventures.backend.repository.UserRepository;
+import com.dinoventures.backend.cache.CacheCoherence;
+import com.dinoventures.backend.cache.CacheRegion;
+import com.dinoventures.backend.model.SchemaMarker;
+import com.dinoventures.backend.repository.SchemaMarkerRepository;
+import com.dinoventures.backend.shard.ShardRouter;
 import com.dinoventures.backend.wallet.Wallet;
 import com.dinoventures.backend.wallet.WalletRepository;
 import com.dinoventures.backend.wallet.asset.Asset;
 import com.dinoventures.backend.wallet.asset.AssetRepository;
-import lombok.AllArgsConstructor;
+import com.dinoventures.backend.wallet.service.SystemWalletShards;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
+import java.util.List;
 
 @Component
-@AllArgsConstructor
+@RequiredArgsConstructor
 @Slf4j
 public class WalletDataLoader implements CommandLineRunner {
 
+    static final String USER_WALLETS_MARKER = "wallet.user-wallets";
+
     private final AssetRepository assetRepository;
     private final WalletRepository walletRepository;
-    private final UserRepository userRepository;
+    private final SchemaMarkerRepository schemaMarkerRepository;
+    private final SystemWalletShards systemWalletShards;
+    private final CacheCoherence cacheCoherence;
+    private final ShardRouter shardRouter;
+
+    @Value("${app.wallet.bootstrap.user-wallets-enabled:true}")
+    private boolean userWalletsEnabled;
+
+    @Value("${app.wallet.bootstrap.user-wallets-version:1}")
+    private int userWalletsVersion;
 
     @Override
     public void run(String... args) throws Exception {
@@ -28,8 +45,11 @@ public class WalletDataLoader implements CommandLineRunner {
 
         try {
             initializeAssets();
-            initializeSystemWallets();
-            initializeUserWallets();
+            List<Asset> assets = assetRepository.findAll();
+            // Every shard holds the assets and its own system wallets
+            shardRouter.replicate("assets", assets.stream().map(Asset::getId).toList());
+            shardRouter.forEachShard(() -> initializeSystemWallets(assets));
+            initializeUserWallets(assets);
             log.info("Wallet system initialized successfully");
         } catch (Exception e) {
             log.warn("Wallet initialization error: {}", e.getMessage());
@@ -56,18 +76,21 @@ public class WalletDataLoader implements CommandLineRunner {
                     .active(true)
                     .build();
             assetRepository.save(asset);
+            cacheCoherence.publish(CacheRegion.ASSET, List.of(code));
             log.info("Asset created: {}", code);
         }
     }
 
-    private void initializeSystemWallets() {
+    private void initializeSystemWallets(List<Asset> assets) {
         log.info("Initializing system wallets...");
 
-        assetRepository.findAll().forEach(asset -> {
+        assets.forEach(asset -> {
             // Treasury wallet
             createSystemWalletIfNotExists("TREASURY", asset, new BigDecimal("1000000.00"));
             // Bonus pool
             createSystemWalletIfNotExists("BONUS_POOL", asset, new BigDecimal("500000.00"));
+            // Split the treasury across shards when sharding is enabled
+            systemWalletShards.provision("TREASURY", asset);
         });
 
         log.info("System wallets initialized");
@@ -87,24 +110,42 @@ public class WalletDataLoader implements CommandLineRunner {
         }
     }
 
-    private void initializeUserWallets() {
-        log.info("Initializing user wallets...");
-
-        userRepository.findAll().forEach(user -> {
-            assetRepository.findAll().forEach(asset -> {
-                if (walletRepository.findByUserAndAsset(user, asset).isEmpty()) {
-                    Wallet wallet = Wallet.builder()
-                            .user(user)
-                            .asset(asset)
-                            .balance(getInitialBalance(asset.getCode()))
-                            .isSystemWallet(false)
-                            .build();
-                    walletRepository.save(wallet);
-                    log.info("User wallet created: userId={}, assetCode={}", user.getId(), asset.getCode());
-                }
-            });
+    /**
+     * Seeds starting balances for users that existed before wallets were introduced.
+     * Runs one insert-select per asset and records a marker, so later boots skip it
+     * and startup time no longer depends on the number of users.
+     */
+    private void initializeUserWallets(List<Asset> assets) {
+        if (!userWalletsEnabled) {
+            log.info("User wallet seeding disabled");
+            return;
+        }
+        if (shardRouter.isSharded()) {
+            // Seeding predates sharding; users on other shards get wallets on first credit
+            log.info("User wallet seeding skipped: sharding is enabled");
+            return;
+        }
+
+        int appliedVersion = schemaMarkerRepository.findById(USER_WALLETS_MARKER)
+                .map(SchemaMarker::getVersion)
+                .orElse(0);
+        if (appliedVersion >= userWalletsVersion) {
+            log.info("User wallets already seeded: version={}", appliedVersion);
+            return;
+        }
+
+        log.info("Seeding user wallets: version={}", userWalletsVersion);
+
+        assets.forEach(asset -> {
+            int created = walletRepository.insertMissingUserWallets(asset.getId(), getInitialBalance(asset.getCode()));
+            log.info("User wallets created: assetCode={}, count={}", asset.getCode(), created);
         });
 
+        schemaMarkerRepository.save(SchemaMarker.builder()
+                .name(USER_WALLETS_MARKER)
+                .version(userWalletsVersion)
+                .build());
+
         log.info("User wallets initialized");
     }
 
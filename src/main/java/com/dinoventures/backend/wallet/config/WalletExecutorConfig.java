@@ -0,0 +1,139 @@
+package com.dinoventures.backend.wallet.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Thread pools for background wallet work, kept apart from the request threads.
+ *
+ * In virtual-thread mode (spring.threads.virtual.enabled on Java 21) the worker
+ * executors start a virtual thread per task instead, capped at the same
+ * concurrency, so background work still holds at most that many connections.
+ */
+@Configuration
+@EnableScheduling
+public class WalletExecutorConfig {
+
+    private final boolean virtualThreads;
+
+    public WalletExecutorConfig(Environment environment) {
+        this.virtualThreads = Threading.VIRTUAL.isActive(environment);
+    }
+
+    /**
+     * Runs one coordinator per active bonus campaign. Always a queueing pool:
+     * campaigns are started from request threads, which must not block when
+     * all coordinators are busy.
+     */
+    @Bean
+    public TaskExecutor campaignCoordinatorExecutor(
+            @Value("${app.wallet.campaign.max-concurrent-campaigns:2}") int maxConcurrentCampaigns) {
+        return threadPool("campaign-coordinator-", maxConcurrentCampaigns, 100);
+    }
+
+    /**
+     * Processes campaign chunks; each worker holds one database connection while it runs.
+     */
+    @Bean
+    public TaskExecutor campaignWorkerExecutor(
+            @Value("${app.wallet.campaign.parallelism:4}") int parallelism) {
+        return executor("campaign-worker-", parallelism);
+    }
+
+    /**
+     * Drains the asynchronous wallet operation queue; one batch per thread at a time.
+     */
+    @Bean
+    public TaskExecutor walletOperationExecutor(
+            @Value("${app.wallet.async.workers:4}") int workers) {
+        return executor("wallet-operation-", workers);
+    }
+
+    /**
+     * Runs the queries of the wallet read API. Kept small and fixed in both thread
+     * modes: its size is the number of read connections taken from the pool, and
+     * the bounded queue turns overload into rejections instead of latency.
+     */
+    @Bean
+    public TaskExecutor walletReadExecutor(
+            @Value("${app.wallet.read.threads:8}") int threads,
+            @Value("${app.wallet.read.queue-capacity:1000}") int queueCapacity) {
+        return threadPool("wallet-read-", threads, queueCapacity);
+    }
+
+    /**
+     * Feeds streamed ledger responses, one thread per open stream; no queue, so
+     * streams beyond the limit are rejected rather than left waiting.
+     */
+    @Bean
+    public TaskExecutor walletReadStreamExecutor(
+            @Value("${app.wallet.read.max-streams:16}") int maxStreams) {
+        return threadPool("wallet-read-stream-", maxStreams, 0);
+    }
+
+    /**
+     * Runs the outbox relay: a single drain loop per node, so batches leave in id order.
+     */
+    @Bean
+    public TaskExecutor walletOutboxExecutor() {
+        return threadPool("wallet-outbox-", 1, 1);
+    }
+
+    /**
+     * Projects the wallet journal: a single drain loop per node, so records apply in journal order.
+     */
+    @Bean
+    public TaskExecutor walletJournalExecutor() {
+        return threadPool("wallet-journal-", 1, 1);
+    }
+
+    /**
+     * Writes balance stream events; one task per stream with something to send,
+     * so idle streams hold no thread. A fixed pool in both thread modes: tasks
+     * are submitted from committing requests and the heartbeat, which must never
+     * wait for a sender, so a full queue rejects and the stream is closed instead.
+     * A stream has at most one task queued, so a queue as large as the stream
+     * limit only fills up when the senders are stuck.
+     */
+    @Bean
+    public TaskExecutor walletStreamExecutor(
+            @Value("${app.wallet.stream.sender-threads:4}") int senderThreads,
+            @Value("${app.wallet.stream.sender-queue-capacity:${app.wallet.stream.max-connections:20000}}") int queueCapacity) {
+        return threadPool("wallet-stream-", senderThreads, queueCapacity);
+    }
+
+    /**
+     * Runs the ledger balance backfill workers; each holds one database connection while it runs.
+     */
+    @Bean
+    public TaskExecutor ledgerBackfillExecutor(
+            @Value("${app.ledger.balance-backfill.threads:4}") int threads) {
+        return executor("ledger-backfill-", threads);
+    }
+
+    private TaskExecutor executor(String threadNamePrefix, int concurrency) {
+        if (virtualThreads) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(threadNamePrefix);
+            executor.setVirtualThreads(true);
+            executor.setConcurrencyLimit(concurrency);
+            return executor;
+        }
+        return threadPool(threadNamePrefix, concurrency, Integer.MAX_VALUE);
+    }
+
+    private ThreadPoolTaskExecutor threadPool(String threadNamePrefix, int concurrency, int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(concurrency);
+        executor.setMaxPoolSize(concurrency);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix(threadNamePrefix);
+        return executor;
+    }
+}
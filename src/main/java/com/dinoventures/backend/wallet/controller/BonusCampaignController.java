@@ -0,0 +1,97 @@
+package com.dinoventures.backend.wallet.controller;
+
+import com.dinoventures.backend.dto.ApiResponse;
+import com.dinoventures.backend.exception.InvalidRequestException;
+import com.dinoventures.backend.wallet.campaign.BonusCampaign;
+import com.dinoventures.backend.wallet.campaign.BonusCampaignService;
+import com.dinoventures.backend.wallet.dto.BonusCampaignRequest;
+import com.dinoventures.backend.wallet.dto.BonusCampaignResponse;
+import jakarta.validation.Valid;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+
+@RestController
+@RequestMapping("/wallets/campaigns")
+@AllArgsConstructor
+@Slf4j
+public class BonusCampaignController {
+
+    private final BonusCampaignService campaignService;
+
+    @PostMapping
+    @PreAuthorize("@campaignOperators.isOperator(authentication)")
+    public ResponseEntity<ApiResponse<BonusCampaignResponse>> createCampaign(
+            @Valid @RequestBody BonusCampaignRequest request) {
+        log.info("Bonus campaign request received: assetCode={}, amount={}, users={}",
+                request.getAssetCode(), request.getAmount(), request.getUserIds().size());
+
+        BonusCampaign campaign = campaignService.create(
+                request.getAssetCode(),
+                request.getAmount(),
+                request.getDescription(),
+                request.getUserIds().iterator()
+        );
+
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(new ApiResponse<>(HttpStatus.ACCEPTED.value(), "Bonus campaign started", BonusCampaignResponse.from(campaign)));
+    }
+
+    @PostMapping(value = "/upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @PreAuthorize("@campaignOperators.isOperator(authentication)")
+    public ResponseEntity<ApiResponse<BonusCampaignResponse>> uploadCampaign(
+            @RequestParam String assetCode,
+            @RequestParam BigDecimal amount,
+            @RequestParam(required = false) String description,
+            @RequestParam("file") MultipartFile file) {
+        log.info("Bonus campaign upload received: assetCode={}, amount={}, size={}", assetCode, amount, file.getSize());
+
+        if (amount.compareTo(new BigDecimal("0.01")) < 0) {
+            throw new InvalidRequestException("Amount must be greater than 0");
+        }
+
+        BonusCampaign campaign;
+        try {
+            campaign = campaignService.createFromFile(assetCode, amount, description, file.getInputStream());
+        } catch (IOException e) {
+            throw new InvalidRequestException("Could not read segment file", e);
+        }
+
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(new ApiResponse<>(HttpStatus.ACCEPTED.value(), "Bonus campaign started", BonusCampaignResponse.from(campaign)));
+    }
+
+    @GetMapping("/{campaignId}")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<ApiResponse<BonusCampaignResponse>> getCampaign(@PathVariable Long campaignId) {
+        BonusCampaign campaign = campaignService.getCampaign(campaignId);
+        return ResponseEntity.ok(new ApiResponse<>(HttpStatus.OK.value(), "Campaign retrieved successfully",
+                BonusCampaignResponse.from(campaign)));
+    }
+
+    @PostMapping("/{campaignId}/pause")
+    @PreAuthorize("@campaignOperators.isOperator(authentication)")
+    public ResponseEntity<ApiResponse<BonusCampaignResponse>> pauseCampaign(@PathVariable Long campaignId) {
+        log.info("Pause campaign request: campaignId={}", campaignId);
+        BonusCampaign campaign = campaignService.pause(campaignId);
+        return ResponseEntity.ok(new ApiResponse<>(HttpStatus.OK.value(), "Campaign paused",
+                BonusCampaignResponse.from(campaign)));
+    }
+
+    @PostMapping("/{campaignId}/resume")
+    @PreAuthorize("@campaignOperators.isOperator(authentication)")
+    public ResponseEntity<ApiResponse<BonusCampaignResponse>> resumeCampaign(@PathVariable Long campaignId) {
+        log.info("Resume campaign request: campaignId={}", campaignId);
+        BonusCampaign campaign = campaignService.resume(campaignId);
+        return ResponseEntity.ok(new ApiResponse<>(HttpStatus.OK.value(), "Campaign resumed",
+                BonusCampaignResponse.from(campaign)));
+    }
+}
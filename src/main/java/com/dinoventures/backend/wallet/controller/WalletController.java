@@ -3,12 +3,17 @@ package com.dinoventures.backend.wallet.controller;
 import com.dinoventures.backend.dto.ApiResponse;
 import com.dinoventures.backend.model.User;
 import com.dinoventures.backend.util.AuthenticationUtil;
+import com.dinoventures.backend.wallet.cache.BalanceCache;
 import com.dinoventures.backend.wallet.dto.BalanceResponse;
+import com.dinoventures.backend.wallet.dto.BatchOperationRequest;
+import com.dinoventures.backend.wallet.dto.BatchOperationResponse;
 import com.dinoventures.backend.wallet.dto.BonusRequest;
 import com.dinoventures.backend.wallet.dto.SpendRequest;
 import com.dinoventures.backend.wallet.dto.TopUpRequest;
+import com.dinoventures.backend.wallet.service.WalletBatchService;
 import com.dinoventures.backend.wallet.service.WalletService;
 import com.dinoventures.backend.wallet.service.WalletTransactionResult;
+import com.dinoventures.backend.wallet.transfer.CrossShardTransferService;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -24,6 +29,9 @@ import org.springframework.web.bind.annotation.*;
 public class WalletController {
 
     private final WalletService walletService;
+    private final WalletBatchService walletBatchService;
+    private final CrossShardTransferService crossShardTransferService;
+    private final BalanceCache balanceCache;
     private final AuthenticationUtil authenticationUtil;
 
     @PostMapping("/top-up")
@@ -71,6 +79,8 @@ public class WalletController {
         log.info("Spend request received: assetCode={}, amount={}", request.getAssetCode(), request.getAmount());
 
         User user = authenticationUtil.getCurrentUser();
+        // Turn away clearly unaffordable spends before a transaction is opened
+        balanceCache.checkAffordable(user.getId(), request.getAssetCode(), request.getAmount(), request.getIdempotencyKey());
         WalletTransactionResult result = walletService.spend(
                 user,
                 request.getAssetCode(),
@@ -82,6 +92,25 @@ public class WalletController {
         return ResponseEntity.ok(new ApiResponse<>(HttpStatus.OK.value(), "Spend successful", result));
     }
 
+    @PostMapping("/batch")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<ApiResponse<BatchOperationResponse>> batch(
+            @Valid @RequestBody BatchOperationRequest request) {
+        log.info("Batch request received: mode={}, operations={}", request.getMode(), request.getOperations().size());
+
+        User user = authenticationUtil.getCurrentUser();
+        BatchOperationResponse response = crossShardTransferService.handles(user.getId(), request)
+                ? crossShardTransferService.execute(user.getId(), request)
+                : walletBatchService.execute(user, request);
+
+        if (!response.isCommitted()) {
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+                    .body(new ApiResponse<>(HttpStatus.UNPROCESSABLE_ENTITY.value(),
+                            "Batch rejected, no operations were applied", response));
+        }
+        return ResponseEntity.ok(new ApiResponse<>(HttpStatus.OK.value(), "Batch processed", response));
+    }
+
     @GetMapping("/balance/{assetCode}")
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<ApiResponse<BalanceResponse>> getBalance(
@@ -89,7 +118,9 @@ public class WalletController {
         log.info("Get balance request: assetCode={}", assetCode);
 
         User user = authenticationUtil.getCurrentUser();
-        var balance = walletService.getBalance(user, assetCode);
+        // In cluster mode the owner answers from memory once it has the balance
+        var balance = balanceCache.ownedBalance(user.getId(), assetCode)
+                .orElseGet(() -> walletService.getBalance(user, assetCode));
 
         BalanceResponse response = BalanceResponse.builder()
                 .assetCode(assetCode)
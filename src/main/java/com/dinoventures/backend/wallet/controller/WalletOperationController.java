@@ -0,0 +1,160 @@
+package com.dinoventures.backend.wallet.controller;
+
+import com.dinoventures.backend.dto.ApiResponse;
+import com.dinoventures.backend.exception.ResourceNotFoundException;
+import com.dinoventures.backend.model.User;
+import com.dinoventures.backend.util.AuthenticationUtil;
+import com.dinoventures.backend.wallet.dto.BatchOperationItem.OperationType;
+import com.dinoventures.backend.wallet.dto.BonusRequest;
+import com.dinoventures.backend.wallet.dto.SpendRequest;
+import com.dinoventures.backend.wallet.dto.TopUpRequest;
+import com.dinoventures.backend.wallet.dto.WalletOperationResponse;
+import com.dinoventures.backend.wallet.operation.WalletOperation;
+import com.dinoventures.backend.wallet.operation.WalletOperationNotifier;
+import com.dinoventures.backend.wallet.operation.WalletOperationService;
+import jakarta.validation.Valid;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.util.Optional;
+
+/**
+ * Asynchronous variants of the wallet write endpoints, selected with the
+ * {@code Prefer: respond-async} request header. The operation is queued and
+ * answered with 202 and its id; clients poll {@code GET /wallets/operations/{id}},
+ * optionally waiting up to {@code wait} seconds for it to finish.
+ *
+ * With the journal enabled the operation is journaled instead and has no id
+ * until it reaches the database; clients poll it by idempotency key, answered
+ * with 202 while it may still be in flight.
+ */
+@RestController
+@RequestMapping("/wallets")
+@AllArgsConstructor
+@Slf4j
+public class WalletOperationController {
+
+    private static final String RESPOND_ASYNC = "Prefer=respond-async";
+    public static final long MAX_WAIT_SECONDS = 30;
+
+    private final WalletOperationService operationService;
+    private final WalletOperationNotifier notifier;
+    private final AuthenticationUtil authenticationUtil;
+
+    @PostMapping(value = "/top-up", headers = RESPOND_ASYNC)
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<ApiResponse<WalletOperationResponse>> topUpAsync(
+            @Valid @RequestBody TopUpRequest request) {
+        return accept(OperationType.TOP_UP, request.getAssetCode(), request.getAmount(),
+                request.getIdempotencyKey(), request.getDescription());
+    }
+
+    @PostMapping(value = "/bonus", headers = RESPOND_ASYNC)
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<ApiResponse<WalletOperationResponse>> bonusAsync(
+            @Valid @RequestBody BonusRequest request) {
+        return accept(OperationType.BONUS, request.getAssetCode(), request.getAmount(),
+                request.getIdempotencyKey(), request.getDescription());
+    }
+
+    @PostMapping(value = "/spend", headers = RESPOND_ASYNC)
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<ApiResponse<WalletOperationResponse>> spendAsync(
+            @Valid @RequestBody SpendRequest request) {
+        return accept(OperationType.SPEND, request.getAssetCode(), request.getAmount(),
+                request.getIdempotencyKey(), request.getDescription());
+    }
+
+    @GetMapping("/operations/{operationId}")
+    @PreAuthorize("isAuthenticated()")
+    public DeferredResult<ResponseEntity<ApiResponse<WalletOperationResponse>>> getOperation(
+            @PathVariable Long operationId,
+            @RequestParam(defaultValue = "0") long wait) {
+        User user = authenticationUtil.getCurrentUser();
+        WalletOperation operation = operationService.getOperation(user, operationId);
+
+        long waitSeconds = Math.max(0, Math.min(wait, MAX_WAIT_SECONDS));
+        DeferredResult<ResponseEntity<ApiResponse<WalletOperationResponse>>> result =
+                new DeferredResult<>(waitSeconds * 1000 + 1000);
+        if (operation.isFinished() || waitSeconds == 0) {
+            result.setResult(ok(operation));
+            return result;
+        }
+
+        Runnable listener = () -> result.setResult(ok(operationService.findOperation(user.getId(), operationId)));
+        notifier.subscribe(operationId, listener);
+        result.onCompletion(() -> notifier.unsubscribe(operationId, listener));
+        result.onTimeout(listener);
+
+        // The operation may have finished between the read above and subscribing
+        WalletOperation current = operationService.findOperation(user.getId(), operationId);
+        if (current.isFinished()) {
+            result.setResult(ok(current));
+        }
+        return result;
+    }
+
+    @GetMapping(value = "/operations", params = "idempotencyKey")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<ApiResponse<WalletOperationResponse>> getOperationByKey(
+            @RequestParam String idempotencyKey) {
+        User user = authenticationUtil.getCurrentUser();
+        Optional<WalletOperation> operation = operationService.findOperation(user, idempotencyKey);
+        if (operation.isPresent()) {
+            return ok(operation.get());
+        }
+        if (!operationService.hasUnprojectedJournal()) {
+            throw new ResourceNotFoundException("Operation not found: " + idempotencyKey);
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(new ApiResponse<>(HttpStatus.ACCEPTED.value(), "Operation pending",
+                        WalletOperationResponse.builder()
+                                .idempotencyKey(idempotencyKey)
+                                .status(WalletOperation.OperationStatus.PENDING.name())
+                                .build()));
+    }
+
+    private ResponseEntity<ApiResponse<WalletOperationResponse>> accept(OperationType type, String assetCode,
+                                                                      BigDecimal amount, String idempotencyKey,
+                                                                      String description) {
+        log.info("Async {} request received: assetCode={}, amount={}", type, assetCode, amount);
+
+        User user = authenticationUtil.getCurrentUser();
+        WalletOperation operation = operationService.isJournaled()
+                ? operationService.journal(user, type, assetCode, amount, idempotencyKey, description)
+                : operationService.enqueue(user, type, assetCode, amount, idempotencyKey, description);
+
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .location(location(operation))
+                .body(new ApiResponse<>(HttpStatus.ACCEPTED.value(), "Operation accepted",
+                        WalletOperationResponse.from(operation)));
+    }
+
+    private URI location(WalletOperation operation) {
+        if (operation.getId() == null) {
+            return ServletUriComponentsBuilder.fromCurrentContextPath()
+                    .path("/wallets/operations")
+                    .queryParam("idempotencyKey", "{key}")
+                    .buildAndExpand(operation.getIdempotencyKey())
+                    .encode()
+                    .toUri();
+        }
+        return ServletUriComponentsBuilder.fromCurrentContextPath()
+                .path("/wallets/operations/{id}")
+                .buildAndExpand(operation.getId())
+                .toUri();
+    }
+
+    private ResponseEntity<ApiResponse<WalletOperationResponse>> ok(WalletOperation operation) {
+        return ResponseEntity.ok(new ApiResponse<>(HttpStatus.OK.value(), "Operation retrieved successfully",
+                WalletOperationResponse.from(operation)));
+    }
+}
@@ -0,0 +1,148 @@
+package com.dinoventures.backend.wallet.controller;
+
+import com.dinoventures.backend.dto.ApiResponse;
+import com.dinoventures.backend.dto.TransactionDTO;
+import com.dinoventures.backend.util.AuthenticationUtil;
+import com.dinoventures.backend.wallet.dto.BalanceResponse;
+import com.dinoventures.backend.wallet.dto.LedgerEntryView;
+import com.dinoventures.backend.wallet.dto.ReadPage;
+import com.dinoventures.backend.wallet.read.WalletReadService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Read-only wallet API served asynchronously: handlers hand the query to
+ * {@link WalletReadService} and return, freeing the request thread until the
+ * result is ready. The caller is identified on the request thread, before the
+ * security context is left behind.
+ */
+@RestController
+@RequestMapping("/wallets/read")
+@Slf4j
+public class WalletReadController {
+
+    private final WalletReadService walletReadService;
+    private final AuthenticationUtil authenticationUtil;
+    private final ObjectMapper objectMapper;
+    private final long streamTimeoutMs;
+
+    public WalletReadController(WalletReadService walletReadService,
+                                AuthenticationUtil authenticationUtil,
+                                ObjectMapper objectMapper,
+                                @Value("${app.wallet.read.stream-timeout-ms:300000}") long streamTimeoutMs) {
+        this.walletReadService = walletReadService;
+        this.authenticationUtil = authenticationUtil;
+        this.objectMapper = objectMapper;
+        this.streamTimeoutMs = streamTimeoutMs;
+    }
+
+    @GetMapping("/balances")
+    @PreAuthorize("isAuthenticated()")
+    public CompletableFuture<ResponseEntity<ApiResponse<List<BalanceResponse>>>> getBalances() {
+        return walletReadService.getBalances(currentEmail())
+                .thenApply(balances -> ResponseEntity.ok(
+                        new ApiResponse<>(HttpStatus.OK.value(), "Balances retrieved successfully", balances)));
+    }
+
+    /**
+     * The current balance, or with {@code at} the balance as it was then.
+     */
+    @GetMapping("/balances/{assetCode}")
+    @PreAuthorize("isAuthenticated()")
+    public CompletableFuture<ResponseEntity<ApiResponse<BalanceResponse>>> getBalance(
+            @PathVariable String assetCode,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at) {
+        String email = currentEmail();
+        return (at != null ? walletReadService.getBalanceAsOf(email, assetCode, at)
+                : walletReadService.getBalance(email, assetCode))
+                .thenApply(balance -> ResponseEntity.ok(
+                        new ApiResponse<>(HttpStatus.OK.value(), "Balance retrieved successfully", balance)));
+    }
+
+    @GetMapping("/ledger")
+    @PreAuthorize("isAuthenticated()")
+    public CompletableFuture<ResponseEntity<ApiResponse<ReadPage<LedgerEntryView>>>> getLedger(
+            @RequestParam(required = false) String assetCode,
+            @RequestParam(required = false) Long before,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "50") int limit) {
+        return walletReadService.getLedgerPage(currentEmail(), assetCode, before, from, to, limit)
+                .thenApply(page -> ResponseEntity.ok(
+                        new ApiResponse<>(HttpStatus.OK.value(), "Ledger entries retrieved successfully", page)));
+    }
+
+    /**
+     * Ledger history moved out of the database by the archiver.
+     */
+    @GetMapping("/ledger/archive")
+    @PreAuthorize("isAuthenticated()")
+    public CompletableFuture<ResponseEntity<ApiResponse<ReadPage<LedgerEntryView>>>> getArchivedLedger(
+            @RequestParam(required = false) String assetCode,
+            @RequestParam(required = false) Long before,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "50") int limit) {
+        return walletReadService.getArchivedLedgerPage(currentEmail(), assetCode, before, from, to, limit)
+                .thenApply(page -> ResponseEntity.ok(
+                        new ApiResponse<>(HttpStatus.OK.value(), "Archived ledger entries retrieved successfully", page)));
+    }
+
+    /**
+     * Full ledger history as newline-delimited JSON, written as it is read.
+     */
+    @GetMapping(value = "/ledger/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<ResponseBodyEmitter> streamLedger(
+            @RequestParam(required = false) String assetCode) {
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(streamTimeoutMs);
+        walletReadService.streamLedger(currentEmail(), assetCode, chunk -> {
+                    StringBuilder lines = new StringBuilder();
+                    for (LedgerEntryView entry : chunk) {
+                        lines.append(objectMapper.writeValueAsString(entry)).append('\n');
+                    }
+                    emitter.send(lines.toString(), MediaType.TEXT_PLAIN);
+                })
+                .whenComplete((ignored, ex) -> {
+                    if (ex != null) {
+                        log.error("Ledger stream failed", ex);
+                        emitter.completeWithError(ex);
+                    } else {
+                        emitter.complete();
+                    }
+                });
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(emitter);
+    }
+
+    @GetMapping("/transactions")
+    @PreAuthorize("isAuthenticated()")
+    public CompletableFuture<ResponseEntity<ApiResponse<ReadPage<TransactionDTO>>>> getTransactions(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        return walletReadService.getTransactionPage(currentEmail(), page, size)
+                .thenApply(result -> ResponseEntity.ok(
+                        new ApiResponse<>(HttpStatus.OK.value(), "Transactions retrieved successfully", result)));
+    }
+
+    private String currentEmail() {
+        String email = authenticationUtil.getCurrentUserEmail();
+        if (email == null) {
+            throw new IllegalStateException("User not authenticated");
+        }
+        return email;
+    }
+}
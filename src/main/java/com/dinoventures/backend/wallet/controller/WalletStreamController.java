@@ -0,0 +1,66 @@
+package com.dinoventures.backend.wallet.controller;
+
+import com.dinoventures.backend.util.AuthenticationUtil;
+import com.dinoventures.backend.wallet.stream.BalanceStreamRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Server-Sent Events stream of the caller's committed balance changes, in place
+ * of polling the balance endpoints. Streams end after the configured timeout;
+ * the first event tells the client how soon to reconnect.
+ */
+@RestController
+@RequestMapping("/wallets")
+@Slf4j
+public class WalletStreamController {
+
+    private final BalanceStreamRegistry balanceStreamRegistry;
+    private final AuthenticationUtil authenticationUtil;
+    private final long timeoutMs;
+    private final long reconnectMs;
+
+    public WalletStreamController(BalanceStreamRegistry balanceStreamRegistry,
+                                  AuthenticationUtil authenticationUtil,
+                                  @Value("${app.wallet.stream.timeout-ms:1800000}") long timeoutMs,
+                                  @Value("${app.wallet.stream.reconnect-ms:3000}") long reconnectMs) {
+        this.balanceStreamRegistry = balanceStreamRegistry;
+        this.authenticationUtil = authenticationUtil;
+        this.timeoutMs = timeoutMs;
+        this.reconnectMs = reconnectMs;
+    }
+
+    /**
+     * A stream over the node or per-user limit is refused with a bare 503: the
+     * client asked for an event stream, so there is no JSON body to negotiate.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<SseEmitter> stream() throws IOException {
+        Long userId = authenticationUtil.getCurrentUserId();
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        emitter.send(SseEmitter.event().name("ready").reconnectTime(reconnectMs).data(""));
+        try {
+            balanceStreamRegistry.subscribe(userId, emitter);
+        } catch (RejectedExecutionException e) {
+            log.warn("Balance stream refused: userId={}, reason={}", userId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(reconnectMs / 1000 + 1))
+                    .build();
+        }
+        log.debug("Balance stream opened: userId={}", userId);
+        return ResponseEntity.ok(emitter);
+    }
+}
@@ -0,0 +1,33 @@
+package com.dinoventures.backend.wallet.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * One committed balance change pushed on the wallet stream.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BalanceStreamEvent {
+
+    private String assetCode;
+
+    private BigDecimal balance;
+
+    /**
+     * Difference to the previous balance sent on this connection; null for the
+     * first change of an asset.
+     */
+    private BigDecimal change;
+
+    /**
+     * Wallet version matching {@code balance}; null when the writer did not read it back.
+     */
+    private Long version;
+}
@@ -0,0 +1,51 @@
+package com.dinoventures.backend.wallet.dto;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BatchOperationItem {
+
+    @NotNull(message = "Operation type is required")
+    private OperationType type;
+
+    /**
+     * User whose wallet is credited (top-up, bonus) or debited (spend, transfer);
+     * defaults to the authenticated user, and may only name them.
+     */
+    private Long userId;
+
+    /**
+     * Recipient of a transfer.
+     */
+    private Long targetUserId;
+
+    @NotBlank(message = "Asset code is required")
+    private String assetCode;
+
+    @NotNull(message = "Amount is required")
+    @DecimalMin(value = "0.01", message = "Amount must be greater than 0")
+    private BigDecimal amount;
+
+    @NotBlank(message = "Idempotency key is required")
+    private String idempotencyKey;
+
+    private String description;
+
+    public enum OperationType {
+        TOP_UP,
+        BONUS,
+        SPEND,
+        TRANSFER
+    }
+}
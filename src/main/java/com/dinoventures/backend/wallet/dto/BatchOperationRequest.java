@@ -0,0 +1,30 @@
+package com.dinoventures.backend.wallet.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BatchOperationRequest {
+
+    @Builder.Default
+    private BatchMode mode = BatchMode.ALL_OR_NOTHING;
+
+    @NotEmpty(message = "At least one operation is required")
+    private List<@Valid BatchOperationItem> operations;
+
+    public enum BatchMode {
+        /** Nothing is written unless every operation succeeds */
+        ALL_OR_NOTHING,
+        /** Successful operations are written; failed ones are reported */
+        BEST_EFFORT
+    }
+}
@@ -0,0 +1,48 @@
+package com.dinoventures.backend.wallet.dto;
+
+import com.dinoventures.backend.wallet.service.WalletTransactionResult;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BatchOperationResponse {
+
+    private BatchOperationRequest.BatchMode mode;
+    private boolean committed;
+    private int applied;
+    private int duplicates;
+    private int failed;
+    private List<ItemResult> results;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class ItemResult {
+        private int index;
+        private String idempotencyKey;
+        private ItemStatus status;
+        private String error;
+        private WalletTransactionResult result;
+    }
+
+    public enum ItemStatus {
+        /** Written by this batch */
+        APPLIED,
+        /** Idempotency key was already used; result is the earlier transaction */
+        DUPLICATE,
+        /** Rejected; see error */
+        FAILED,
+        /** Valid, but not written because another operation failed in all-or-nothing mode */
+        ABORTED,
+        /** Cross-shard transfer debited; the credit is still being retried */
+        PENDING
+    }
+}
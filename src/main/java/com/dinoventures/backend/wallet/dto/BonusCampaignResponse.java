@@ -0,0 +1,57 @@
+package com.dinoventures.backend.wallet.dto;
+
+import com.dinoventures.backend.wallet.campaign.BonusCampaign;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BonusCampaignResponse {
+
+    private Long campaignId;
+    private String assetCode;
+    private BigDecimal amountPerUser;
+    private String description;
+    private String status;
+    private Long totalUsers;
+    private Long processedUsers;
+    private Long creditedUsers;
+    private Long skippedUsers;
+    private BigDecimal progressPercent;
+    private String failureReason;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private LocalDateTime completedAt;
+
+    public static BonusCampaignResponse from(BonusCampaign campaign) {
+        BigDecimal progress = campaign.getTotalUsers() == 0
+                ? BigDecimal.valueOf(100)
+                : BigDecimal.valueOf(campaign.getProcessedUsers() * 100)
+                        .divide(BigDecimal.valueOf(campaign.getTotalUsers()), 2, RoundingMode.DOWN);
+
+        return BonusCampaignResponse.builder()
+                .campaignId(campaign.getId())
+                .assetCode(campaign.getAssetCode())
+                .amountPerUser(campaign.getAmountPerUser())
+                .description(campaign.getDescription())
+                .status(campaign.getStatus().name())
+                .totalUsers(campaign.getTotalUsers())
+                .processedUsers(campaign.getProcessedUsers())
+                .creditedUsers(campaign.getCreditedUsers())
+                .skippedUsers(Math.max(0, campaign.getProcessedUsers() - campaign.getCreditedUsers()))
+                .progressPercent(progress)
+                .failureReason(campaign.getFailureReason())
+                .createdAt(campaign.getCreatedAt())
+                .updatedAt(campaign.getUpdatedAt())
+                .completedAt(campaign.getCompletedAt())
+                .build();
+    }
+}
@@ -0,0 +1,37 @@
+package com.dinoventures.backend.wallet.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One ledger entry seen from the requesting user's side: CREDIT when it paid
+ * into one of their wallets, DEBIT when it paid out of one. {@code balanceAfter}
+ * is that wallet's balance right after the entry, null on history not yet
+ * backfilled.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LedgerEntryView {
+
+    private Long id;
+    private String assetCode;
+    private String transactionType;
+    private Direction direction;
+    private BigDecimal amount;
+    private BigDecimal balanceAfter;
+    private String idempotencyKey;
+    private String description;
+    private LocalDateTime createdAt;
+
+    public enum Direction {
+        CREDIT,
+        DEBIT
+    }
+}
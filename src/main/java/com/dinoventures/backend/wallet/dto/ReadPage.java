@@ -0,0 +1,20 @@
+package com.dinoventures.backend.wallet.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * A page of read results without a total count. {@code next} is the value to
+ * pass back for the following page, or null when there is none.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReadPage<T> {
+
+    private List<T> items;
+    private Long next;
+}
@@ -0,0 +1,49 @@
+package com.dinoventures.backend.wallet.dto;
+
+import com.dinoventures.backend.wallet.operation.WalletOperation;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class WalletOperationResponse {
+
+    private Long operationId;
+    private Long journalSequence;
+    private String type;
+    private String assetCode;
+    private BigDecimal amount;
+    private String idempotencyKey;
+    private String status;
+    private Integer attempts;
+    private Long transactionId;
+    private BigDecimal balanceAfter;
+    private String error;
+    private LocalDateTime createdAt;
+    private LocalDateTime completedAt;
+
+    public static WalletOperationResponse from(WalletOperation operation) {
+        return WalletOperationResponse.builder()
+                .operationId(operation.getId())
+                .journalSequence(operation.getJournalSequence())
+                .type(operation.getType().name())
+                .assetCode(operation.getAssetCode())
+                .amount(operation.getAmount())
+                .idempotencyKey(operation.getIdempotencyKey())
+                .status(operation.getStatus().name())
+                .attempts(operation.getAttempts())
+                .transactionId(operation.getTransactionId())
+                .balanceAfter(operation.getBalanceAfter())
+                .error(operation.getErrorMessage())
+                .createdAt(operation.getCreatedAt())
+                .completedAt(operation.getCompletedAt())
+                .build();
+    }
+}
@@ -0,0 +1,527 @@
+package com.dinoventures.backend.wallet.journal;
+
+import com.dinoventures.backend.wallet.dto.BatchOperationItem.OperationType;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Local write-ahead journal of accepted wallet operations, for journal-first
+ * acceptance: an operation is acknowledged once it is here, and projected into
+ * the database afterwards by the {@link WalletJournalProjector}.
+ *
+ * The journal is a directory of memory-mapped segment files of
+ * {@code segment-bytes} each, named by the sequence of their first record.
+ * A record is framed as {@code [length][crc32][sequence][body]}, the checksum
+ * covering sequence and body; a zero length marks the end of a segment's
+ * records. Appenders copy their record into the mapping and then
+ * {@link #sync} it: whichever caller gets to the disk first forces every
+ * record appended so far, so concurrent appends share one fsync. Only synced
+ * records are read back for projection.
+ *
+ * No disk write happens under the append lock. The next segment is mapped
+ * ahead of time by a background thread, so a roll only renames it, and the
+ * full segment is forced by that thread or by the next sync. Both locks are
+ * {@link ReentrantLock}s, so virtual threads waiting on a sync do not pin
+ * their carriers.
+ *
+ * On open, each segment is read up to its first record that is torn, fails
+ * its checksum or breaks the sequence. A segment that does not start right
+ * after the previous one ends follows a lost tail, so it and every later
+ * segment are deleted, and the rest of the last segment kept is cleared; such
+ * records were never synced, so never acknowledged. The sequence of the last
+ * projected record is kept in a checkpoint file, and segments wholly below it
+ * are deleted.
+ */
+@Component
+@Slf4j
+public class WalletJournal {
+
+    private static final String SEGMENT_EXTENSION = ".wal";
+    private static final String CHECKPOINT = "projected.checkpoint";
+    /** The next segment, mapped ahead of the roll that renames it */
+    private static final String SPARE = "next.spare";
+    /** Body length, checksum, sequence */
+    private static final int HEADER_BYTES = 16;
+
+    private final boolean enabled;
+    private final Path directory;
+    private final int segmentBytes;
+    private final NavigableMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private final ExecutorService preparer = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "wallet-journal-preparer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private FileChannel lockChannel;
+    /** Guarded by appendLock */
+    private Segment current;
+    /** Guarded by appendLock */
+    private long lastSequence;
+    /** Guarded by appendLock; null while no spare is being prepared */
+    private CompletableFuture<MappedByteBuffer> spare;
+    private volatile long durableSequence;
+    private volatile long projectedSequence;
+
+    /** Read cursor of the single projector: the next record's segment, position and sequence */
+    private Segment readSegment;
+    private int readPosition;
+    private long readSequence;
+
+    public WalletJournal(@Value("${app.wallet.journal.enabled:false}") boolean enabled,
+                         @Value("${app.wallet.journal.directory:data/wallet-journal}") String directory,
+                         @Value("${app.wallet.journal.segment-bytes:67108864}") int segmentBytes) {
+        this.enabled = enabled;
+        this.directory = Path.of(directory);
+        this.segmentBytes = segmentBytes;
+        if (enabled) {
+            try {
+                open();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Wallet journal could not be opened: " + directory, e);
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Copies an operation into the journal. It is not durable until {@link #sync}ed.
+     *
+     * @return the operation's sequence number
+     */
+    public long append(long userId, OperationType type, String assetCode, BigDecimal amount,
+                       String idempotencyKey, String description) {
+        byte[] body = encode(userId, type, assetCode, amount, idempotencyKey, description);
+        int size = HEADER_BYTES + body.length;
+        if (size > segmentBytes) {
+            throw new IllegalArgumentException("Journal record of " + size + " bytes exceeds the segment size");
+        }
+        appendLock.lock();
+        try {
+            long sequence = lastSequence + 1;
+            if (current.limit + size > current.buffer.capacity()) {
+                roll(sequence);
+            }
+            int position = current.limit;
+            current.buffer.put(position + HEADER_BYTES, body);
+            current.buffer.putLong(position + 8, sequence);
+            current.buffer.putInt(position + 4, checksum(sequence, body));
+            current.buffer.putInt(position, body.length);
+            current.limit = position + size;
+            lastSequence = sequence;
+            return sequence;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Returns once the record with the given sequence, and every one before
+     * it, is on disk. Callers arriving while another sync runs wait for it and
+     * are usually covered by the next one.
+     */
+    public void sync(long sequence) {
+        if (durableSequence >= sequence) {
+            return;
+        }
+        syncLock.lock();
+        try {
+            if (durableSequence >= sequence) {
+                return;
+            }
+            Segment segment;
+            int limit;
+            long target;
+            appendLock.lock();
+            try {
+                segment = current;
+                limit = segment.limit;
+                target = lastSequence;
+            } finally {
+                appendLock.unlock();
+            }
+            // Full segments are usually forced by the preparer already
+            for (Segment earlier : segments.headMap(segment.firstSequence).values()) {
+                force(earlier, earlier.limit);
+            }
+            force(segment, limit);
+            durableSequence = target;
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /**
+     * Synced records after {@code afterSequence}, oldest first. Meant for a
+     * single reader, which resumes where its previous read ended.
+     */
+    public synchronized List<WalletJournalRecord> read(long afterSequence, int limit) {
+        long durable = durableSequence;
+        List<WalletJournalRecord> records = new ArrayList<>();
+        if (afterSequence >= durable) {
+            return records;
+        }
+        if (readSegment == null || readSequence != afterSequence + 1 || !segments.containsValue(readSegment)) {
+            Map.Entry<Long, Segment> start = segments.floorEntry(afterSequence + 1);
+            readSegment = start != null ? start.getValue() : segments.firstEntry().getValue();
+            readPosition = 0;
+            readSequence = readSegment.firstSequence;
+        }
+        while (records.size() < limit && readSequence <= durable) {
+            if (readPosition >= readSegment.limit) {
+                Map.Entry<Long, Segment> next = segments.higherEntry(readSegment.firstSequence);
+                if (next == null) {
+                    break;
+                }
+                readSegment = next.getValue();
+                readPosition = 0;
+                readSequence = readSegment.firstSequence;
+                continue;
+            }
+            WalletJournalRecord record = decode(readSegment.buffer, readPosition);
+            readPosition += HEADER_BYTES + readSegment.buffer.getInt(readPosition);
+            readSequence = record.sequence() + 1;
+            if (record.sequence() > afterSequence) {
+                records.add(record);
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Records that every operation up to {@code sequence} is in the database,
+     * and deletes the segments that held only such operations.
+     */
+    public void markProjected(long sequence) {
+        try {
+            Path temporary = directory.resolve(CHECKPOINT + ".tmp");
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer checkpoint = ByteBuffer.allocate(8).putLong(sequence).flip();
+                while (checkpoint.hasRemaining()) {
+                    channel.write(checkpoint);
+                }
+                channel.force(true);
+            }
+            Files.move(temporary, directory.resolve(CHECKPOINT), StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Wallet journal checkpoint could not be written", e);
+        }
+        projectedSequence = sequence;
+
+        // A segment is complete once a later one exists; the last one never is
+        for (Map.Entry<Long, Segment> entry : segments.entrySet()) {
+            Long next = segments.higherKey(entry.getKey());
+            if (next == null || next - 1 > sequence) {
+                break;
+            }
+            segments.remove(entry.getKey());
+            try {
+                Files.deleteIfExists(entry.getValue().path);
+            } catch (IOException e) {
+                log.warn("Projected journal segment could not be deleted: {}", entry.getValue().path, e);
+            }
+        }
+    }
+
+    public long projectedSequence() {
+        return projectedSequence;
+    }
+
+    public long durableSequence() {
+        return durableSequence;
+    }
+
+    /**
+     * Whether synced operations are still waiting to reach the database.
+     */
+    public boolean hasUnprojected() {
+        return enabled && durableSequence > projectedSequence;
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        preparer.shutdown();
+        try {
+            // A preparer still mapping the spare would race the next journal opened on the directory
+            preparer.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (lockChannel != null) {
+            // Releases the directory lock; the mappings stay valid until collected
+            lockChannel.close();
+        }
+    }
+
+    private void open() throws IOException {
+        Files.createDirectories(directory);
+        lockChannel = FileChannel.open(directory.resolve("lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock lock;
+        try {
+            lock = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null;
+        }
+        if (lock == null) {
+            lockChannel.close();
+            throw new IOException("Journal directory is in use by another process");
+        }
+
+        Path checkpoint = directory.resolve(CHECKPOINT);
+        projectedSequence = Files.exists(checkpoint) ? ByteBuffer.wrap(Files.readAllBytes(checkpoint)).getLong() : 0;
+
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.filter(file -> file.getFileName().toString().endsWith(SEGMENT_EXTENSION)).toList()) {
+                String name = file.getFileName().toString();
+                long firstSequence = Long.parseLong(name.substring(0, name.length() - SEGMENT_EXTENSION.length()));
+                segments.put(firstSequence, map(file, firstSequence, (int) Files.size(file)));
+            }
+        }
+
+        long last = projectedSequence;
+        Long expected = null;
+        for (Segment segment : List.copyOf(segments.values())) {
+            if (expected != null && segment.firstSequence != expected) {
+                // Never synced: a sync forces every earlier segment before the later ones count
+                log.warn("Wallet journal segment {} follows a lost tail ending at {}; deleting it",
+                        segment.path, expected - 1);
+                segments.remove(segment.firstSequence);
+                Files.delete(segment.path);
+                continue;
+            }
+            last = recover(segment);
+            expected = last + 1;
+        }
+        if (!segments.isEmpty()) {
+            clearTail(segments.lastEntry().getValue());
+        }
+        if (segments.isEmpty() || last < projectedSequence) {
+            if (!segments.isEmpty()) {
+                log.warn("Wallet journal ends at {} but {} was projected; starting a new segment", last, projectedSequence);
+            }
+            last = projectedSequence;
+            segments.put(last + 1, map(segmentPath(last + 1), last + 1, segmentBytes));
+        }
+        current = segments.lastEntry().getValue();
+        lastSequence = last;
+        durableSequence = last;
+        spare = CompletableFuture.supplyAsync(this::mapSpare, preparer);
+
+        log.info("Wallet journal opened: directory={}, segments={}, projected={}, last={}",
+                directory, segments.size(), projectedSequence, last);
+    }
+
+    /**
+     * Finds the end of a segment's valid records.
+     *
+     * @return sequence of the segment's last valid record
+     */
+    private long recover(Segment segment) {
+        MappedByteBuffer buffer = segment.buffer;
+        int position = 0;
+        long sequence = segment.firstSequence;
+        while (position + HEADER_BYTES <= buffer.capacity()) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || length > buffer.capacity() - position - HEADER_BYTES
+                    || buffer.getLong(position + 8) != sequence) {
+                break;
+            }
+            byte[] body = new byte[length];
+            buffer.get(position + HEADER_BYTES, body);
+            if (buffer.getInt(position + 4) != checksum(sequence, body)) {
+                break;
+            }
+            position += HEADER_BYTES + length;
+            sequence++;
+        }
+        segment.limit = position;
+        segment.forced = position;
+        return sequence - 1;
+    }
+
+    /**
+     * Clears whatever follows the valid records of the last segment.
+     */
+    private static void clearTail(Segment segment) {
+        MappedByteBuffer buffer = segment.buffer;
+        if (segment.limit >= buffer.capacity()) {
+            return;
+        }
+        byte[] zeros = new byte[Math.min(64 * 1024, buffer.capacity() - segment.limit)];
+        for (int offset = segment.limit; offset < buffer.capacity(); offset += zeros.length) {
+            buffer.put(offset, zeros, 0, Math.min(zeros.length, buffer.capacity() - offset));
+        }
+        buffer.force();
+    }
+
+    /**
+     * Starts the next segment, under the append lock. Takes the spare when it
+     * is ready, mapping a new file only when rolls outpace the preparer, and
+     * leaves forcing the full segment to the preparer.
+     */
+    private void roll(long firstSequence) {
+        Segment previous = current;
+        Path path = segmentPath(firstSequence);
+        try {
+            MappedByteBuffer buffer = null;
+            if (spare != null && spare.isDone()) {
+                CompletableFuture<MappedByteBuffer> ready = spare;
+                spare = null;
+                try {
+                    buffer = ready.join();
+                } catch (CompletionException e) {
+                    log.warn("Wallet journal spare segment could not be prepared", e.getCause());
+                }
+                if (buffer != null) {
+                    Files.move(directory.resolve(SPARE), path, StandardCopyOption.ATOMIC_MOVE);
+                }
+            }
+            current = new Segment(path, firstSequence, buffer != null ? buffer : mapBuffer(path, segmentBytes));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Wallet journal segment could not be created", e);
+        }
+        segments.put(firstSequence, current);
+
+        preparer.execute(() -> {
+            syncLock.lock();
+            try {
+                force(previous, previous.limit);
+            } finally {
+                syncLock.unlock();
+            }
+        });
+        if (spare == null) {
+            spare = CompletableFuture.supplyAsync(this::mapSpare, preparer);
+        }
+    }
+
+    /**
+     * Forces a segment's records up to {@code limit}, under the sync lock.
+     */
+    private static void force(Segment segment, int limit) {
+        int forced = segment.forced;
+        if (limit > forced) {
+            segment.buffer.force(forced, limit - forced);
+            segment.forced = limit;
+        }
+    }
+
+    private MappedByteBuffer mapSpare() {
+        Path path = directory.resolve(SPARE);
+        try {
+            Files.deleteIfExists(path);
+            return mapBuffer(path, segmentBytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Path segmentPath(long firstSequence) {
+        return directory.resolve(String.format("%020d%s", firstSequence, SEGMENT_EXTENSION));
+    }
+
+    private static Segment map(Path path, long firstSequence, int size) throws IOException {
+        return new Segment(path, firstSequence, mapBuffer(path, size));
+    }
+
+    private static MappedByteBuffer mapBuffer(Path path, int size) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    private static byte[] encode(long userId, OperationType type, String assetCode, BigDecimal amount,
+                                 String idempotencyKey, String description) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeLong(userId);
+            out.writeUTF(type.name());
+            out.writeUTF(assetCode);
+            out.writeUTF(amount.toPlainString());
+            out.writeUTF(idempotencyKey);
+            out.writeBoolean(description != null);
+            if (description != null) {
+                out.writeUTF(description);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static WalletJournalRecord decode(ByteBuffer buffer, int position) {
+        byte[] body = new byte[buffer.getInt(position)];
+        buffer.get(position + HEADER_BYTES, body);
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(body))) {
+            return new WalletJournalRecord(buffer.getLong(position + 8), in.readLong(),
+                    OperationType.valueOf(in.readUTF()), in.readUTF(), new BigDecimal(in.readUTF()), in.readUTF(),
+                    in.readBoolean() ? in.readUTF() : null);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static int checksum(long sequence, byte[] body) {
+        CRC32 crc = new CRC32();
+        crc.update(ByteBuffer.allocate(8).putLong(0, sequence));
+        crc.update(body);
+        return (int) crc.getValue();
+    }
+
+    private static final class Segment {
+
+        private final Path path;
+        private final long firstSequence;
+        private final MappedByteBuffer buffer;
+        /** End of the appended records */
+        private volatile int limit;
+        /** End of the records known to be on disk */
+        private volatile int forced;
+
+        private Segment(Path path, long firstSequence, MappedByteBuffer buffer) {
+            this.path = path;
+            this.firstSequence = firstSequence;
+            this.buffer = buffer;
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.dinoventures.backend.wallet.journal;
+
+/**
+ * Published once a journaled operation is on disk; the projector picks it up.
+ */
+public record WalletJournalAppendedEvent(long sequence) {
+}
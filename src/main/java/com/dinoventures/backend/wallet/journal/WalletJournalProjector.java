@@ -0,0 +1,215 @@
+package com.dinoventures.backend.wallet.journal;
+
+import com.dinoventures.backend.shard.ShardRouter;
+import com.dinoventures.backend.wallet.dto.BatchOperationItem;
+import com.dinoventures.backend.wallet.dto.BatchOperationRequest;
+import com.dinoventures.backend.wallet.dto.BatchOperationResponse;
+import com.dinoventures.backend.wallet.dto.BatchOperationResponse.ItemResult;
+import com.dinoventures.backend.wallet.operation.WalletOperation;
+import com.dinoventures.backend.wallet.operation.WalletOperationRepository;
+import com.dinoventures.backend.wallet.service.WalletBatchService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Projects the {@link WalletJournal} into the database.
+ *
+ * Synced records are read in journal order from the last projected sequence
+ * and applied per shard as best-effort {@link WalletBatchService} batches; each
+ * operation's outcome is stored as a finished {@link WalletOperation} in the
+ * same transaction, for clients to look up by idempotency key. The checkpoint
+ * moves only after every shard's batch has committed, so after a crash the
+ * records since the checkpoint are applied again: the ledger answers them as
+ * duplicates and their outcomes, already stored, are kept.
+ *
+ * A single drain loop runs per node, woken by each append and by a poll.
+ */
+@Component
+@Slf4j
+public class WalletJournalProjector {
+
+    private final WalletJournal journal;
+    private final WalletBatchService walletBatchService;
+    private final WalletOperationRepository operationRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TaskExecutor executor;
+    private final ShardRouter shardRouter;
+    private final int batchSize;
+    private final AtomicBoolean projecting = new AtomicBoolean();
+    private final Counter projected;
+    private final Counter failures;
+
+    public WalletJournalProjector(WalletJournal journal,
+                                  WalletBatchService walletBatchService,
+                                  WalletOperationRepository operationRepository,
+                                  TransactionTemplate transactionTemplate,
+                                  @Qualifier("walletJournalExecutor") TaskExecutor executor,
+                                  ShardRouter shardRouter,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${app.wallet.journal.projection-batch-size:500}") int batchSize) {
+        this.journal = journal;
+        this.walletBatchService = walletBatchService;
+        this.operationRepository = operationRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.executor = executor;
+        this.shardRouter = shardRouter;
+        this.batchSize = batchSize;
+        this.projected = Counter.builder("wallet.journal.projected")
+                .description("Journaled wallet operations applied to the database")
+                .register(meterRegistry);
+        this.failures = Counter.builder("wallet.journal.projection.failures")
+                .description("Journal projection batches that failed and will be retried")
+                .register(meterRegistry);
+    }
+
+    @EventListener
+    public void onAppended(WalletJournalAppendedEvent event) {
+        dispatch();
+    }
+
+    /**
+     * Backstop for wake-ups lost to a busy projector, and replays the journal after a restart.
+     */
+    @Scheduled(fixedDelayString = "${app.wallet.journal.poll-interval-ms:1000}")
+    public void poll() {
+        if (journal.hasUnprojected()) {
+            dispatch();
+        }
+    }
+
+    private void dispatch() {
+        if (journal.isEnabled() && projecting.compareAndSet(false, true)) {
+            try {
+                executor.execute(() -> {
+                    try {
+                        drain();
+                    } finally {
+                        projecting.set(false);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // The previous drain is still winding down; the next poll picks up the rest
+                projecting.set(false);
+            }
+        }
+    }
+
+    /**
+     * Projects until the journal is caught up or a batch fails; a failed batch waits for the next poll.
+     */
+    void drain() {
+        try {
+            int count;
+            do {
+                count = projectBatch();
+            } while (count > 0);
+        } catch (RuntimeException e) {
+            failures.increment();
+            log.warn("Wallet journal projection failed at sequence {}, will retry: {}",
+                    journal.projectedSequence() + 1, e.getMessage());
+        }
+    }
+
+    /**
+     * @return records projected, 0 when the journal is caught up
+     */
+    int projectBatch() {
+        List<WalletJournalRecord> records = nextBatch();
+        if (records.isEmpty()) {
+            return 0;
+        }
+
+        Map<Integer, List<WalletJournalRecord>> byShard = records.stream()
+                .collect(Collectors.groupingBy(record -> shardRouter.shardOf(record.userId()),
+                        LinkedHashMap::new, Collectors.toList()));
+        byShard.forEach((shard, shardRecords) -> shardRouter.onShard(shard,
+                () -> transactionTemplate.executeWithoutResult(status -> apply(shardRecords))));
+
+        journal.markProjected(records.get(records.size() - 1).sequence());
+        projected.increment(records.size());
+        return records.size();
+    }
+
+    /**
+     * The next records in journal order, ending before a repeated idempotency
+     * key: a batch rejects those, and the repeat is answered as a duplicate
+     * by the next batch.
+     */
+    private List<WalletJournalRecord> nextBatch() {
+        List<WalletJournalRecord> records = journal.read(journal.projectedSequence(), batchSize);
+        Set<String> keys = new HashSet<>();
+        for (int i = 0; i < records.size(); i++) {
+            if (!keys.add(records.get(i).idempotencyKey())) {
+                return records.subList(0, i);
+            }
+        }
+        return records;
+    }
+
+    private void apply(List<WalletJournalRecord> records) {
+        BatchOperationRequest request = BatchOperationRequest.builder()
+                .mode(BatchOperationRequest.BatchMode.BEST_EFFORT)
+                .operations(records.stream()
+                        .map(record -> BatchOperationItem.builder()
+                                .type(record.type())
+                                .userId(record.userId())
+                                .assetCode(record.assetCode())
+                                .amount(record.amount())
+                                .idempotencyKey(record.idempotencyKey())
+                                .description(record.description())
+                                .build())
+                        .toList())
+                .build();
+        BatchOperationResponse response = walletBatchService.applyAccepted(request);
+
+        // Outcomes stored by an earlier run, or by the queue for the same key, stay as they are
+        Set<String> recorded = operationRepository.findByIdempotencyKeyIn(
+                        records.stream().map(WalletJournalRecord::idempotencyKey).toList())
+                .stream()
+                .map(WalletOperation::getIdempotencyKey)
+                .collect(Collectors.toSet());
+        LocalDateTime now = LocalDateTime.now();
+        List<WalletOperation> outcomes = new ArrayList<>();
+        for (ItemResult result : response.getResults()) {
+            WalletJournalRecord record = records.get(result.getIndex());
+            if (recorded.contains(record.idempotencyKey())) {
+                continue;
+            }
+            WalletOperation operation = WalletOperation.builder()
+                    .userId(record.userId())
+                    .type(record.type())
+                    .assetCode(record.assetCode())
+                    .amount(record.amount())
+                    .idempotencyKey(record.idempotencyKey())
+                    .description(record.description())
+                    .journalSequence(record.sequence())
+                    .attempts(1)
+                    .build();
+            operation.complete(result, now);
+            outcomes.add(operation);
+        }
+        operationRepository.saveAll(outcomes);
+
+        log.info("Wallet journal batch projected: operations={}, applied={}, duplicates={}, failed={}",
+                records.size(), response.getApplied(), response.getDuplicates(), response.getFailed());
+    }
+}
@@ -0,0 +1,17 @@
+package com.dinoventures.backend.wallet.journal;
+
+import com.dinoventures.backend.wallet.dto.BatchOperationItem.OperationType;
+
+import java.math.BigDecimal;
+
+/**
+ * A wallet operation as it was accepted into the {@link WalletJournal}.
+ */
+public record WalletJournalRecord(long sequence,
+                                  long userId,
+                                  OperationType type,
+                                  String assetCode,
+                                  BigDecimal amount,
+                                  String idempotencyKey,
+                                  String description) {
+}
@@ -0,0 +1,259 @@
+package com.dinoventures.backend.wallet.ledger;
+
+import com.dinoventures.backend.shard.ShardRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fills in the balances after each entry on ledger history written before
+ * {@link LedgerEntry} recorded them.
+ *
+ * Wallets are split into id ranges that the workers claim from a shared cursor
+ * per shard. A wallet is walked newest entry first, in (created_at, id) order,
+ * from an anchor: the oldest entry that already records its balance, or, when
+ * none does, its current balance, read under its row lock. Each older entry
+ * gets the running balance, which then steps back by that entry's amount.
+ * Pages of entries are updated in their own transactions, without holding the
+ * wallet lock.
+ *
+ * Every write since the upgrade records its balances, so run this only once all
+ * nodes are on it; history then fills in from the newest end, and a run that is
+ * stopped resumes where it left off. Entries already archived keep no balances.
+ */
+@Component
+@Slf4j
+public class LedgerBalanceBackfill {
+
+    private static final String WALLET_ENTRIES = "SELECT l.id, l.created_at, l.amount, 'C' AS side, " +
+            "l.credit_balance_after AS balance_after FROM ledger_entries l WHERE l.credit_wallet_id = :walletId " +
+            "UNION ALL SELECT l.id, l.created_at, l.amount, 'D', l.debit_balance_after " +
+            "FROM ledger_entries l WHERE l.debit_wallet_id = :walletId";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TaskExecutor executor;
+    private final ShardRouter shardRouter;
+    private final boolean enabled;
+    private final int threads;
+    private final int walletsPerChunk;
+    private final int rowsPerBatch;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final Counter backfilled;
+
+    public LedgerBalanceBackfill(NamedParameterJdbcTemplate jdbcTemplate,
+                                 TransactionTemplate transactionTemplate,
+                                 @Qualifier("ledgerBackfillExecutor") TaskExecutor executor,
+                                 ShardRouter shardRouter,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${app.ledger.balance-backfill.enabled:false}") boolean enabled,
+                                 @Value("${app.ledger.balance-backfill.threads:4}") int threads,
+                                 @Value("${app.ledger.balance-backfill.wallets-per-chunk:500}") int walletsPerChunk,
+                                 @Value("${app.ledger.balance-backfill.rows-per-batch:1000}") int rowsPerBatch) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.executor = executor;
+        this.shardRouter = shardRouter;
+        this.enabled = enabled;
+        this.threads = Math.max(1, threads);
+        this.walletsPerChunk = Math.max(1, walletsPerChunk);
+        this.rowsPerBatch = Math.max(1, rowsPerBatch);
+        this.backfilled = Counter.builder("ledger.balance.backfilled")
+                .description("Ledger entries given their balances after by the backfill")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        if (enabled) {
+            start();
+        }
+    }
+
+    /**
+     * Starts the workers unless a run is already going.
+     */
+    public void start() {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        int shards = shardRouter.shardCount();
+        long[] lastWalletIds = new long[shards];
+        AtomicLong[] cursors = new AtomicLong[shards];
+        for (int shard = 0; shard < shards; shard++) {
+            lastWalletIds[shard] = shardRouter.onShard(shard, () -> jdbcTemplate.queryForObject(
+                    "SELECT COALESCE(MAX(id), 0) FROM wallets", new MapSqlParameterSource(), Long.class));
+            cursors[shard] = new AtomicLong();
+        }
+
+        AtomicInteger remaining = new AtomicInteger(threads);
+        AtomicLong entries = new AtomicLong();
+        log.info("Ledger balance backfill started: shards={}, workers={}", shards, threads);
+        for (int worker = 0; worker < threads; worker++) {
+            executor.execute(() -> {
+                try {
+                    for (int shard = 0; shard < shards; shard++) {
+                        int current = shard;
+                        shardRouter.onShard(shard, () ->
+                                entries.addAndGet(drain(cursors[current], lastWalletIds[current])));
+                    }
+                } catch (RuntimeException e) {
+                    log.warn("Ledger balance backfill worker failed, rerun to finish: {}", e.getMessage());
+                } finally {
+                    if (remaining.decrementAndGet() == 0) {
+                        running.set(false);
+                        log.info("Ledger balance backfill finished: entries={}", entries.get());
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Backfills wallet id ranges claimed from the cursor until it passes the last wallet.
+     */
+    long drain(AtomicLong cursor, long lastWalletId) {
+        long entries = 0;
+        long from;
+        while ((from = cursor.getAndAdd(walletsPerChunk)) <= lastWalletId) {
+            List<Long> walletIds = jdbcTemplate.queryForList("SELECT w.id FROM wallets w " +
+                            "WHERE w.id >= :from AND w.id < :to " +
+                            "AND (EXISTS (SELECT 1 FROM ledger_entries l WHERE l.credit_wallet_id = w.id " +
+                            "AND l.credit_balance_after IS NULL) " +
+                            "OR EXISTS (SELECT 1 FROM ledger_entries l WHERE l.debit_wallet_id = w.id " +
+                            "AND l.debit_balance_after IS NULL)) ORDER BY w.id",
+                    new MapSqlParameterSource()
+                            .addValue("from", from)
+                            .addValue("to", from + walletsPerChunk),
+                    Long.class);
+            for (Long walletId : walletIds) {
+                entries += backfillWallet(walletId);
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * @return entries of the wallet given a balance
+     */
+    int backfillWallet(long walletId) {
+        Anchor anchor = transactionTemplate.execute(status -> anchor(walletId));
+        if (anchor == null) {
+            return 0;
+        }
+        BigDecimal balance = anchor.balanceBefore();
+        Entry cursor = anchor.entry();
+        int updated = 0;
+        while (true) {
+            List<Entry> page = olderEntries(walletId, cursor);
+            if (page.isEmpty()) {
+                break;
+            }
+            List<SqlParameterSource> credits = new ArrayList<>();
+            List<SqlParameterSource> debits = new ArrayList<>();
+            for (Entry entry : page) {
+                if (entry.balanceAfter() == null) {
+                    (entry.credited() ? credits : debits).add(new MapSqlParameterSource()
+                            .addValue("id", entry.id())
+                            .addValue("createdAt", Timestamp.valueOf(entry.createdAt()))
+                            .addValue("balance", balance));
+                }
+                balance = balance.subtract(entry.change());
+            }
+            transactionTemplate.executeWithoutResult(status -> {
+                // created_at lets a partitioned ledger update the entry's partition alone
+                update("credit_balance_after", credits);
+                update("debit_balance_after", debits);
+            });
+            updated += credits.size() + debits.size();
+            cursor = page.get(page.size() - 1);
+        }
+        backfilled.increment(updated);
+        return updated;
+    }
+
+    /**
+     * Where the walk starts: below the oldest entry that records the wallet's
+     * balance, or below every entry at the current balance. The wallet is locked
+     * while it is read, so no entry lands in between.
+     */
+    private Anchor anchor(long walletId) {
+        List<BigDecimal> current = jdbcTemplate.queryForList("SELECT balance FROM wallets WHERE id = :walletId FOR UPDATE",
+                new MapSqlParameterSource("walletId", walletId), BigDecimal.class);
+        if (current.isEmpty()) {
+            return null;
+        }
+        Optional<Entry> oldestRecorded = jdbcTemplate.query("SELECT * FROM (" + WALLET_ENTRIES + ") e " +
+                                "WHERE balance_after IS NOT NULL ORDER BY created_at, id LIMIT 1",
+                        new MapSqlParameterSource("walletId", walletId), (rs, rowNum) -> entry(rs))
+                .stream()
+                .findFirst();
+        return oldestRecorded
+                .map(entry -> new Anchor(entry, entry.balanceAfter().subtract(entry.change())))
+                .orElseGet(() -> new Anchor(null, current.get(0)));
+    }
+
+    private List<Entry> olderEntries(long walletId, Entry below) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("walletId", walletId)
+                .addValue("limit", rowsPerBatch);
+        String bound = "";
+        if (below != null) {
+            bound = " WHERE created_at < :createdAt OR (created_at = :createdAt AND id < :id)";
+            parameters.addValue("createdAt", Timestamp.valueOf(below.createdAt())).addValue("id", below.id());
+        }
+        return jdbcTemplate.query("SELECT * FROM (" + WALLET_ENTRIES + ") e" + bound +
+                " ORDER BY created_at DESC, id DESC LIMIT :limit", parameters, (rs, rowNum) -> entry(rs));
+    }
+
+    private void update(String column, List<SqlParameterSource> batch) {
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE ledger_entries SET " + column + " = :balance " +
+                    "WHERE id = :id AND created_at = :createdAt AND " + column + " IS NULL",
+                    batch.toArray(SqlParameterSource[]::new));
+        }
+    }
+
+    private static Entry entry(ResultSet rs) throws SQLException {
+        return new Entry(rs.getLong("id"), rs.getTimestamp("created_at").toLocalDateTime(),
+                "C".equals(rs.getString("side")), rs.getBigDecimal("amount"), rs.getBigDecimal("balance_after"));
+    }
+
+    private record Entry(long id, LocalDateTime createdAt, boolean credited, BigDecimal amount,
+                         BigDecimal balanceAfter) {
+
+        /** What the entry did to the wallet's balance */
+        BigDecimal change() {
+            return credited ? amount : amount.negate();
+        }
+    }
+
+    /**
+     * @param entry         null to start below every entry
+     * @param balanceBefore the balance right before that entry, or the current one
+     */
+    private record Anchor(Entry entry, BigDecimal balanceBefore) {
+    }
+}
@@ -0,0 +1,36 @@
+package com.dinoventures.backend.wallet.ledger;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Session;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Writes a group of ledger entries as one JDBC batch. Pooled sequence ids are
+ * assigned before the INSERT, so the only limit is the session batch size,
+ * which is raised to the size of the group for the duration of the flush.
+ */
+@Component
+@RequiredArgsConstructor
+public class LedgerBatchWriter {
+
+    private final EntityManager entityManager;
+
+    public List<LedgerEntry> writeAll(List<LedgerEntry> entries) {
+        if (entries.isEmpty()) {
+            return entries;
+        }
+        Session session = entityManager.unwrap(Session.class);
+        Integer previousBatchSize = session.getJdbcBatchSize();
+        session.setJdbcBatchSize(entries.size());
+        try {
+            entries.forEach(entityManager::persist);
+            entityManager.flush();
+        } finally {
+            session.setJdbcBatchSize(previousBatchSize);
+        }
+        return entries;
+    }
+}
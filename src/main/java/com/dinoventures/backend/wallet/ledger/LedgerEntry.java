@@ -1,11 +1,15 @@
 package com.dinoventures.backend.wallet.ledger;
 
+import com.dinoventures.backend.model.PooledSequenceIdGenerator;
 import com.dinoventures.backend.wallet.Wallet;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotNull;
 import lombok.*;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -24,16 +28,18 @@ import java.time.LocalDateTime;
 public class LedgerEntry {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "ledger_entries_seq")
+    @GenericGenerator(name = "ledger_entries_seq", type = PooledSequenceIdGenerator.class,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "ledger_entries_seq"))
     private Long id;
 
     @NotNull(message = "Debit wallet is required")
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "debit_wallet_id", nullable = false)
     private Wallet debitWallet;
 
     @NotNull(message = "Credit wallet is required")
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "credit_wallet_id", nullable = false)
     private Wallet creditWallet;
 
@@ -52,6 +58,17 @@ public class LedgerEntry {
     @Column(length = 500)
     private String description;
 
+    /**
+     * Balances of the debit and credit wallets right after this entry, recorded
+     * under the wallet locks. Null on history written before they were recorded
+     * until {@link LedgerBalanceBackfill} has filled it in.
+     */
+    @Column(precision = 19, scale = 2)
+    private BigDecimal debitBalanceAfter;
+
+    @Column(precision = 19, scale = 2)
+    private BigDecimal creditBalanceAfter;
+
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -0,0 +1,21 @@
+package com.dinoventures.backend.wallet.ledger;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A ledger entry as flat columns, read by constructor projection: one row per
+ * entry, wallets by id, and nothing added to the persistence context. On
+ * entries not yet backfilled the balances are the wallets' current ones.
+ */
+public record LedgerEntryRow(Long id,
+                             String idempotencyKey,
+                             BigDecimal amount,
+                             LedgerEntry.TransactionType transactionType,
+                             Long debitWalletId,
+                             Long creditWalletId,
+                             BigDecimal debitBalanceAfter,
+                             BigDecimal creditBalanceAfter,
+                             String description,
+                             LocalDateTime createdAt) {
+}
@@ -0,0 +1,286 @@
+package com.dinoventures.backend.wallet.ledger;
+
+import com.dinoventures.backend.shard.ShardRouter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps {@code ledger_entries} partitioned by {@code created_at} month on
+ * PostgreSQL.
+ *
+ * With {@code app.ledger.partitioning.enabled}, the plain table Hibernate
+ * created is converted once: its rows become the {@value #LEGACY_PARTITION}
+ * partition, ending with the current month, and every later month gets a
+ * partition of its own. From then on the next {@code months-ahead} months are
+ * always created ahead of the writes.
+ *
+ * Retention is left to the {@link com.dinoventures.backend.wallet.archive.LedgerArchiver},
+ * which moves closed months into the archive files and deletes their rows.
+ * Once the oldest months are empty and a full month in the past, their
+ * partitions are dropped here, so the ledger only ever spans the months that
+ * still hold entries.
+ *
+ * A unique constraint on a partitioned table has to include the partition
+ * column, so idempotency keys are claimed in {@value #KEYS_TABLE} by an insert
+ * trigger instead. A reused key fails the insert exactly like the former
+ * constraint did; claims are released when the partition of their month is
+ * dropped.
+ *
+ * Other databases, such as H2 in development, keep the plain table.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@Slf4j
+public class LedgerPartitionManager implements CommandLineRunner {
+
+    static final String PARTITIONING_MARKER = "ledger.partitioning";
+    static final String LEGACY_PARTITION = "ledger_entries_legacy";
+    static final String KEYS_TABLE = "ledger_idempotency_keys";
+
+    private static final String PARTITION_PREFIX = "ledger_entries_";
+    private static final DateTimeFormatter PARTITION_MONTH = DateTimeFormatter.ofPattern("'y'yyyy'm'MM");
+    private static final Pattern UPPER_BOUND = Pattern.compile("TO \\('([^']+)'\\)");
+
+    /** Same names and columns as the indexes declared on {@link LedgerEntry} */
+    private static final Map<String, String> INDEXES = Map.of(
+            "idx_ledger_debit_wallet", "debit_wallet_id",
+            "idx_ledger_credit_wallet", "credit_wallet_id",
+            "idx_ledger_idempotency_key", "idempotency_key",
+            "idx_ledger_created_at", "created_at"
+    );
+
+    /** Serializes maintenance across nodes; any constant shared by all nodes will do */
+    private static final long MAINTENANCE_LOCK = 0x6c656467L;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ShardRouter shardRouter;
+    private final boolean enabled;
+    private final int monthsAhead;
+    private final String lockTimeout;
+
+    public LedgerPartitionManager(JdbcTemplate jdbcTemplate,
+                                  PlatformTransactionManager transactionManager,
+                                  ShardRouter shardRouter,
+                                  DataSource dataSource,
+                                  @Value("${app.ledger.partitioning.enabled:false}") boolean enabled,
+                                  @Value("${app.ledger.partitioning.months-ahead:3}") int monthsAhead,
+                                  @Value("${app.ledger.partitioning.lock-timeout-ms:5000}") long lockTimeoutMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.shardRouter = shardRouter;
+        this.enabled = enabled && isPostgres(dataSource);
+        this.monthsAhead = Math.max(1, monthsAhead);
+        this.lockTimeout = Math.max(1, lockTimeoutMs) + "ms";
+        if (enabled && !this.enabled) {
+            log.info("Ledger partitioning needs PostgreSQL; keeping the plain ledger table");
+        }
+    }
+
+    @Override
+    public void run(String... args) {
+        if (!enabled) {
+            return;
+        }
+        shardRouter.forEachShard(() -> {
+            convert();
+            maintainShard();
+        });
+    }
+
+    /**
+     * Creates upcoming months and drops emptied ones on every shard.
+     */
+    @Scheduled(fixedDelayString = "${app.ledger.partitioning.maintenance-interval-ms:3600000}",
+            initialDelayString = "${app.ledger.partitioning.maintenance-interval-ms:3600000}")
+    public void maintain() {
+        if (!enabled) {
+            return;
+        }
+        shardRouter.forEachShard(this::maintainShard);
+    }
+
+    private void convert() {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.execute("LOCK TABLE ledger_entries IN ACCESS EXCLUSIVE MODE");
+            String kind = jdbcTemplate.queryForObject(
+                    "SELECT relkind::text FROM pg_class WHERE oid = 'ledger_entries'::regclass", String.class);
+            if (!"r".equals(kind)) {
+                return;
+            }
+
+            LocalDateTime newest = jdbcTemplate.queryForObject(
+                    "SELECT MAX(created_at) FROM ledger_entries", LocalDateTime.class);
+            YearMonth lastLegacyMonth = YearMonth.now();
+            if (newest != null && YearMonth.from(newest).isAfter(lastLegacyMonth)) {
+                lastLegacyMonth = YearMonth.from(newest);
+            }
+
+            // The parent's primary key includes created_at and replaces the old one; index names are
+            // schema-wide, so the old indexes make way for the parent's and are adopted by it again
+            jdbcTemplate.execute("ALTER TABLE ledger_entries RENAME TO " + LEGACY_PARTITION);
+            String primaryKey = jdbcTemplate.queryForObject("SELECT conname FROM pg_constraint "
+                    + "WHERE conrelid = '" + LEGACY_PARTITION + "'::regclass AND contype = 'p'", String.class);
+            jdbcTemplate.execute("ALTER TABLE " + LEGACY_PARTITION + " DROP CONSTRAINT " + primaryKey);
+            List<String> legacyIndexes = jdbcTemplate.queryForList("SELECT indexname FROM pg_indexes "
+                    + "WHERE tablename = ? AND schemaname = CURRENT_SCHEMA", String.class, LEGACY_PARTITION);
+            legacyIndexes.stream()
+                    .filter(INDEXES::containsKey)
+                    .forEach(index -> jdbcTemplate.execute("ALTER INDEX " + index + " RENAME TO " + index + "_legacy"));
+            List<Map<String, Object>> foreignKeys = jdbcTemplate.queryForList("SELECT conname, "
+                    + "pg_get_constraintdef(oid) AS definition FROM pg_constraint "
+                    + "WHERE conrelid = '" + LEGACY_PARTITION + "'::regclass AND contype = 'f'");
+
+            jdbcTemplate.execute("CREATE TABLE ledger_entries (LIKE " + LEGACY_PARTITION
+                    + " INCLUDING DEFAULTS INCLUDING CONSTRAINTS) PARTITION BY RANGE (created_at)");
+            jdbcTemplate.execute("ALTER TABLE ledger_entries ATTACH PARTITION " + LEGACY_PARTITION
+                    + " FOR VALUES FROM (MINVALUE) TO ('" + lastLegacyMonth.plusMonths(1).atDay(1) + "')");
+            jdbcTemplate.execute("ALTER TABLE ledger_entries ADD CONSTRAINT ledger_entries_pkey "
+                    + "PRIMARY KEY (id, created_at)");
+            for (Map<String, Object> foreignKey : foreignKeys) {
+                jdbcTemplate.execute("ALTER TABLE ledger_entries ADD CONSTRAINT " + foreignKey.get("conname")
+                        + " " + foreignKey.get("definition"));
+            }
+            INDEXES.forEach((index, column) ->
+                    jdbcTemplate.execute("CREATE INDEX " + index + " ON ledger_entries (" + column + ")"));
+
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + KEYS_TABLE + " ("
+                    + "idempotency_key VARCHAR(100) PRIMARY KEY, created_at TIMESTAMP NOT NULL)");
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_" + KEYS_TABLE + "_created_at ON "
+                    + KEYS_TABLE + " (created_at)");
+            jdbcTemplate.execute("INSERT INTO " + KEYS_TABLE + " (idempotency_key, created_at) "
+                    + "SELECT idempotency_key, created_at FROM " + LEGACY_PARTITION + " ON CONFLICT DO NOTHING");
+            jdbcTemplate.execute("CREATE OR REPLACE FUNCTION ledger_claim_idempotency_key() RETURNS trigger AS $$ "
+                    + "BEGIN INSERT INTO " + KEYS_TABLE + " (idempotency_key, created_at) "
+                    + "VALUES (NEW.idempotency_key, NEW.created_at); RETURN NEW; END $$ LANGUAGE plpgsql");
+            jdbcTemplate.execute("CREATE TRIGGER ledger_claim_idempotency_key AFTER INSERT ON ledger_entries "
+                    + "FOR EACH ROW EXECUTE FUNCTION ledger_claim_idempotency_key()");
+
+            jdbcTemplate.update("INSERT INTO schema_markers (name, version, applied_at) "
+                    + "VALUES (?, 1, CURRENT_TIMESTAMP) ON CONFLICT (name) DO NOTHING", PARTITIONING_MARKER);
+            log.info("Ledger converted to monthly partitions: legacyRows until={}", lastLegacyMonth);
+        });
+    }
+
+    private void maintainShard() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Boolean locked = jdbcTemplate.queryForObject(
+                    "SELECT pg_try_advisory_xact_lock(?)", Boolean.class, MAINTENANCE_LOCK);
+            if (!Boolean.TRUE.equals(locked)) {
+                return;
+            }
+            // Attaching and detaching lock the whole ledger; give up rather than queue writes behind a long query
+            jdbcTemplate.execute("SET LOCAL lock_timeout = '" + lockTimeout + "'");
+
+            List<Partition> partitions = jdbcTemplate.query("SELECT c.relname, pg_get_expr(c.relpartbound, c.oid) "
+                            + "FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid "
+                            + "WHERE i.inhparent = 'ledger_entries'::regclass",
+                    (rs, rowNum) -> new Partition(rs.getString(1), upperBound(rs.getString(2))));
+
+            YearMonth current = YearMonth.now();
+            LocalDateTime coveredUntil = partitions.stream()
+                    .map(Partition::upperBound)
+                    .max(LocalDateTime::compareTo)
+                    .orElse(null);
+            for (YearMonth month : monthsToCreate(coveredUntil, current, monthsAhead)) {
+                jdbcTemplate.execute("CREATE TABLE " + partitionName(month) + " PARTITION OF ledger_entries "
+                        + "FOR VALUES FROM ('" + month.atDay(1) + "') TO ('" + month.plusMonths(1).atDay(1) + "')");
+                log.info("Ledger partition created: partition={}", partitionName(month));
+            }
+
+            // A month behind the current one, so late writes stamped just before a month ended still land
+            for (Partition partition : closedOldestFirst(partitions, current.minusMonths(1).atDay(1).atStartOfDay())) {
+                Boolean hasRows = jdbcTemplate.queryForObject(
+                        "SELECT EXISTS (SELECT 1 FROM " + partition.name() + ")", Boolean.class);
+                if (Boolean.TRUE.equals(hasRows)) {
+                    // Not archived yet; younger months wait for it so claims can be released by bound
+                    return;
+                }
+                jdbcTemplate.execute("ALTER TABLE ledger_entries DETACH PARTITION " + partition.name());
+                jdbcTemplate.execute("DROP TABLE " + partition.name());
+                int claims = jdbcTemplate.update("DELETE FROM " + KEYS_TABLE + " WHERE created_at < ?",
+                        partition.upperBound());
+                log.info("Empty ledger partition dropped: partition={}, releasedKeys={}", partition.name(), claims);
+            }
+        });
+    }
+
+    /**
+     * Partitions ending no later than {@code cutoff}, oldest first.
+     */
+    static List<Partition> closedOldestFirst(List<Partition> partitions, LocalDateTime cutoff) {
+        return partitions.stream()
+                .filter(partition -> !partition.upperBound().isAfter(cutoff))
+                .sorted(Comparator.comparing(Partition::upperBound))
+                .toList();
+    }
+
+    /**
+     * Months still missing from {@code coveredUntil} (exclusive upper bound of
+     * the newest partition, null for none) through {@code monthsAhead} months
+     * after the current one.
+     */
+    static List<YearMonth> monthsToCreate(LocalDateTime coveredUntil, YearMonth current, int monthsAhead) {
+        YearMonth first = coveredUntil == null ? current : YearMonth.from(coveredUntil);
+        if (coveredUntil != null && coveredUntil.isAfter(first.atDay(1).atStartOfDay())) {
+            // A bound inside a month leaves its start covered; such a month cannot get a partition of its own
+            first = first.plusMonths(1);
+        }
+        List<YearMonth> months = new ArrayList<>();
+        for (YearMonth month = first; !month.isAfter(current.plusMonths(monthsAhead)); month = month.plusMonths(1)) {
+            months.add(month);
+        }
+        return months;
+    }
+
+    static String partitionName(YearMonth month) {
+        return PARTITION_PREFIX + month.format(PARTITION_MONTH);
+    }
+
+    /**
+     * Exclusive upper bound of a range partition, from its
+     * {@code FOR VALUES FROM (...) TO ('...')} clause.
+     */
+    static LocalDateTime upperBound(String bound) {
+        Matcher matcher = UPPER_BOUND.matcher(bound);
+        if (!matcher.find()) {
+            throw new IllegalStateException("Unexpected ledger partition bound: " + bound);
+        }
+        return LocalDateTime.parse(matcher.group(1).replace(' ', 'T'));
+    }
+
+    private static boolean isPostgres(DataSource dataSource) {
+        try {
+            String product = JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName);
+            return "PostgreSQL".equals(product);
+        } catch (MetaDataAccessException e) {
+            log.warn("Could not determine database product, ledger partitioning disabled: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    record Partition(String name, LocalDateTime upperBound) {
+    }
+}
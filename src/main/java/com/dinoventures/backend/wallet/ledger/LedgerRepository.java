@@ -5,17 +5,34 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+/**
+ * Ledger reads return {@link LedgerEntryRow} projections rather than entities,
+ * so looking entries up costs one query however many are found.
+ */
 @Repository
 public interface LedgerRepository extends JpaRepository<LedgerEntry, Long> {
 
-    Optional<LedgerEntry> findByIdempotencyKey(String idempotencyKey);
+    String ROW = "SELECT new com.dinoventures.backend.wallet.ledger.LedgerEntryRow(le.id, le.idempotencyKey, " +
+            "le.amount, le.transactionType, dw.id, cw.id, COALESCE(le.debitBalanceAfter, dw.balance), " +
+            "COALESCE(le.creditBalanceAfter, cw.balance), le.description, le.createdAt) " +
+            "FROM LedgerEntry le JOIN le.debitWallet dw JOIN le.creditWallet cw ";
 
-    @Query("SELECT le FROM LedgerEntry le WHERE le.debitWallet.id = :walletId OR le.creditWallet.id = :walletId ORDER BY le.createdAt DESC")
-    List<LedgerEntry> findWalletTransactions(@Param("walletId") Long walletId);
+    @Query(ROW + "WHERE le.idempotencyKey = :key")
+    Optional<LedgerEntryRow> findRowByIdempotencyKey(@Param("key") String idempotencyKey);
 
-    @Query("SELECT le FROM LedgerEntry le WHERE (le.debitWallet.id = :walletId OR le.creditWallet.id = :walletId) AND le.transactionType = :type ORDER BY le.createdAt DESC")
-    List<LedgerEntry> findWalletTransactionsByType(@Param("walletId") Long walletId, @Param("type") LedgerEntry.TransactionType type);
+    @Query(ROW + "WHERE le.idempotencyKey IN :keys")
+    List<LedgerEntryRow> findRowsByIdempotencyKeyIn(@Param("keys") Collection<String> idempotencyKeys);
+
+    @Query("SELECT le.idempotencyKey FROM LedgerEntry le WHERE le.idempotencyKey IN :keys")
+    List<String> findExistingIdempotencyKeys(@Param("keys") Collection<String> keys);
+
+    @Query(ROW + "WHERE dw.id = :walletId OR cw.id = :walletId ORDER BY le.createdAt DESC")
+    List<LedgerEntryRow> findWalletTransactions(@Param("walletId") Long walletId);
+
+    @Query(ROW + "WHERE (dw.id = :walletId OR cw.id = :walletId) AND le.transactionType = :type ORDER BY le.createdAt DESC")
+    List<LedgerEntryRow> findWalletTransactionsByType(@Param("walletId") Long walletId, @Param("type") LedgerEntry.TransactionType type);
 }
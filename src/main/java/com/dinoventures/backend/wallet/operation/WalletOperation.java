@@ -0,0 +1,114 @@
+package com.dinoventures.backend.wallet.operation;
+
+import com.dinoventures.backend.model.PooledSequenceIdGenerator;
+import com.dinoventures.backend.wallet.dto.BatchOperationItem.OperationType;
+import com.dinoventures.backend.wallet.dto.BatchOperationResponse;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.annotations.UpdateTimestamp;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A wallet operation accepted for asynchronous processing. The row is the
+ * durable queue entry and, once processed, the status the client polls.
+ */
+@Entity
+@Table(name = "wallet_operations", indexes = {
+    @Index(name = "idx_wallet_operation_status", columnList = "status, id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class WalletOperation {
+
+    @Id
+    @GeneratedValue(generator = "wallet_operations_seq")
+    @GenericGenerator(name = "wallet_operations_seq", type = PooledSequenceIdGenerator.class,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "wallet_operations_seq"))
+    private Long id;
+
+    @Column(nullable = false)
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private OperationType type;
+
+    @Column(nullable = false, length = 50)
+    private String assetCode;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal amount;
+
+    @Column(length = 100, unique = true, nullable = false)
+    private String idempotencyKey;
+
+    @Column(length = 500)
+    private String description;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private OperationStatus status;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Integer attempts = 0;
+
+    private Long transactionId;
+
+    @Column(precision = 19, scale = 2)
+    private BigDecimal balanceAfter;
+
+    @Column(length = 500)
+    private String errorMessage;
+
+    private LocalDateTime claimedAt;
+
+    /** Journal sequence of an operation accepted journal-first; null for queued ones */
+    private Long journalSequence;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    private LocalDateTime completedAt;
+
+    /**
+     * Records the outcome of the batch item that applied this operation.
+     */
+    public void complete(BatchOperationResponse.ItemResult result, LocalDateTime now) {
+        completedAt = now;
+        if (result.getStatus() == BatchOperationResponse.ItemStatus.FAILED) {
+            status = OperationStatus.FAILED;
+            errorMessage = result.getError();
+        } else {
+            status = OperationStatus.SUCCEEDED;
+            transactionId = result.getResult().getTransactionId();
+            balanceAfter = type == OperationType.SPEND
+                    ? result.getResult().getNewDebitBalance()
+                    : result.getResult().getNewCreditBalance();
+        }
+    }
+
+    public boolean isFinished() {
+        return status == OperationStatus.SUCCEEDED || status == OperationStatus.FAILED;
+    }
+
+    public enum OperationStatus {
+        PENDING,
+        PROCESSING,
+        SUCCEEDED,
+        FAILED
+    }
+}
@@ -0,0 +1,39 @@
+package com.dinoventures.backend.wallet.operation;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Wakes clients waiting on an operation once its outcome has been committed.
+ * Listeners live only as long as the waiting request, which removes them on timeout.
+ */
+@Component
+public class WalletOperationNotifier {
+
+    private final Map<Long, List<Runnable>> listeners = new ConcurrentHashMap<>();
+
+    public void subscribe(Long operationId, Runnable listener) {
+        listeners.computeIfAbsent(operationId, id -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    public void unsubscribe(Long operationId, Runnable listener) {
+        listeners.computeIfPresent(operationId, (id, list) -> {
+            list.remove(listener);
+            return list.isEmpty() ? null : list;
+        });
+    }
+
+    public void finished(Collection<Long> operationIds) {
+        for (Long operationId : operationIds) {
+            List<Runnable> waiting = listeners.remove(operationId);
+            if (waiting != null) {
+                waiting.forEach(Runnable::run);
+            }
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.dinoventures.backend.wallet.operation;
+
+/**
+ * Published when an operation is queued; workers start draining once it commits.
+ */
+public record WalletOperationQueuedEvent(Long operationId) {
+}
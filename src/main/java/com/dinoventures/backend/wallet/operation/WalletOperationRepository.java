@@ -0,0 +1,47 @@
+package com.dinoventures.backend.wallet.operation;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface WalletOperationRepository extends JpaRepository<WalletOperation, Long> {
+
+    Optional<WalletOperation> findByIdempotencyKey(String idempotencyKey);
+
+    Optional<WalletOperation> findByIdAndUserId(Long id, Long userId);
+
+    Optional<WalletOperation> findByIdempotencyKeyAndUserId(String idempotencyKey, Long userId);
+
+    List<WalletOperation> findByIdempotencyKeyIn(Collection<String> idempotencyKeys);
+
+    boolean existsByStatus(WalletOperation.OperationStatus status);
+
+    /**
+     * Oldest pending operations, locked; rows already claimed by another worker are skipped.
+     */
+    @Query(value = "SELECT id FROM wallet_operations WHERE status = 'PENDING' ORDER BY id LIMIT :limit " +
+            "FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Long> lockPendingIds(@Param("limit") int limit);
+
+    @Modifying
+    @Query("UPDATE WalletOperation o SET o.status = 'PROCESSING', o.claimedAt = :now, o.attempts = o.attempts + 1, " +
+            "o.updatedAt = :now WHERE o.id IN :ids")
+    int markProcessing(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    /**
+     * Returns operations whose worker died mid-batch to the queue. Replays are safe:
+     * the ledger idempotency key turns an already-applied operation into a no-op.
+     */
+    @Modifying
+    @Query("UPDATE WalletOperation o SET o.status = 'PENDING', o.claimedAt = null, o.updatedAt = CURRENT_TIMESTAMP " +
+            "WHERE o.status = 'PROCESSING' AND o.claimedAt < :cutoff")
+    int releaseExpiredClaims(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,197 @@
+package com.dinoventures.backend.wallet.operation;
+
+import com.dinoventures.backend.exception.InvalidRequestException;
+import com.dinoventures.backend.exception.ResourceNotFoundException;
+import com.dinoventures.backend.model.User;
+import com.dinoventures.backend.shard.ShardKey;
+import com.dinoventures.backend.wallet.dto.BatchOperationItem.OperationType;
+import com.dinoventures.backend.wallet.journal.WalletJournal;
+import com.dinoventures.backend.wallet.journal.WalletJournalAppendedEvent;
+import com.dinoventures.backend.wallet.operation.WalletOperation.OperationStatus;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Accepts wallet operations for asynchronous processing and tracks their status.
+ *
+ * Operations are queued in the database, or, with the journal enabled,
+ * appended to the local {@link WalletJournal} and stored once projected.
+ */
+@Service
+@Slf4j
+public class WalletOperationService {
+
+    private final WalletOperationRepository operationRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final WalletJournal journal;
+    private final boolean enabled;
+
+    public WalletOperationService(WalletOperationRepository operationRepository,
+                                  ApplicationEventPublisher eventPublisher,
+                                  WalletJournal journal,
+                                  @Value("${app.wallet.async.enabled:true}") boolean enabled) {
+        this.operationRepository = operationRepository;
+        this.eventPublisher = eventPublisher;
+        this.journal = journal;
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isJournaled() {
+        return journal.isEnabled();
+    }
+
+    /**
+     * Durably queues an operation. Re-submitting an idempotency key returns the
+     * operation that was queued for it first.
+     */
+    @Transactional
+    public WalletOperation enqueue(@ShardKey User user, OperationType type, String assetCode, BigDecimal amount,
+                                   String idempotencyKey, String description) {
+        if (!enabled) {
+            throw new InvalidRequestException("Asynchronous wallet operations are disabled");
+        }
+
+        var existing = operationRepository.findByIdempotencyKey(idempotencyKey);
+        if (existing.isPresent()) {
+            log.info("Idempotent async request detected, returning queued operation: operationId={}", existing.get().getId());
+            return existing.get();
+        }
+
+        WalletOperation operation;
+        try {
+            operation = operationRepository.saveAndFlush(WalletOperation.builder()
+                    .userId(user.getId())
+                    .type(type)
+                    .assetCode(assetCode)
+                    .amount(amount)
+                    .idempotencyKey(idempotencyKey)
+                    .description(description)
+                    .status(OperationStatus.PENDING)
+                    .build());
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent request queued the same key first
+            return operationRepository.findByIdempotencyKey(idempotencyKey).orElseThrow(() -> e);
+        }
+
+        log.info("Wallet operation queued: operationId={}, userId={}, type={}, amount={}",
+                operation.getId(), user.getId(), type, amount);
+
+        eventPublisher.publishEvent(new WalletOperationQueuedEvent(operation.getId()));
+        return operation;
+    }
+
+    /**
+     * Journal-first acceptance: returns once the operation is on disk in the
+     * journal, without touching the database. The operation has no id until it
+     * is projected; re-submitted idempotency keys are resolved then.
+     */
+    public WalletOperation journal(User user, OperationType type, String assetCode, BigDecimal amount,
+                                   String idempotencyKey, String description) {
+        if (!enabled) {
+            throw new InvalidRequestException("Asynchronous wallet operations are disabled");
+        }
+
+        long sequence = journal.append(user.getId(), type, assetCode, amount, idempotencyKey, description);
+        journal.sync(sequence);
+
+        log.info("Wallet operation journaled: sequence={}, userId={}, type={}, amount={}",
+                sequence, user.getId(), type, amount);
+
+        eventPublisher.publishEvent(new WalletJournalAppendedEvent(sequence));
+        return WalletOperation.builder()
+                .userId(user.getId())
+                .type(type)
+                .assetCode(assetCode)
+                .amount(amount)
+                .idempotencyKey(idempotencyKey)
+                .description(description)
+                .journalSequence(sequence)
+                .status(OperationStatus.PENDING)
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<WalletOperation> findOperation(@ShardKey User user, String idempotencyKey) {
+        return operationRepository.findByIdempotencyKeyAndUserId(idempotencyKey, user.getId());
+    }
+
+    /**
+     * Whether journaled operations are still waiting to be stored, so one not found yet may still appear.
+     */
+    public boolean hasUnprojectedJournal() {
+        return journal.hasUnprojected();
+    }
+
+    @Transactional(readOnly = true)
+    public WalletOperation getOperation(@ShardKey User user, Long operationId) {
+        return findOperation(user.getId(), operationId);
+    }
+
+    @Transactional(readOnly = true)
+    public WalletOperation findOperation(@ShardKey Long userId, Long operationId) {
+        return operationRepository.findByIdAndUserId(operationId, userId)
+                .orElseThrow(() -> new ResourceNotFoundException("Operation not found: " + operationId));
+    }
+
+    /**
+     * Claims up to {@code limit} pending operations for one worker.
+     */
+    @Transactional
+    public List<WalletOperation> claimBatch(int limit) {
+        List<Long> ids = operationRepository.lockPendingIds(limit);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        operationRepository.markProcessing(ids, LocalDateTime.now());
+        return operationRepository.findAllById(ids);
+    }
+
+    /**
+     * Puts operations whose batch failed back in the queue, or fails them once
+     * they have used up their attempts.
+     *
+     * @return ids of the operations that were failed for good
+     */
+    @Transactional
+    public List<Long> release(List<Long> operationIds, String error, int maxAttempts) {
+        List<WalletOperation> operations = operationRepository.findAllById(operationIds);
+        List<Long> failed = new ArrayList<>();
+        for (WalletOperation operation : operations) {
+            operation.setClaimedAt(null);
+            if (operation.getAttempts() >= maxAttempts) {
+                operation.setStatus(OperationStatus.FAILED);
+                operation.setErrorMessage(error);
+                operation.setCompletedAt(LocalDateTime.now());
+                failed.add(operation.getId());
+            } else {
+                operation.setStatus(OperationStatus.PENDING);
+            }
+        }
+        operationRepository.saveAll(operations);
+        return failed;
+    }
+
+    @Transactional
+    public int releaseExpiredClaims(LocalDateTime cutoff) {
+        return operationRepository.releaseExpiredClaims(cutoff);
+    }
+
+    public boolean hasPending() {
+        return operationRepository.existsByStatus(OperationStatus.PENDING);
+    }
+}
@@ -0,0 +1,171 @@
+package com.dinoventures.backend.wallet.operation;
+
+import com.dinoventures.backend.shard.ShardRouter;
+import com.dinoventures.backend.wallet.dto.BatchOperationItem;
+import com.dinoventures.backend.wallet.dto.BatchOperationRequest;
+import com.dinoventures.backend.wallet.dto.BatchOperationResponse;
+import com.dinoventures.backend.wallet.dto.BatchOperationResponse.ItemResult;
+import com.dinoventures.backend.wallet.service.WalletBatchService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Drains the wallet operation queue.
+ *
+ * Up to {@code workers} drain loops run at once. Each claims a batch of pending
+ * operations and applies it as one best-effort {@link WalletBatchService} batch;
+ * the ledger writes and the operation outcomes commit in the same transaction,
+ * so a crash between the two cannot leave a posted operation marked pending.
+ */
+@Component
+@Slf4j
+public class WalletOperationWorker {
+
+    private final WalletOperationService operationService;
+    private final WalletOperationRepository operationRepository;
+    private final WalletBatchService walletBatchService;
+    private final WalletOperationNotifier notifier;
+    private final TransactionTemplate transactionTemplate;
+    private final TaskExecutor executor;
+    private final ShardRouter shardRouter;
+    private final Semaphore drainPermits;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long claimTimeoutMs;
+
+    public WalletOperationWorker(WalletOperationService operationService,
+                                 WalletOperationRepository operationRepository,
+                                 WalletBatchService walletBatchService,
+                                 WalletOperationNotifier notifier,
+                                 TransactionTemplate transactionTemplate,
+                                 @Qualifier("walletOperationExecutor") TaskExecutor executor,
+                                 ShardRouter shardRouter,
+                                 @Value("${app.wallet.async.workers:4}") int workers,
+                                 @Value("${app.wallet.async.batch-size:100}") int batchSize,
+                                 @Value("${app.wallet.async.max-attempts:5}") int maxAttempts,
+                                 @Value("${app.wallet.async.claim-timeout-ms:60000}") long claimTimeoutMs) {
+        this.operationService = operationService;
+        this.operationRepository = operationRepository;
+        this.walletBatchService = walletBatchService;
+        this.notifier = notifier;
+        this.transactionTemplate = transactionTemplate;
+        this.executor = executor;
+        this.shardRouter = shardRouter;
+        this.drainPermits = new Semaphore(workers);
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.claimTimeoutMs = claimTimeoutMs;
+    }
+
+    @TransactionalEventListener
+    public void onQueued(WalletOperationQueuedEvent event) {
+        dispatch();
+    }
+
+    /**
+     * Backstop for wake-ups lost to a busy pool or another node's enqueue.
+     */
+    @Scheduled(fixedDelayString = "${app.wallet.async.poll-interval-ms:1000}")
+    public void poll() {
+        if (operationService.isEnabled() && shardRouter.anyShard(operationService::hasPending)) {
+            dispatch();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.wallet.async.claim-timeout-ms:60000}")
+    public void releaseExpiredClaims() {
+        LocalDateTime cutoff = LocalDateTime.now().minusNanos(claimTimeoutMs * 1_000_000);
+        AtomicInteger released = new AtomicInteger();
+        shardRouter.forEachShard(() -> released.addAndGet(operationService.releaseExpiredClaims(cutoff)));
+        if (released.get() > 0) {
+            log.warn("Released {} wallet operations from expired claims", released);
+        }
+    }
+
+    private void dispatch() {
+        if (drainPermits.tryAcquire()) {
+            executor.execute(() -> {
+                try {
+                    drain();
+                } finally {
+                    drainPermits.release();
+                }
+            });
+        }
+    }
+
+    /**
+     * Operations are queued on their user's shard, so each shard is drained in turn.
+     */
+    private void drain() {
+        shardRouter.forEachShard(() -> {
+            List<WalletOperation> batch;
+            while (!(batch = operationService.claimBatch(batchSize)).isEmpty()) {
+                process(batch);
+            }
+        });
+    }
+
+    private void process(List<WalletOperation> batch) {
+        List<Long> ids = batch.stream().map(WalletOperation::getId).toList();
+        try {
+            transactionTemplate.executeWithoutResult(status -> complete(batch));
+            notifier.finished(ids);
+        } catch (RuntimeException e) {
+            log.warn("Wallet operation batch failed, releasing {} operations: {}", ids.size(), e.getMessage());
+            notifier.finished(operationService.release(ids, truncate(e.getMessage()), maxAttempts));
+        }
+    }
+
+    private void complete(List<WalletOperation> batch) {
+        BatchOperationRequest request = BatchOperationRequest.builder()
+                .mode(BatchOperationRequest.BatchMode.BEST_EFFORT)
+                .operations(batch.stream()
+                        .map(operation -> BatchOperationItem.builder()
+                                .type(operation.getType())
+                                .userId(operation.getUserId())
+                                .assetCode(operation.getAssetCode())
+                                .amount(operation.getAmount())
+                                .idempotencyKey(operation.getIdempotencyKey())
+                                .description(operation.getDescription())
+                                .build())
+                        .toList())
+                .build();
+        BatchOperationResponse response = walletBatchService.applyAccepted(request);
+
+        Map<Long, WalletOperation> managed = operationRepository.findAllById(batch.stream().map(WalletOperation::getId).toList())
+                .stream()
+                .collect(Collectors.toMap(WalletOperation::getId, Function.identity()));
+        LocalDateTime now = LocalDateTime.now();
+        for (ItemResult result : response.getResults()) {
+            WalletOperation operation = managed.get(batch.get(result.getIndex()).getId());
+            operation.setClaimedAt(null);
+            operation.complete(result, now);
+        }
+        operationRepository.saveAll(managed.values());
+
+        log.info("Wallet operation batch processed: operations={}, applied={}, duplicates={}, failed={}",
+                batch.size(), response.getApplied(), response.getDuplicates(), response.getFailed());
+    }
+
+    private String truncate(String message) {
+        if (message == null || message.length() <= 500) {
+            return message;
+        }
+        return message.substring(0, 500);
+    }
+}
@@ -0,0 +1,42 @@
+package com.dinoventures.backend.wallet.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Appends events to a file as newline-delimited JSON, one batch per write,
+ * forced to disk before the batch counts as delivered.
+ */
+public class FileWalletEventSink implements WalletEventSink {
+
+    private final Path path;
+    private final ObjectMapper objectMapper;
+
+    public FileWalletEventSink(Path path, ObjectMapper objectMapper) {
+        this.path = path;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public synchronized void publish(List<WalletEvent> events) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        ByteBuffer batch = ByteBuffer.wrap(NdJson.encode(objectMapper, events));
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND)) {
+            while (batch.hasRemaining()) {
+                channel.write(batch);
+            }
+            channel.force(false);
+        }
+    }
+}
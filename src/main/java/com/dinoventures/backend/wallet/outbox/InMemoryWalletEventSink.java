@@ -0,0 +1,25 @@
+package com.dinoventures.backend.wallet.outbox;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Keeps delivered events in memory; for tests and local runs without a consumer.
+ */
+public class InMemoryWalletEventSink implements WalletEventSink {
+
+    private final List<WalletEvent> events = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(List<WalletEvent> batch) {
+        events.addAll(batch);
+    }
+
+    public List<WalletEvent> events() {
+        return List.copyOf(events);
+    }
+
+    public void clear() {
+        events.clear();
+    }
+}
@@ -0,0 +1,25 @@
+package com.dinoventures.backend.wallet.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Newline-delimited JSON encoding shared by the byte-stream sinks.
+ */
+final class NdJson {
+
+    private NdJson() {
+    }
+
+    static byte[] encode(ObjectMapper objectMapper, List<WalletEvent> events) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(events.size() * 256);
+        for (WalletEvent event : events) {
+            out.write(objectMapper.writeValueAsBytes(event));
+            out.write('\n');
+        }
+        return out.toByteArray();
+    }
+}
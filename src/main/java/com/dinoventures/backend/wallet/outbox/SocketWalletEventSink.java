@@ -0,0 +1,56 @@
+package com.dinoventures.backend.wallet.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Streams events as newline-delimited JSON to a local Unix domain socket, for a
+ * forwarding agent on the same host. The connection is opened on first use and
+ * reopened after a failure; a batch cut off mid-write is sent again in full.
+ */
+public class SocketWalletEventSink implements WalletEventSink {
+
+    private final UnixDomainSocketAddress address;
+    private final ObjectMapper objectMapper;
+    private SocketChannel channel;
+
+    public SocketWalletEventSink(Path socketPath, ObjectMapper objectMapper) {
+        this.address = UnixDomainSocketAddress.of(socketPath);
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public synchronized void publish(List<WalletEvent> events) throws IOException {
+        ByteBuffer batch = ByteBuffer.wrap(NdJson.encode(objectMapper, events));
+        try {
+            if (channel == null || !channel.isOpen()) {
+                channel = SocketChannel.open(StandardProtocolFamily.UNIX);
+                channel.connect(address);
+            }
+            while (batch.hasRemaining()) {
+                channel.write(batch);
+            }
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    private void close() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // Already failing; the next batch reconnects
+            }
+            channel = null;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.dinoventures.backend.wallet.outbox;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * The message downstream consumers receive for each top-up, bonus and spend.
+ * {@code id} is unique and is the key consumers de-duplicate on: delivery is
+ * at-least-once. Ids are handed out in pooled blocks, so they are only roughly
+ * ordered: an event can commit, and be delivered, after one with a higher id.
+ */
+public record WalletEvent(Long id,
+                          String type,
+                          Long transactionId,
+                          Long userId,
+                          String assetCode,
+                          BigDecimal amount,
+                          BigDecimal balanceAfter,
+                          String idempotencyKey,
+                          LocalDateTime occurredAt) {
+}
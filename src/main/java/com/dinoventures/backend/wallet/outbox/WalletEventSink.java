@@ -0,0 +1,17 @@
+package com.dinoventures.backend.wallet.outbox;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Destination of relayed wallet events. Selected with {@code app.wallet.outbox.sink};
+ * defining a bean of this type replaces the configured one.
+ */
+public interface WalletEventSink {
+
+    /**
+     * Delivers a batch in id order. Returning means the batch is delivered and
+     * will be removed from the outbox; throwing leaves it there to be retried.
+     */
+    void publish(List<WalletEvent> events) throws IOException;
+}
@@ -0,0 +1,33 @@
+package com.dinoventures.backend.wallet.outbox;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Stages wallet events in the caller's transaction, so an event exists exactly
+ * when the ledger entry it describes has committed.
+ */
+@Component
+public class WalletOutbox {
+
+    private final WalletOutboxRepository outboxRepository;
+    private final boolean enabled;
+
+    public WalletOutbox(WalletOutboxRepository outboxRepository,
+                        @Value("${app.wallet.outbox.enabled:false}") boolean enabled) {
+        this.outboxRepository = outboxRepository;
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void append(List<WalletOutboxEvent> events) {
+        if (enabled && !events.isEmpty()) {
+            outboxRepository.saveAll(events);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.dinoventures.backend.wallet.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+/**
+ * Chooses the outbox sink from {@code app.wallet.outbox.sink}: file (default),
+ * socket or memory.
+ *
+ * The file sink appends forever and is never rotated, so it has no default
+ * path: an enabled outbox needs {@code app.wallet.outbox.file-path} pointing
+ * at a volume meant for it, outside the working directory.
+ */
+@Configuration
+public class WalletOutboxConfig {
+
+    @Bean
+    @ConditionalOnMissingBean(WalletEventSink.class)
+    @ConditionalOnProperty(name = "app.wallet.outbox.sink", havingValue = "file", matchIfMissing = true)
+    public WalletEventSink fileWalletEventSink(ObjectMapper objectMapper,
+                                               @Value("${app.wallet.outbox.enabled:false}") boolean enabled,
+                                               @Value("${app.wallet.outbox.file-path:}") String path) {
+        if (path.isBlank()) {
+            if (enabled) {
+                throw new IllegalStateException("app.wallet.outbox.file-path must be set for the file outbox sink");
+            }
+            // Nothing is relayed while the outbox is off
+            return new InMemoryWalletEventSink();
+        }
+        return new FileWalletEventSink(Path.of(path), objectMapper);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(WalletEventSink.class)
+    @ConditionalOnProperty(name = "app.wallet.outbox.sink", havingValue = "socket")
+    public WalletEventSink socketWalletEventSink(ObjectMapper objectMapper,
+                                                 @Value("${app.wallet.outbox.socket-path:/tmp/wallet-events.sock}") String path) {
+        return new SocketWalletEventSink(Path.of(path), objectMapper);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(WalletEventSink.class)
+    @ConditionalOnProperty(name = "app.wallet.outbox.sink", havingValue = "memory")
+    public WalletEventSink inMemoryWalletEventSink() {
+        return new InMemoryWalletEventSink();
+    }
+}
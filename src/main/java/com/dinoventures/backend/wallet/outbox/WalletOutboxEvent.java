@@ -0,0 +1,76 @@
+package com.dinoventures.backend.wallet.outbox;
+
+import com.dinoventures.backend.model.PooledSequenceIdGenerator;
+import com.dinoventures.backend.wallet.ledger.LedgerEntry;
+import com.dinoventures.backend.wallet.ledger.LedgerEntry.TransactionType;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A committed wallet change waiting to be relayed downstream. Written in the
+ * transaction that posts the ledger entry and deleted once delivered, so the
+ * table only holds the undelivered tail.
+ */
+@Entity
+@Table(name = "wallet_outbox")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class WalletOutboxEvent {
+
+    @Id
+    @GeneratedValue(generator = "wallet_outbox_seq")
+    @GenericGenerator(name = "wallet_outbox_seq", type = PooledSequenceIdGenerator.class,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "wallet_outbox_seq"))
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private TransactionType eventType;
+
+    @Column(nullable = false)
+    private Long transactionId;
+
+    @Column(nullable = false)
+    private Long userId;
+
+    @Column(nullable = false, length = 50)
+    private String assetCode;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal amount;
+
+    @Column(precision = 19, scale = 2)
+    private BigDecimal balanceAfter;
+
+    @Column(length = 100, nullable = false)
+    private String idempotencyKey;
+
+    @Column(nullable = false)
+    private LocalDateTime occurredAt;
+
+    public static WalletOutboxEvent of(LedgerEntry entry, Long userId, String assetCode, BigDecimal balanceAfter) {
+        return WalletOutboxEvent.builder()
+                .eventType(entry.getTransactionType())
+                .transactionId(entry.getId())
+                .userId(userId)
+                .assetCode(assetCode)
+                .amount(entry.getAmount())
+                .balanceAfter(balanceAfter)
+                .idempotencyKey(entry.getIdempotencyKey())
+                .occurredAt(entry.getCreatedAt() != null ? entry.getCreatedAt() : LocalDateTime.now())
+                .build();
+    }
+
+    public WalletEvent toEvent() {
+        return new WalletEvent(id, eventType.name(), transactionId, userId, assetCode, amount, balanceAfter,
+                idempotencyKey, occurredAt);
+    }
+}
@@ -0,0 +1,133 @@
+package com.dinoventures.backend.wallet.outbox;
+
+import com.dinoventures.backend.shard.ShardRouter;
+import com.dinoventures.backend.wallet.WalletBalancesChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Drains the wallet outbox into the configured {@link WalletEventSink}.
+ *
+ * Each batch is claimed with SKIP LOCKED, published, and deleted in one
+ * transaction, so relays on several nodes share the work without coordination.
+ * A batch whose delete does not commit is published again: delivery is
+ * at-least-once. The relay wakes after every committed wallet change and polls
+ * as a backstop for changes committed on other nodes.
+ */
+@Component
+@Slf4j
+public class WalletOutboxRelay {
+
+    private final WalletOutbox outbox;
+    private final WalletOutboxRepository outboxRepository;
+    private final WalletEventSink sink;
+    private final TransactionTemplate transactionTemplate;
+    private final TaskExecutor executor;
+    private final ShardRouter shardRouter;
+    private final int batchSize;
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final Counter published;
+    private final Counter failures;
+
+    public WalletOutboxRelay(WalletOutbox outbox,
+                             WalletOutboxRepository outboxRepository,
+                             WalletEventSink sink,
+                             TransactionTemplate transactionTemplate,
+                             @Qualifier("walletOutboxExecutor") TaskExecutor executor,
+                             ShardRouter shardRouter,
+                             MeterRegistry meterRegistry,
+                             @Value("${app.wallet.outbox.batch-size:500}") int batchSize) {
+        this.outbox = outbox;
+        this.outboxRepository = outboxRepository;
+        this.sink = sink;
+        this.transactionTemplate = transactionTemplate;
+        this.executor = executor;
+        this.shardRouter = shardRouter;
+        this.batchSize = batchSize;
+        this.published = Counter.builder("wallet.outbox.published")
+                .description("Wallet events delivered to the sink")
+                .register(meterRegistry);
+        this.failures = Counter.builder("wallet.outbox.failures")
+                .description("Outbox batches that failed to deliver and stay queued")
+                .register(meterRegistry);
+    }
+
+    @TransactionalEventListener
+    public void onBalancesChanged(WalletBalancesChangedEvent event) {
+        dispatch();
+    }
+
+    @Scheduled(fixedDelayString = "${app.wallet.outbox.poll-interval-ms:1000}")
+    public void poll() {
+        dispatch();
+    }
+
+    private void dispatch() {
+        if (outbox.isEnabled() && draining.compareAndSet(false, true)) {
+            try {
+                executor.execute(() -> {
+                    try {
+                        drain();
+                    } finally {
+                        draining.set(false);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // The previous drain is still winding down; the next poll picks up the rest
+                draining.set(false);
+            }
+        }
+    }
+
+    /**
+     * Relays each shard's outbox until it is empty or a batch fails; a failed
+     * batch waits for the next poll.
+     */
+    void drain() {
+        shardRouter.forEachShard(this::drainShard);
+    }
+
+    private void drainShard() {
+        try {
+            int relayed;
+            do {
+                relayed = transactionTemplate.execute(status -> relayBatch());
+            } while (relayed == batchSize);
+        } catch (RuntimeException e) {
+            failures.increment();
+            log.warn("Wallet outbox relay failed, will retry: {}", e.getMessage());
+        }
+    }
+
+    private int relayBatch() {
+        List<Long> ids = outboxRepository.lockBatchIds(batchSize);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        List<WalletEvent> events = outboxRepository.findAllByIdOrdered(ids).stream()
+                .map(WalletOutboxEvent::toEvent)
+                .toList();
+        try {
+            sink.publish(events);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        outboxRepository.deleteAllByIdInBatch(ids);
+        published.increment(events.size());
+        return ids.size();
+    }
+}
@@ -0,0 +1,21 @@
+package com.dinoventures.backend.wallet.outbox;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface WalletOutboxRepository extends JpaRepository<WalletOutboxEvent, Long> {
+
+    /**
+     * Oldest undelivered events, locked; rows another relay is delivering are skipped.
+     */
+    @Query(value = "SELECT id FROM wallet_outbox ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Long> lockBatchIds(@Param("limit") int limit);
+
+    @Query("SELECT e FROM WalletOutboxEvent e WHERE e.id IN :ids ORDER BY e.id")
+    List<WalletOutboxEvent> findAllByIdOrdered(@Param("ids") List<Long> ids);
+}
@@ -0,0 +1,191 @@
+package com.dinoventures.backend.wallet.read;
+
+import com.dinoventures.backend.dto.TransactionDTO;
+import com.dinoventures.backend.wallet.dto.BalanceResponse;
+import com.dinoventures.backend.wallet.dto.LedgerEntryView;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Read-only queries behind the wallet read API. Rows are mapped straight into
+ * response DTOs, so no persistence context is opened and no entity graph loaded.
+ */
+@Repository
+@RequiredArgsConstructor
+public class WalletReadRepository {
+
+    private static final RowMapper<BalanceResponse> BALANCE_MAPPER = (rs, rowNum) -> BalanceResponse.builder()
+            .assetCode(rs.getString("code"))
+            .assetName(rs.getString("name"))
+            .balance(rs.getBigDecimal("balance"))
+            .build();
+
+    private static final RowMapper<TransactionDTO> TRANSACTION_MAPPER = (rs, rowNum) -> TransactionDTO.builder()
+            .id(rs.getLong("id"))
+            .type(rs.getString("type"))
+            .category(rs.getString("category"))
+            .amount(rs.getBigDecimal("amount"))
+            .description(rs.getString("description"))
+            .transactionDate(toLocalDateTime(rs.getTimestamp("transaction_date")))
+            .createdAt(toLocalDateTime(rs.getTimestamp("created_at")))
+            .updatedAt(toLocalDateTime(rs.getTimestamp("updated_at")))
+            .build();
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public Optional<Long> findUserIdByEmail(String email) {
+        return jdbcTemplate.query("SELECT id FROM users WHERE email = :email",
+                        new MapSqlParameterSource("email", email),
+                        (rs, rowNum) -> rs.getLong("id"))
+                .stream()
+                .findFirst();
+    }
+
+    /**
+     * Balances of every active asset; assets the user has no wallet for yet read as zero.
+     */
+    public List<BalanceResponse> findBalances(Long userId) {
+        String sql = "SELECT a.code, a.name, COALESCE(w.balance, 0) AS balance FROM assets a " +
+                "LEFT JOIN wallets w ON w.asset_id = a.id AND w.user_id = :userId " +
+                "WHERE a.active = true ORDER BY a.code";
+        return jdbcTemplate.query(sql, new MapSqlParameterSource("userId", userId), BALANCE_MAPPER);
+    }
+
+    public Optional<BalanceResponse> findBalance(Long userId, String assetCode) {
+        String sql = "SELECT a.code, a.name, COALESCE(w.balance, 0) AS balance FROM assets a " +
+                "LEFT JOIN wallets w ON w.asset_id = a.id AND w.user_id = :userId " +
+                "WHERE a.active = true AND a.code = :assetCode";
+        return jdbcTemplate.query(sql, new MapSqlParameterSource()
+                        .addValue("userId", userId)
+                        .addValue("assetCode", assetCode), BALANCE_MAPPER)
+                .stream()
+                .findFirst();
+    }
+
+    /**
+     * Ids of the user's wallets, optionally restricted to one asset.
+     */
+    public List<Long> findUserWalletIds(Long userId, String assetCode) {
+        String sql = "SELECT w.id FROM wallets w JOIN assets a ON a.id = w.asset_id WHERE w.user_id = :userId" +
+                (assetCode != null ? " AND a.code = :assetCode" : "");
+        return jdbcTemplate.query(sql, new MapSqlParameterSource()
+                        .addValue("userId", userId)
+                        .addValue("assetCode", assetCode),
+                (rs, rowNum) -> rs.getLong("id"));
+    }
+
+    /**
+     * Newest-first ledger entries touching the given wallets, starting below the
+     * {@code beforeId} keyset cursor when one is given. A {@code from}/{@code to}
+     * range bounds {@code created_at}, so a partitioned ledger reads only the
+     * months in it.
+     */
+    public List<LedgerEntryView> findLedgerEntries(List<Long> walletIds, Long beforeId,
+                                                   LocalDateTime from, LocalDateTime to, int limit) {
+        if (walletIds.isEmpty()) {
+            return List.of();
+        }
+        String sql = "SELECT l.id, a.code, l.transaction_type, l.amount, l.idempotency_key, l.description, l.created_at, " +
+                "CASE WHEN l.credit_wallet_id IN (:walletIds) THEN 'CREDIT' ELSE 'DEBIT' END AS direction, " +
+                "CASE WHEN l.credit_wallet_id IN (:walletIds) THEN l.credit_balance_after " +
+                "ELSE l.debit_balance_after END AS balance_after " +
+                "FROM ledger_entries l JOIN wallets w ON w.id = l.credit_wallet_id JOIN assets a ON a.id = w.asset_id " +
+                "WHERE (l.credit_wallet_id IN (:walletIds) OR l.debit_wallet_id IN (:walletIds))" +
+                (beforeId != null ? " AND l.id < :beforeId" : "") +
+                (from != null ? " AND l.created_at >= :from" : "") +
+                (to != null ? " AND l.created_at < :to" : "") +
+                " ORDER BY l.id DESC LIMIT :limit";
+        return jdbcTemplate.query(sql, new MapSqlParameterSource()
+                        .addValue("walletIds", walletIds)
+                        .addValue("beforeId", beforeId)
+                        .addValue("from", from)
+                        .addValue("to", to)
+                        .addValue("limit", limit),
+                (rs, rowNum) -> LedgerEntryView.builder()
+                        .id(rs.getLong("id"))
+                        .assetCode(rs.getString("code"))
+                        .transactionType(rs.getString("transaction_type"))
+                        .direction(LedgerEntryView.Direction.valueOf(rs.getString("direction")))
+                        .amount(rs.getBigDecimal("amount"))
+                        .balanceAfter(rs.getBigDecimal("balance_after"))
+                        .idempotencyKey(rs.getString("idempotency_key"))
+                        .description(rs.getString("description"))
+                        .createdAt(toLocalDateTime(rs.getTimestamp("created_at")))
+                        .build());
+    }
+
+    /**
+     * The wallet's balance at {@code at}, given its current one. Read from the
+     * balance recorded on the last entry up to then, or derived from the first
+     * entry after it; history not yet backfilled falls back to subtracting
+     * every later entry from the current balance.
+     */
+    public BigDecimal findBalanceAsOf(Long walletId, LocalDateTime at, BigDecimal currentBalance) {
+        Optional<BalancePoint> before = findEdgeEntry(walletId, at, false);
+        if (before.isPresent() && before.get().balanceAfter() != null) {
+            return before.get().balanceAfter();
+        }
+        Optional<BalancePoint> after = findEdgeEntry(walletId, at, true);
+        if (after.isEmpty()) {
+            return currentBalance;
+        }
+        if (after.get().balanceAfter() != null) {
+            return after.get().balanceAfter().subtract(after.get().change());
+        }
+        BigDecimal later = jdbcTemplate.queryForObject("SELECT COALESCE(SUM(CASE WHEN l.credit_wallet_id = :walletId " +
+                        "THEN l.amount ELSE -l.amount END), 0) FROM ledger_entries l " +
+                        "WHERE (l.credit_wallet_id = :walletId OR l.debit_wallet_id = :walletId) AND l.created_at > :at",
+                new MapSqlParameterSource()
+                        .addValue("walletId", walletId)
+                        .addValue("at", at),
+                BigDecimal.class);
+        return currentBalance.subtract(later);
+    }
+
+    /**
+     * The wallet's last entry created at or before {@code at}, or its first one after it.
+     */
+    private Optional<BalancePoint> findEdgeEntry(Long walletId, LocalDateTime at, boolean after) {
+        String bound = after ? "l.created_at > :at" : "l.created_at <= :at";
+        String sql = "SELECT balance_after, balance_change FROM (" +
+                "SELECT l.created_at, l.id, l.credit_balance_after AS balance_after, l.amount AS balance_change " +
+                "FROM ledger_entries l WHERE l.credit_wallet_id = :walletId AND " + bound +
+                " UNION ALL " +
+                "SELECT l.created_at, l.id, l.debit_balance_after, -l.amount " +
+                "FROM ledger_entries l WHERE l.debit_wallet_id = :walletId AND " + bound +
+                ") e ORDER BY " + (after ? "created_at, id" : "created_at DESC, id DESC") + " LIMIT 1";
+        return jdbcTemplate.query(sql, new MapSqlParameterSource()
+                                .addValue("walletId", walletId)
+                                .addValue("at", at),
+                        (rs, rowNum) -> new BalancePoint(rs.getBigDecimal("balance_after"), rs.getBigDecimal("balance_change")))
+                .stream()
+                .findFirst();
+    }
+
+    public List<TransactionDTO> findTransactions(Long userId, int offset, int limit) {
+        String sql = "SELECT id, type, category, amount, description, transaction_date, created_at, updated_at " +
+                "FROM transactions WHERE user_id = :userId " +
+                "ORDER BY transaction_date DESC, id DESC LIMIT :limit OFFSET :offset";
+        return jdbcTemplate.query(sql, new MapSqlParameterSource()
+                        .addValue("userId", userId)
+                        .addValue("limit", limit)
+                        .addValue("offset", offset),
+                TRANSACTION_MAPPER);
+    }
+
+    private record BalancePoint(BigDecimal balanceAfter, BigDecimal change) {
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+}
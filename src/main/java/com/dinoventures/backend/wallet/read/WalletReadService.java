@@ -0,0 +1,199 @@
+package com.dinoventures.backend.wallet.read;
+
+import com.dinoventures.backend.datasource.ReadRoutingContext;
+import com.dinoventures.backend.dto.TransactionDTO;
+import com.dinoventures.backend.exception.ResourceNotFoundException;
+import com.dinoventures.backend.shard.ShardRouter;
+import com.dinoventures.backend.wallet.archive.LedgerArchiveStore;
+import com.dinoventures.backend.wallet.dto.BalanceResponse;
+import com.dinoventures.backend.wallet.dto.LedgerEntryView;
+import com.dinoventures.backend.wallet.dto.ReadPage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Non-blocking facade over the wallet read queries. Every call returns at once
+ * and runs its query on the small walletReadExecutor pool, so request threads
+ * are released while the database works and read concurrency is bounded by
+ * that pool and its queue rather than by the servlet thread count. A full
+ * queue rejects the call, which surfaces as 503.
+ *
+ * The queries run outside a transaction, so they are marked read-only
+ * explicitly; with a replica configured they are served there. With sharding
+ * they run on the user's shard.
+ *
+ * Writes stay on {@link com.dinoventures.backend.wallet.service.WalletService}.
+ */
+@Service
+@Slf4j
+public class WalletReadService {
+
+    private final WalletReadRepository walletReadRepository;
+    private final TaskExecutor readExecutor;
+    private final TaskExecutor streamExecutor;
+    private final ShardRouter shardRouter;
+    private final LedgerArchiveStore archiveStore;
+    private final int maxPageSize;
+    private final int streamChunkSize;
+
+    public WalletReadService(WalletReadRepository walletReadRepository,
+                             @Qualifier("walletReadExecutor") TaskExecutor readExecutor,
+                             @Qualifier("walletReadStreamExecutor") TaskExecutor streamExecutor,
+                             ShardRouter shardRouter,
+                             LedgerArchiveStore archiveStore,
+                             @Value("${app.wallet.read.max-page-size:100}") int maxPageSize,
+                             @Value("${app.wallet.read.stream-chunk-size:200}") int streamChunkSize) {
+        this.walletReadRepository = walletReadRepository;
+        this.readExecutor = readExecutor;
+        this.streamExecutor = streamExecutor;
+        this.shardRouter = shardRouter;
+        this.archiveStore = archiveStore;
+        this.maxPageSize = maxPageSize;
+        this.streamChunkSize = streamChunkSize;
+    }
+
+    public CompletableFuture<List<BalanceResponse>> getBalances(String email) {
+        return supply(() -> onUserShard(email, walletReadRepository::findBalances));
+    }
+
+    public CompletableFuture<BalanceResponse> getBalance(String email, String assetCode) {
+        return supply(() -> onUserShard(email, userId -> walletReadRepository.findBalance(userId, assetCode))
+                .orElseThrow(() -> new ResourceNotFoundException("Asset not found: " + assetCode)));
+    }
+
+    /**
+     * The balance of one asset as it was at {@code at}, read from the balances
+     * recorded on the ledger rather than summed over the history.
+     */
+    public CompletableFuture<BalanceResponse> getBalanceAsOf(String email, String assetCode, LocalDateTime at) {
+        return supply(() -> onUserShard(email, userId -> {
+            BalanceResponse balance = walletReadRepository.findBalance(userId, assetCode)
+                    .orElseThrow(() -> new ResourceNotFoundException("Asset not found: " + assetCode));
+            List<Long> walletIds = walletReadRepository.findUserWalletIds(userId, assetCode);
+            if (!walletIds.isEmpty()) {
+                balance.setBalance(walletReadRepository.findBalanceAsOf(walletIds.get(0), at, balance.getBalance()));
+            }
+            return balance;
+        }));
+    }
+
+    /**
+     * Newest-first ledger history. Pass the returned {@code next} as {@code beforeId}
+     * to continue; keyset paging keeps deep pages as cheap as the first. The
+     * optional {@code from} (inclusive) and {@code to} (exclusive) bound the
+     * entries' creation time.
+     */
+    public CompletableFuture<ReadPage<LedgerEntryView>> getLedgerPage(String email, String assetCode, Long beforeId,
+                                                                      LocalDateTime from, LocalDateTime to,
+                                                                      int limit) {
+        int pageSize = clamp(limit);
+        return supply(() -> onUserShard(email, userId -> {
+            List<Long> walletIds = walletReadRepository.findUserWalletIds(userId, assetCode);
+            List<LedgerEntryView> entries = walletReadRepository.findLedgerEntries(walletIds, beforeId, from, to, pageSize);
+            Long next = entries.size() == pageSize ? entries.get(entries.size() - 1).getId() : null;
+            return new ReadPage<>(entries, next);
+        }));
+    }
+
+    /**
+     * Newest-first ledger history moved to the archive, paged like
+     * {@link #getLedgerPage}. Only archive files of the requested months are
+     * read, and within them only blocks that can hold the user's wallets.
+     */
+    public CompletableFuture<ReadPage<LedgerEntryView>> getArchivedLedgerPage(String email, String assetCode,
+                                                                              Long beforeId, LocalDateTime from,
+                                                                              LocalDateTime to, int limit) {
+        int pageSize = clamp(limit);
+        return supply(() -> onUserShard(email, userId -> {
+            Set<Long> walletIds = new HashSet<>(walletReadRepository.findUserWalletIds(userId, assetCode));
+            List<LedgerEntryView> entries = archiveStore.scan(shardRouter.shardOf(userId), assetCode, walletIds,
+                    from, to, beforeId, pageSize);
+            Long next = entries.size() == pageSize ? entries.get(entries.size() - 1).getId() : null;
+            return new ReadPage<>(entries, next);
+        }));
+    }
+
+    public CompletableFuture<ReadPage<TransactionDTO>> getTransactionPage(String email, int page, int size) {
+        int pageSize = clamp(size);
+        int pageNumber = Math.max(0, page);
+        return supply(() -> onUserShard(email, userId -> {
+            // Fetch one extra row to learn whether another page exists without a count query
+            List<TransactionDTO> rows = walletReadRepository.findTransactions(
+                    userId, pageNumber * pageSize, pageSize + 1);
+            if (rows.size() > pageSize) {
+                return new ReadPage<>(rows.subList(0, pageSize), (long) pageNumber + 1);
+            }
+            return new ReadPage<>(rows, null);
+        }));
+    }
+
+    /**
+     * Streams the whole ledger history newest-first, one keyset chunk at a time.
+     * A chunk is read only after the previous one was written, and writes block
+     * while the client is not reading, so a slow consumer slows the query down
+     * instead of piling rows up in memory. No connection is held between chunks.
+     */
+    public CompletableFuture<Void> streamLedger(String email, String assetCode, ChunkSink sink) {
+        return CompletableFuture.runAsync(ReadRoutingContext.readOnly(() -> {
+            Long userId = resolveUserId(email);
+            shardRouter.onShard(shardRouter.shardOf(userId), () -> streamChunks(userId, assetCode, sink));
+        }), streamExecutor);
+    }
+
+    private void streamChunks(Long userId, String assetCode, ChunkSink sink) {
+        List<Long> walletIds = walletReadRepository.findUserWalletIds(userId, assetCode);
+        Long beforeId = null;
+        List<LedgerEntryView> chunk;
+        do {
+            chunk = walletReadRepository.findLedgerEntries(walletIds, beforeId, null, null, streamChunkSize);
+            if (chunk.isEmpty()) {
+                break;
+            }
+            try {
+                sink.write(chunk);
+            } catch (IOException e) {
+                log.debug("Ledger stream closed by client: {}", e.getMessage());
+                return;
+            }
+            beforeId = chunk.get(chunk.size() - 1).getId();
+        } while (chunk.size() == streamChunkSize);
+    }
+
+    private <T> CompletableFuture<T> supply(Supplier<T> query) {
+        return CompletableFuture.supplyAsync(ReadRoutingContext.readOnly(query), readExecutor);
+    }
+
+    /**
+     * Users are looked up on the home shard; their wallets live on their own shard.
+     */
+    private <T> T onUserShard(String email, Function<Long, T> query) {
+        Long userId = resolveUserId(email);
+        return shardRouter.onShard(shardRouter.shardOf(userId), () -> query.apply(userId));
+    }
+
+    private Long resolveUserId(String email) {
+        return walletReadRepository.findUserIdByEmail(email)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+    }
+
+    private int clamp(int size) {
+        return Math.max(1, Math.min(size, maxPageSize));
+    }
+
+    @FunctionalInterface
+    public interface ChunkSink {
+        void write(List<LedgerEntryView> chunk) throws IOException;
+    }
+}
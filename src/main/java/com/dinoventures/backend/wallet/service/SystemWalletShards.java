@@ -0,0 +1,114 @@
+package com.dinoventures.backend.wallet.service;
+
+import com.dinoventures.backend.exception.ResourceNotFoundException;
+import com.dinoventures.backend.wallet.Wallet;
+import com.dinoventures.backend.wallet.WalletRepository;
+import com.dinoventures.backend.wallet.asset.Asset;
+import com.dinoventures.backend.wallet.ledger.LedgerEntry;
+import com.dinoventures.backend.wallet.ledger.LedgerRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits the treasury of each asset into shards, so that top-ups and spends can
+ * take different treasury rows instead of queueing on a single one.
+ *
+ * Shard 0 is the original TREASURY wallet; the others are system wallets named
+ * TREASURY#1, TREASURY#2, ... and the treasury balance is the sum of its shards.
+ * The bonus pool is not sharded: campaigns draw from it as a whole. Disabled
+ * with one shard, the default.
+ */
+@Component
+@Slf4j
+public class SystemWalletShards {
+
+    static final String SHARDED_WALLET = "TREASURY";
+    static final String SHARD_SEPARATOR = "#";
+
+    private final WalletRepository walletRepository;
+    private final LedgerRepository ledgerRepository;
+    private final int shards;
+
+    public SystemWalletShards(WalletRepository walletRepository,
+                              LedgerRepository ledgerRepository,
+                              @Value("${app.wallet.locks.system-wallet-shards:1}") int shards) {
+        this.walletRepository = walletRepository;
+        this.ledgerRepository = ledgerRepository;
+        this.shards = Math.max(1, shards);
+    }
+
+    public boolean isSharded(String systemWalletId) {
+        return shards > 1 && SHARDED_WALLET.equals(systemWalletId);
+    }
+
+    /**
+     * System wallet ids of all shards, shard 0 first; just the wallet itself when
+     * it is not sharded.
+     */
+    public List<String> shardIds(String systemWalletId) {
+        List<String> ids = new ArrayList<>(shards);
+        ids.add(systemWalletId);
+        for (int shard = 1; shard < shards && isSharded(systemWalletId); shard++) {
+            ids.add(systemWalletId + SHARD_SEPARATOR + shard);
+        }
+        return ids;
+    }
+
+    /**
+     * Creates the missing treasury shards of an asset and funds each new shard with
+     * an equal share of shard 0, recorded as TRANSFER ledger entries. Shards that
+     * already exist are left alone, so raising the shard count only splits off
+     * the new ones.
+     */
+    @Transactional
+    public void provision(String systemWalletId, Asset asset) {
+        if (!isSharded(systemWalletId)) {
+            return;
+        }
+        Long baseId = walletRepository.findSystemWalletId(systemWalletId, asset)
+                .orElseThrow(() -> new ResourceNotFoundException("System wallet not found: " + systemWalletId));
+        Wallet base = walletRepository.findAllByIdForUpdate(List.of(baseId)).get(0);
+
+        List<String> missing = shardIds(systemWalletId).stream()
+                .skip(1)
+                .filter(shardId -> walletRepository.findSystemWalletId(shardId, asset).isEmpty())
+                .toList();
+        if (missing.isEmpty()) {
+            return;
+        }
+
+        BigDecimal share = base.getBalance().divide(BigDecimal.valueOf(missing.size() + 1L), 2, RoundingMode.DOWN);
+        for (String shardId : missing) {
+            Wallet shard = walletRepository.save(Wallet.builder()
+                    .asset(asset)
+                    .balance(share)
+                    .systemWalletId(shardId)
+                    .isSystemWallet(true)
+                    .build());
+            base.setBalance(base.getBalance().subtract(share));
+            if (share.signum() > 0) {
+                ledgerRepository.save(LedgerEntry.builder()
+                        .debitWallet(base)
+                        .creditWallet(shard)
+                        .debitBalanceAfter(base.getBalance())
+                        .creditBalanceAfter(share)
+                        .amount(share)
+                        .transactionType(LedgerEntry.TransactionType.TRANSFER)
+                        .idempotencyKey("shard-split:" + asset.getId() + ":" + shardId)
+                        .description("Split " + systemWalletId + " into shards")
+                        .build());
+            }
+        }
+        walletRepository.save(base);
+
+        log.info("System wallet shards created: systemId={}, assetCode={}, created={}, share={}",
+                systemWalletId, asset.getCode(), missing.size(), share);
+    }
+}
@@ -0,0 +1,532 @@
+package com.dinoventures.backend.wallet.service;
+
+import com.dinoventures.backend.exception.InvalidRequestException;
+import com.dinoventures.backend.model.User;
+import com.dinoventures.backend.repository.UserRepository;
+import com.dinoventures.backend.shard.ShardKey;
+import com.dinoventures.backend.shard.ShardRouter;
+import com.dinoventures.backend.wallet.Wallet;
+import com.dinoventures.backend.wallet.WalletBalancesChangedEvent;
+import com.dinoventures.backend.wallet.WalletBalancesChangedEvent.BalanceChange;
+import com.dinoventures.backend.wallet.WalletJdbcRepository;
+import com.dinoventures.backend.wallet.WalletJdbcRepository.WalletRef;
+import com.dinoventures.backend.wallet.asset.Asset;
+import com.dinoventures.backend.wallet.asset.AssetRepository;
+import com.dinoventures.backend.wallet.dto.BatchOperationItem;
+import com.dinoventures.backend.wallet.dto.BatchOperationRequest;
+import com.dinoventures.backend.wallet.dto.BatchOperationRequest.BatchMode;
+import com.dinoventures.backend.wallet.dto.BatchOperationResponse;
+import com.dinoventures.backend.wallet.dto.BatchOperationResponse.ItemResult;
+import com.dinoventures.backend.wallet.dto.BatchOperationResponse.ItemStatus;
+import com.dinoventures.backend.wallet.ledger.LedgerBatchWriter;
+import com.dinoventures.backend.wallet.ledger.LedgerEntry;
+import com.dinoventures.backend.wallet.ledger.LedgerEntryRow;
+import com.dinoventures.backend.wallet.ledger.LedgerRepository;
+import com.dinoventures.backend.wallet.outbox.WalletOutbox;
+import com.dinoventures.backend.wallet.outbox.WalletOutboxEvent;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Applies a list of wallet operations in one transaction.
+ *
+ * Assets, users and earlier results are looked up once for the whole batch.
+ * Every wallet the batch touches is locked in a single statement in wallet-id
+ * order, the operations are checked in request order against the locked
+ * balances, and the outcome is written with one batched balance update and one
+ * batched ledger insert. A sharded treasury is the exception: the batch claims
+ * one free shard of it per asset, as single operations do.
+ *
+ * With sharding a batch runs on the caller's shard, and every user it touches
+ * must live there; a lone cross-shard transfer is run by
+ * {@link com.dinoventures.backend.wallet.transfer.CrossShardTransferService}.
+ */
+@Service
+@Slf4j
+public class WalletBatchService {
+
+    private static final String TREASURY = "TREASURY";
+    private static final String BONUS_POOL = "BONUS_POOL";
+
+    private final WalletJdbcRepository walletJdbcRepository;
+    private final AssetRepository assetRepository;
+    private final UserRepository userRepository;
+    private final LedgerRepository ledgerRepository;
+    private final LedgerBatchWriter ledgerBatchWriter;
+    private final EntityManager entityManager;
+    private final ApplicationEventPublisher eventPublisher;
+    private final WalletOutbox walletOutbox;
+    private final ShardRouter shardRouter;
+    private final WalletLocks walletLocks;
+    private final int maxOperations;
+
+    public WalletBatchService(WalletJdbcRepository walletJdbcRepository,
+                              AssetRepository assetRepository,
+                              UserRepository userRepository,
+                              LedgerRepository ledgerRepository,
+                              LedgerBatchWriter ledgerBatchWriter,
+                              EntityManager entityManager,
+                              ApplicationEventPublisher eventPublisher,
+                              WalletOutbox walletOutbox,
+                              ShardRouter shardRouter,
+                              WalletLocks walletLocks,
+                              @Value("${app.wallet.batch.max-operations:500}") int maxOperations) {
+        this.walletJdbcRepository = walletJdbcRepository;
+        this.assetRepository = assetRepository;
+        this.userRepository = userRepository;
+        this.ledgerRepository = ledgerRepository;
+        this.ledgerBatchWriter = ledgerBatchWriter;
+        this.entityManager = entityManager;
+        this.eventPublisher = eventPublisher;
+        this.walletOutbox = walletOutbox;
+        this.shardRouter = shardRouter;
+        this.walletLocks = walletLocks;
+        this.maxOperations = maxOperations;
+    }
+
+    /**
+     * Runs a batch submitted by a user, on their own wallets only.
+     */
+    @Transactional
+    public BatchOperationResponse execute(@ShardKey User caller, BatchOperationRequest request) {
+        requireOwnOperations(caller.getId(), request);
+        return apply(caller.getId(), request);
+    }
+
+    /**
+     * Runs operations that were accepted earlier for the users they name, as the
+     * async worker and the journal projector do, in the caller's transaction or
+     * a new one. Every operation must carry its user id, which is trusted as
+     * given, so requests made by users go through {@link #execute(User, BatchOperationRequest)}.
+     */
+    @Transactional
+    public BatchOperationResponse applyAccepted(BatchOperationRequest request) {
+        return apply(null, request);
+    }
+
+    /**
+     * Refuses a batch in which any operation debits or credits a user other than
+     * the caller. Transfers may still go to any recipient.
+     */
+    public static void requireOwnOperations(Long callerId, BatchOperationRequest request) {
+        for (BatchOperationItem item : request.getOperations()) {
+            if (item.getUserId() != null && !item.getUserId().equals(callerId)) {
+                throw new AccessDeniedException("Batch operations can only be made on your own wallets");
+            }
+        }
+    }
+
+    /**
+     * @param defaultUserId user for operations that do not name one; null when
+     *                      every operation carries its own user id
+     */
+    private BatchOperationResponse apply(Long defaultUserId, BatchOperationRequest request) {
+        List<BatchOperationItem> items = request.getOperations();
+        BatchMode mode = request.getMode() != null ? request.getMode() : BatchMode.ALL_OR_NOTHING;
+        validate(items);
+
+        log.info("Batch request: userId={}, mode={}, operations={}", defaultUserId, mode, items.size());
+
+        ItemResult[] results = new ItemResult[items.size()];
+
+        // Replays of earlier operations are answered from the ledger
+        Map<String, LedgerEntryRow> previous = ledgerRepository.findRowsByIdempotencyKeyIn(
+                        items.stream().map(BatchOperationItem::getIdempotencyKey).toList())
+                .stream()
+                .collect(Collectors.toMap(LedgerEntryRow::idempotencyKey, Function.identity()));
+
+        Map<String, Asset> assets = assetRepository.findByCodeInAndActiveTrue(
+                        items.stream().map(BatchOperationItem::getAssetCode).collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(Asset::getCode, Function.identity()));
+
+        Set<Long> referencedUsers = new HashSet<>();
+        items.forEach(item -> {
+            Long userId = item.getUserId() != null ? item.getUserId() : defaultUserId;
+            if (userId != null) {
+                referencedUsers.add(userId);
+            }
+            if (item.getTargetUserId() != null) {
+                referencedUsers.add(item.getTargetUserId());
+            }
+        });
+        shardRouter.copyUsers(referencedUsers);
+        Set<Long> knownUsers = userRepository.findAllById(referencedUsers).stream()
+                .map(User::getId)
+                .collect(Collectors.toSet());
+
+        List<Operation> operations = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            BatchOperationItem item = items.get(i);
+            LedgerEntryRow earlier = previous.get(item.getIdempotencyKey());
+            if (earlier != null) {
+                results[i] = result(i, item, ItemStatus.DUPLICATE, null, WalletTransactionResult.from(earlier));
+                continue;
+            }
+            try {
+                operations.add(plan(i, item, defaultUserId, assets, knownUsers));
+            } catch (InvalidRequestException e) {
+                results[i] = result(i, item, ItemStatus.FAILED, e.getMessage(), null);
+            }
+        }
+
+        if (mode == BatchMode.ALL_OR_NOTHING && hasFailures(results)) {
+            return reject(mode, items, results);
+        }
+
+        Map<WalletKey, Long> walletIds = resolveWallets(operations);
+        Set<WalletKey> shardedWallets = walletIds.keySet().stream()
+                .filter(key -> key.userId() == null && walletLocks.isSharded(key.systemWalletId()))
+                .collect(Collectors.toSet());
+        Map<Long, BigDecimal> balances = walletJdbcRepository.lockWallets(WalletLocks.lockOrder(walletIds.entrySet().stream()
+                .filter(wallet -> !shardedWallets.contains(wallet.getKey()))
+                .map(Map.Entry::getValue)
+                .toList()));
+        claimShards(shardedWallets, assets, operations, walletIds, balances);
+
+        Map<Long, BigDecimal> deltas = new LinkedHashMap<>();
+        List<Posting> postings = new ArrayList<>();
+        for (Operation operation : operations) {
+            try {
+                postings.add(post(operation, walletIds, balances, deltas));
+            } catch (InvalidRequestException e) {
+                results[operation.index()] = result(operation.index(), operation.item(), ItemStatus.FAILED, e.getMessage(), null);
+            }
+        }
+
+        if (mode == BatchMode.ALL_OR_NOTHING && hasFailures(results)) {
+            // Wallets provisioned for this batch go away with the rollback
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            return reject(mode, items, results);
+        }
+
+        deltas.values().removeIf(delta -> delta.signum() == 0);
+        walletJdbcRepository.adjustBalances(deltas);
+
+        List<LedgerEntry> entries = postings.stream()
+                .map(posting -> LedgerEntry.builder()
+                        .debitWallet(entityManager.getReference(Wallet.class, posting.debitWalletId()))
+                        .creditWallet(entityManager.getReference(Wallet.class, posting.creditWalletId()))
+                        .debitBalanceAfter(posting.newDebitBalance())
+                        .creditBalanceAfter(posting.newCreditBalance())
+                        .amount(posting.operation().item().getAmount())
+                        .transactionType(posting.operation().transactionType())
+                        .idempotencyKey(posting.operation().item().getIdempotencyKey())
+                        .description(posting.operation().item().getDescription())
+                        .build())
+                .toList();
+        ledgerBatchWriter.writeAll(entries);
+        appendOutboxEvents(assets, postings, entries);
+        publishBalanceChanges(assets, walletIds, balances, postings);
+
+        for (int i = 0; i < postings.size(); i++) {
+            Posting posting = postings.get(i);
+            LedgerEntry entry = entries.get(i);
+            results[posting.operation().index()] = result(posting.operation().index(), posting.operation().item(),
+                    ItemStatus.APPLIED, null, WalletTransactionResult.builder()
+                            .transactionId(entry.getId())
+                            .idempotencyKey(entry.getIdempotencyKey())
+                            .amount(entry.getAmount())
+                            .transactionType(entry.getTransactionType().toString())
+                            .creditWalletId(posting.creditWalletId())
+                            .debitWalletId(posting.debitWalletId())
+                            .newCreditBalance(posting.newCreditBalance())
+                            .newDebitBalance(posting.newDebitBalance())
+                            .createdAt(entry.getCreatedAt())
+                            .build());
+        }
+
+        BatchOperationResponse response = summarize(mode, true, results);
+        log.info("Batch completed: userId={}, applied={}, duplicates={}, failed={}",
+                defaultUserId, response.getApplied(), response.getDuplicates(), response.getFailed());
+        return response;
+    }
+
+    private void validate(List<BatchOperationItem> items) {
+        if (items.size() > maxOperations) {
+            throw new InvalidRequestException("A batch can contain at most " + maxOperations + " operations");
+        }
+        Set<String> keys = new HashSet<>();
+        for (BatchOperationItem item : items) {
+            if (!keys.add(item.getIdempotencyKey())) {
+                throw new InvalidRequestException("Duplicate idempotency key in batch: " + item.getIdempotencyKey());
+            }
+        }
+    }
+
+    /**
+     * Works out which wallets an operation moves funds between.
+     */
+    private Operation plan(int index, BatchOperationItem item, Long defaultUserId, Map<String, Asset> assets, Set<Long> knownUsers) {
+        Asset asset = assets.get(item.getAssetCode());
+        if (asset == null) {
+            throw new InvalidRequestException("Asset not found: " + item.getAssetCode());
+        }
+        Long userId = item.getUserId() != null ? item.getUserId() : defaultUserId;
+        if (userId != null && !shardRouter.isOnCurrentShard(userId)) {
+            throw new InvalidRequestException("User " + userId + " is on another shard; submit their operations separately");
+        }
+        if (userId == null || !knownUsers.contains(userId)) {
+            throw new InvalidRequestException("User not found: " + userId);
+        }
+        Long assetId = asset.getId();
+        WalletKey userWallet = WalletKey.user(assetId, userId);
+
+        return switch (item.getType()) {
+            case TOP_UP -> new Operation(index, item, WalletKey.system(assetId, TREASURY), userWallet,
+                    LedgerEntry.TransactionType.TOP_UP);
+            case BONUS -> new Operation(index, item, WalletKey.system(assetId, BONUS_POOL), userWallet,
+                    LedgerEntry.TransactionType.BONUS);
+            case SPEND -> new Operation(index, item, userWallet, WalletKey.system(assetId, TREASURY),
+                    LedgerEntry.TransactionType.SPEND);
+            case TRANSFER -> {
+                Long targetUserId = item.getTargetUserId();
+                if (targetUserId == null) {
+                    throw new InvalidRequestException("Target user is required for transfers");
+                }
+                if (targetUserId.equals(userId)) {
+                    throw new InvalidRequestException("Cannot transfer to the same user");
+                }
+                if (!shardRouter.isOnCurrentShard(targetUserId)) {
+                    throw new InvalidRequestException("Transfers to another shard must be submitted on their own");
+                }
+                if (!knownUsers.contains(targetUserId)) {
+                    throw new InvalidRequestException("User not found: " + targetUserId);
+                }
+                yield new Operation(index, item, userWallet, WalletKey.user(assetId, targetUserId),
+                        LedgerEntry.TransactionType.TRANSFER);
+            }
+        };
+    }
+
+    /**
+     * Provisions the user wallets that will be credited, then resolves every
+     * wallet the batch touches, one query per asset.
+     */
+    private Map<WalletKey, Long> resolveWallets(List<Operation> operations) {
+        Map<Long, Set<Long>> creditedUsersByAsset = new HashMap<>();
+        Map<Long, Set<Long>> usersByAsset = new HashMap<>();
+        Map<Long, Set<String>> systemWalletsByAsset = new HashMap<>();
+        for (Operation operation : operations) {
+            for (WalletKey key : List.of(operation.debit(), operation.credit())) {
+                if (key.userId() != null) {
+                    usersByAsset.computeIfAbsent(key.assetId(), id -> new HashSet<>()).add(key.userId());
+                } else {
+                    systemWalletsByAsset.computeIfAbsent(key.assetId(), id -> new HashSet<>()).add(key.systemWalletId());
+                }
+            }
+            if (operation.credit().userId() != null) {
+                creditedUsersByAsset.computeIfAbsent(operation.credit().assetId(), id -> new HashSet<>())
+                        .add(operation.credit().userId());
+            }
+        }
+
+        creditedUsersByAsset.forEach(walletJdbcRepository::insertUserWalletsIfAbsent);
+
+        Set<Long> assetIds = new HashSet<>(usersByAsset.keySet());
+        assetIds.addAll(systemWalletsByAsset.keySet());
+
+        Map<WalletKey, Long> walletIds = new HashMap<>();
+        for (Long assetId : assetIds) {
+            List<WalletRef> refs = walletJdbcRepository.findWalletRefs(assetId,
+                    usersByAsset.getOrDefault(assetId, Set.of()),
+                    systemWalletsByAsset.getOrDefault(assetId, Set.of()));
+            refs.forEach(ref -> walletIds.put(ref.userId() != null
+                    ? WalletKey.user(assetId, ref.userId())
+                    : WalletKey.system(assetId, ref.systemWalletId()), ref.id()));
+        }
+        return walletIds;
+    }
+
+    /**
+     * Swaps each sharded system wallet for a free shard of it, one per asset for
+     * the whole batch, that covers what the batch debits from it. Shards are
+     * claimed without waiting, so taking them after the other locks keeps the
+     * lock order.
+     */
+    private void claimShards(Set<WalletKey> shardedWallets, Map<String, Asset> assets, List<Operation> operations,
+                             Map<WalletKey, Long> walletIds, Map<Long, BigDecimal> balances) {
+        Map<Long, Asset> assetsById = assets.values().stream()
+                .collect(Collectors.toMap(Asset::getId, Function.identity()));
+        for (WalletKey key : shardedWallets) {
+            BigDecimal debited = operations.stream()
+                    .filter(operation -> operation.debit().equals(key))
+                    .map(operation -> operation.item().getAmount())
+                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+            Wallet shard = walletLocks.claimSystemWallet("batch", key.systemWalletId(),
+                    assetsById.get(key.assetId()), debited);
+            walletIds.put(key, shard.getId());
+            balances.put(shard.getId(), shard.getBalance());
+        }
+    }
+
+    /**
+     * Checks an operation against the running balances and records its effect.
+     */
+    private Posting post(Operation operation, Map<WalletKey, Long> walletIds,
+                         Map<Long, BigDecimal> balances, Map<Long, BigDecimal> deltas) {
+        BigDecimal amount = operation.item().getAmount();
+
+        Long debitWalletId = walletIds.get(operation.debit());
+        if (debitWalletId == null) {
+            // A user wallet that was never credited has nothing to spend
+            throw new InvalidRequestException(operation.debit().userId() != null
+                    ? "Insufficient balance"
+                    : systemWalletName(operation.debit()) + " not found");
+        }
+        Long creditWalletId = walletIds.get(operation.credit());
+        if (creditWalletId == null) {
+            throw new InvalidRequestException(operation.credit().userId() != null
+                    ? "User wallet not found"
+                    : systemWalletName(operation.credit()) + " not found");
+        }
+
+        BigDecimal debitBalance = balances.get(debitWalletId);
+        if (debitBalance.compareTo(amount) < 0) {
+            throw new InvalidRequestException(operation.debit().userId() != null
+                    ? "Insufficient balance"
+                    : "Insufficient " + systemWalletName(operation.debit()).toLowerCase() + " balance");
+        }
+
+        BigDecimal newDebitBalance = debitBalance.subtract(amount);
+        BigDecimal newCreditBalance = balances.get(creditWalletId).add(amount);
+        balances.put(debitWalletId, newDebitBalance);
+        balances.put(creditWalletId, newCreditBalance);
+        deltas.merge(debitWalletId, amount.negate(), BigDecimal::add);
+        deltas.merge(creditWalletId, amount, BigDecimal::add);
+
+        return new Posting(operation, debitWalletId, creditWalletId, newDebitBalance, newCreditBalance);
+    }
+
+    /**
+     * Announces the final balances of the user wallets the batch changed. The rows
+     * were updated without reading their versions back, so no version is given.
+     */
+    private void publishBalanceChanges(Map<String, Asset> assets, Map<WalletKey, Long> walletIds,
+                                       Map<Long, BigDecimal> balances, List<Posting> postings) {
+        if (postings.isEmpty()) {
+            return;
+        }
+        Map<Long, String> assetCodes = assets.values().stream()
+                .collect(Collectors.toMap(Asset::getId, Asset::getCode));
+        Set<Long> touched = new HashSet<>();
+        postings.forEach(posting -> {
+            touched.add(posting.debitWalletId());
+            touched.add(posting.creditWalletId());
+        });
+        List<BalanceChange> changes = walletIds.entrySet().stream()
+                .filter(wallet -> wallet.getKey().userId() != null && touched.contains(wallet.getValue()))
+                .map(wallet -> new BalanceChange(wallet.getKey().userId(), assetCodes.get(wallet.getKey().assetId()),
+                        balances.get(wallet.getValue()), null))
+                .toList();
+        eventPublisher.publishEvent(new WalletBalancesChangedEvent(changes,
+                postings.stream().map(posting -> posting.operation().item().getIdempotencyKey()).toList()));
+    }
+
+    /**
+     * Stages one outbox event per user wallet a posting touched; a transfer
+     * between two users yields one for each side.
+     */
+    private void appendOutboxEvents(Map<String, Asset> assets, List<Posting> postings, List<LedgerEntry> entries) {
+        Map<Long, String> assetCodes = assets.values().stream()
+                .collect(Collectors.toMap(Asset::getId, Asset::getCode));
+        List<WalletOutboxEvent> events = new ArrayList<>();
+        for (int i = 0; i < postings.size(); i++) {
+            Posting posting = postings.get(i);
+            WalletKey debit = posting.operation().debit();
+            WalletKey credit = posting.operation().credit();
+            if (debit.userId() != null) {
+                events.add(WalletOutboxEvent.of(entries.get(i), debit.userId(), assetCodes.get(debit.assetId()),
+                        posting.newDebitBalance()));
+            }
+            if (credit.userId() != null) {
+                events.add(WalletOutboxEvent.of(entries.get(i), credit.userId(), assetCodes.get(credit.assetId()),
+                        posting.newCreditBalance()));
+            }
+        }
+        walletOutbox.append(events);
+    }
+
+    private String systemWalletName(WalletKey key) {
+        return BONUS_POOL.equals(key.systemWalletId()) ? "Bonus pool" : "System treasury";
+    }
+
+    private boolean hasFailures(ItemResult[] results) {
+        return Arrays.stream(results).anyMatch(r -> r != null && r.getStatus() == ItemStatus.FAILED);
+    }
+
+    private BatchOperationResponse reject(BatchMode mode, List<BatchOperationItem> items, ItemResult[] results) {
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] == null) {
+                results[i] = result(i, items.get(i), ItemStatus.ABORTED, null, null);
+            }
+        }
+        BatchOperationResponse response = summarize(mode, false, results);
+        log.info("Batch rejected: failed={}", response.getFailed());
+        return response;
+    }
+
+    private BatchOperationResponse summarize(BatchMode mode, boolean committed, ItemResult[] results) {
+        List<ItemResult> list = Arrays.stream(results).filter(Objects::nonNull).toList();
+        return BatchOperationResponse.builder()
+                .mode(mode)
+                .committed(committed)
+                .applied(count(list, ItemStatus.APPLIED))
+                .duplicates(count(list, ItemStatus.DUPLICATE))
+                .failed(count(list, ItemStatus.FAILED))
+                .results(list)
+                .build();
+    }
+
+    private int count(List<ItemResult> results, ItemStatus status) {
+        return (int) results.stream().filter(r -> r.getStatus() == status).count();
+    }
+
+    private ItemResult result(int index, BatchOperationItem item, ItemStatus status, String error, WalletTransactionResult result) {
+        return ItemResult.builder()
+                .index(index)
+                .idempotencyKey(item.getIdempotencyKey())
+                .status(status)
+                .error(error)
+                .result(result)
+                .build();
+    }
+
+    private record WalletKey(Long assetId, Long userId, String systemWalletId) {
+
+        static WalletKey user(Long assetId, Long userId) {
+            return new WalletKey(assetId, userId, null);
+        }
+
+        static WalletKey system(Long assetId, String systemWalletId) {
+            return new WalletKey(assetId, null, systemWalletId);
+        }
+    }
+
+    private record Operation(int index, BatchOperationItem item, WalletKey debit, WalletKey credit,
+                             LedgerEntry.TransactionType transactionType) {
+    }
+
+    private record Posting(Operation operation, Long debitWalletId, Long creditWalletId,
+                           BigDecimal newDebitBalance, BigDecimal newCreditBalance) {
+    }
+}
@@ -0,0 +1,22 @@
+package com.dinoventures.backend.wallet.service;
+
+/**
+ * How a wallet operation protects the user wallet it changes. System wallets
+ * (TREASURY, BONUS_POOL) are shared by every operation on an asset and are
+ * always locked.
+ */
+public enum WalletConcurrencyStrategy {
+
+    /**
+     * Lock the user wallet row for the whole transaction (SELECT ... FOR UPDATE)
+     * under SERIALIZABLE isolation.
+     */
+    PESSIMISTIC,
+
+    /**
+     * Read the user wallet without a lock under READ COMMITTED and let the
+     * {@code @Version} check on update detect concurrent changes; the operation
+     * is retried on conflict.
+     */
+    OPTIMISTIC
+}
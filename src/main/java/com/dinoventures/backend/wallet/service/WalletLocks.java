@@ -0,0 +1,215 @@
+package com.dinoventures.backend.wallet.service;
+
+import com.dinoventures.backend.exception.ResourceNotFoundException;
+import com.dinoventures.backend.shard.ShardContext;
+import com.dinoventures.backend.wallet.Wallet;
+import com.dinoventures.backend.wallet.WalletRepository;
+import com.dinoventures.backend.wallet.asset.Asset;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.LockOptions;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.DatabaseMetaData;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The one place wallet row locks are taken, and the one lock order: ascending
+ * wallet id.
+ *
+ * Every operation that locks more than one wallet resolves the ids first and
+ * then locks them all through here (or, on the JDBC path, in {@link #lockOrder}),
+ * so two transactions can never hold each other's next lock regardless of which
+ * side of a transfer each wallet is on.
+ *
+ * How long a lock is waited for is set by {@code app.wallet.locks.mode}: WAIT
+ * blocks until the lock is free, NOWAIT fails at once, and TIMEOUT waits up to a
+ * per-operation bound. A lock that is not acquired fails with SQLSTATE 55P03,
+ * which the transaction runner retries and finally reports as 503. Bounded modes
+ * need PostgreSQL; H2 always applies its own LOCK_TIMEOUT.
+ *
+ * With treasury shards ({@link SystemWalletShards}) the treasury is claimed
+ * with SKIP LOCKED: any free shard will do, so operations on one asset stop
+ * queueing on a single row. That claim never waits, so it is taken after the
+ * user wallet without breaking the lock order.
+ */
+@Component
+@Slf4j
+public class WalletLocks {
+
+    public enum Mode {
+        WAIT,
+        NOWAIT,
+        TIMEOUT
+    }
+
+    private final WalletRepository walletRepository;
+    private final EntityManager entityManager;
+    private final SystemWalletShards systemWalletShards;
+    private final MeterRegistry meterRegistry;
+    private final Mode mode;
+    private final Map<String, Long> timeoutsMs;
+    private final boolean postgres;
+    private final Map<String, Long> systemWalletIds = new ConcurrentHashMap<>();
+    private final Set<Long> knownSystemWallets = ConcurrentHashMap.newKeySet();
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public WalletLocks(WalletRepository walletRepository,
+                       EntityManager entityManager,
+                       SystemWalletShards systemWalletShards,
+                       MeterRegistry meterRegistry,
+                       DataSource dataSource,
+                       @Value("${app.wallet.locks.mode:WAIT}") Mode mode,
+                       @Value("${app.wallet.locks.timeout-ms.top-up:2000}") long topUpTimeoutMs,
+                       @Value("${app.wallet.locks.timeout-ms.bonus:2000}") long bonusTimeoutMs,
+                       @Value("${app.wallet.locks.timeout-ms.spend:1000}") long spendTimeoutMs) {
+        this.walletRepository = walletRepository;
+        this.entityManager = entityManager;
+        this.systemWalletShards = systemWalletShards;
+        this.meterRegistry = meterRegistry;
+        this.mode = mode;
+        this.timeoutsMs = Map.of("top_up", topUpTimeoutMs, "bonus", bonusTimeoutMs, "spend", spendTimeoutMs);
+        this.postgres = isPostgres(dataSource);
+    }
+
+    /**
+     * Distinct wallet ids in the order their locks must be taken.
+     */
+    public static List<Long> lockOrder(Collection<Long> walletIds) {
+        return walletIds.stream().distinct().sorted().toList();
+    }
+
+    /**
+     * Locks the wallets in lock order, each within the lock mode's bound, and
+     * returns them by id.
+     */
+    public Map<Long, Wallet> lock(String operation, Collection<Long> walletIds) {
+        Map<String, Object> hints = lockHints(operation);
+        Map<Long, Wallet> locked = new LinkedHashMap<>();
+        for (Long walletId : lockOrder(walletIds)) {
+            String walletClass = knownSystemWallets.contains(walletId) ? "system" : "user";
+            long start = System.nanoTime();
+            Wallet wallet;
+            try {
+                wallet = entityManager.find(Wallet.class, walletId, LockModeType.PESSIMISTIC_WRITE, hints);
+            } catch (RuntimeException e) {
+                timer(walletClass, operation, "failed").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                throw e;
+            }
+            timer(walletClass, operation, "acquired").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (wallet == null) {
+                throw new ResourceNotFoundException("Wallet not found");
+            }
+            locked.put(walletId, wallet);
+        }
+        return locked;
+    }
+
+    /**
+     * Whether {@link #claimSystemWallet} spreads this system wallet over shards.
+     */
+    public boolean isSharded(String systemWalletId) {
+        return systemWalletShards.isSharded(systemWalletId);
+    }
+
+    /**
+     * Claims one free shard of a sharded system wallet holding at least
+     * {@code minBalance}. When every such shard is taken, or none holds enough,
+     * shard 0 is locked without waiting; the caller's balance check then decides,
+     * and a busy shard 0 fails as a lock timeout.
+     */
+    public Wallet claimSystemWallet(String operation, String systemWalletId, Asset asset, BigDecimal minBalance) {
+        long start = System.nanoTime();
+        Optional<Wallet> free = walletRepository.claimFreeSystemWalletShard(asset.getId(),
+                systemWalletShards.shardIds(systemWalletId), minBalance);
+        if (free.isPresent()) {
+            timer("system", operation, "acquired").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return free.get();
+        }
+
+        Long baseId = systemWalletId(systemWalletId, asset)
+                .orElseThrow(() -> new ResourceNotFoundException("System wallet not found: " + systemWalletId));
+        try {
+            Wallet base = entityManager.find(Wallet.class, baseId, LockModeType.PESSIMISTIC_WRITE,
+                    Map.of(AvailableSettings.JAKARTA_LOCK_TIMEOUT, LockOptions.NO_WAIT));
+            timer("system", operation, "acquired").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return base;
+        } catch (RuntimeException e) {
+            timer("system", operation, "failed").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+    }
+
+    /**
+     * Id of a system wallet. System wallets are created once per asset and never
+     * move, so the lookup is cached; every shard has its own.
+     */
+    public Optional<Long> systemWalletId(String systemWalletId, Asset asset) {
+        String key = ShardContext.currentShard() + ":" + systemWalletId + ":" + asset.getId();
+        Long cached = systemWalletIds.get(key);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        Optional<Long> id = walletRepository.findSystemWalletId(systemWalletId, asset);
+        id.ifPresent(found -> {
+            systemWalletIds.put(key, found);
+            knownSystemWallets.add(found);
+        });
+        return id;
+    }
+
+    /**
+     * Lock hints for the mode. PostgreSQL has no per-statement lock wait, so a
+     * bounded wait is set for the rest of the transaction instead.
+     */
+    private Map<String, Object> lockHints(String operation) {
+        return switch (mode) {
+            case WAIT -> Map.of();
+            case NOWAIT -> Map.of(AvailableSettings.JAKARTA_LOCK_TIMEOUT, LockOptions.NO_WAIT);
+            case TIMEOUT -> {
+                long timeoutMs = timeoutsMs.getOrDefault(operation, 2000L);
+                if (postgres) {
+                    entityManager.createNativeQuery("SELECT set_config('lock_timeout', :timeout, true)")
+                            .setParameter("timeout", timeoutMs + "ms")
+                            .getSingleResult();
+                }
+                yield Map.of(AvailableSettings.JAKARTA_LOCK_TIMEOUT, (int) timeoutMs);
+            }
+        };
+    }
+
+    private Timer timer(String walletClass, String operation, String outcome) {
+        return timers.computeIfAbsent(walletClass + ":" + operation + ":" + outcome, key -> Timer.builder("wallet.lock.wait")
+                .description("Time spent acquiring wallet row locks")
+                .tag("class", walletClass)
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .register(meterRegistry));
+    }
+
+    private static boolean isPostgres(DataSource dataSource) {
+        try {
+            String product = JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName);
+            return "PostgreSQL".equals(product);
+        } catch (MetaDataAccessException e) {
+            log.warn("Could not determine database product, lock timeouts disabled: {}", e.getMessage());
+            return false;
+        }
+    }
+}
@@ -1,21 +1,31 @@
 package com.dinoventures.backend.wallet.service;
 
+import com.dinoventures.backend.datasource.ReadRoutingContext;
 import com.dinoventures.backend.exception.InsufficientBalanceException;
 import com.dinoventures.backend.exception.ResourceNotFoundException;
 import com.dinoventures.backend.model.User;
+import com.dinoventures.backend.shard.ShardKey;
 import com.dinoventures.backend.wallet.Wallet;
+import com.dinoventures.backend.wallet.WalletBalancesChangedEvent;
+import com.dinoventures.backend.wallet.WalletBalancesChangedEvent.BalanceChange;
 import com.dinoventures.backend.wallet.WalletRepository;
 import com.dinoventures.backend.wallet.asset.Asset;
 import com.dinoventures.backend.wallet.asset.AssetRepository;
+import com.dinoventures.backend.wallet.cache.BalanceCache;
 import com.dinoventures.backend.wallet.ledger.LedgerEntry;
 import com.dinoventures.backend.wallet.ledger.LedgerRepository;
+import com.dinoventures.backend.wallet.outbox.WalletOutbox;
+import com.dinoventures.backend.wallet.outbox.WalletOutboxEvent;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
 @Service
 @AllArgsConstructor
@@ -25,33 +35,44 @@ public class WalletService {
     private final WalletRepository walletRepository;
     private final AssetRepository assetRepository;
     private final LedgerRepository ledgerRepository;
+    private final BalanceCache balanceCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final WalletTransactionRunner transactionRunner;
+    private final WalletLocks walletLocks;
+    private final WalletOutbox walletOutbox;
 
     /**
      * Top-up: Transfer credits from System Treasury to User Wallet
      * Uses idempotency key to prevent duplicate transactions
      */
-    @Transactional(isolation = Isolation.SERIALIZABLE)
     public WalletTransactionResult topUp(User user, String assetCode, BigDecimal amount, String idempotencyKey, String description) {
         log.info("Top-up request: userId={}, assetCode={}, amount={}, idempotencyKey={}", user.getId(), assetCode, amount, idempotencyKey);
 
+        return transactionRunner.run("top_up", user.getId(), assetCode,
+                strategy -> applyTopUp(user, assetCode, amount, idempotencyKey, description,
+                        LedgerEntry.TransactionType.TOP_UP, strategy));
+    }
+
+    private WalletTransactionResult applyTopUp(User user, String assetCode, BigDecimal amount, String idempotencyKey,
+                                                String description, LedgerEntry.TransactionType type,
+                                                WalletConcurrencyStrategy strategy) {
         // Check idempotency
-        var existingLedger = ledgerRepository.findByIdempotencyKey(idempotencyKey);
+        var existingLedger = ledgerRepository.findRowByIdempotencyKey(idempotencyKey);
         if (existingLedger.isPresent()) {
             log.info("Idempotent request detected, returning previous result");
-            return mapLedgerEntryToResult(existingLedger.get());
+            return WalletTransactionResult.from(existingLedger.get());
         }
 
         // Validate asset
         Asset asset = assetRepository.findByCodeAndActiveTrue(assetCode)
                 .orElseThrow(() -> new ResourceNotFoundException("Asset not found: " + assetCode));
 
-        // Get user wallet with lock
-        Wallet userWallet = walletRepository.findUserWalletForUpdate(user, asset)
-                .orElseThrow(() -> new ResourceNotFoundException("User wallet not found"));
-
-        // Get system wallet with lock
-        Wallet systemWallet = walletRepository.findSystemWalletForUpdate("TREASURY", asset)
-                .orElseThrow(() -> new ResourceNotFoundException("System treasury not found"));
+        // Lock treasury and user wallet (unless optimistic), provisioning the user's on first credit
+        Long userWalletId = findOrCreateUserWalletId(user, asset);
+        TransferWallets wallets = lockWallets("top_up", userWalletId, asset, "TREASURY", amount,
+                "System treasury not found", strategy);
+        Wallet userWallet = wallets.userWallet();
+        Wallet systemWallet = wallets.systemWallet();
 
         // Validate system wallet has sufficient balance
         if (systemWallet.getBalance().compareTo(amount) < 0) {
@@ -73,44 +94,51 @@ public class WalletService {
         LedgerEntry ledger = LedgerEntry.builder()
                 .debitWallet(systemWallet)
                 .creditWallet(userWallet)
+                .debitBalanceAfter(systemWallet.getBalance())
+                .creditBalanceAfter(userWallet.getBalance())
                 .amount(amount)
-                .transactionType(LedgerEntry.TransactionType.TOP_UP)
+                .transactionType(type)
                 .idempotencyKey(idempotencyKey)
                 .description(description)
                 .build();
 
-        ledgerRepository.save(ledger);
+        ledgerRepository.saveAndFlush(ledger);
+        publishBalanceChange(user, userWallet, ledger);
 
         log.info("Top-up completed: transactionId={}, amount={}", ledger.getId(), amount);
 
-        return mapLedgerEntryToResult(ledger);
+        return WalletTransactionResult.from(ledger);
     }
 
     /**
      * Bonus: System issues credits directly to user wallet
      */
-    @Transactional(isolation = Isolation.SERIALIZABLE)
     public WalletTransactionResult bonus(User user, String assetCode, BigDecimal amount, String idempotencyKey, String description) {
         log.info("Bonus request: userId={}, assetCode={}, amount={}, idempotencyKey={}", user.getId(), assetCode, amount, idempotencyKey);
 
+        return transactionRunner.run("bonus", user.getId(), assetCode,
+                strategy -> applyBonus(user, assetCode, amount, idempotencyKey, description, strategy));
+    }
+
+    private WalletTransactionResult applyBonus(User user, String assetCode, BigDecimal amount, String idempotencyKey,
+                                                String description, WalletConcurrencyStrategy strategy) {
         // Check idempotency
-        var existingLedger = ledgerRepository.findByIdempotencyKey(idempotencyKey);
+        var existingLedger = ledgerRepository.findRowByIdempotencyKey(idempotencyKey);
         if (existingLedger.isPresent()) {
             log.info("Idempotent bonus request detected, returning previous result");
-            return mapLedgerEntryToResult(existingLedger.get());
+            return WalletTransactionResult.from(existingLedger.get());
         }
 
         // Validate asset
         Asset asset = assetRepository.findByCodeAndActiveTrue(assetCode)
                 .orElseThrow(() -> new ResourceNotFoundException("Asset not found: " + assetCode));
 
-        // Get user wallet
-        Wallet userWallet = walletRepository.findUserWalletForUpdate(user, asset)
-                .orElseThrow(() -> new ResourceNotFoundException("User wallet not found"));
-
-        // Get system wallet
-        Wallet systemWallet = walletRepository.findSystemWalletForUpdate("BONUS_POOL", asset)
-                .orElseThrow(() -> new ResourceNotFoundException("Bonus pool not found"));
+        // Lock bonus pool and user wallet, provisioning the user's on first credit
+        Long userWalletId = findOrCreateUserWalletId(user, asset);
+        TransferWallets wallets = lockWallets("bonus", userWalletId, asset, "BONUS_POOL", amount,
+                "Bonus pool not found", strategy);
+        Wallet userWallet = wallets.userWallet();
+        Wallet systemWallet = wallets.systemWallet();
 
         // Validate system wallet has sufficient balance
         if (systemWallet.getBalance().compareTo(amount) < 0) {
@@ -132,43 +160,60 @@ public class WalletService {
         LedgerEntry ledger = LedgerEntry.builder()
                 .debitWallet(systemWallet)
                 .creditWallet(userWallet)
+                .debitBalanceAfter(systemWallet.getBalance())
+                .creditBalanceAfter(userWallet.getBalance())
                 .amount(amount)
                 .transactionType(LedgerEntry.TransactionType.BONUS)
                 .idempotencyKey(idempotencyKey)
                 .description(description)
                 .build();
 
-        ledgerRepository.save(ledger);
+        ledgerRepository.saveAndFlush(ledger);
+        publishBalanceChange(user, userWallet, ledger);
 
         log.info("Bonus completed: transactionId={}, amount={}", ledger.getId(), amount);
 
-        return mapLedgerEntryToResult(ledger);
+        return WalletTransactionResult.from(ledger);
     }
 
     /**
      * Spend: Debit from user wallet to system wallet
      */
-    @Transactional(isolation = Isolation.SERIALIZABLE)
     public WalletTransactionResult spend(User user, String assetCode, BigDecimal amount, String idempotencyKey, String description) {
         log.info("Spend request: userId={}, assetCode={}, amount={}, idempotencyKey={}", user.getId(), assetCode, amount, idempotencyKey);
 
+        return transactionRunner.run("spend", user.getId(), assetCode,
+                strategy -> applySpend(user, assetCode, amount, idempotencyKey, description,
+                        LedgerEntry.TransactionType.SPEND, strategy));
+    }
+
+    private WalletTransactionResult applySpend(User user, String assetCode, BigDecimal amount, String idempotencyKey,
+                                                String description, LedgerEntry.TransactionType type,
+                                                WalletConcurrencyStrategy strategy) {
         // Check idempotency
-        var existingLedger = ledgerRepository.findByIdempotencyKey(idempotencyKey);
+        var existingLedger = ledgerRepository.findRowByIdempotencyKey(idempotencyKey);
         if (existingLedger.isPresent()) {
             log.info("Idempotent spend request detected, returning previous result");
-            return mapLedgerEntryToResult(existingLedger.get());
+            return WalletTransactionResult.from(existingLedger.get());
         }
 
         // Validate asset
         Asset asset = assetRepository.findByCodeAndActiveTrue(assetCode)
                 .orElseThrow(() -> new ResourceNotFoundException("Asset not found: " + assetCode));
 
-        // Get user wallet
-        Wallet userWallet = walletRepository.findUserWalletForUpdate(user, asset)
-                .orElseThrow(() -> new ResourceNotFoundException("User wallet not found"));
+        // Lock treasury and user wallet; a wallet that was never credited has nothing to spend
+        Long userWalletId = walletRepository.findUserWalletId(user, asset)
+                .orElseThrow(() -> new InsufficientBalanceException("Insufficient balance", BigDecimal.ZERO, amount));
+        TransferWallets wallets = lockWallets("spend", userWalletId, asset, "TREASURY", BigDecimal.ZERO,
+                "System treasury not found", strategy);
+        Wallet userWallet = wallets.userWallet();
+        Wallet systemWallet = wallets.systemWallet();
 
         // Validate sufficient balance
         if (userWallet.getBalance().compareTo(amount) < 0) {
+            // The balance read is committed, so later pre-checks can reject without locking
+            balanceCache.recordObserved(user.getId(), assetCode, userWallet.getBalance(),
+                    userWallet.getVersion(), System.nanoTime());
             throw new InsufficientBalanceException(
                     "Insufficient balance",
                     userWallet.getBalance(),
@@ -176,10 +221,6 @@ public class WalletService {
             );
         }
 
-        // Get system wallet
-        Wallet systemWallet = walletRepository.findSystemWalletForUpdate("TREASURY", asset)
-                .orElseThrow(() -> new ResourceNotFoundException("System treasury not found"));
-
         // Update balances
         userWallet.setBalance(userWallet.getBalance().subtract(amount));
         systemWallet.setBalance(systemWallet.getBalance().add(amount));
@@ -191,70 +232,128 @@ public class WalletService {
         LedgerEntry ledger = LedgerEntry.builder()
                 .debitWallet(userWallet)
                 .creditWallet(systemWallet)
+                .debitBalanceAfter(userWallet.getBalance())
+                .creditBalanceAfter(systemWallet.getBalance())
                 .amount(amount)
-                .transactionType(LedgerEntry.TransactionType.SPEND)
+                .transactionType(type)
                 .idempotencyKey(idempotencyKey)
                 .description(description)
                 .build();
 
-        ledgerRepository.save(ledger);
+        ledgerRepository.saveAndFlush(ledger);
+        publishBalanceChange(user, userWallet, ledger);
 
         log.info("Spend completed: transactionId={}, amount={}", ledger.getId(), amount);
 
-        return mapLedgerEntryToResult(ledger);
+        return WalletTransactionResult.from(ledger);
+    }
+
+    /**
+     * Outgoing leg of a cross-shard transfer: moves the amount from the user into
+     * the treasury of their shard. Runs in the caller's transaction.
+     */
+    public WalletTransactionResult applyTransferOut(User user, String assetCode, BigDecimal amount, String idempotencyKey,
+                                                    String description, WalletConcurrencyStrategy strategy) {
+        return applySpend(user, assetCode, amount, idempotencyKey, description,
+                LedgerEntry.TransactionType.TRANSFER, strategy);
+    }
+
+    /**
+     * Incoming leg of a cross-shard transfer, or its refund: pays the amount out
+     * of the treasury of the user's shard. Runs in the caller's transaction.
+     */
+    public WalletTransactionResult applyTransferIn(User user, String assetCode, BigDecimal amount, String idempotencyKey,
+                                                   String description, LedgerEntry.TransactionType type,
+                                                   WalletConcurrencyStrategy strategy) {
+        return applyTopUp(user, assetCode, amount, idempotencyKey, description, type, strategy);
     }
 
     /**
      * Get current wallet balance
      */
     @Transactional(readOnly = true)
-    public BigDecimal getBalance(User user, String assetCode) {
+    public BigDecimal getBalance(@ShardKey User user, String assetCode) {
         log.info("Get balance request: userId={}, assetCode={}", user.getId(), assetCode);
 
         Asset asset = assetRepository.findByCodeAndActiveTrue(assetCode)
                 .orElseThrow(() -> new ResourceNotFoundException("Asset not found: " + assetCode));
 
-        Wallet wallet = walletRepository.findByUserAndAsset(user, asset)
-                .orElseThrow(() -> new ResourceNotFoundException("Wallet not found"));
+        // Wallets are provisioned on first credit, so a missing wallet is an empty one
+        long observedAt = System.nanoTime();
+        BigDecimal balance = walletRepository.findByUserAndAsset(user, asset)
+                .map(wallet -> {
+                    // A replica may trail a commit the cache already saw
+                    if (!ReadRoutingContext.isReplicaRead()) {
+                        balanceCache.recordObserved(user.getId(), asset.getCode(), wallet.getBalance(),
+                                wallet.getVersion(), observedAt);
+                    }
+                    return wallet.getBalance();
+                })
+                .orElse(BigDecimal.ZERO);
+
+        log.info("Balance resolved: userId={}, assetCode={}, balance={}", user.getId(), asset.getCode(), balance);
+
+        return balance;
+    }
 
-        log.info("Wallet found: walletId={}, userId={}, assetCode={}, balance={}", 
-                wallet.getId(), wallet.getUser().getId(), asset.getCode(), wallet.getBalance());
+    /**
+     * Stage the outbox event and announce the user wallet's new balance; both take
+     * effect only if the transaction commits
+     */
+    private void publishBalanceChange(User user, Wallet userWallet, LedgerEntry ledger) {
+        walletOutbox.append(List.of(WalletOutboxEvent.of(ledger, user.getId(), userWallet.getAsset().getCode(),
+                userWallet.getBalance())));
+        eventPublisher.publishEvent(new WalletBalancesChangedEvent(
+                List.of(new BalanceChange(user.getId(), userWallet.getAsset().getCode(),
+                        userWallet.getBalance(), userWallet.getVersion())),
+                List.of(ledger.getIdempotencyKey())));
+    }
 
-        return wallet.getBalance();
+    /**
+     * Lock both sides of a transfer between a user wallet and a system wallet in
+     * wallet id order. In optimistic mode only the system wallet is locked; the user
+     * wallet is read plainly and its version is checked on update. A sharded system
+     * wallet is claimed last, on a shard holding at least {@code systemMinBalance}.
+     */
+    private TransferWallets lockWallets(String operation, Long userWalletId, Asset asset, String systemWalletId,
+                                        BigDecimal systemMinBalance, String notFoundMessage,
+                                        WalletConcurrencyStrategy strategy) {
+        Long systemId = walletLocks.systemWalletId(systemWalletId, asset)
+                .orElseThrow(() -> new ResourceNotFoundException(notFoundMessage));
+        boolean sharded = walletLocks.isSharded(systemWalletId);
+
+        List<Long> toLock = new ArrayList<>();
+        if (strategy == WalletConcurrencyStrategy.PESSIMISTIC) {
+            toLock.add(userWalletId);
+        }
+        if (!sharded) {
+            toLock.add(systemId);
+        }
+        Map<Long, Wallet> locked = walletLocks.lock(operation, toLock);
+
+        Wallet userWallet = strategy == WalletConcurrencyStrategy.PESSIMISTIC
+                ? locked.get(userWalletId)
+                : walletRepository.findById(userWalletId)
+                        .orElseThrow(() -> new ResourceNotFoundException("User wallet not found"));
+        Wallet systemWallet = sharded
+                ? walletLocks.claimSystemWallet(operation, systemWalletId, asset, systemMinBalance)
+                : locked.get(systemId);
+        return new TransferWallets(userWallet, systemWallet);
     }
 
     /**
-     * Initialize wallet for a new user
+     * Id of the user's wallet for an asset, creating an empty one on first credit
      */
-    @Transactional
-    public void initializeUserWallets(User user) {
-        log.info("Initializing wallets for user: {}", user.getId());
-
-        assetRepository.findAll().stream()
-                .filter(Asset::getActive)
-                .forEach(asset -> {
-                    Wallet wallet = Wallet.builder()
-                            .user(user)
-                            .asset(asset)
-                            .balance(BigDecimal.ZERO)
-                            .isSystemWallet(false)
-                            .build();
-                    walletRepository.save(wallet);
-                    log.info("Wallet created: userId={}, assetCode={}", user.getId(), asset.getCode());
+    private Long findOrCreateUserWalletId(User user, Asset asset) {
+        return walletRepository.findUserWalletId(user, asset)
+                .orElseGet(() -> {
+                    walletRepository.insertUserWalletIfAbsent(user.getId(), asset.getId());
+                    log.info("Wallet provisioned: userId={}, assetCode={}", user.getId(), asset.getCode());
+                    return walletRepository.findUserWalletId(user, asset)
+                            .orElseThrow(() -> new ResourceNotFoundException("User wallet not found"));
                 });
     }
 
-    private WalletTransactionResult mapLedgerEntryToResult(LedgerEntry ledger) {
-        return WalletTransactionResult.builder()
-                .transactionId(ledger.getId())
-                .idempotencyKey(ledger.getIdempotencyKey())
-                .amount(ledger.getAmount())
-                .transactionType(ledger.getTransactionType().toString())
-                .creditWalletId(ledger.getCreditWallet().getId())
-                .debitWalletId(ledger.getDebitWallet().getId())
-                .newCreditBalance(ledger.getCreditWallet().getBalance())
-                .newDebitBalance(ledger.getDebitWallet().getBalance())
-                .createdAt(ledger.getCreatedAt())
-                .build();
+    private record TransferWallets(Wallet userWallet, Wallet systemWallet) {
     }
 }
@@ -1,5 +1,7 @@
 package com.dinoventures.backend.wallet.service;
 
+import com.dinoventures.backend.wallet.ledger.LedgerEntry;
+import com.dinoventures.backend.wallet.ledger.LedgerEntryRow;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -22,4 +24,35 @@ public class WalletTransactionResult {
     private BigDecimal newCreditBalance;
     private BigDecimal newDebitBalance;
     private LocalDateTime createdAt;
+
+    public static WalletTransactionResult from(LedgerEntry ledger) {
+        return WalletTransactionResult.builder()
+                .transactionId(ledger.getId())
+                .idempotencyKey(ledger.getIdempotencyKey())
+                .amount(ledger.getAmount())
+                .transactionType(ledger.getTransactionType().toString())
+                .creditWalletId(ledger.getCreditWallet().getId())
+                .debitWalletId(ledger.getDebitWallet().getId())
+                .newCreditBalance(ledger.getCreditBalanceAfter())
+                .newDebitBalance(ledger.getDebitBalanceAfter())
+                .createdAt(ledger.getCreatedAt())
+                .build();
+    }
+
+    /**
+     * The result of an earlier operation, for replays of its idempotency key.
+     */
+    public static WalletTransactionResult from(LedgerEntryRow ledger) {
+        return WalletTransactionResult.builder()
+                .transactionId(ledger.id())
+                .idempotencyKey(ledger.idempotencyKey())
+                .amount(ledger.amount())
+                .transactionType(ledger.transactionType().toString())
+                .creditWalletId(ledger.creditWalletId())
+                .debitWalletId(ledger.debitWalletId())
+                .newCreditBalance(ledger.creditBalanceAfter())
+                .newDebitBalance(ledger.debitBalanceAfter())
+                .createdAt(ledger.createdAt())
+                .build();
+    }
 }
@@ -0,0 +1,213 @@
+package com.dinoventures.backend.wallet.service;
+
+import com.dinoventures.backend.exception.WalletContentionException;
+import com.dinoventures.backend.shard.ShardKey;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Runs single wallet operations in their own transaction, choosing the
+ * concurrency strategy per asset.
+ *
+ * Assets listed in {@code app.wallet.concurrency.optimistic-assets} run
+ * optimistically: a version conflict rolls the attempt back and it is retried
+ * after a jittered, exponentially growing pause. When the retries run out the
+ * operation is run once more with pessimistic locks, and that user wallet stays
+ * pessimistic for a cooldown period, since a conflict that outlasts the retries
+ * means it is contended.
+ *
+ * Either strategy also retries transient database failures: serialization
+ * failures and deadlocks (SQLSTATE 40001, 40P01) and lock timeouts, which only
+ * mean that the attempt lost a race. When those retries run out the operation
+ * fails with {@link WalletContentionException}. Every attempt starts a fresh
+ * transaction and re-checks the idempotency key, so a retried operation is
+ * applied at most once.
+ */
+@Component
+@Slf4j
+public class WalletTransactionRunner {
+
+    private static final int MAX_CONTENDED_WALLETS = 10_000;
+
+    /**
+     * Retryable SQLSTATEs by the reason they are counted under. 55P03 is what
+     * Postgres raises when lock_timeout or NOWAIT gives up; HYT00 is H2's lock timeout.
+     */
+    private static final Map<String, String> RETRYABLE_SQL_STATES = Map.of(
+            "40001", "serialization_failure",
+            "40P01", "deadlock",
+            "55P03", "lock_timeout",
+            "HYT00", "lock_timeout");
+
+    private final TransactionTemplate pessimisticTransaction;
+    private final TransactionTemplate optimisticTransaction;
+    private final MeterRegistry meterRegistry;
+    private final Set<String> optimisticAssets;
+    private final int maxOptimisticRetries;
+    private final int maxTransientRetries;
+    private final long backoffBaseMs;
+    private final long backoffMaxMs;
+    private final long contentionCooldownNanos;
+    private final Map<String, Long> contendedUntil = new ConcurrentHashMap<>();
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    public WalletTransactionRunner(PlatformTransactionManager transactionManager,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${app.wallet.concurrency.optimistic-assets:}") String optimisticAssets,
+                                   @Value("${app.wallet.concurrency.optimistic-retries:3}") int maxOptimisticRetries,
+                                   @Value("${app.wallet.concurrency.transient-retries:3}") int maxTransientRetries,
+                                   @Value("${app.wallet.concurrency.backoff-base-ms:2}") long backoffBaseMs,
+                                   @Value("${app.wallet.concurrency.backoff-max-ms:50}") long backoffMaxMs,
+                                   @Value("${app.wallet.concurrency.contention-cooldown-ms:10000}") long contentionCooldownMs) {
+        this.pessimisticTransaction = new TransactionTemplate(transactionManager);
+        this.pessimisticTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_SERIALIZABLE);
+        this.optimisticTransaction = new TransactionTemplate(transactionManager);
+        this.optimisticTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+        this.meterRegistry = meterRegistry;
+        this.optimisticAssets = Stream.of(optimisticAssets.split(","))
+                .map(String::trim)
+                .filter(code -> !code.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+        this.maxOptimisticRetries = maxOptimisticRetries;
+        this.maxTransientRetries = maxTransientRetries;
+        this.backoffBaseMs = backoffBaseMs;
+        this.backoffMaxMs = backoffMaxMs;
+        this.contentionCooldownNanos = TimeUnit.MILLISECONDS.toNanos(contentionCooldownMs);
+    }
+
+    public WalletConcurrencyStrategy strategyFor(Long userId, String assetCode) {
+        if (!optimisticAssets.contains(assetCode)) {
+            return WalletConcurrencyStrategy.PESSIMISTIC;
+        }
+        Long until = contendedUntil.get(walletKey(userId, assetCode));
+        if (until != null && System.nanoTime() - until < 0) {
+            return WalletConcurrencyStrategy.PESSIMISTIC;
+        }
+        return WalletConcurrencyStrategy.OPTIMISTIC;
+    }
+
+    /**
+     * Runs {@code body} in a transaction with the strategy configured for the
+     * user wallet, retrying conflicts and transient failures as described above.
+     */
+    public <T> T run(String operation, @ShardKey Long userId, String assetCode, Function<WalletConcurrencyStrategy, T> body) {
+        WalletConcurrencyStrategy strategy = strategyFor(userId, assetCode);
+        int conflicts = 0;
+        int transientFailures = 0;
+
+        while (true) {
+            WalletConcurrencyStrategy attemptStrategy = strategy;
+            try {
+                return template(attemptStrategy).execute(status -> body.apply(attemptStrategy));
+            } catch (OptimisticLockingFailureException e) {
+                if (attemptStrategy == WalletConcurrencyStrategy.PESSIMISTIC) {
+                    throw e;
+                }
+                if (++conflicts > maxOptimisticRetries) {
+                    log.info("Optimistic {} gave up after {} retries, locking: userId={}, assetCode={}",
+                            operation, maxOptimisticRetries, userId, assetCode);
+                    counter("wallet.concurrency.optimistic.fallbacks", operation).increment();
+                    markContended(userId, assetCode);
+                    strategy = WalletConcurrencyStrategy.PESSIMISTIC;
+                    continue;
+                }
+                counter("wallet.concurrency.optimistic.retries", operation).increment();
+                pause(conflicts - 1);
+            } catch (RuntimeException e) {
+                String reason = retryReason(e);
+                if (reason == null) {
+                    throw e;
+                }
+                if (++transientFailures > maxTransientRetries) {
+                    log.warn("{} failed after {} retries ({}): userId={}, assetCode={}",
+                            operation, maxTransientRetries, reason, userId, assetCode);
+                    counter("wallet.transaction.retries.exhausted", operation, reason).increment();
+                    throw new WalletContentionException("Wallet is busy, please retry", e);
+                }
+                counter("wallet.transaction.retries", operation, reason).increment();
+                pause(transientFailures - 1);
+            }
+        }
+    }
+
+    /**
+     * The metric reason for a retryable failure, or null when the failure is final.
+     * Looks at the SQLSTATE anywhere in the cause chain, since Hibernate and Spring
+     * wrap the driver's exception differently depending on where it surfaced.
+     */
+    static String retryReason(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sqlException && sqlException.getSQLState() != null) {
+                String reason = RETRYABLE_SQL_STATES.get(sqlException.getSQLState());
+                if (reason != null) {
+                    return reason;
+                }
+            }
+        }
+        return null;
+    }
+
+    private TransactionTemplate template(WalletConcurrencyStrategy strategy) {
+        return strategy == WalletConcurrencyStrategy.OPTIMISTIC ? optimisticTransaction : pessimisticTransaction;
+    }
+
+    private void markContended(Long userId, String assetCode) {
+        if (contendedUntil.size() >= MAX_CONTENDED_WALLETS) {
+            long now = System.nanoTime();
+            contendedUntil.values().removeIf(until -> now - until >= 0);
+        }
+        contendedUntil.put(walletKey(userId, assetCode), System.nanoTime() + contentionCooldownNanos);
+    }
+
+    /**
+     * Sleeps a random time up to an exponentially growing cap ("full jitter"),
+     * so that transactions which collided do not collide again in lockstep.
+     */
+    private void pause(int attempt) {
+        long cap = Math.min(backoffMaxMs, backoffBaseMs << Math.min(attempt, 20));
+        long sleepMs = ThreadLocalRandom.current().nextLong(cap + 1);
+        if (sleepMs == 0) {
+            return;
+        }
+        try {
+            Thread.sleep(sleepMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while backing off a wallet operation", e);
+        }
+    }
+
+    private Counter counter(String name, String operation) {
+        return counters.computeIfAbsent(name + ":" + operation, key -> Counter.builder(name)
+                .tag("operation", operation)
+                .register(meterRegistry));
+    }
+
+    private Counter counter(String name, String operation, String reason) {
+        return counters.computeIfAbsent(name + ":" + operation + ":" + reason, key -> Counter.builder(name)
+                .tag("operation", operation)
+                .tag("reason", reason)
+                .register(meterRegistry));
+    }
+
+    private static String walletKey(Long userId, String assetCode) {
+        return userId + ":" + assetCode;
+    }
+}
@@ -0,0 +1,215 @@
+package com.dinoventures.backend.wallet.stream;
+
+import com.dinoventures.backend.cache.CacheCoherence;
+import com.dinoventures.backend.cache.CacheInvalidationListener;
+import com.dinoventures.backend.cache.CacheRegion;
+import com.dinoventures.backend.cluster.ClusterRouter;
+import com.dinoventures.backend.wallet.WalletBalancesChangedEvent;
+import com.dinoventures.backend.wallet.WalletBalancesChangedEvent.BalanceChange;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fans committed balance changes out to the open wallet streams of each user.
+ *
+ * An idle stream costs one suspended async request and a small buffer; no
+ * thread is held until something is sent. Sending happens on the stream sender
+ * pool, at most one task per stream at a time. A stream whose buffer fills up
+ * is closed, and heartbeats find connections that went away silently.
+ *
+ * In cluster mode wallets are written on their owner, or on any node when the
+ * owner is down, while a stream stays on the node it connected to. Committed
+ * changes are therefore also sent to the other nodes through
+ * {@link CacheCoherence}, with their balance and version. A change lost in a
+ * coherence gap is not replayed; the stream catches up with the next one.
+ */
+@Component
+@Slf4j
+public class BalanceStreamRegistry implements CacheInvalidationListener {
+
+    private final Map<Long, Set<BalanceSubscription>> subscriptions = new ConcurrentHashMap<>();
+    private final AtomicInteger connections = new AtomicInteger();
+    private final TaskExecutor sender;
+    private final CacheCoherence cacheCoherence;
+    private final ClusterRouter clusterRouter;
+    private final int maxConnections;
+    private final int maxPerUser;
+    private final int bufferSize;
+    private final Counter evictions;
+
+    public BalanceStreamRegistry(@Qualifier("walletStreamExecutor") TaskExecutor sender,
+                                 MeterRegistry meterRegistry,
+                                 CacheCoherence cacheCoherence,
+                                 ClusterRouter clusterRouter,
+                                 @Value("${app.wallet.stream.max-connections:20000}") int maxConnections,
+                                 @Value("${app.wallet.stream.max-per-user:5}") int maxPerUser,
+                                 @Value("${app.wallet.stream.buffer-size:32}") int bufferSize) {
+        this.sender = sender;
+        this.cacheCoherence = cacheCoherence;
+        this.clusterRouter = clusterRouter;
+        this.maxConnections = maxConnections;
+        this.maxPerUser = maxPerUser;
+        this.bufferSize = bufferSize;
+        this.evictions = Counter.builder("wallet.stream.evicted")
+                .description("Balance streams closed because the client fell behind")
+                .register(meterRegistry);
+        Gauge.builder("wallet.stream.connections", connections, AtomicInteger::get)
+                .description("Open balance streams on this node")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Registers a stream for the user; it is removed again when the emitter
+     * completes, times out or fails.
+     *
+     * @throws RejectedExecutionException when the node or the user is at the stream limit
+     */
+    public void subscribe(Long userId, SseEmitter emitter) {
+        if (connections.incrementAndGet() > maxConnections) {
+            connections.decrementAndGet();
+            throw new RejectedExecutionException("Balance stream limit reached");
+        }
+        BalanceSubscription subscription = new BalanceSubscription(userId, emitter, bufferSize);
+        boolean[] added = new boolean[1];
+        subscriptions.compute(userId, (id, set) -> {
+            Set<BalanceSubscription> current = set != null ? set : ConcurrentHashMap.newKeySet();
+            if (current.size() < maxPerUser) {
+                added[0] = current.add(subscription);
+            }
+            return current.isEmpty() ? null : current;
+        });
+        if (!added[0]) {
+            connections.decrementAndGet();
+            throw new RejectedExecutionException("Too many balance streams open for this user");
+        }
+        emitter.onCompletion(() -> remove(subscription));
+        emitter.onTimeout(() -> remove(subscription));
+        emitter.onError(ex -> remove(subscription));
+    }
+
+    @TransactionalEventListener
+    public void onBalancesChanged(WalletBalancesChangedEvent event) {
+        event.changes().forEach(this::deliver);
+        if (clusterRouter.isEnabled()) {
+            cacheCoherence.publish(CacheRegion.STREAM, event.changes().stream()
+                    .map(change -> change.userId() + ":" + change.balance().toPlainString() + ":"
+                            + (change.version() != null ? change.version() : "-") + ":" + change.assetCode())
+                    .toList());
+        }
+    }
+
+    @Override
+    public CacheRegion region() {
+        return CacheRegion.STREAM;
+    }
+
+    /**
+     * Changes committed on another node.
+     *
+     * @param keys {@code userId:balance:version:assetCode}
+     */
+    @Override
+    public void invalidate(Collection<String> keys) {
+        for (String key : keys) {
+            String[] parts = key.split(":", 4);
+            if (subscriptions.containsKey(Long.valueOf(parts[0]))) {
+                deliver(new BalanceChange(Long.valueOf(parts[0]), parts[3], new BigDecimal(parts[1]),
+                        "-".equals(parts[2]) ? null : Long.valueOf(parts[2])));
+            }
+        }
+    }
+
+    @Override
+    public void invalidateAll() {
+        // Missed changes cannot be replayed; streams catch up with the next change
+    }
+
+    @Scheduled(fixedDelayString = "${app.wallet.stream.heartbeat-interval-ms:15000}")
+    public void heartbeat() {
+        for (Set<BalanceSubscription> streams : subscriptions.values()) {
+            for (BalanceSubscription subscription : streams) {
+                subscription.offerHeartbeat();
+                schedule(subscription);
+            }
+        }
+    }
+
+    public int connectionCount() {
+        return connections.get();
+    }
+
+    private void deliver(BalanceChange change) {
+        Set<BalanceSubscription> streams = subscriptions.get(change.userId());
+        if (streams == null) {
+            return;
+        }
+        for (BalanceSubscription subscription : streams) {
+            if (subscription.offer(change)) {
+                schedule(subscription);
+            } else {
+                evictions.increment();
+                log.debug("Evicting slow balance stream: userId={}", subscription.userId());
+                close(subscription);
+            }
+        }
+    }
+
+    private void schedule(BalanceSubscription subscription) {
+        if (!subscription.trySchedule()) {
+            return;
+        }
+        try {
+            sender.execute(() -> send(subscription));
+        } catch (RejectedExecutionException e) {
+            log.warn("Balance stream sender saturated, closing stream: userId={}", subscription.userId());
+            close(subscription);
+        }
+    }
+
+    private void send(BalanceSubscription subscription) {
+        try {
+            if (subscription.drain()) {
+                schedule(subscription);
+            }
+        } catch (IOException | IllegalStateException e) {
+            // The client went away, or the emitter already completed
+            log.debug("Balance stream closed while sending: userId={}", subscription.userId());
+            close(subscription);
+        }
+    }
+
+    private void close(BalanceSubscription subscription) {
+        if (subscription.close()) {
+            remove(subscription);
+            subscription.emitter().complete();
+        }
+    }
+
+    private void remove(BalanceSubscription subscription) {
+        subscription.close();
+        subscriptions.computeIfPresent(subscription.userId(), (id, set) -> {
+            if (set.remove(subscription)) {
+                connections.decrementAndGet();
+            }
+            return set.isEmpty() ? null : set;
+        });
+    }
+}
@@ -0,0 +1,133 @@
+package com.dinoventures.backend.wallet.stream;
+
+import com.dinoventures.backend.wallet.WalletBalancesChangedEvent.BalanceChange;
+import com.dinoventures.backend.wallet.dto.BalanceStreamEvent;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * One open balance stream. Changes are queued by the committing thread and
+ * written by a sender thread, so a slow client never holds up a commit; the
+ * queue is bounded, and a subscription that lets it fill up is evicted.
+ */
+class BalanceSubscription {
+
+    private static final BalanceChange HEARTBEAT = new BalanceChange(null, null, null, null);
+
+    private final Long userId;
+    private final SseEmitter emitter;
+    private final BlockingQueue<BalanceChange> pending;
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    // Touched only by the sender holding the scheduled flag
+    private final Map<String, BigDecimal> lastBalances = new HashMap<>();
+    private final Map<String, Long> lastVersions = new HashMap<>();
+
+    BalanceSubscription(Long userId, SseEmitter emitter, int bufferSize) {
+        this.userId = userId;
+        this.emitter = emitter;
+        this.pending = new ArrayBlockingQueue<>(bufferSize);
+    }
+
+    Long userId() {
+        return userId;
+    }
+
+    SseEmitter emitter() {
+        return emitter;
+    }
+
+    boolean isClosed() {
+        return closed.get();
+    }
+
+    /**
+     * @return false when the buffer is full and the subscription should be evicted
+     */
+    boolean offer(BalanceChange change) {
+        return pending.offer(change);
+    }
+
+    /**
+     * Queues a heartbeat unless something is already waiting to be sent; a full
+     * buffer is left for the next change to detect.
+     */
+    void offerHeartbeat() {
+        if (pending.isEmpty()) {
+            pending.offer(HEARTBEAT);
+        }
+    }
+
+    /**
+     * Claims the right to drain the buffer; at most one sender runs per subscription.
+     */
+    boolean trySchedule() {
+        return !closed.get() && scheduled.compareAndSet(false, true);
+    }
+
+    /**
+     * Writes everything queued, then releases the claim. Re-checks the buffer after
+     * releasing, so a change queued meanwhile is never stranded.
+     *
+     * @return true when more changes arrived and the caller should schedule again
+     */
+    boolean drain() throws IOException {
+        try {
+            BalanceChange change;
+            while (!closed.get() && (change = pending.poll()) != null) {
+                if (change == HEARTBEAT) {
+                    emitter.send(SseEmitter.event().comment("heartbeat"));
+                } else if (isNewer(change)) {
+                    emitter.send(SseEmitter.event().name("balance").data(toEvent(change)));
+                }
+            }
+        } finally {
+            scheduled.set(false);
+        }
+        return !closed.get() && !pending.isEmpty();
+    }
+
+    /**
+     * @return true for the first caller only
+     */
+    boolean close() {
+        if (closed.compareAndSet(false, true)) {
+            pending.clear();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Commits on one wallet can reach the listener out of order; a versioned change
+     * older than one already sent is dropped.
+     */
+    private boolean isNewer(BalanceChange change) {
+        if (change.version() == null) {
+            return true;
+        }
+        Long last = lastVersions.get(change.assetCode());
+        if (last != null && last >= change.version()) {
+            return false;
+        }
+        lastVersions.put(change.assetCode(), change.version());
+        return true;
+    }
+
+    private BalanceStreamEvent toEvent(BalanceChange change) {
+        BigDecimal previous = lastBalances.put(change.assetCode(), change.balance());
+        return BalanceStreamEvent.builder()
+                .assetCode(change.assetCode())
+                .balance(change.balance())
+                .change(previous != null ? change.balance().subtract(previous) : null)
+                .version(change.version())
+                .build();
+    }
+}
@@ -0,0 +1,86 @@
+package com.dinoventures.backend.wallet.transfer;
+
+import com.dinoventures.backend.model.PooledSequenceIdGenerator;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A transfer between users on different shards. The row lives on the sender's
+ * shard and is written with the debit, so a debit without a matching credit or
+ * refund is always visible as a PENDING row.
+ */
+@Entity
+@Table(name = "cross_shard_transfers", indexes = {
+    @Index(name = "idx_cross_shard_transfer_status", columnList = "status, updated_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CrossShardTransfer {
+
+    @Id
+    @GeneratedValue(generator = "cross_shard_transfers_seq")
+    @GenericGenerator(name = "cross_shard_transfers_seq", type = PooledSequenceIdGenerator.class,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "cross_shard_transfers_seq"))
+    private Long id;
+
+    @Column(length = 100, unique = true, nullable = false)
+    private String idempotencyKey;
+
+    @Column(nullable = false)
+    private Long sourceUserId;
+
+    @Column(nullable = false)
+    private Long targetUserId;
+
+    @Column(nullable = false, length = 50)
+    private String assetCode;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal amount;
+
+    @Column(length = 500)
+    private String description;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private TransferStatus status;
+
+    /** Ledger entry of the debit, on the sender's shard */
+    @Column(nullable = false)
+    private Long debitTransactionId;
+
+    /** Ledger entry of the credit, on the recipient's shard */
+    private Long creditTransactionId;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Integer attempts = 0;
+
+    @Column(length = 500)
+    private String lastError;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    public enum TransferStatus {
+        /** Debited; the credit has not been confirmed yet */
+        PENDING,
+        /** Credited on the recipient's shard */
+        COMPLETED,
+        /** The credit could not be made; the sender was paid back */
+        REFUNDED
+    }
+}
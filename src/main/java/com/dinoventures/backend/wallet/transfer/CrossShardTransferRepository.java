@@ -0,0 +1,30 @@
+package com.dinoventures.backend.wallet.transfer;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface CrossShardTransferRepository extends JpaRepository<CrossShardTransfer, Long> {
+
+    Optional<CrossShardTransfer> findByIdempotencyKey(String idempotencyKey);
+
+    List<CrossShardTransfer> findByStatusAndUpdatedAtBeforeOrderByIdAsc(CrossShardTransfer.TransferStatus status,
+                                                                        LocalDateTime cutoff, Pageable pageable);
+
+    /**
+     * Takes over a stalled pending transfer; only one caller sees 1 for a given
+     * cutoff, and the row is not stale again until the cutoff passes once more.
+     */
+    @Modifying
+    @Query("UPDATE CrossShardTransfer t SET t.attempts = t.attempts + 1, t.updatedAt = :now " +
+            "WHERE t.id = :id AND t.status = 'PENDING' AND t.updatedAt < :cutoff")
+    int claim(@Param("id") Long id, @Param("now") LocalDateTime now, @Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,287 @@
+package com.dinoventures.backend.wallet.transfer;
+
+import com.dinoventures.backend.exception.InsufficientBalanceException;
+import com.dinoventures.backend.exception.InvalidRequestException;
+import com.dinoventures.backend.exception.ResourceNotFoundException;
+import com.dinoventures.backend.model.User;
+import com.dinoventures.backend.repository.UserRepository;
+import com.dinoventures.backend.shard.ShardRouter;
+import com.dinoventures.backend.wallet.dto.BatchOperationItem;
+import com.dinoventures.backend.wallet.dto.BatchOperationItem.OperationType;
+import com.dinoventures.backend.wallet.dto.BatchOperationRequest;
+import com.dinoventures.backend.wallet.dto.BatchOperationRequest.BatchMode;
+import com.dinoventures.backend.wallet.dto.BatchOperationResponse;
+import com.dinoventures.backend.wallet.dto.BatchOperationResponse.ItemResult;
+import com.dinoventures.backend.wallet.dto.BatchOperationResponse.ItemStatus;
+import com.dinoventures.backend.wallet.ledger.LedgerEntry;
+import com.dinoventures.backend.wallet.ledger.LedgerRepository;
+import com.dinoventures.backend.wallet.service.WalletBatchService;
+import com.dinoventures.backend.wallet.service.WalletConcurrencyStrategy;
+import com.dinoventures.backend.wallet.service.WalletService;
+import com.dinoventures.backend.wallet.service.WalletTransactionResult;
+import com.dinoventures.backend.wallet.service.WalletTransactionRunner;
+import com.dinoventures.backend.wallet.transfer.CrossShardTransfer.TransferStatus;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Moves funds between users on different shards in two steps, each a local
+ * transaction recorded in the ledger of its shard.
+ *
+ * The debit moves the amount from the sender into their shard's treasury and
+ * writes a PENDING {@link CrossShardTransfer} in the same transaction. The credit
+ * then pays it out of the recipient's shard treasury under the key
+ * {@code <key>#in}, and the transfer is marked COMPLETED. When the credit can
+ * never succeed (the recipient's shard is missing the asset, or its treasury is
+ * short) the sender is paid back under {@code <key>#refund} and the transfer
+ * becomes REFUNDED. Any other failure leaves it PENDING, and a scheduled pass
+ * retries transfers that stayed pending for longer than the recovery delay.
+ * Both legs are idempotent, so retrying a credit that did commit is harmless;
+ * a replayed request only reports the transfer's state and leaves retrying to
+ * that pass, so one transfer is never settled by two callers at once.
+ */
+@Service
+@Slf4j
+public class CrossShardTransferService {
+
+    static final String CREDIT_SUFFIX = "#in";
+    static final String REFUND_SUFFIX = "#refund";
+
+    private static final int MAX_KEY_LENGTH = 100;
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final ShardRouter shardRouter;
+    private final WalletService walletService;
+    private final WalletTransactionRunner transactionRunner;
+    private final CrossShardTransferRepository transferRepository;
+    private final LedgerRepository ledgerRepository;
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final long recoveryDelayMs;
+    private final int recoveryBatchSize;
+
+    public CrossShardTransferService(ShardRouter shardRouter,
+                                     WalletService walletService,
+                                     WalletTransactionRunner transactionRunner,
+                                     CrossShardTransferRepository transferRepository,
+                                     LedgerRepository ledgerRepository,
+                                     UserRepository userRepository,
+                                     PlatformTransactionManager transactionManager,
+                                     @Value("${app.sharding.transfer-recovery-delay-ms:60000}") long recoveryDelayMs,
+                                     @Value("${app.sharding.transfer-recovery-batch-size:100}") int recoveryBatchSize) {
+        this.shardRouter = shardRouter;
+        this.walletService = walletService;
+        this.transactionRunner = transactionRunner;
+        this.transferRepository = transferRepository;
+        this.ledgerRepository = ledgerRepository;
+        this.userRepository = userRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.recoveryDelayMs = recoveryDelayMs;
+        this.recoveryBatchSize = recoveryBatchSize;
+    }
+
+    /**
+     * Whether the batch is a single transfer from the caller to a user on another shard.
+     */
+    public boolean handles(Long callerId, BatchOperationRequest request) {
+        if (!shardRouter.isSharded() || request.getOperations() == null || request.getOperations().size() != 1) {
+            return false;
+        }
+        BatchOperationItem item = request.getOperations().get(0);
+        return item.getType() == OperationType.TRANSFER && item.getTargetUserId() != null
+                && shardRouter.shardOf(callerId) != shardRouter.shardOf(item.getTargetUserId());
+    }
+
+    /**
+     * Transfers out of the caller's wallet; a transfer naming another sender is refused.
+     */
+    public BatchOperationResponse execute(Long callerId, BatchOperationRequest request) {
+        WalletBatchService.requireOwnOperations(callerId, request);
+        BatchOperationItem item = request.getOperations().get(0);
+        BatchMode mode = request.getMode() != null ? request.getMode() : BatchMode.ALL_OR_NOTHING;
+        Long sourceId = callerId;
+        String key = item.getIdempotencyKey();
+        if (key.length() + REFUND_SUFFIX.length() > MAX_KEY_LENGTH) {
+            throw new InvalidRequestException("Idempotency key of a cross-shard transfer can be at most "
+                    + (MAX_KEY_LENGTH - REFUND_SUFFIX.length()) + " characters");
+        }
+
+        log.info("Cross-shard transfer request: sourceUserId={}, targetUserId={}, assetCode={}, amount={}, idempotencyKey={}",
+                sourceId, item.getTargetUserId(), item.getAssetCode(), item.getAmount(), key);
+
+        Debit debit;
+        try {
+            User source = findUser(sourceId);
+            findUser(item.getTargetUserId());
+            debit = transactionRunner.run("transfer_out", sourceId, item.getAssetCode(),
+                    strategy -> debit(source, item, strategy));
+        } catch (InsufficientBalanceException | ResourceNotFoundException e) {
+            return respond(mode, item, ItemStatus.FAILED, e.getMessage(), null);
+        }
+
+        if (debit.transfer() == null) {
+            // The key belongs to an earlier operation that was not a cross-shard transfer
+            return respond(mode, item, ItemStatus.DUPLICATE, null, debit.result());
+        }
+        CrossShardTransfer transfer = debit.transfer();
+        if (debit.created()) {
+            transfer = settle(transfer);
+        }
+
+        return switch (transfer.getStatus()) {
+            case COMPLETED -> respond(mode, item, debit.created() ? ItemStatus.APPLIED : ItemStatus.DUPLICATE,
+                    null, debit.result());
+            case REFUNDED -> respond(mode, item, ItemStatus.FAILED,
+                    "Transfer refunded: " + transfer.getLastError(), debit.result());
+            case PENDING -> respond(mode, item, ItemStatus.PENDING,
+                    "Credit not confirmed yet; it is retried in the background", debit.result());
+        };
+    }
+
+    /**
+     * Retries the credit of transfers that stayed pending, on every shard.
+     */
+    @Scheduled(fixedDelayString = "${app.sharding.transfer-recovery-interval-ms:30000}")
+    public void recoverPending() {
+        if (shardRouter.isSharded()) {
+            shardRouter.forEachShard(this::recoverShard);
+        }
+    }
+
+    private void recoverShard() {
+        LocalDateTime cutoff = LocalDateTime.now().minusNanos(recoveryDelayMs * 1_000_000);
+        List<CrossShardTransfer> stalled = transferRepository.findByStatusAndUpdatedAtBeforeOrderByIdAsc(
+                TransferStatus.PENDING, cutoff, PageRequest.of(0, recoveryBatchSize));
+        for (CrossShardTransfer transfer : stalled) {
+            Integer claimed = transactionTemplate.execute(status ->
+                    transferRepository.claim(transfer.getId(), LocalDateTime.now(), cutoff));
+            if (claimed != null && claimed == 1) {
+                CrossShardTransfer settled = settle(transfer);
+                log.info("Cross-shard transfer recovered: id={}, status={}", settled.getId(), settled.getStatus());
+            }
+        }
+    }
+
+    /**
+     * Debit leg, in the sender's shard transaction. A replayed key returns the
+     * transfer it started.
+     */
+    private Debit debit(User source, BatchOperationItem item, WalletConcurrencyStrategy strategy) {
+        String key = item.getIdempotencyKey();
+        var earlier = ledgerRepository.findRowByIdempotencyKey(key).map(WalletTransactionResult::from);
+        if (earlier.isPresent()) {
+            return new Debit(transferRepository.findByIdempotencyKey(key).orElse(null), earlier.get(), false);
+        }
+
+        WalletTransactionResult result = walletService.applyTransferOut(source, item.getAssetCode(), item.getAmount(),
+                key, item.getDescription(), strategy);
+        CrossShardTransfer transfer = transferRepository.save(CrossShardTransfer.builder()
+                .idempotencyKey(key)
+                .sourceUserId(source.getId())
+                .targetUserId(item.getTargetUserId())
+                .assetCode(item.getAssetCode())
+                .amount(item.getAmount())
+                .description(item.getDescription())
+                .status(TransferStatus.PENDING)
+                .debitTransactionId(result.getTransactionId())
+                .updatedAt(LocalDateTime.now())
+                .build());
+        return new Debit(transfer, result, true);
+    }
+
+    private CrossShardTransfer settle(CrossShardTransfer transfer) {
+        try {
+            Long creditTransactionId;
+            try {
+                User target = findUser(transfer.getTargetUserId());
+                creditTransactionId = transactionRunner.run("transfer_in", target.getId(), transfer.getAssetCode(),
+                        strategy -> walletService.applyTransferIn(target, transfer.getAssetCode(), transfer.getAmount(),
+                                transfer.getIdempotencyKey() + CREDIT_SUFFIX, transfer.getDescription(),
+                                LedgerEntry.TransactionType.TRANSFER, strategy).getTransactionId());
+            } catch (InsufficientBalanceException | ResourceNotFoundException e) {
+                return refund(transfer, e.getMessage());
+            }
+            return update(transfer, current -> {
+                current.setStatus(TransferStatus.COMPLETED);
+                current.setCreditTransactionId(creditTransactionId);
+                current.setLastError(null);
+            });
+        } catch (RuntimeException e) {
+            log.warn("Cross-shard transfer left pending: id={}, error={}", transfer.getId(), e.getMessage());
+            return update(transfer, current -> current.setLastError(truncate(e.getMessage())));
+        }
+    }
+
+    /**
+     * Pays the sender back and closes the transfer in one transaction on their shard.
+     */
+    private CrossShardTransfer refund(CrossShardTransfer transfer, String reason) {
+        log.warn("Refunding cross-shard transfer: id={}, reason={}", transfer.getId(), reason);
+        User source = findUser(transfer.getSourceUserId());
+        return transactionRunner.run("transfer_refund", source.getId(), transfer.getAssetCode(), strategy -> {
+            CrossShardTransfer current = transferRepository.findById(transfer.getId()).orElseThrow();
+            if (current.getStatus() != TransferStatus.PENDING) {
+                return current;
+            }
+            walletService.applyTransferIn(source, transfer.getAssetCode(), transfer.getAmount(),
+                    transfer.getIdempotencyKey() + REFUND_SUFFIX, "Refund of transfer " + transfer.getIdempotencyKey(),
+                    LedgerEntry.TransactionType.REFUND, strategy);
+            current.setStatus(TransferStatus.REFUNDED);
+            current.setLastError(truncate(reason));
+            current.setUpdatedAt(LocalDateTime.now());
+            return transferRepository.save(current);
+        });
+    }
+
+    private CrossShardTransfer update(CrossShardTransfer transfer, Consumer<CrossShardTransfer> change) {
+        return shardRouter.onShard(shardRouter.shardOf(transfer.getSourceUserId()), () ->
+                transactionTemplate.execute(status -> {
+                    CrossShardTransfer current = transferRepository.findById(transfer.getId()).orElseThrow();
+                    change.accept(current);
+                    current.setUpdatedAt(LocalDateTime.now());
+                    return transferRepository.save(current);
+                }));
+    }
+
+    /**
+     * Users live on the home shard, whichever shard the thread is on.
+     */
+    private User findUser(Long userId) {
+        return shardRouter.onShard(ShardRouter.HOME_SHARD, () -> userRepository.findById(userId))
+                .orElseThrow(() -> new ResourceNotFoundException("User not found: " + userId));
+    }
+
+    private BatchOperationResponse respond(BatchMode mode, BatchOperationItem item, ItemStatus status, String error,
+                                           WalletTransactionResult result) {
+        return BatchOperationResponse.builder()
+                .mode(mode)
+                .committed(status != ItemStatus.FAILED || mode == BatchMode.BEST_EFFORT)
+                .applied(status == ItemStatus.APPLIED ? 1 : 0)
+                .duplicates(status == ItemStatus.DUPLICATE ? 1 : 0)
+                .failed(status == ItemStatus.FAILED ? 1 : 0)
+                .results(List.of(ItemResult.builder()
+                        .index(0)
+                        .idempotencyKey(item.getIdempotencyKey())
+                        .status(status)
+                        .error(error)
+                        .result(result)
+                        .build()))
+                .build();
+    }
+
+    private static String truncate(String message) {
+        return message != null && message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message;
+    }
+
+    private record Debit(CrossShardTransfer transfer, WalletTransactionResult result, boolean created) {
+    }
+}
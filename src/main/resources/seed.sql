@@ -6,37 +6,37 @@ VALUES
     ('CREDIT_TOKENS', 'Credit Tokens', 'Service credit tokens', 'CREDIT_TOKENS', true, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP);
 
 -- System Wallets (Treasury and Bonus Pool)
-INSERT INTO wallets (user_id, asset_id, balance, system_wallet_id, is_system_wallet, created_at, updated_at, version)
-SELECT NULL, a.id, 1000000.00, 'TREASURY', true, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, 0
+INSERT INTO wallets (id, user_id, asset_id, balance, system_wallet_id, is_system_wallet, created_at, updated_at, version)
+SELECT nextval('wallets_seq'), NULL, a.id, 1000000.00, 'TREASURY', true, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, 0
 FROM assets a WHERE a.code = 'GOLD_COINS';
 
-INSERT INTO wallets (user_id, asset_id, balance, system_wallet_id, is_system_wallet, created_at, updated_at, version)
-SELECT NULL, a.id, 500000.00, 'BONUS_POOL', true, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, 0
+INSERT INTO wallets (id, user_id, asset_id, balance, system_wallet_id, is_system_wallet, created_at, updated_at, version)
+SELECT nextval('wallets_seq'), NULL, a.id, 500000.00, 'BONUS_POOL', true, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, 0
 FROM assets a WHERE a.code = 'GOLD_COINS';
 
-INSERT INTO wallets (user_id, asset_id, balance, system_wallet_id, is_system_wallet, created_at, updated_at, version)
-SELECT NULL, a.id, 100000.00, 'TREASURY', true, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, 0
+INSERT INTO wallets (id, user_id, asset_id, balance, system_wallet_id, is_system_wallet, created_at, updated_at, version)
+SELECT nextval('wallets_seq'), NULL, a.id, 100000.00, 'TREASURY', true, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, 0
 FROM assets a WHERE a.code = 'LOYALTY_POINTS';
 
-INSERT INTO wallets (user_id, asset_id, balance, system_wallet_id, is_system_wallet, created_at, updated_at, version)
-SELECT NULL, a.id, 50000.00, 'BONUS_POOL', true, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, 0
+INSERT INTO wallets (id, user_id, asset_id, balance, system_wallet_id, is_system_wallet, created_at, updated_at, version)
+SELECT nextval('wallets_seq'), NULL, a.id, 50000.00, 'BONUS_POOL', true, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, 0
 FROM assets a WHERE a.code = 'LOYALTY_POINTS';
 
 -- Initialize wallets for existing users (john.doe@example.com and any other users)
-INSERT INTO wallets (user_id, asset_id, balance, is_system_wallet, created_at, updated_at, version)
-SELECT u.id, a.id, 500.00, false, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, 0
+INSERT INTO wallets (id, user_id, asset_id, balance, is_system_wallet, created_at, updated_at, version)
+SELECT nextval('wallets_seq'), u.id, a.id, 500.00, false, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, 0
 FROM users u, assets a
 WHERE u.email = 'john.doe@example.com' AND a.code = 'GOLD_COINS'
 ON CONFLICT DO NOTHING;
 
-INSERT INTO wallets (user_id, asset_id, balance, is_system_wallet, created_at, updated_at, version)
-SELECT u.id, a.id, 1000.00, false, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, 0
+INSERT INTO wallets (id, user_id, asset_id, balance, is_system_wallet, created_at, updated_at, version)
+SELECT nextval('wallets_seq'), u.id, a.id, 1000.00, false, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, 0
 FROM users u, assets a
 WHERE u.email = 'john.doe@example.com' AND a.code = 'LOYALTY_POINTS'
 ON CONFLICT DO NOTHING;
 
-INSERT INTO wallets (user_id, asset_id, balance, is_system_wallet, created_at, updated_at, version)
-SELECT u.id, a.id, 100.00, false, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, 0
+INSERT INTO wallets (id, user_id, asset_id, balance, is_system_wallet, created_at, updated_at, version)
+SELECT nextval('wallets_seq'), u.id, a.id, 100.00, false, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, 0
 FROM users u, assets a
 WHERE u.email = 'john.doe@example.com' AND a.code = 'CREDIT_TOKENS'
 ON CONFLICT DO NOTHING;
@@ -0,0 +1,86 @@
+package com.dinoventures.backend.throttle;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AdaptiveConcurrencyLimiterTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(200);
+
+    @Test
+    public void testRejectsBeyondLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10);
+
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+
+        limiter.release();
+        assertTrue(limiter.tryAcquire());
+        assertEquals(2, limiter.getInFlight());
+    }
+
+    @Test
+    public void testLimitGrowsWhileSaturatedAtSteadyLatency() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 100);
+
+        runSaturated(limiter, FAST, 200);
+
+        assertTrue(limiter.getLimit() > 10, "limit was " + limiter.getLimit());
+    }
+
+    @Test
+    public void testLimitDoesNotGrowWhenUnderused() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 100);
+
+        for (int i = 0; i < 200; i++) {
+            assertTrue(limiter.tryAcquire());
+            limiter.release(FAST, false);
+        }
+
+        assertEquals(10, limiter.getLimit());
+    }
+
+    @Test
+    public void testLimitShrinksWhenLatencyRises() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(50, 5, 100);
+        runSaturated(limiter, FAST, 100);
+        int before = limiter.getLimit();
+
+        runSaturated(limiter, SLOW, 100);
+
+        assertTrue(limiter.getLimit() < before / 2, "limit went from " + before + " to " + limiter.getLimit());
+        assertTrue(limiter.getLimit() >= 5);
+    }
+
+    @Test
+    public void testDropsBackOffMultiplicatively() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(100, 10, 100);
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.tryAcquire());
+            limiter.release(FAST, true);
+        }
+
+        assertEquals(59, limiter.getLimit());
+    }
+
+    /**
+     * Fills the limiter before every sample, so each release is taken at full utilisation.
+     */
+    private static void runSaturated(AdaptiveConcurrencyLimiter limiter, long rttNanos, int samples) {
+        for (int i = 0; i < samples; i++) {
+            while (limiter.tryAcquire()) {
+                // fill up to the limit
+            }
+            limiter.release(rttNanos, false);
+            while (limiter.getInFlight() > 0) {
+                limiter.release();
+            }
+        }
+    }
+}
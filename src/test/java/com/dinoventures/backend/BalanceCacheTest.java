@@ -0,0 +1,111 @@
+package com.dinoventures.backend.wallet.cache;
+
+import com.dinoventures.backend.cache.CacheCoherence;
+import com.dinoventures.backend.cluster.ClusterRouter;
+import com.dinoventures.backend.exception.InsufficientBalanceException;
+import com.dinoventures.backend.repository.UserRepository;
+import com.dinoventures.backend.wallet.WalletBalancesChangedEvent;
+import com.dinoventures.backend.wallet.WalletBalancesChangedEvent.BalanceChange;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+public class BalanceCacheTest {
+
+    private static final BigDecimal TEN = new BigDecimal("10.00");
+    private static final BigDecimal FIFTY = new BigDecimal("50.00");
+
+    private BalanceCache balanceCache;
+
+    @BeforeEach
+    void setUp() {
+        balanceCache = new BalanceCache(true, 60_000, 60_000, 1000, 1000, new SimpleMeterRegistry(), mock(CacheCoherence.class),
+                new ClusterRouter(mock(UserRepository.class), false, "node-1", "", "", 128, 10));
+    }
+
+    @Test
+    public void testOwnedBalanceIsServedAndTrustedPastTtl() {
+        BalanceCache hotCache = new BalanceCache(true, 0, 60_000, 1000, 1000, new SimpleMeterRegistry(),
+                mock(CacheCoherence.class), soleOwner());
+        hotCache.recordObserved(1L, "GOLD_COINS", TEN, 3L, System.nanoTime());
+
+        assertEquals(Optional.of(TEN), hotCache.ownedBalance(1L, "GOLD_COINS"));
+        assertThrows(InsufficientBalanceException.class,
+                () -> hotCache.checkAffordable(1L, "GOLD_COINS", FIFTY, "spend-1"));
+        assertEquals(Optional.empty(), balanceCache.ownedBalance(1L, "GOLD_COINS"));
+    }
+
+    @Test
+    public void testOwnedBalanceExpiresAfterOwnedTtl() {
+        BalanceCache hotCache = new BalanceCache(true, 0, 0, 1000, 1000, new SimpleMeterRegistry(),
+                mock(CacheCoherence.class), soleOwner());
+        hotCache.recordObserved(1L, "GOLD_COINS", TEN, 3L, System.nanoTime() - 1);
+
+        // Another node may have written the wallet without the invalidation arriving
+        assertEquals(Optional.empty(), hotCache.ownedBalance(1L, "GOLD_COINS"));
+        assertDoesNotThrow(() -> hotCache.checkAffordable(1L, "GOLD_COINS", FIFTY, "spend-1"));
+    }
+
+    @Test
+    public void testRejectsSpendAboveCachedBalanceWithoutStackTrace() {
+        balanceCache.recordObserved(1L, "GOLD_COINS", TEN, 3L, System.nanoTime());
+
+        InsufficientBalanceException ex = assertThrows(InsufficientBalanceException.class,
+                () -> balanceCache.checkAffordable(1L, "GOLD_COINS", FIFTY, "spend-1"));
+
+        assertEquals(TEN, ex.getAvailableBalance());
+        assertEquals(0, ex.getStackTrace().length);
+        assertDoesNotThrow(() -> balanceCache.checkAffordable(1L, "GOLD_COINS", TEN, "spend-2"));
+    }
+
+    @Test
+    public void testUnknownBalanceIsLeftToTheLockedCheck() {
+        assertDoesNotThrow(() -> balanceCache.checkAffordable(1L, "GOLD_COINS", FIFTY, "spend-1"));
+    }
+
+    @Test
+    public void testCommitWithNewerVersionReplacesObservedBalance() {
+        balanceCache.recordObserved(1L, "GOLD_COINS", TEN, 3L, System.nanoTime());
+
+        commit(new BalanceChange(1L, "GOLD_COINS", FIFTY, 4L), "top-up-1");
+
+        assertDoesNotThrow(() -> balanceCache.checkAffordable(1L, "GOLD_COINS", FIFTY, "spend-1"));
+    }
+
+    @Test
+    public void testTombstoneBlocksReadsThatStartedBeforeTheCommit() {
+        long readStarted = System.nanoTime();
+        commit(new BalanceChange(1L, "GOLD_COINS", FIFTY, null), "batch-1");
+
+        // A read that began before the commit saw the old, lower balance
+        balanceCache.recordObserved(1L, "GOLD_COINS", TEN, 3L, readStarted);
+
+        assertDoesNotThrow(() -> balanceCache.checkAffordable(1L, "GOLD_COINS", FIFTY, "spend-1"));
+    }
+
+    @Test
+    public void testRecentlyCommittedKeySkipsPreCheck() {
+        commit(new BalanceChange(1L, "GOLD_COINS", TEN, 5L), "spend-1");
+
+        // A retry of the committed spend must reach the service to get its original result
+        assertDoesNotThrow(() -> balanceCache.checkAffordable(1L, "GOLD_COINS", FIFTY, "spend-1"));
+        assertThrows(InsufficientBalanceException.class,
+                () -> balanceCache.checkAffordable(1L, "GOLD_COINS", FIFTY, "spend-2"));
+    }
+
+    private static ClusterRouter soleOwner() {
+        return new ClusterRouter(mock(UserRepository.class), true, "node-1", "node-1=http://localhost:8080", "",
+                128, 10);
+    }
+
+    private void commit(BalanceChange change, String idempotencyKey) {
+        balanceCache.onBalancesChanged(new WalletBalancesChangedEvent(List.of(change), List.of(idempotencyKey)));
+    }
+}
@@ -0,0 +1,178 @@
+package com.dinoventures.backend.wallet.stream;
+
+import com.dinoventures.backend.cache.CacheCoherence;
+import com.dinoventures.backend.cache.CacheRegion;
+import com.dinoventures.backend.cluster.ClusterRouter;
+import com.dinoventures.backend.repository.UserRepository;
+import com.dinoventures.backend.wallet.WalletBalancesChangedEvent;
+import com.dinoventures.backend.wallet.config.WalletExecutorConfig;
+import com.dinoventures.backend.wallet.WalletBalancesChangedEvent.BalanceChange;
+import com.dinoventures.backend.wallet.dto.BalanceStreamEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class BalanceStreamRegistryTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    public void testChangesReachOnlyTheOwnersStreams() {
+        BalanceStreamRegistry registry = registry(new SyncTaskExecutor(), 8);
+        RecordingEmitter owner = new RecordingEmitter();
+        RecordingEmitter other = new RecordingEmitter();
+        registry.subscribe(1L, owner);
+        registry.subscribe(2L, other);
+
+        registry.onBalancesChanged(changed(new BalanceChange(1L, "GOLD_COINS", new BigDecimal("10.00"), 1L)));
+        registry.onBalancesChanged(changed(new BalanceChange(1L, "GOLD_COINS", new BigDecimal("7.50"), 2L)));
+        // Arrives late; already superseded by version 2
+        registry.onBalancesChanged(changed(new BalanceChange(1L, "GOLD_COINS", new BigDecimal("10.00"), 1L)));
+
+        assertEquals(2, owner.events.size());
+        assertNull(owner.events.get(0).getChange());
+        assertEquals(new BigDecimal("-2.50"), owner.events.get(1).getChange());
+        assertTrue(other.events.isEmpty());
+    }
+
+    @Test
+    public void testSlowStreamIsEvictedWhenItsBufferFills() {
+        List<Runnable> stalled = new ArrayList<>();
+        BalanceStreamRegistry registry = registry(stalled::add, 2);
+        RecordingEmitter slow = new RecordingEmitter();
+        registry.subscribe(1L, slow);
+
+        for (int i = 0; i < 3; i++) {
+            registry.onBalancesChanged(changed(new BalanceChange(1L, "GOLD_COINS", BigDecimal.valueOf(i), null)));
+        }
+
+        assertTrue(slow.completed);
+        assertEquals(0, registry.connectionCount());
+        assertEquals(1.0, meterRegistry.counter("wallet.stream.evicted").count());
+    }
+
+    @Test
+    public void testSaturatedSendersCloseStreamsWithoutBlockingTheCommitter() throws InterruptedException {
+        ThreadPoolTaskExecutor sender = (ThreadPoolTaskExecutor) new WalletExecutorConfig(new MockEnvironment())
+                .walletStreamExecutor(1, 1);
+        sender.initialize();
+        try {
+            BalanceStreamRegistry registry = new BalanceStreamRegistry(sender, meterRegistry,
+                    mock(CacheCoherence.class), router(false), 100, 5, 8);
+            BlockingEmitter stuck = new BlockingEmitter();
+            RecordingEmitter queued = new RecordingEmitter();
+            RecordingEmitter rejected = new RecordingEmitter();
+            registry.subscribe(1L, stuck);
+            registry.subscribe(2L, queued);
+            registry.subscribe(3L, rejected);
+
+            registry.onBalancesChanged(changed(new BalanceChange(1L, "GOLD_COINS", BigDecimal.ONE, null)));
+            assertTrue(stuck.sending.await(5, TimeUnit.SECONDS));
+            registry.onBalancesChanged(changed(new BalanceChange(2L, "GOLD_COINS", BigDecimal.ONE, null)));
+            registry.onBalancesChanged(changed(new BalanceChange(3L, "GOLD_COINS", BigDecimal.ONE, null)));
+
+            assertTrue(rejected.completed);
+            assertFalse(queued.completed);
+            assertEquals(2, registry.connectionCount());
+            stuck.release.countDown();
+        } finally {
+            sender.shutdown();
+        }
+    }
+
+    @Test
+    public void testChangesAreRelayedBetweenClusterNodes() {
+        CacheCoherence cacheCoherence = mock(CacheCoherence.class);
+        BalanceStreamRegistry committing = new BalanceStreamRegistry(new SyncTaskExecutor(), meterRegistry,
+                cacheCoherence, router(true), 100, 2, 8);
+        BalanceStreamRegistry connected = registry(new SyncTaskExecutor(), 8);
+        RecordingEmitter stream = new RecordingEmitter();
+        connected.subscribe(1L, stream);
+
+        committing.onBalancesChanged(changed(new BalanceChange(1L, "GOLD_COINS", new BigDecimal("12.50"), 4L)));
+        verify(cacheCoherence).publish(CacheRegion.STREAM, List.of("1:12.50:4:GOLD_COINS"));
+        connected.invalidate(List.of("1:12.50:4:GOLD_COINS", "2:3.00:-:GOLD_COINS"));
+
+        assertEquals(1, stream.events.size());
+        assertEquals(new BigDecimal("12.50"), stream.events.get(0).getBalance());
+    }
+
+    @Test
+    public void testStreamsPerUserAreCapped() {
+        BalanceStreamRegistry registry = registry(new SyncTaskExecutor(), 8);
+        registry.subscribe(1L, new RecordingEmitter());
+        registry.subscribe(1L, new RecordingEmitter());
+
+        assertThrows(RejectedExecutionException.class, () -> registry.subscribe(1L, new RecordingEmitter()));
+        assertEquals(2, registry.connectionCount());
+    }
+
+    private BalanceStreamRegistry registry(TaskExecutor sender, int bufferSize) {
+        return new BalanceStreamRegistry(sender, meterRegistry, mock(CacheCoherence.class), router(false), 100, 2,
+                bufferSize);
+    }
+
+    private static ClusterRouter router(boolean enabled) {
+        return new ClusterRouter(mock(UserRepository.class), enabled, "node-1", "node-1=http://localhost:8080", "",
+                128, 10);
+    }
+
+    private static WalletBalancesChangedEvent changed(BalanceChange change) {
+        return new WalletBalancesChangedEvent(List.of(change), List.of());
+    }
+
+    private static class BlockingEmitter extends SseEmitter {
+
+        private final CountDownLatch sending = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            sending.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static class RecordingEmitter extends SseEmitter {
+
+        private final List<BalanceStreamEvent> events = new ArrayList<>();
+        private boolean completed;
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            builder.build().stream()
+                    .filter(part -> part.getData() instanceof BalanceStreamEvent)
+                    .forEach(part -> events.add((BalanceStreamEvent) part.getData()));
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+    }
+}
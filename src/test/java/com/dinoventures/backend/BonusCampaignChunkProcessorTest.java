@@ -0,0 +1,125 @@
+package com.dinoventures.backend.wallet.campaign;
+
+import com.dinoventures.backend.exception.InsufficientBalanceException;
+import com.dinoventures.backend.wallet.WalletJdbcRepository;
+import com.dinoventures.backend.wallet.WalletJdbcRepository.WalletRef;
+import com.dinoventures.backend.wallet.ledger.LedgerBatchWriter;
+import com.dinoventures.backend.wallet.ledger.LedgerRepository;
+import com.dinoventures.backend.wallet.outbox.WalletOutbox;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class BonusCampaignChunkProcessorTest {
+
+    @Mock
+    private WalletJdbcRepository walletJdbcRepository;
+
+    @Mock
+    private LedgerRepository ledgerRepository;
+
+    @Mock
+    private LedgerBatchWriter ledgerBatchWriter;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private WalletOutbox walletOutbox;
+
+    @InjectMocks
+    private BonusCampaignChunkProcessor chunkProcessor;
+
+    private CampaignRun run;
+
+    @BeforeEach
+    void setUp() {
+        run = new CampaignRun(7L, 10L, "GOLD_COINS", 100L, new BigDecimal("5.00"), "Spring promo");
+    }
+
+    @Test
+    public void testChunkSkipsAlreadyCreditedUsersAndDebitsPoolOnce() {
+        when(ledgerRepository.findExistingIdempotencyKeys(anyCollection())).thenReturn(List.of("campaign-7-user-1"));
+        when(walletJdbcRepository.findWalletRefs(10L, List.of(2L, 3L), Set.of()))
+                .thenReturn(List.of(new WalletRef(203L, 10L, 3L, null), new WalletRef(202L, 10L, 2L, null)));
+        when(walletJdbcRepository.lockWallets(List.of(100L, 202L, 203L))).thenReturn(Map.of(
+                100L, new BigDecimal("100.00"), 202L, BigDecimal.ZERO, 203L, BigDecimal.ZERO));
+
+        BonusCampaignChunkProcessor.ChunkResult result = chunkProcessor.processChunk(run, List.of(1L, 2L, 3L));
+
+        assertEquals(3, result.processed());
+        assertEquals(2, result.credited());
+        verify(walletJdbcRepository).insertUserWalletsIfAbsent(10L, List.of(2L, 3L));
+        // The pool is locked with the users in id order and debited once, in the same update
+        verify(walletJdbcRepository).adjustBalances(Map.of(100L, new BigDecimal("-10.00"),
+                202L, new BigDecimal("5.00"), 203L, new BigDecimal("5.00")));
+        verify(ledgerBatchWriter).writeAll(argThat(entries -> entries.size() == 2
+                && entries.get(0).getDebitBalanceAfter().equals(new BigDecimal("95.00"))
+                && entries.get(1).getDebitBalanceAfter().equals(new BigDecimal("90.00"))
+                && entries.get(1).getCreditBalanceAfter().equals(new BigDecimal("5.00"))));
+        verify(walletOutbox).append(argThat(events -> events.size() == 2
+                && events.get(1).getUserId().equals(3L) && events.get(1).getBalanceAfter().equals(new BigDecimal("5.00"))));
+    }
+
+    @Test
+    public void testUsersCreditedWhileLocksWereAwaitedAreSkipped() {
+        when(ledgerRepository.findExistingIdempotencyKeys(anyCollection()))
+                .thenReturn(List.of())
+                .thenReturn(List.of("campaign-7-user-2"));
+        when(walletJdbcRepository.findWalletRefs(10L, List.of(2L, 3L), Set.of()))
+                .thenReturn(List.of(new WalletRef(202L, 10L, 2L, null), new WalletRef(203L, 10L, 3L, null)));
+        when(walletJdbcRepository.lockWallets(List.of(100L, 202L, 203L))).thenReturn(Map.of(
+                100L, new BigDecimal("100.00"), 202L, new BigDecimal("5.00"), 203L, BigDecimal.ZERO));
+
+        BonusCampaignChunkProcessor.ChunkResult result = chunkProcessor.processChunk(run, List.of(2L, 3L));
+
+        assertEquals(1, result.credited());
+        verify(walletJdbcRepository).adjustBalances(Map.of(100L, new BigDecimal("-5.00"), 203L, new BigDecimal("5.00")));
+        verify(ledgerBatchWriter).writeAll(argThat(entries -> entries.size() == 1
+                && entries.get(0).getIdempotencyKey().equals("campaign-7-user-3")));
+    }
+
+    @Test
+    public void testReplayedChunkDoesNothing() {
+        when(ledgerRepository.findExistingIdempotencyKeys(anyCollection()))
+                .thenReturn(List.of("campaign-7-user-1", "campaign-7-user-2"));
+
+        BonusCampaignChunkProcessor.ChunkResult result = chunkProcessor.processChunk(run, List.of(1L, 2L));
+
+        assertEquals(2, result.processed());
+        assertEquals(0, result.credited());
+        verifyNoInteractions(walletJdbcRepository);
+    }
+
+    @Test
+    public void testExhaustedPoolFailsChunk() {
+        when(ledgerRepository.findExistingIdempotencyKeys(anyCollection())).thenReturn(List.of());
+        when(walletJdbcRepository.findWalletRefs(10L, List.of(1L), Set.of()))
+                .thenReturn(List.of(new WalletRef(201L, 10L, 1L, null)));
+        when(walletJdbcRepository.lockWallets(List.of(100L, 201L)))
+                .thenReturn(Map.of(100L, new BigDecimal("3.00"), 201L, BigDecimal.ZERO));
+
+        InsufficientBalanceException e = assertThrows(InsufficientBalanceException.class,
+                () -> chunkProcessor.processChunk(run, List.of(1L)));
+        assertEquals(new BigDecimal("3.00"), e.getAvailableBalance());
+        verify(walletJdbcRepository, never()).adjustBalances(anyMap());
+    }
+}
@@ -0,0 +1,101 @@
+package com.dinoventures.backend.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CacheCoherenceTest {
+
+    private LocalInvalidationTransport transport;
+    private RecordingListener listenerA;
+    private RecordingListener listenerB;
+    private SimpleMeterRegistry meterRegistryA;
+    private CacheCoherence nodeA;
+    private CacheCoherence nodeB;
+
+    @BeforeEach
+    void setUp() {
+        transport = new LocalInvalidationTransport();
+        listenerA = new RecordingListener();
+        listenerB = new RecordingListener();
+        meterRegistryA = new SimpleMeterRegistry();
+        nodeA = node(listenerA, meterRegistryA, 100);
+        nodeB = node(listenerB, new SimpleMeterRegistry(), 100);
+    }
+
+    @Test
+    public void testKeysReachOtherNodesInOneBatch() {
+        nodeA.publish(CacheRegion.BALANCE, List.of("1:GOLD_COINS", "2:GOLD_COINS"));
+        nodeA.publish(CacheRegion.USER, List.of("1"));
+        nodeA.publish(CacheRegion.BALANCE, List.of("1:GOLD_COINS"));
+
+        nodeA.flush();
+
+        assertEquals(List.of("1:GOLD_COINS", "2:GOLD_COINS"),
+                listenerB.invalidated.stream().sorted().toList());
+        assertTrue(listenerA.invalidated.isEmpty());
+        assertEquals(1.0, meterRegistryA.counter("cache.coherence.sent").count());
+    }
+
+    @Test
+    public void testSequenceGapFlushesEverything() {
+        nodeB.receive("other 1\nB:1:GOLD_COINS");
+        nodeB.receive("other 3\nB:2:GOLD_COINS");
+
+        assertEquals(List.of("1:GOLD_COINS"), listenerB.invalidated);
+        assertEquals(1, listenerB.flushes);
+
+        // A redelivered message changes nothing
+        nodeB.receive("other 3\nB:2:GOLD_COINS");
+        assertEquals(1, listenerB.flushes);
+    }
+
+    @Test
+    public void testOverflowingQueueSendsFullFlush() {
+        CacheCoherence small = node(new RecordingListener(), new SimpleMeterRegistry(), 2);
+
+        small.publish(CacheRegion.BALANCE, List.of("1:GOLD_COINS", "2:GOLD_COINS", "3:GOLD_COINS"));
+        small.flush();
+
+        assertEquals(1, listenerB.flushes);
+        assertTrue(listenerB.invalidated.isEmpty());
+    }
+
+    private CacheCoherence node(RecordingListener listener, SimpleMeterRegistry meterRegistry, int maxPendingKeys) {
+        StaticListableBeanFactory beans = new StaticListableBeanFactory(Map.of("listener", listener));
+        CacheCoherence node = new CacheCoherence(transport, beans.getBeanProvider(CacheInvalidationListener.class),
+                meterRegistry, maxPendingKeys);
+        node.start();
+        return node;
+    }
+
+    private static class RecordingListener implements CacheInvalidationListener {
+
+        private final List<String> invalidated = new ArrayList<>();
+        private int flushes;
+
+        @Override
+        public CacheRegion region() {
+            return CacheRegion.BALANCE;
+        }
+
+        @Override
+        public void invalidate(Collection<String> keys) {
+            invalidated.addAll(keys);
+        }
+
+        @Override
+        public void invalidateAll() {
+            flushes++;
+        }
+    }
+}
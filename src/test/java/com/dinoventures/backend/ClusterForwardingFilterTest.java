@@ -0,0 +1,175 @@
+package com.dinoventures.backend.cluster;
+
+import com.dinoventures.backend.model.User;
+import com.dinoventures.backend.repository.UserRepository;
+import com.dinoventures.backend.security.JwtTokenProvider;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ClusterForwardingFilterTest {
+
+    private static final String EMAIL = "john.doe@example.com";
+    private static final String BODY = "{\"assetCode\":\"GOLD_COINS\",\"amount\":10}";
+
+    private HttpServer owner;
+
+    @AfterEach
+    void tearDown() {
+        if (owner != null) {
+            owner.stop(0);
+        }
+    }
+
+    @Test
+    public void testRingMovesOnlyTheUsersOfAJoiningNode() {
+        ClusterRing two = new ClusterRing(Map.of("node-1", "a", "node-2", "b"), 128);
+        ClusterRing three = new ClusterRing(Map.of("node-1", "a", "node-2", "b", "node-3", "c"), 128);
+
+        for (long userId = 1; userId <= 10_000; userId++) {
+            String after = three.ownerOf(userId);
+            assertTrue(after.equals("node-3") || after.equals(two.ownerOf(userId)));
+        }
+        assertNull(new ClusterRing(Map.of(), 128).ownerOf(1L));
+    }
+
+    @Test
+    public void testParsesMembersSkippingCommentsAndTrailingSlash() {
+        Map<String, String> members = ClusterRouter.parseMembers(
+                Stream.of("# cluster", "node-1=http://localhost:8080/api/", "", " node-2 = http://localhost:8081/api"));
+
+        assertEquals(Map.of("node-1", "http://localhost:8080/api", "node-2", "http://localhost:8081/api"), members);
+        assertThrows(IllegalArgumentException.class, () -> ClusterRouter.parseMembers(Stream.of("node-1")));
+    }
+
+    @Test
+    public void testForwardsRequestOfUserOwnedByAnotherNode() throws Exception {
+        AtomicReference<String> received = new AtomicReference<>();
+        owner = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        owner.createContext("/api/wallets/top-up", exchange -> {
+            received.set(exchange.getRequestHeaders().getFirst(ClusterForwardingFilter.FORWARDED_HEADER) + " "
+                    + new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            byte[] response = "{\"status\":200}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, response.length);
+            exchange.getResponseBody().write(response);
+            exchange.close();
+        });
+        owner.start();
+
+        ClusterForwardingFilter filter = filter("http://localhost:" + owner.getAddress().getPort() + "/api");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(topUp(), response, chain);
+
+        assertNull(chain.getRequest());
+        assertEquals(200, response.getStatus());
+        assertEquals("{\"status\":200}", response.getContentAsString());
+        assertEquals("node-1 " + BODY, received.get());
+    }
+
+    @Test
+    public void testServesLocallyWhenOwnerIsUnreachable() throws Exception {
+        ClusterForwardingFilter filter = filter("http://localhost:1/api");
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(topUp(), new MockHttpServletResponse(), chain);
+
+        assertNotNull(chain.getRequest());
+        assertEquals(BODY, new String(chain.getRequest().getInputStream().readAllBytes(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testSlowOwnerAnswersGatewayTimeoutWithoutServingLocally() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        owner = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        owner.createContext("/api/wallets/top-up", exchange -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.close();
+        });
+        owner.start();
+
+        ClusterForwardingFilter filter = filter("http://localhost:" + owner.getAddress().getPort() + "/api",
+                Duration.ofMillis(200));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+        try {
+            filter.doFilter(topUp(), response, chain);
+        } finally {
+            release.countDown();
+        }
+
+        // The owner may still apply the write; running it here as well would race it
+        assertNull(chain.getRequest());
+        assertEquals(504, response.getStatus());
+    }
+
+    @Test
+    public void testLongPollsWaitOnTopOfTheRequestTimeout() {
+        MockHttpServletRequest poll = new MockHttpServletRequest("GET", "/api/wallets/operations/7");
+        poll.setParameter("wait", "20");
+        assertEquals(20, ClusterForwardingFilter.waitSeconds(poll));
+
+        poll.setParameter("wait", "600");
+        assertEquals(30, ClusterForwardingFilter.waitSeconds(poll));
+        assertEquals(0, ClusterForwardingFilter.waitSeconds(topUp()));
+    }
+
+    private static ClusterForwardingFilter filter(String ownerUrl) {
+        return filter(ownerUrl, Duration.ofSeconds(5));
+    }
+
+    private static ClusterForwardingFilter filter(String ownerUrl, Duration requestTimeout) {
+        UserRepository userRepository = mock(UserRepository.class);
+        ClusterRouter router = new ClusterRouter(userRepository, true, "node-1",
+                "node-1=http://localhost:8080/api,node-2=" + ownerUrl, "", 128, 10);
+        long remoteUser = LongStream.rangeClosed(1, 1000)
+                .filter(userId -> "node-2".equals(router.ring().ownerOf(userId)))
+                .findFirst().orElseThrow();
+        when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.of(User.builder().id(remoteUser).build()));
+
+        JwtTokenProvider jwtTokenProvider = mock(JwtTokenProvider.class);
+        when(jwtTokenProvider.resolveUsername(any())).thenReturn(EMAIL);
+
+        HttpClient httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(500))
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+        return new ClusterForwardingFilter(router, jwtTokenProvider, httpClient, requestTimeout, "",
+                new ObjectMapper().findAndRegisterModules(), new SimpleMeterRegistry());
+    }
+
+    private static MockHttpServletRequest topUp() {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/wallets/top-up");
+        request.setContextPath("/api");
+        request.addHeader("Authorization", "Bearer token");
+        request.setContentType("application/json");
+        request.setContent(BODY.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+}
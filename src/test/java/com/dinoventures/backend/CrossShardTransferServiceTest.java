@@ -0,0 +1,162 @@
+package com.dinoventures.backend.wallet.transfer;
+
+import com.dinoventures.backend.exception.InsufficientBalanceException;
+import com.dinoventures.backend.model.User;
+import com.dinoventures.backend.repository.UserRepository;
+import com.dinoventures.backend.shard.ShardRing;
+import com.dinoventures.backend.shard.ShardRouter;
+import com.dinoventures.backend.wallet.dto.BatchOperationItem;
+import com.dinoventures.backend.wallet.dto.BatchOperationItem.OperationType;
+import com.dinoventures.backend.wallet.dto.BatchOperationRequest;
+import com.dinoventures.backend.wallet.dto.BatchOperationResponse;
+import com.dinoventures.backend.wallet.dto.BatchOperationResponse.ItemStatus;
+import com.dinoventures.backend.wallet.ledger.LedgerEntry.TransactionType;
+import com.dinoventures.backend.wallet.ledger.LedgerRepository;
+import com.dinoventures.backend.wallet.service.WalletConcurrencyStrategy;
+import com.dinoventures.backend.wallet.service.WalletService;
+import com.dinoventures.backend.wallet.service.WalletTransactionResult;
+import com.dinoventures.backend.wallet.service.WalletTransactionRunner;
+import com.dinoventures.backend.wallet.transfer.CrossShardTransfer.TransferStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class CrossShardTransferServiceTest {
+
+    // On a three-shard ring user 1 lives on shard 1, user 2 on shard 1 and user 3 on shard 2
+    private static final Long SENDER = 1L;
+    private static final Long SAME_SHARD = 2L;
+    private static final Long OTHER_SHARD = 3L;
+
+    @Mock
+    private WalletService walletService;
+
+    @Mock
+    private WalletTransactionRunner transactionRunner;
+
+    @Mock
+    private CrossShardTransferRepository transferRepository;
+
+    @Mock
+    private LedgerRepository ledgerRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private CrossShardTransferService transferService;
+
+    private final AtomicReference<CrossShardTransfer> stored = new AtomicReference<>();
+
+    @BeforeEach
+    void setUp() {
+        ShardRouter shardRouter = new ShardRouter(new ShardRing(3, 256), List.of());
+        transferService = new CrossShardTransferService(shardRouter, walletService, transactionRunner,
+                transferRepository, ledgerRepository, userRepository, transactionManager, 60_000, 100);
+    }
+
+    @Test
+    public void testHandlesOnlyLoneTransfersToAnotherShard() {
+        assertTrue(transferService.handles(SENDER, request(OTHER_SHARD, "t-1")));
+        assertFalse(transferService.handles(SENDER, request(SAME_SHARD, "t-1")));
+
+        BatchOperationRequest twoItems = request(OTHER_SHARD, "t-1");
+        twoItems.setOperations(List.of(twoItems.getOperations().get(0), twoItems.getOperations().get(0)));
+        assertFalse(transferService.handles(SENDER, twoItems));
+    }
+
+    @Test
+    public void testTransferDebitsSenderThenCreditsRecipient() {
+        stubTransferFlow();
+        when(walletService.applyTransferIn(any(User.class), eq("GOLD_COINS"), any(BigDecimal.class), eq("t-1#in"),
+                any(), eq(TransactionType.TRANSFER), any())).thenReturn(result(11L));
+
+        BatchOperationResponse response = transferService.execute(SENDER, request(OTHER_SHARD, "t-1"));
+
+        assertTrue(response.isCommitted());
+        assertEquals(ItemStatus.APPLIED, response.getResults().get(0).getStatus());
+        assertEquals(TransferStatus.COMPLETED, stored.get().getStatus());
+        assertEquals(11L, stored.get().getCreditTransactionId());
+    }
+
+    @Test
+    public void testTransferIsRefundedWhenCreditCannotBeMade() {
+        stubTransferFlow();
+        when(walletService.applyTransferIn(any(User.class), eq("GOLD_COINS"), any(BigDecimal.class), eq("t-1#in"),
+                any(), eq(TransactionType.TRANSFER), any()))
+                .thenThrow(new InsufficientBalanceException("Insufficient system treasury balance",
+                        BigDecimal.ZERO, new BigDecimal("25.00")));
+
+        BatchOperationResponse response = transferService.execute(SENDER, request(OTHER_SHARD, "t-1"));
+
+        assertFalse(response.isCommitted());
+        assertEquals(ItemStatus.FAILED, response.getResults().get(0).getStatus());
+        assertEquals(TransferStatus.REFUNDED, stored.get().getStatus());
+        verify(walletService).applyTransferIn(argThat(user -> user.getId().equals(SENDER)), eq("GOLD_COINS"),
+                eq(new BigDecimal("25.00")), eq("t-1#refund"), any(), eq(TransactionType.REFUND), any());
+    }
+
+    @Test
+    public void testTransferOutOfAnotherUsersWalletIsRefused() {
+        BatchOperationRequest request = request(OTHER_SHARD, "t-1");
+        request.getOperations().get(0).setUserId(SAME_SHARD);
+
+        assertThrows(AccessDeniedException.class, () -> transferService.execute(SENDER, request));
+        verifyNoInteractions(walletService, transferRepository);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void stubTransferFlow() {
+        when(userRepository.findById(anyLong()))
+                .thenAnswer(invocation -> Optional.of(User.builder().id(invocation.getArgument(0)).build()));
+        when(transactionRunner.run(anyString(), anyLong(), anyString(), any())).thenAnswer(invocation ->
+                ((Function<WalletConcurrencyStrategy, Object>) invocation.getArgument(3))
+                        .apply(WalletConcurrencyStrategy.PESSIMISTIC));
+        when(ledgerRepository.findRowByIdempotencyKey("t-1")).thenReturn(Optional.empty());
+        when(walletService.applyTransferOut(any(User.class), eq("GOLD_COINS"), any(BigDecimal.class), eq("t-1"),
+                any(), any())).thenReturn(result(10L));
+        when(transferRepository.save(any(CrossShardTransfer.class))).thenAnswer(invocation -> {
+            CrossShardTransfer transfer = invocation.getArgument(0);
+            transfer.setId(7L);
+            stored.set(transfer);
+            return transfer;
+        });
+        when(transferRepository.findById(7L)).thenAnswer(invocation -> Optional.of(stored.get()));
+    }
+
+    private static BatchOperationRequest request(Long targetUserId, String key) {
+        return BatchOperationRequest.builder()
+                .operations(List.of(BatchOperationItem.builder()
+                        .type(OperationType.TRANSFER)
+                        .targetUserId(targetUserId)
+                        .assetCode("GOLD_COINS")
+                        .amount(new BigDecimal("25.00"))
+                        .idempotencyKey(key)
+                        .build()))
+                .build();
+    }
+
+    private static WalletTransactionResult result(Long transactionId) {
+        return WalletTransactionResult.builder().transactionId(transactionId).build();
+    }
+}
@@ -0,0 +1,129 @@
+package com.dinoventures.backend.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares ledger-shaped insert throughput with IDENTITY ids against pooled
+ * sequence ids. Run with: mvn test -Pbenchmark
+ */
+@Tag("benchmark")
+public class IdAllocationBenchmarkTest {
+
+    private static final int ROWS = 50_000;
+    private static final int ROWS_PER_TRANSACTION = 1_000;
+    private static final int BATCH_SIZE = 50;
+
+    private static SessionFactory sessionFactory;
+
+    @BeforeAll
+    static void setUp() {
+        sessionFactory = new Configuration()
+                .addAnnotatedClass(IdentityRow.class)
+                .addAnnotatedClass(PooledRow.class)
+                .setProperty(AvailableSettings.URL, "jdbc:h2:mem:id_benchmark;MODE=PostgreSQL;DB_CLOSE_DELAY=-1")
+                .setProperty(AvailableSettings.USER, "sa")
+                .setProperty(AvailableSettings.HBM2DDL_AUTO, "create-drop")
+                .setProperty(AvailableSettings.STATEMENT_BATCH_SIZE, String.valueOf(BATCH_SIZE))
+                .setProperty(AvailableSettings.ORDER_INSERTS, "true")
+                .setProperty(AvailableSettings.GENERATE_STATISTICS, "true")
+                .setProperty(PooledSequenceIdGenerator.ALLOCATION_SIZE_SETTING, "50")
+                .buildSessionFactory();
+    }
+
+    @AfterAll
+    static void tearDown() {
+        sessionFactory.close();
+    }
+
+    @Test
+    public void comparePooledSequenceWithIdentityInserts() {
+        // Warm up both paths so class loading and JIT do not skew the first run
+        insert(IdentityRow::new, 5_000);
+        insert(PooledRow::new, 5_000);
+
+        Result identity = insert(IdentityRow::new, ROWS);
+        Result pooled = insert(PooledRow::new, ROWS);
+
+        System.out.printf("IDENTITY:        %,10.0f rows/s, %,7d statements%n", identity.rowsPerSecond(), identity.statements());
+        System.out.printf("Pooled sequence: %,10.0f rows/s, %,7d statements%n", pooled.rowsPerSecond(), pooled.statements());
+
+        // IDENTITY needs one statement per row; pooled ids let inserts go out as JDBC batches
+        assertTrue(identity.statements() >= ROWS);
+        assertTrue(pooled.statements() < ROWS / 10);
+    }
+
+    private Result insert(Supplier<Object> rowFactory, int rows) {
+        sessionFactory.getStatistics().clear();
+        long start = System.nanoTime();
+
+        for (int done = 0; done < rows; done += ROWS_PER_TRANSACTION) {
+            try (Session session = sessionFactory.openSession()) {
+                session.beginTransaction();
+                for (int i = 0; i < ROWS_PER_TRANSACTION; i++) {
+                    session.persist(rowFactory.get());
+                }
+                session.getTransaction().commit();
+            }
+        }
+
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        return new Result(rows / seconds, sessionFactory.getStatistics().getPrepareStatementCount());
+    }
+
+    private record Result(double rowsPerSecond, long statements) {
+    }
+
+    @Entity
+    @Table(name = "bench_identity_rows")
+    public static class IdentityRow {
+
+        @Id
+        @GeneratedValue(strategy = GenerationType.IDENTITY)
+        private Long id;
+
+        @Column(nullable = false, precision = 19, scale = 2)
+        private BigDecimal amount = new BigDecimal("10.00");
+
+        @Column(length = 100, nullable = false)
+        private String idempotencyKey = UUID.randomUUID().toString();
+    }
+
+    @Entity
+    @Table(name = "bench_pooled_rows")
+    public static class PooledRow {
+
+        @Id
+        @GeneratedValue(generator = "bench_pooled_rows_seq")
+        @GenericGenerator(name = "bench_pooled_rows_seq", type = PooledSequenceIdGenerator.class,
+                parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "bench_pooled_rows_seq"))
+        private Long id;
+
+        @Column(nullable = false, precision = 19, scale = 2)
+        private BigDecimal amount = new BigDecimal("10.00");
+
+        @Column(length = 100, nullable = false)
+        private String idempotencyKey = UUID.randomUUID().toString();
+    }
+}
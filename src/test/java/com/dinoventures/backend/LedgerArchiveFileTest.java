@@ -0,0 +1,113 @@
+package com.dinoventures.backend.wallet.archive;
+
+import com.dinoventures.backend.wallet.dto.LedgerEntryView;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LedgerArchiveFileTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 3, 1, 0, 0);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testScanReturnsOnlyRowsMatchingWalletsAndTime() throws IOException {
+        Path file = directory.resolve("GOLD_COINS/2025-03.lca");
+        LedgerArchiveFile.append(file, rows(1, 100));
+        LedgerArchiveFile.append(file, rows(101, 200));
+
+        List<LedgerArchiveRow> found = scan(file, new LedgerArchiveFile.Filter(
+                Set.of(1005L), START.plusHours(10), START.plusHours(150), null));
+
+        // Row n credits wallet 1000 + n % 10 and was created n hours after START
+        assertEquals(List.of(15L, 25L, 35L, 45L, 55L, 65L, 75L, 85L, 95L, 105L, 115L, 125L, 135L, 145L),
+                found.stream().map(LedgerArchiveRow::id).toList());
+        LedgerArchiveRow row = found.get(0);
+        assertEquals(new BigDecimal("15.25"), row.amount());
+        assertEquals("TOP_UP", row.transactionType());
+        assertEquals("key-15", row.idempotencyKey());
+        assertNull(row.description());
+        assertEquals(START.plusHours(15).plusNanos(123_000), row.createdAt());
+        assertNull(row.debitBalanceAfter());
+        assertEquals(new BigDecimal("15.25"), row.creditBalanceAfter());
+        assertEquals(new BigDecimal("250.00"), found.get(1).debitBalanceAfter());
+    }
+
+    @Test
+    public void testAppendReplacesBlockOfBatchThatWasNotDeleted() throws IOException {
+        Path file = directory.resolve("2025-03.lca");
+        LedgerArchiveFile.append(file, rows(1, 50));
+        LedgerArchiveFile.append(file, rows(51, 100));
+        // The second batch's delete did not commit, so the same rows come back
+        LedgerArchiveFile.append(file, rows(51, 100));
+
+        assertEquals(LongStream.rangeClosed(1, 100).boxed().toList(), ids(file));
+    }
+
+    @Test
+    public void testAppendCutsOffTornBlock() throws IOException {
+        Path file = directory.resolve("2025-03.lca");
+        LedgerArchiveFile.append(file, rows(1, 50));
+        long committed = Files.size(file);
+        LedgerArchiveFile.append(file, rows(51, 100));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(committed + 40);
+        }
+
+        LedgerArchiveFile.append(file, rows(51, 60));
+
+        assertEquals(LongStream.rangeClosed(1, 60).boxed().toList(), ids(file));
+    }
+
+    @Test
+    public void testStoreScansMonthsNewestFirstWithinLimit() throws IOException {
+        LedgerArchiveStore store = new LedgerArchiveStore(directory.toString());
+        store.append(0, "GOLD_COINS", YearMonth.of(2025, 3), rows(1, 100));
+        store.append(0, "GOLD_COINS", YearMonth.of(2025, 4), rows(101, 200));
+
+        List<LedgerEntryView> page = store.scan(0, null, Set.of(1003L), null, null, 183L, 3);
+
+        assertEquals(List.of(173L, 163L, 153L), page.stream().map(LedgerEntryView::getId).toList());
+        assertEquals(LedgerEntryView.Direction.CREDIT, page.get(0).getDirection());
+        assertEquals(new BigDecimal("173.25"), page.get(0).getBalanceAfter());
+        assertEquals("GOLD_COINS", page.get(0).getAssetCode());
+        assertTrue(store.scan(0, "../GOLD_COINS", Set.of(1003L), null, null, null, 3).isEmpty());
+    }
+
+    private static List<LedgerArchiveRow> rows(long firstId, long lastId) {
+        return LongStream.rangeClosed(firstId, lastId)
+                .mapToObj(id -> new LedgerArchiveRow(id, 1, 1000 + id % 10, new BigDecimal(id + ".25"),
+                        "TOP_UP", "key-" + id, id % 2 == 0 ? "even" : null,
+                        START.plusHours(id).plusNanos(123_000),
+                        id % 3 == 0 ? null : new BigDecimal(id * 10 + ".00"), new BigDecimal(id + ".25")))
+                .toList();
+    }
+
+    private static List<LedgerArchiveRow> scan(Path file, LedgerArchiveFile.Filter filter) throws IOException {
+        List<LedgerArchiveRow> found = new ArrayList<>();
+        LedgerArchiveFile.scan(file, filter, found::add);
+        return found;
+    }
+
+    private static List<Long> ids(Path file) throws IOException {
+        return scan(file, new LedgerArchiveFile.Filter(null, null, null, null)).stream()
+                .map(LedgerArchiveRow::id)
+                .toList();
+    }
+}
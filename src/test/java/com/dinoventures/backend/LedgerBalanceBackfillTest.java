@@ -0,0 +1,122 @@
+package com.dinoventures.backend.wallet.ledger;
+
+import com.dinoventures.backend.shard.ShardRouter;
+import com.dinoventures.backend.wallet.read.WalletReadRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class LedgerBalanceBackfillTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2026, 1, 1, 0, 0);
+    private static final long USER_WALLET = 1;
+    private static final long TREASURY = 2;
+
+    private JdbcTemplate jdbc;
+    private LedgerBalanceBackfill backfill;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:ledger_balance_backfill;MODE=PostgreSQL;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("DROP TABLE IF EXISTS ledger_entries");
+        jdbc.execute("DROP TABLE IF EXISTS wallets");
+        jdbc.execute("CREATE TABLE wallets (id BIGINT PRIMARY KEY, balance DECIMAL(19, 2))");
+        jdbc.execute("CREATE TABLE ledger_entries (id BIGINT PRIMARY KEY, debit_wallet_id BIGINT, " +
+                "credit_wallet_id BIGINT, amount DECIMAL(19, 2), created_at TIMESTAMP, " +
+                "debit_balance_after DECIMAL(19, 2), credit_balance_after DECIMAL(19, 2))");
+
+        // The treasury started at 1000; ids are out of time order, as pooled ids are across nodes
+        entry(5, TREASURY, USER_WALLET, "10.00", 1, null, null);
+        entry(3, TREASURY, USER_WALLET, "5.00", 2, null, null);
+        entry(4, USER_WALLET, TREASURY, "3.00", 3, null, null);
+        entry(1, TREASURY, USER_WALLET, "2.00", 3, null, null);
+        // Written since balances are recorded
+        entry(9, TREASURY, USER_WALLET, "8.00", 4, "978.00", "22.00");
+        jdbc.update("INSERT INTO wallets VALUES (?, 22.00), (?, 978.00)", USER_WALLET, TREASURY);
+
+        backfill = new LedgerBalanceBackfill(new NamedParameterJdbcTemplate(dataSource),
+                new TransactionTemplate(new DataSourceTransactionManager(dataSource)), new SyncTaskExecutor(),
+                ShardRouter.single(), new SimpleMeterRegistry(), true, 2, 1, 2);
+    }
+
+    @Test
+    public void testWalksEachWalletBackFromItsOldestRecordedBalance() {
+        backfill.start();
+
+        assertEquals(Map.of(
+                        5L, List.of("990.00", "10.00"),
+                        3L, List.of("985.00", "15.00"),
+                        4L, List.of("14.00", "986.00"),
+                        1L, List.of("983.00", "17.00"),
+                        9L, List.of("978.00", "22.00")),
+                balances());
+        assertEquals(0, backfill.backfillWallet(USER_WALLET));
+    }
+
+    @Test
+    public void testAnchorsAtCurrentBalanceWhenNothingIsRecorded() {
+        jdbc.update("DELETE FROM ledger_entries WHERE id = 9");
+        jdbc.update("UPDATE wallets SET balance = balance - 8 WHERE id = ?", USER_WALLET);
+
+        assertEquals(4, backfill.backfillWallet(USER_WALLET));
+
+        assertEquals(List.of("10.00", "15.00", "17.00", "14.00"),
+                jdbc.queryForList("SELECT CASE WHEN credit_wallet_id = ? THEN credit_balance_after " +
+                        "ELSE debit_balance_after END FROM ledger_entries ORDER BY created_at, id",
+                        BigDecimal.class, USER_WALLET).stream().map(BigDecimal::toPlainString).toList());
+    }
+
+    @Test
+    public void testAsOfBalanceReadsRecordedBalancesOrFallsBackToHistory() {
+        WalletReadRepository reads = new WalletReadRepository(new NamedParameterJdbcTemplate(jdbc.getDataSource()));
+        BigDecimal current = new BigDecimal("22.00");
+
+        // Before the backfill only the newest entry records a balance
+        assertEquals(new BigDecimal("14.00"), reads.findBalanceAsOf(USER_WALLET, at(3), current));
+        assertEquals(new BigDecimal("10.00"), reads.findBalanceAsOf(USER_WALLET, at(1), current));
+
+        backfill.start();
+
+        assertEquals(new BigDecimal("0.00"), reads.findBalanceAsOf(USER_WALLET, at(0), current));
+        assertEquals(new BigDecimal("15.00"), reads.findBalanceAsOf(USER_WALLET, at(2), current));
+        assertEquals(new BigDecimal("14.00"), reads.findBalanceAsOf(USER_WALLET, at(3), current));
+        assertEquals(current, reads.findBalanceAsOf(USER_WALLET, at(5), current));
+    }
+
+    private void entry(long id, long debitWallet, long creditWallet, String amount, int hour,
+                       String debitBalanceAfter, String creditBalanceAfter) {
+        jdbc.update("INSERT INTO ledger_entries VALUES (?, ?, ?, ?, ?, ?, ?)", id, debitWallet, creditWallet,
+                new BigDecimal(amount), at(hour),
+                debitBalanceAfter != null ? new BigDecimal(debitBalanceAfter) : null,
+                creditBalanceAfter != null ? new BigDecimal(creditBalanceAfter) : null);
+    }
+
+    private static LocalDateTime at(int hour) {
+        return START.plusHours(hour);
+    }
+
+    private Map<Long, List<String>> balances() {
+        Map<Long, List<String>> balances = new HashMap<>();
+        jdbc.query("SELECT id, debit_balance_after, credit_balance_after FROM ledger_entries", rs -> {
+            balances.put(rs.getLong("id"), List.of(rs.getBigDecimal("debit_balance_after").toPlainString(),
+                    rs.getBigDecimal("credit_balance_after").toPlainString()));
+        });
+        return balances;
+    }
+}
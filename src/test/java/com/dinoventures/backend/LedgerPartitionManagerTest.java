@@ -0,0 +1,55 @@
+package com.dinoventures.backend.wallet.ledger;
+
+import com.dinoventures.backend.wallet.ledger.LedgerPartitionManager.Partition;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LedgerPartitionManagerTest {
+
+    private static final YearMonth OCTOBER = YearMonth.of(2026, 10);
+
+    @Test
+    public void testCreatesCurrentAndUpcomingMonthsWhenNoneExist() {
+        assertEquals(List.of(OCTOBER, YearMonth.of(2026, 11), YearMonth.of(2026, 12), YearMonth.of(2027, 1)),
+                LedgerPartitionManager.monthsToCreate(null, OCTOBER, 3));
+    }
+
+    @Test
+    public void testCreatesOnlyMonthsPastTheNewestPartition() {
+        assertEquals(List.of(YearMonth.of(2027, 1)),
+                LedgerPartitionManager.monthsToCreate(LocalDateTime.of(2027, 1, 1, 0, 0), OCTOBER, 3));
+        assertEquals(List.of(),
+                LedgerPartitionManager.monthsToCreate(LocalDateTime.of(2027, 2, 1, 0, 0), OCTOBER, 3));
+        assertEquals(List.of(YearMonth.of(2027, 1)),
+                LedgerPartitionManager.monthsToCreate(LocalDateTime.of(2026, 12, 15, 0, 0), OCTOBER, 3));
+    }
+
+    @Test
+    public void testReadsUpperBoundOfPartitionClause() {
+        assertEquals(LocalDateTime.of(2026, 11, 1, 0, 0),
+                LedgerPartitionManager.upperBound("FOR VALUES FROM (MINVALUE) TO ('2026-11-01 00:00:00')"));
+        assertEquals(LocalDateTime.of(2027, 1, 1, 0, 0), LedgerPartitionManager.upperBound(
+                "FOR VALUES FROM ('2026-12-01 00:00:00') TO ('2027-01-01 00:00:00')"));
+        assertThrows(IllegalStateException.class, () -> LedgerPartitionManager.upperBound("DEFAULT"));
+    }
+
+    @Test
+    public void testNamesPartitionsByMonth() {
+        assertEquals("ledger_entries_y2026m03", LedgerPartitionManager.partitionName(YearMonth.of(2026, 3)));
+    }
+
+    @Test
+    public void testOnlyClosedPartitionsAreDropCandidatesOldestFirst() {
+        Partition legacy = new Partition(LedgerPartitionManager.LEGACY_PARTITION, LocalDateTime.of(2026, 8, 1, 0, 0));
+        Partition august = new Partition("ledger_entries_y2026m08", LocalDateTime.of(2026, 9, 1, 0, 0));
+        Partition september = new Partition("ledger_entries_y2026m09", LocalDateTime.of(2026, 10, 1, 0, 0));
+
+        assertEquals(List.of(legacy, august), LedgerPartitionManager.closedOldestFirst(
+                List.of(september, august, legacy), LocalDateTime.of(2026, 9, 1, 0, 0)));
+    }
+}
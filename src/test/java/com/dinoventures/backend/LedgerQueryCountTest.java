@@ -0,0 +1,180 @@
+package com.dinoventures.backend.wallet.ledger;
+
+import com.dinoventures.backend.model.Budget;
+import com.dinoventures.backend.model.Transaction;
+import com.dinoventures.backend.model.User;
+import com.dinoventures.backend.wallet.Wallet;
+import com.dinoventures.backend.wallet.asset.Asset;
+import com.dinoventures.backend.wallet.dto.LedgerEntryView;
+import com.dinoventures.backend.wallet.read.WalletReadRepository;
+import org.hibernate.Hibernate;
+import org.hibernate.Session;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.orm.jpa.hibernate.SpringImplicitNamingStrategy;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Counts the statements ledger reads send to the database, against the real
+ * mappings and Spring Boot's naming on an in-memory H2.
+ */
+public class LedgerQueryCountTest {
+
+    private static final int ENTRIES = 60;
+
+    private final AtomicInteger statements = new AtomicInteger();
+    private SessionFactory sessionFactory;
+    private Session session;
+    private DataSource dataSource;
+    private List<Long> walletIds;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = counting(new DriverManagerDataSource(
+                "jdbc:h2:mem:ledger_query_count;MODE=PostgreSQL;DB_CLOSE_DELAY=-1", "sa", ""));
+        Configuration configuration = new Configuration()
+                .addAnnotatedClass(User.class)
+                .addAnnotatedClass(Transaction.class)
+                .addAnnotatedClass(Budget.class)
+                .addAnnotatedClass(Asset.class)
+                .addAnnotatedClass(Wallet.class)
+                .addAnnotatedClass(LedgerEntry.class)
+                .setPhysicalNamingStrategy(new CamelCaseToUnderscoresNamingStrategy())
+                .setImplicitNamingStrategy(new SpringImplicitNamingStrategy())
+                .setProperty(AvailableSettings.HBM2DDL_AUTO, "create-drop");
+        configuration.getProperties().put(AvailableSettings.DATASOURCE, dataSource);
+        sessionFactory = configuration.buildSessionFactory();
+
+        session = sessionFactory.openSession();
+        session.beginTransaction();
+        Asset gold = Asset.builder().code("GOLD_COINS").name("Gold Coins").type(Asset.AssetType.GOLD_COINS)
+                .active(true).build();
+        session.persist(gold);
+        Wallet treasury = wallet(gold, "TREASURY", "1000000.00");
+        Wallet user = wallet(gold, null, "0.00");
+        for (int i = 1; i <= ENTRIES; i++) {
+            session.persist(LedgerEntry.builder()
+                    .debitWallet(treasury)
+                    .creditWallet(user)
+                    .amount(BigDecimal.ONE)
+                    .transactionType(LedgerEntry.TransactionType.TOP_UP)
+                    .idempotencyKey("key-" + i)
+                    .creditBalanceAfter(i % 2 == 0 ? BigDecimal.valueOf(i) : null)
+                    .build());
+        }
+        session.getTransaction().commit();
+        session.clear();
+        walletIds = List.of(user.getId());
+        statements.set(0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        session.close();
+        sessionFactory.close();
+    }
+
+    @Test
+    public void testEachHistoryPageIsOneQuery() {
+        WalletReadRepository reads = new WalletReadRepository(new NamedParameterJdbcTemplate(dataSource));
+
+        List<LedgerEntryView> first = reads.findLedgerEntries(walletIds, null, null, null, 50);
+        assertEquals(1, statements.getAndSet(0));
+        List<LedgerEntryView> second = reads.findLedgerEntries(walletIds, first.get(49).getId(), null, null, 50);
+        assertEquals(1, statements.get());
+
+        assertEquals(50, first.size());
+        assertEquals(ENTRIES - 50, second.size());
+        assertEquals("GOLD_COINS", first.get(0).getAssetCode());
+    }
+
+    @Test
+    public void testReplayLookupsAreOneQueryWithoutLoadingEntities() {
+        LedgerRepository ledger = new JpaRepositoryFactory(session).getRepository(LedgerRepository.class);
+        List<String> keys = IntStream.rangeClosed(1, 20).mapToObj(i -> "key-" + i).toList();
+
+        List<LedgerEntryRow> rows = ledger.findRowsByIdempotencyKeyIn(keys);
+        assertEquals(1, statements.getAndSet(0));
+        LedgerEntryRow row = ledger.findRowByIdempotencyKey("key-3").orElseThrow();
+        assertEquals(1, statements.getAndSet(0));
+        List<LedgerEntryRow> report = ledger.findWalletTransactions(walletIds.get(0));
+        assertEquals(1, statements.get());
+
+        assertEquals(20, rows.size());
+        assertEquals(ENTRIES, report.size());
+        assertEquals(0, session.getStatistics().getEntityCount());
+        // Entries not yet backfilled report the wallets' current balances
+        assertEquals(new BigDecimal("0.00"), row.creditBalanceAfter());
+        assertEquals(new BigDecimal("1000000.00"), row.debitBalanceAfter());
+        assertEquals(new BigDecimal("4.00"), rows.stream()
+                .filter(r -> r.idempotencyKey().equals("key-4")).findFirst().orElseThrow().creditBalanceAfter());
+    }
+
+    @Test
+    public void testLoadingEntriesLeavesWalletsAndAssetsUnloaded() {
+        List<LedgerEntry> entries = session.createQuery("FROM LedgerEntry", LedgerEntry.class).getResultList();
+
+        assertEquals(ENTRIES, entries.size());
+        assertEquals(walletIds.get(0), entries.get(0).getCreditWallet().getId());
+        assertFalse(Hibernate.isInitialized(entries.get(0).getCreditWallet()));
+        assertEquals(1, statements.getAndSet(0));
+
+        Wallet wallet = session.get(Wallet.class, walletIds.get(0));
+        assertFalse(Hibernate.isInitialized(wallet.getAsset()));
+        assertEquals(1, statements.get());
+    }
+
+    private Wallet wallet(Asset asset, String systemWalletId, String balance) {
+        Wallet wallet = Wallet.builder()
+                .asset(asset)
+                .balance(new BigDecimal(balance))
+                .systemWalletId(systemWalletId)
+                .isSystemWallet(systemWalletId != null)
+                .build();
+        session.persist(wallet);
+        return wallet;
+    }
+
+    /**
+     * Counts every statement prepared or created on the data source's connections.
+     */
+    private DataSource counting(DataSource target) {
+        return new DelegatingDataSource(target) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                Connection connection = super.getConnection();
+                return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(),
+                        new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                            if (method.getName().startsWith("prepare") || method.getName().equals("createStatement")) {
+                                statements.incrementAndGet();
+                            }
+                            try {
+                                return method.invoke(connection, args);
+                            } catch (InvocationTargetException e) {
+                                throw e.getCause();
+                            }
+                        });
+            }
+        };
+    }
+}
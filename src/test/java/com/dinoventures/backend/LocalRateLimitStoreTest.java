@@ -0,0 +1,109 @@
+package com.dinoventures.backend.throttle;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LocalRateLimitStoreTest {
+
+    private static final RateLimitPolicy SPEND = new RateLimitPolicy("spend", 3, 5, 1);
+    private static final RateLimitPolicy READ = new RateLimitPolicy("read", 1, 5, 1);
+
+    @Test
+    public void testAllowsBurstUpToCapacityThenReportsWait() {
+        LocalRateLimitStore store = new LocalRateLimitStore(1024, 60_000);
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, store.tryConsume("alice@example.com", SPEND));
+        }
+        long wait = store.tryConsume("alice@example.com", SPEND);
+
+        assertTrue(wait > 0 && wait <= 1000, "wait was " + wait);
+    }
+
+    @Test
+    public void testBucketsAreSeparatePerUserAndPolicy() {
+        LocalRateLimitStore store = new LocalRateLimitStore(1024, 60_000);
+        for (int i = 0; i < 5; i++) {
+            store.tryConsume("alice@example.com", SPEND);
+        }
+
+        assertTrue(store.tryConsume("alice@example.com", SPEND) > 0);
+        assertEquals(0, store.tryConsume("alice@example.com", READ));
+        assertEquals(0, store.tryConsume("bob@example.com", SPEND));
+    }
+
+    @Test
+    public void testBucketBehindAnIdleSlotIsStillFound() throws InterruptedException {
+        LocalRateLimitStore store = new LocalRateLimitStore(16, 50);
+        String first = "alice@example.com";
+        String second = subjectWithSameHomeSlot(first, 15);
+        assertEquals(0, store.tryConsume(first, SPEND));
+        // Lands in the slot after the first subject's bucket
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, store.tryConsume(second, SPEND));
+        }
+
+        Thread.sleep(80);
+
+        // The first slot is idle by now, but must not hand the second subject a fresh bucket
+        assertTrue(store.tryConsume(second, SPEND) > 0);
+    }
+
+    private static String subjectWithSameHomeSlot(String subject, int mask) {
+        long home = LocalRateLimitStore.fingerprint(subject, SPEND.id()) & mask;
+        for (int i = 0; ; i++) {
+            String candidate = "user-" + i;
+            if ((LocalRateLimitStore.fingerprint(candidate, SPEND.id()) & mask) == home) {
+                return candidate;
+            }
+        }
+    }
+
+    @Test
+    public void testTableStaysBoundedWithManySubjects() {
+        LocalRateLimitStore store = new LocalRateLimitStore(64, 60_000);
+
+        // Far more subjects than slots: older buckets are evicted instead of the table growing
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals(0, store.tryConsume("user-" + i, SPEND));
+        }
+    }
+
+    @Test
+    public void testConcurrentCallersNeverExceedCapacity() throws InterruptedException {
+        LocalRateLimitStore store = new LocalRateLimitStore(1024, 60_000);
+        RateLimitPolicy policy = new RateLimitPolicy("write", 2, 100, 1);
+        AtomicInteger admitted = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+
+        for (int t = 0; t < 8; t++) {
+            pool.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < 100; i++) {
+                    if (store.tryConsume("alice@example.com", policy) == 0) {
+                        admitted.incrementAndGet();
+                    }
+                }
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        // 100 tokens plus at most a few refilled while the threads ran
+        assertTrue(admitted.get() >= 100 && admitted.get() <= 105, "admitted " + admitted.get());
+    }
+}
@@ -0,0 +1,101 @@
+package com.dinoventures.backend.datasource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReplicaRoutingDataSourceTest {
+
+    private DriverManagerDataSource primary;
+    private DriverManagerDataSource replica;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        primary = database("primary");
+        replica = database("replica");
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        ReadRoutingContext.requirePrimary(false);
+        ReadRoutingContext.markReplicaRead(false);
+    }
+
+    @Test
+    void readOnlyTransactionGoesToReplicaWhileWritesStayOnPrimary() {
+        ReplicaRoutingDataSource routing = routing("SELECT 0", 1000);
+        JdbcTemplate jdbc = new JdbcTemplate(routing);
+
+        assertEquals("primary", jdbc.queryForObject("SELECT name FROM node", String.class));
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertEquals("replica", jdbc.queryForObject("SELECT name FROM node", String.class));
+        assertTrue(ReadRoutingContext.isReplicaRead());
+        assertEquals(1.0, meterRegistry.counter("datasource.reads", "target", "replica").count());
+    }
+
+    @Test
+    void readsFallBackToPrimaryWhenReplicaLagsOrCallerJustWrote() {
+        JdbcTemplate lagging = new JdbcTemplate(routing("SELECT 5000", 1000));
+        String scoped = ReadRoutingContext.readOnly(
+                () -> lagging.queryForObject("SELECT name FROM node", String.class)).get();
+        assertEquals("primary", scoped);
+
+        JdbcTemplate healthy = new JdbcTemplate(routing("SELECT 0", 1000));
+        ReadRoutingContext.requirePrimary(true);
+        String afterWrite = ReadRoutingContext.readOnly(
+                () -> healthy.queryForObject("SELECT name FROM node", String.class)).get();
+        assertEquals("primary", afterWrite);
+        assertFalse(ReadRoutingContext.isReplicaRead());
+    }
+
+    @Test
+    void readYourWritesHoldsPrimaryForTheLagWindow() {
+        ReplicaLagMonitor monitor = monitor("SELECT 0", 1000);
+        AtomicLong now = new AtomicLong(10_000);
+        ReadYourWrites readYourWrites = new ReadYourWrites(monitor, 100, now::get);
+
+        long token = readYourWrites.recordWrite("alice");
+        assertTrue(readYourWrites.mustReadPrimary("alice", null));
+        assertFalse(readYourWrites.mustReadPrimary("bob", null));
+        // Another node's write, carried over by the client
+        assertTrue(readYourWrites.mustReadPrimary("bob", token));
+
+        now.addAndGet(monitor.readYourWritesWindowMs());
+        assertFalse(readYourWrites.mustReadPrimary("alice", null));
+        assertFalse(readYourWrites.mustReadPrimary("bob", token));
+    }
+
+    private ReplicaRoutingDataSource routing(String lagQuery, long maxLagMs) {
+        return new ReplicaRoutingDataSource(primary, replica, monitor(lagQuery, maxLagMs), meterRegistry);
+    }
+
+    private ReplicaLagMonitor monitor(String lagQuery, long maxLagMs) {
+        ReplicaLagMonitor monitor = new ReplicaLagMonitor(replica, lagQuery, maxLagMs, 1000, 1, meterRegistry);
+        monitor.check();
+        return monitor;
+    }
+
+    private static DriverManagerDataSource database(String name) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:routing_" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE IF NOT EXISTS node (name VARCHAR(16))");
+        jdbc.execute("DELETE FROM node");
+        jdbc.update("INSERT INTO node VALUES (?)", name);
+        return dataSource;
+    }
+}
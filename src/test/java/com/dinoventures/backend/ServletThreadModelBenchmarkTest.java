@@ -0,0 +1,213 @@
+package com.dinoventures.backend;
+
+import jakarta.servlet.Filter;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Drives the running application with a mix of contended top-ups (every one
+ * locks the same treasury row) and balance reads at increasing client
+ * concurrency, and reports throughput, latency percentiles and the peak number
+ * of requests the server was executing at once.
+ *
+ * Platform threads:  mvn test -Pbenchmark -Dtest=ServletThreadModelBenchmarkTest
+ * Virtual threads:   mvn test -Pbenchmark,java21 -Dtest=ServletThreadModelBenchmarkTest -Dbenchmark.virtual-threads=true
+ */
+@Tag("benchmark")
+@ActiveProfiles("dev")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.threads.virtual.enabled=${benchmark.virtual-threads:false}",
+        "app.throttle.rate.enabled=false",
+        "app.throttle.concurrency.enabled=false",
+        "logging.level.com.dinoventures=WARN"
+})
+public class ServletThreadModelBenchmarkTest {
+
+    private static final int[] CONCURRENCY_LEVELS = {50, 200, 800};
+    private static final Duration LEVEL_DURATION = Duration.ofSeconds(5);
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    private static final Pattern TOKEN = Pattern.compile("\"accessToken\":\"([^\"]+)\"");
+
+    private static final AtomicInteger inFlight = new AtomicInteger();
+    private static final AtomicInteger peakInFlight = new AtomicInteger();
+
+    @LocalServerPort
+    private int port;
+
+    @Value("${spring.threads.virtual.enabled}")
+    private boolean virtualThreads;
+
+    private final AtomicLong keySequence = new AtomicLong();
+
+    @Test
+    public void measureConcurrentCapacity() throws Exception {
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(REQUEST_TIMEOUT)
+                .executor(Executors.newCachedThreadPool())
+                .build();
+        String token = login(client);
+
+        // Warm up connection pools and JIT
+        run(client, token, 20, Duration.ofSeconds(2));
+
+        List<Result> results = new ArrayList<>();
+        for (int concurrency : CONCURRENCY_LEVELS) {
+            results.add(run(client, token, concurrency, LEVEL_DURATION));
+        }
+
+        System.out.printf("%nServlet threads: %s (Java %s)%n", virtualThreads ? "virtual" : "platform",
+                Runtime.version().feature());
+        System.out.printf("%8s %10s %8s %8s %10s %10s %10s %12s%n",
+                "clients", "requests", "shed", "errors", "req/s", "p50 ms", "p99 ms", "peak active");
+        for (Result result : results) {
+            System.out.printf("%8d %10d %8d %8d %10.0f %10.1f %10.1f %12d%n",
+                    result.concurrency(), result.requests(), result.shed(), result.errors(),
+                    result.requestsPerSecond(), result.p50Millis(), result.p99Millis(), result.peakInFlight());
+        }
+
+        // Every top-up locks the same wallet rows, so under load some are shed with 503 once
+        // their lock wait times out; anything else, a failed read or a timed-out request
+        // included, is an error
+        results.forEach(result -> assertEquals(0, result.errors(),
+                result.concurrency() + " clients: " + result.errors() + " errors"));
+    }
+
+    private Result run(HttpClient client, String token, int concurrency, Duration duration) throws InterruptedException {
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger shed = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+        peakInFlight.set(0);
+
+        ExecutorService clients = Executors.newFixedThreadPool(concurrency);
+        CountDownLatch done = new CountDownLatch(concurrency);
+        long deadline = System.nanoTime() + duration.toNanos();
+        long start = System.nanoTime();
+
+        for (int i = 0; i < concurrency; i++) {
+            clients.execute(() -> {
+                try {
+                    boolean write = true;
+                    while (System.nanoTime() < deadline) {
+                        HttpRequest request = write ? topUp(token) : balance(token);
+                        write = !write;
+                        long sent = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() == 503 && request.method().equals("POST")) {
+                                shed.incrementAndGet();
+                            } else if (response.statusCode() >= 400) {
+                                errors.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                        }
+                        latencies.add(System.nanoTime() - sent);
+                    }
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        clients.shutdown();
+
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        return new Result(concurrency, sorted.size(), shed.get(), errors.get(), sorted.size() / seconds,
+                percentile(sorted, 0.50), percentile(sorted, 0.99), peakInFlight.get());
+    }
+
+    private HttpRequest topUp(String token) {
+        String body = "{\"assetCode\":\"GOLD_COINS\",\"amount\":\"1.00\",\"idempotencyKey\":\"bench-"
+                + keySequence.incrementAndGet() + "-" + System.nanoTime() + "\"}";
+        return HttpRequest.newBuilder(uri("/api/wallets/top-up"))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Authorization", "Bearer " + token)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private HttpRequest balance(String token) {
+        return HttpRequest.newBuilder(uri("/api/wallets/balance/GOLD_COINS"))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Authorization", "Bearer " + token)
+                .GET()
+                .build();
+    }
+
+    private String login(HttpClient client) throws Exception {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(uri("/api/auth/login"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(
+                                "{\"email\":\"john.doe@example.com\",\"password\":\"Test@1234\"}"))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+        Matcher matcher = TOKEN.matcher(response.body());
+        if (!matcher.find()) {
+            throw new IllegalStateException("Login failed: " + response.body());
+        }
+        return matcher.group(1);
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private static double percentile(List<Long> sortedNanos, double percentile) {
+        if (sortedNanos.isEmpty()) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sortedNanos.size()) - 1;
+        return sortedNanos.get(Math.max(0, index)) / 1_000_000.0;
+    }
+
+    private record Result(int concurrency, int requests, int shed, int errors, double requestsPerSecond,
+                          double p50Millis, double p99Millis, int peakInFlight) {
+    }
+
+    @TestConfiguration
+    static class InFlightCounterConfig {
+
+        @Bean
+        FilterRegistrationBean<Filter> inFlightCounter() {
+            FilterRegistrationBean<Filter> registration = new FilterRegistrationBean<>((request, response, chain) -> {
+                peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                try {
+                    chain.doFilter(request, response);
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            });
+            registration.setOrder(Integer.MIN_VALUE);
+            return registration;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.dinoventures.backend.shard;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ShardRouterTest {
+
+    private List<DataSource> shards;
+    private ShardRouter router;
+
+    @BeforeEach
+    void setUp() {
+        shards = new ArrayList<>();
+        for (int shard = 0; shard < 3; shard++) {
+            shards.add(database(shard));
+        }
+        new JdbcTemplate(shards.get(0)).update("INSERT INTO users (id, email) VALUES (1, 'a@x'), (2, 'b@x'), (3, 'c@x')");
+        router = new ShardRouter(new ShardRing(3, 64), shards);
+    }
+
+    @Test
+    void ringSpreadsUsersAndMovesFewWhenAShardIsAdded() {
+        ShardRing three = new ShardRing(3, 256);
+        ShardRing four = new ShardRing(4, 256);
+        int[] counts = new int[3];
+        long moved = 0;
+        for (long userId = 1; userId <= 30_000; userId++) {
+            int shard = three.shardFor(userId);
+            counts[shard]++;
+            if (four.shardFor(userId) != shard) {
+                moved++;
+            }
+        }
+
+        for (int count : counts) {
+            assertTrue(count > 8_000 && count < 12_000, "uneven spread: " + count);
+        }
+        // Only the keys the new shard takes over move, about a quarter of them
+        assertTrue(moved > 5_000 && moved < 10_000, "moved: " + moved);
+    }
+
+    @Test
+    void workRunsOnTheUsersShard() {
+        ShardRoutingDataSource routing = new ShardRoutingDataSource(shards);
+        routing.afterPropertiesSet();
+        JdbcTemplate jdbc = new JdbcTemplate(routing);
+
+        assertEquals(0, jdbc.queryForObject("SELECT shard FROM node", Integer.class));
+        for (long userId = 1; userId <= 20; userId++) {
+            int expected = router.shardOf(userId);
+            int actual = router.onShard(expected, () -> jdbc.queryForObject("SELECT shard FROM node", Integer.class));
+            assertEquals(expected, actual);
+        }
+        assertEquals(ShardRouter.HOME_SHARD, ShardContext.currentShard());
+    }
+
+    @Test
+    void usersAreCopiedToTheirShardOnce() {
+        List<Long> userIds = LongStream.rangeClosed(1, 3).boxed().toList();
+        router.copyUsers(userIds);
+        router.copyUsers(userIds);
+
+        for (Long userId : userIds) {
+            int shard = router.shardOf(userId);
+            for (int other = 1; other < shards.size(); other++) {
+                Integer copies = new JdbcTemplate(shards.get(other))
+                        .queryForObject("SELECT COUNT(*) FROM users WHERE id = ?", Integer.class, userId);
+                assertEquals(other == shard ? 1 : 0, copies, "user " + userId + " on shard " + other);
+            }
+        }
+    }
+
+    @Test
+    void switchingShardsInsideATransactionIsRefused() {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            assertThrows(IllegalStateException.class, () -> router.onShard(1, () -> null));
+            assertEquals(0, (int) router.onShard(ShardRouter.HOME_SHARD, () -> 0));
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+    }
+
+    private static DataSource database(int shard) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:shard_router_" + shard + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("DROP TABLE IF EXISTS node");
+        jdbc.execute("DROP TABLE IF EXISTS users");
+        jdbc.execute("CREATE TABLE node (shard INT)");
+        jdbc.execute("CREATE TABLE users (id BIGINT PRIMARY KEY, email VARCHAR(64))");
+        jdbc.update("INSERT INTO node VALUES (?)", shard);
+        return dataSource;
+    }
+}
@@ -0,0 +1,78 @@
+package com.dinoventures.backend.wallet.service;
+
+import com.dinoventures.backend.wallet.Wallet;
+import com.dinoventures.backend.wallet.WalletRepository;
+import com.dinoventures.backend.wallet.asset.Asset;
+import com.dinoventures.backend.wallet.ledger.LedgerEntry;
+import com.dinoventures.backend.wallet.ledger.LedgerRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class SystemWalletShardsTest {
+
+    @Mock
+    private WalletRepository walletRepository;
+
+    @Mock
+    private LedgerRepository ledgerRepository;
+
+    private final Asset goldCoins = Asset.builder().id(10L).code("GOLD_COINS").build();
+
+    @Test
+    public void testOnlyTheTreasuryIsSharded() {
+        SystemWalletShards shards = new SystemWalletShards(walletRepository, ledgerRepository, 3);
+
+        assertEquals(List.of("TREASURY", "TREASURY#1", "TREASURY#2"), shards.shardIds("TREASURY"));
+        assertEquals(List.of("BONUS_POOL"), shards.shardIds("BONUS_POOL"));
+        assertFalse(new SystemWalletShards(walletRepository, ledgerRepository, 1).isSharded("TREASURY"));
+    }
+
+    @Test
+    public void testNewShardsTakeAnEqualShareThroughTheLedger() {
+        SystemWalletShards shards = new SystemWalletShards(walletRepository, ledgerRepository, 4);
+        Wallet treasury = Wallet.builder().id(100L).asset(goldCoins).balance(new BigDecimal("1000.00"))
+                .systemWalletId("TREASURY").isSystemWallet(true).build();
+        when(walletRepository.findSystemWalletId("TREASURY", goldCoins)).thenReturn(Optional.of(100L));
+        when(walletRepository.findAllByIdForUpdate(List.of(100L))).thenReturn(List.of(treasury));
+        when(walletRepository.findSystemWalletId("TREASURY#1", goldCoins)).thenReturn(Optional.of(101L));
+        when(walletRepository.findSystemWalletId("TREASURY#2", goldCoins)).thenReturn(Optional.empty());
+        when(walletRepository.findSystemWalletId("TREASURY#3", goldCoins)).thenReturn(Optional.empty());
+        when(walletRepository.save(any(Wallet.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        shards.provision("TREASURY", goldCoins);
+
+        // Two new shards: the treasury's 1000.00 is split three ways
+        ArgumentCaptor<LedgerEntry> transfers = ArgumentCaptor.forClass(LedgerEntry.class);
+        verify(ledgerRepository, times(2)).save(transfers.capture());
+        transfers.getAllValues().forEach(transfer -> {
+            assertEquals(new BigDecimal("333.33"), transfer.getAmount());
+            assertEquals(LedgerEntry.TransactionType.TRANSFER, transfer.getTransactionType());
+        });
+        assertEquals(new BigDecimal("333.34"), treasury.getBalance());
+    }
+
+    @Test
+    public void testProvisioningIsSkippedWithoutShards() {
+        new SystemWalletShards(walletRepository, ledgerRepository, 1).provision("TREASURY", goldCoins);
+
+        verifyNoInteractions(walletRepository);
+        verify(ledgerRepository, never()).save(any());
+    }
+}
@@ -68,7 +68,7 @@ public class TransactionServiceTest {
     @Test
     public void testCreateTransactionSuccess() {
         when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
-        when(transactionRepository.save(any(Transaction.class))).thenReturn(transaction);
+        when(transactionRepository.saveAndFlush(any(Transaction.class))).thenReturn(transaction);
 
         TransactionDTO result = transactionService.createTransaction(1L, transactionDTO);
 
@@ -76,7 +76,7 @@ public class TransactionServiceTest {
         assertEquals("Food", result.getCategory());
         assertEquals(new BigDecimal("50.00"), result.getAmount());
 
-        verify(transactionRepository, times(1)).save(any(Transaction.class));
+        verify(transactionRepository, times(1)).saveAndFlush(any(Transaction.class));
     }
 
     @Test
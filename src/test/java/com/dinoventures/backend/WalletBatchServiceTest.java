@@ -0,0 +1,168 @@
+package com.dinoventures.backend.wallet.service;
+
+import com.dinoventures.backend.model.User;
+import com.dinoventures.backend.repository.UserRepository;
+import com.dinoventures.backend.shard.ShardRouter;
+import com.dinoventures.backend.wallet.Wallet;
+import com.dinoventures.backend.wallet.WalletJdbcRepository;
+import com.dinoventures.backend.wallet.WalletJdbcRepository.WalletRef;
+import com.dinoventures.backend.wallet.asset.Asset;
+import com.dinoventures.backend.wallet.asset.AssetRepository;
+import com.dinoventures.backend.wallet.dto.BatchOperationItem;
+import com.dinoventures.backend.wallet.dto.BatchOperationItem.OperationType;
+import com.dinoventures.backend.wallet.dto.BatchOperationRequest;
+import com.dinoventures.backend.wallet.dto.BatchOperationRequest.BatchMode;
+import com.dinoventures.backend.wallet.dto.BatchOperationResponse;
+import com.dinoventures.backend.wallet.dto.BatchOperationResponse.ItemStatus;
+import com.dinoventures.backend.wallet.ledger.LedgerBatchWriter;
+import com.dinoventures.backend.wallet.ledger.LedgerRepository;
+import com.dinoventures.backend.wallet.outbox.WalletOutbox;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.security.access.AccessDeniedException;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class WalletBatchServiceTest {
+
+    @Mock
+    private WalletJdbcRepository walletJdbcRepository;
+
+    @Mock
+    private AssetRepository assetRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private LedgerRepository ledgerRepository;
+
+    @Mock
+    private LedgerBatchWriter ledgerBatchWriter;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private WalletOutbox walletOutbox;
+
+    @Mock
+    private WalletLocks walletLocks;
+
+    private WalletBatchService walletBatchService;
+
+    private User player;
+    private Asset goldCoins;
+
+    @BeforeEach
+    void setUp() {
+        walletBatchService = new WalletBatchService(walletJdbcRepository, assetRepository, userRepository,
+                ledgerRepository, ledgerBatchWriter, entityManager, eventPublisher, walletOutbox, ShardRouter.single(), walletLocks, 500);
+
+        player = User.builder().id(1L).email("player@example.com").build();
+        goldCoins = Asset.builder().id(10L).code("GOLD_COINS").active(true).build();
+
+        lenient().when(ledgerRepository.findRowsByIdempotencyKeyIn(anyCollection())).thenReturn(List.of());
+        lenient().when(assetRepository.findByCodeInAndActiveTrue(anyCollection())).thenReturn(List.of(goldCoins));
+        lenient().when(userRepository.findAllById(anyIterable())).thenReturn(List.of(player));
+    }
+
+    @Test
+    public void testBestEffortAppliesValidOperationsAgainstRunningBalances() {
+        when(walletJdbcRepository.findWalletRefs(eq(10L), anyCollection(), anyCollection())).thenReturn(List.of(
+                new WalletRef(100L, 10L, null, "TREASURY"),
+                new WalletRef(201L, 10L, 1L, null)));
+        Map<Long, BigDecimal> balances = new LinkedHashMap<>();
+        balances.put(100L, new BigDecimal("1000.00"));
+        balances.put(201L, new BigDecimal("20.00"));
+        when(walletJdbcRepository.lockWallets(anyCollection())).thenReturn(balances);
+
+        BatchOperationResponse response = walletBatchService.execute(player, request(BatchMode.BEST_EFFORT,
+                item(OperationType.SPEND, "50.00", "k-1"),
+                item(OperationType.TOP_UP, "40.00", "k-2"),
+                item(OperationType.SPEND, "50.00", "k-3")));
+
+        assertTrue(response.isCommitted());
+        assertEquals(List.of(ItemStatus.FAILED, ItemStatus.APPLIED, ItemStatus.APPLIED),
+                response.getResults().stream().map(BatchOperationResponse.ItemResult::getStatus).toList());
+        assertEquals(new BigDecimal("10.00"), response.getResults().get(2).getResult().getNewDebitBalance());
+        // One net adjustment per wallet, not one per operation
+        verify(walletJdbcRepository).adjustBalances(Map.of(100L, new BigDecimal("10.00"), 201L, new BigDecimal("-10.00")));
+        verify(ledgerBatchWriter).writeAll(argThat(entries -> entries.size() == 2));
+    }
+
+    @Test
+    public void testAllOrNothingRejectsBeforeLockingWhenAnOperationIsInvalid() {
+        BatchOperationItem transfer = item(OperationType.TRANSFER, "5.00", "k-2");
+
+        BatchOperationResponse response = walletBatchService.execute(player, request(BatchMode.ALL_OR_NOTHING,
+                item(OperationType.TOP_UP, "5.00", "k-1"),
+                transfer));
+
+        assertFalse(response.isCommitted());
+        assertEquals(ItemStatus.ABORTED, response.getResults().get(0).getStatus());
+        assertEquals("Target user is required for transfers", response.getResults().get(1).getError());
+        verify(walletJdbcRepository, never()).lockWallets(anyCollection());
+        verify(ledgerBatchWriter, never()).writeAll(anyList());
+    }
+
+    @Test
+    public void testShardedTreasuryIsClaimedAfterTheOtherLocks() {
+        Wallet shard = Wallet.builder().id(105L).systemWalletId("TREASURY#2").balance(new BigDecimal("500.00")).build();
+        when(walletJdbcRepository.findWalletRefs(eq(10L), anyCollection(), anyCollection())).thenReturn(List.of(
+                new WalletRef(100L, 10L, null, "TREASURY"),
+                new WalletRef(201L, 10L, 1L, null)));
+        when(walletLocks.isSharded("TREASURY")).thenReturn(true);
+        when(walletJdbcRepository.lockWallets(List.of(201L))).thenReturn(new LinkedHashMap<>(Map.of(201L, BigDecimal.ZERO)));
+        when(walletLocks.claimSystemWallet("batch", "TREASURY", goldCoins, new BigDecimal("30.00"))).thenReturn(shard);
+
+        BatchOperationResponse response = walletBatchService.execute(player, request(BatchMode.ALL_OR_NOTHING,
+                item(OperationType.TOP_UP, "10.00", "k-1"),
+                item(OperationType.TOP_UP, "20.00", "k-2")));
+
+        assertTrue(response.isCommitted());
+        assertEquals(105L, response.getResults().get(1).getResult().getDebitWalletId());
+        assertEquals(new BigDecimal("470.00"), response.getResults().get(1).getResult().getNewDebitBalance());
+        verify(walletJdbcRepository).adjustBalances(Map.of(105L, new BigDecimal("-30.00"), 201L, new BigDecimal("30.00")));
+    }
+
+    @Test
+    public void testRefusesOperationsOnAnotherUsersWallet() {
+        BatchOperationItem foreignSpend = item(OperationType.SPEND, "5.00", "k-2");
+        foreignSpend.setUserId(2L);
+
+        assertThrows(AccessDeniedException.class, () -> walletBatchService.execute(player,
+                request(BatchMode.BEST_EFFORT, item(OperationType.TOP_UP, "5.00", "k-1"), foreignSpend)));
+
+        verifyNoInteractions(walletJdbcRepository, ledgerBatchWriter);
+    }
+
+    private BatchOperationRequest request(BatchMode mode, BatchOperationItem... items) {
+        return BatchOperationRequest.builder().mode(mode).operations(List.of(items)).build();
+    }
+
+    private BatchOperationItem item(OperationType type, String amount, String key) {
+        return BatchOperationItem.builder()
+                .type(type)
+                .assetCode("GOLD_COINS")
+                .amount(new BigDecimal(amount))
+                .idempotencyKey(key)
+                .build();
+    }
+}
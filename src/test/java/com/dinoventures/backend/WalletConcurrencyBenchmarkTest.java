@@ -0,0 +1,154 @@
+package com.dinoventures.backend.wallet.service;
+
+import com.dinoventures.backend.model.User;
+import com.dinoventures.backend.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.search.Search;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares pessimistic and optimistic user wallet updates by running concurrent
+ * top-ups of an optimistic asset (GOLD_COINS) and a pessimistic one
+ * (LOYALTY_POINTS), once spread uniformly over many users and once skewed so
+ * that most operations hit a handful of hot wallets.
+ *
+ * Run with: mvn test -Pbenchmark -Dtest=WalletConcurrencyBenchmarkTest
+ */
+@Tag("benchmark")
+@ActiveProfiles("dev")
+@SpringBootTest(properties = {
+        "app.wallet.concurrency.optimistic-assets=GOLD_COINS",
+        "app.wallet.balance-cache.enabled=false",
+        "logging.level.com.dinoventures=WARN"
+})
+public class WalletConcurrencyBenchmarkTest {
+
+    private static final int USERS = 200;
+    private static final int HOT_USERS = 4;
+    private static final double HOT_SHARE = 0.9;
+    private static final int THREADS = 16;
+    private static final Duration RUN_DURATION = Duration.ofSeconds(5);
+    private static final BigDecimal AMOUNT = new BigDecimal("0.01");
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final AtomicLong keySequence = new AtomicLong();
+
+    @Test
+    public void compareStrategiesUnderUniformAndSkewedAccess() throws Exception {
+        List<User> users = createUsers();
+
+        // Warm up both paths so JIT and wallet provisioning do not skew the first run
+        run(users, "GOLD_COINS", false, Duration.ofSeconds(2));
+        run(users, "LOYALTY_POINTS", false, Duration.ofSeconds(2));
+
+        List<Result> results = new ArrayList<>();
+        for (boolean skewed : new boolean[]{false, true}) {
+            results.add(run(users, "LOYALTY_POINTS", skewed, RUN_DURATION));
+            results.add(run(users, "GOLD_COINS", skewed, RUN_DURATION));
+        }
+
+        System.out.printf("%n%-12s %-8s %10s %8s %10s %10s %10s %10s%n",
+                "strategy", "access", "ops", "errors", "ops/s", "p99 ms", "retries", "fallbacks");
+        for (Result result : results) {
+            System.out.printf("%-12s %-8s %10d %8d %10.0f %10.1f %10.0f %10.0f%n",
+                    result.strategy(), result.skewed() ? "skewed" : "uniform", result.operations(), result.errors(),
+                    result.operationsPerSecond(), result.p99Millis(), result.retries(), result.fallbacks());
+        }
+
+        results.forEach(result -> assertTrue(result.operations() > result.errors()));
+    }
+
+    private Result run(List<User> users, String assetCode, boolean skewed, Duration duration) throws InterruptedException {
+        double retriesBefore = count("wallet.concurrency.optimistic.retries");
+        double fallbacksBefore = count("wallet.concurrency.optimistic.fallbacks");
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger errors = new AtomicInteger();
+
+        ExecutorService workers = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch done = new CountDownLatch(THREADS);
+        long start = System.nanoTime();
+        long deadline = start + duration.toNanos();
+
+        for (int i = 0; i < THREADS; i++) {
+            workers.execute(() -> {
+                try {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    while (System.nanoTime() < deadline) {
+                        User user = skewed && random.nextDouble() < HOT_SHARE
+                                ? users.get(random.nextInt(HOT_USERS))
+                                : users.get(random.nextInt(users.size()));
+                        long sent = System.nanoTime();
+                        try {
+                            walletService.topUp(user, assetCode, AMOUNT, "bench-" + keySequence.incrementAndGet(), "Benchmark");
+                        } catch (RuntimeException e) {
+                            errors.incrementAndGet();
+                        }
+                        latencies.add(System.nanoTime() - sent);
+                    }
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        workers.shutdown();
+
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        double p99 = sorted.isEmpty() ? 0 : sorted.get(Math.max(0, (int) Math.ceil(0.99 * sorted.size()) - 1)) / 1_000_000.0;
+        return new Result(assetCode.equals("GOLD_COINS") ? "OPTIMISTIC" : "PESSIMISTIC", skewed, sorted.size(),
+                errors.get(), sorted.size() / seconds, p99,
+                count("wallet.concurrency.optimistic.retries") - retriesBefore,
+                count("wallet.concurrency.optimistic.fallbacks") - fallbacksBefore);
+    }
+
+    private List<User> createUsers() {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            users.add(userRepository.save(User.builder()
+                    .firstName("Bench")
+                    .lastName("User" + i)
+                    .email("bench-" + i + "-" + System.nanoTime() + "@example.com")
+                    .password("not-a-real-hash")
+                    .build()));
+        }
+        return users;
+    }
+
+    private double count(String name) {
+        return Search.in(meterRegistry).name(name).counters().stream()
+                .mapToDouble(counter -> counter.count())
+                .sum();
+    }
+
+    private record Result(String strategy, boolean skewed, int operations, int errors, double operationsPerSecond,
+                          double p99Millis, double retries, double fallbacks) {
+    }
+}
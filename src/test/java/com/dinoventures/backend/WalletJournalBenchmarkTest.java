@@ -0,0 +1,199 @@
+package com.dinoventures.backend;
+
+import com.dinoventures.backend.wallet.journal.WalletJournal;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Compares how long a client waits for a top-up to be committed when it is
+ * written to the database before the response (DB-first, the synchronous
+ * endpoint) and when it is appended to the fsynced journal and projected
+ * afterwards (journal-first, {@code Prefer: respond-async} with the journal
+ * enabled), at increasing client concurrency. Every top-up credits the same
+ * treasury, so DB-first requests queue on its row lock.
+ *
+ * The dev database is in-memory H2, which never syncs a commit, so DB-first
+ * latency here is a lower bound; point the run at PostgreSQL for real numbers.
+ *
+ * Run with: mvn test -Pbenchmark -Dtest=WalletJournalBenchmarkTest
+ */
+@Tag("benchmark")
+@ActiveProfiles("dev")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "app.wallet.journal.enabled=true",
+        "app.throttle.rate.enabled=false",
+        "app.throttle.concurrency.enabled=false",
+        "logging.level.com.dinoventures=WARN"
+})
+public class WalletJournalBenchmarkTest {
+
+    private static final int[] CONCURRENCY_LEVELS = {1, 16, 64};
+    private static final int REQUESTS_PER_LEVEL = 1_000;
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    private static final Duration PROJECTION_TIMEOUT = Duration.ofSeconds(60);
+    private static final Pattern TOKEN = Pattern.compile("\"accessToken\":\"([^\"]+)\"");
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private WalletJournal journal;
+
+    private final AtomicLong keySequence = new AtomicLong();
+
+    @DynamicPropertySource
+    static void journalDirectory(DynamicPropertyRegistry registry) throws IOException {
+        String directory = Files.createTempDirectory("wallet-journal-benchmark").toString();
+        registry.add("app.wallet.journal.directory", () -> directory);
+    }
+
+    @Test
+    public void compareJournalFirstWithDatabaseFirstCommitLatency() throws Exception {
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(REQUEST_TIMEOUT)
+                .executor(Executors.newCachedThreadPool())
+                .build();
+        String token = login(client);
+
+        // Warm up both paths so class loading and JIT do not skew the first level
+        run(client, token, false, 8, 500);
+        run(client, token, true, 8, 500);
+
+        List<Result> results = new ArrayList<>();
+        for (int concurrency : CONCURRENCY_LEVELS) {
+            results.add(run(client, token, false, concurrency, REQUESTS_PER_LEVEL));
+            results.add(run(client, token, true, concurrency, REQUESTS_PER_LEVEL));
+        }
+
+        long projectionStart = System.nanoTime();
+        while (journal.hasUnprojected() && System.nanoTime() - projectionStart < PROJECTION_TIMEOUT.toNanos()) {
+            Thread.sleep(50);
+        }
+        double projectionSeconds = (System.nanoTime() - projectionStart) / 1_000_000_000.0;
+
+        System.out.printf("%n%-14s %8s %10s %8s %10s %10s %10s%n",
+                "mode", "clients", "requests", "errors", "req/s", "p50 ms", "p99 ms");
+        for (Result result : results) {
+            System.out.printf("%-14s %8d %10d %8d %10.0f %10.2f %10.2f%n",
+                    result.journaled() ? "journal-first" : "DB-first", result.concurrency(), result.requests(),
+                    result.errors(), result.requestsPerSecond(), result.p50Millis(), result.p99Millis());
+        }
+        System.out.printf("Journal projected %.1fs after the last request%n", projectionSeconds);
+
+        results.stream().filter(Result::journaled).forEach(result -> assertEquals(0, result.errors()));
+        assertFalse(journal.hasUnprojected());
+    }
+
+    private Result run(HttpClient client, String token, boolean journaled, int concurrency, int requests)
+            throws InterruptedException {
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger remaining = new AtomicInteger(requests);
+        AtomicInteger errors = new AtomicInteger();
+
+        ExecutorService clients = Executors.newFixedThreadPool(concurrency);
+        CountDownLatch done = new CountDownLatch(concurrency);
+        long start = System.nanoTime();
+
+        for (int i = 0; i < concurrency; i++) {
+            clients.execute(() -> {
+                try {
+                    while (remaining.getAndDecrement() > 0) {
+                        long sent = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(topUp(token, journaled),
+                                    HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() >= 400) {
+                                errors.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                        }
+                        latencies.add(System.nanoTime() - sent);
+                    }
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        clients.shutdown();
+
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        return new Result(journaled, concurrency, sorted.size(), errors.get(), sorted.size() / seconds,
+                percentile(sorted, 0.50), percentile(sorted, 0.99));
+    }
+
+    private HttpRequest topUp(String token, boolean journaled) {
+        String body = "{\"assetCode\":\"GOLD_COINS\",\"amount\":\"1.00\",\"idempotencyKey\":\"journal-bench-"
+                + keySequence.incrementAndGet() + "-" + System.nanoTime() + "\"}";
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri("/api/wallets/top-up"))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Authorization", "Bearer " + token)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body));
+        if (journaled) {
+            request.header("Prefer", "respond-async");
+        }
+        return request.build();
+    }
+
+    private String login(HttpClient client) throws Exception {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(uri("/api/auth/login"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(
+                                "{\"email\":\"john.doe@example.com\",\"password\":\"Test@1234\"}"))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+        Matcher matcher = TOKEN.matcher(response.body());
+        if (!matcher.find()) {
+            throw new IllegalStateException("Login failed: " + response.body());
+        }
+        return matcher.group(1);
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private static double percentile(List<Long> sortedNanos, double percentile) {
+        if (sortedNanos.isEmpty()) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sortedNanos.size()) - 1;
+        return sortedNanos.get(Math.max(0, index)) / 1_000_000.0;
+    }
+
+    private record Result(boolean journaled, int concurrency, int requests, int errors, double requestsPerSecond,
+                          double p50Millis, double p99Millis) {
+    }
+}
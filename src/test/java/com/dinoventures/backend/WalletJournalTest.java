@@ -0,0 +1,152 @@
+package com.dinoventures.backend.wallet.journal;
+
+import com.dinoventures.backend.wallet.dto.BatchOperationItem.OperationType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WalletJournalTest {
+
+    /** Header plus a body with a six-character key and no description */
+    private static final int RECORD_BYTES = 60;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testConcurrentAppendsAreReadBackInOrderOnceSynced() throws Exception {
+        WalletJournal journal = open(1 << 20);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Long>> appends = IntStream.range(0, 200)
+                    .mapToObj(i -> pool.submit(() -> {
+                        long sequence = journal.append(i + 1, OperationType.TOP_UP, "GOLD_COINS",
+                                new BigDecimal("10.00"), "key-" + i, i % 2 == 0 ? "even" : null);
+                        journal.sync(sequence);
+                        return sequence;
+                    }))
+                    .toList();
+            for (Future<Long> append : appends) {
+                append.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        long unsynced = journal.append(7, OperationType.SPEND, "GOLD_COINS", BigDecimal.ONE, "key-late", null);
+
+        List<WalletJournalRecord> records = journal.read(0, 1000);
+
+        assertEquals(LongStream.rangeClosed(1, 200).boxed().toList(),
+                records.stream().map(WalletJournalRecord::sequence).toList());
+        assertEquals(200, records.stream().map(WalletJournalRecord::idempotencyKey).collect(Collectors.toSet()).size());
+        WalletJournalRecord record = records.stream().filter(r -> r.idempotencyKey().equals("key-4")).findFirst().orElseThrow();
+        assertEquals(5L, record.userId());
+        assertEquals(new BigDecimal("10.00"), record.amount());
+        assertEquals("even", record.description());
+        assertEquals(201L, unsynced);
+        assertTrue(journal.hasUnprojected());
+        journal.close();
+    }
+
+    @Test
+    public void testReopenDropsCorruptTailAndResumesAfterCheckpoint() throws IOException {
+        WalletJournal journal = open(1 << 20);
+        append(journal, 1, 10);
+        journal.markProjected(4);
+        journal.close();
+        // Damage record 8, as if the process died before it reached the disk
+        try (FileChannel channel = FileChannel.open(segments().get(0), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0x7f}), 7L * RECORD_BYTES + 30);
+        }
+
+        WalletJournal reopened = open(1 << 20);
+
+        assertEquals(4, reopened.projectedSequence());
+        assertEquals(List.of(5L, 6L, 7L), sequences(reopened.read(4, 100)));
+        assertEquals(8L, reopened.append(1, OperationType.BONUS, "GOLD_COINS", BigDecimal.ONE, "key-99", null));
+        reopened.close();
+    }
+
+    @Test
+    public void testSegmentsRollAndProjectedOnesAreDeleted() throws IOException {
+        WalletJournal journal = open(3 * RECORD_BYTES + 20);
+        append(journal, 1, 10);
+        assertEquals(4, segments().size());
+
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), sequences(journal.read(0, 5)));
+        journal.markProjected(5);
+        assertEquals(3, segments().size());
+        journal.markProjected(6);
+        assertEquals(2, segments().size());
+        journal.close();
+
+        WalletJournal reopened = open(3 * RECORD_BYTES + 20);
+        assertEquals(List.of(7L, 8L, 9L, 10L), sequences(reopened.read(reopened.projectedSequence(), 100)));
+        reopened.close();
+    }
+
+    @Test
+    public void testReopenDropsSegmentsAfterALostTail() throws IOException {
+        WalletJournal journal = open(3 * RECORD_BYTES + 20);
+        append(journal, 1, 6);
+        journal.close();
+        // Record 2 never reached the disk, though the later segment did
+        try (FileChannel channel = FileChannel.open(segments().get(0), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0x7f}), RECORD_BYTES + 30);
+        }
+
+        WalletJournal reopened = open(3 * RECORD_BYTES + 20);
+
+        assertEquals(1, segments().size());
+        assertEquals(List.of(1L), sequences(reopened.read(0, 100)));
+        assertEquals(2L, reopened.append(1, OperationType.BONUS, "GOLD_COINS", BigDecimal.ONE, "key-99", null));
+        reopened.close();
+    }
+
+    @Test
+    public void testDirectoryIsLockedByOneJournal() throws IOException {
+        WalletJournal journal = open(1 << 20);
+
+        assertThrows(UncheckedIOException.class, () -> open(1 << 20));
+        journal.close();
+    }
+
+    private WalletJournal open(int segmentBytes) {
+        return new WalletJournal(true, directory.toString(), segmentBytes);
+    }
+
+    private static void append(WalletJournal journal, int first, int last) {
+        for (int i = first; i <= last; i++) {
+            journal.sync(journal.append(1, OperationType.TOP_UP, "GOLD_COINS", new BigDecimal("10.00"),
+                    String.format("key-%02d", i), null));
+        }
+    }
+
+    private static List<Long> sequences(List<WalletJournalRecord> records) {
+        return records.stream().map(WalletJournalRecord::sequence).toList();
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.toString().endsWith(".wal")).sorted().toList();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.dinoventures.backend.wallet.service;
+
+import com.dinoventures.backend.wallet.Wallet;
+import com.dinoventures.backend.wallet.WalletRepository;
+import com.dinoventures.backend.wallet.asset.Asset;
+import com.dinoventures.backend.wallet.ledger.LedgerRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.LockTimeoutException;
+import org.hibernate.LockOptions;
+import org.hibernate.cfg.AvailableSettings;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class WalletLocksTest {
+
+    @Mock
+    private WalletRepository walletRepository;
+
+    @Mock
+    private LedgerRepository ledgerRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private DatabaseMetaData metaData;
+
+    private SimpleMeterRegistry meterRegistry;
+    private Asset goldCoins;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        meterRegistry = new SimpleMeterRegistry();
+        goldCoins = Asset.builder().id(10L).code("GOLD_COINS").build();
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.getMetaData()).thenReturn(metaData);
+        when(metaData.getDatabaseProductName()).thenReturn("H2");
+    }
+
+    @Test
+    public void testWalletsAreLockedInIdOrder() {
+        WalletLocks locks = walletLocks(WalletLocks.Mode.WAIT, 1);
+        Wallet treasury = Wallet.builder().id(100L).build();
+        Wallet user = Wallet.builder().id(200L).build();
+        when(entityManager.find(Wallet.class, 100L, LockModeType.PESSIMISTIC_WRITE, Map.of())).thenReturn(treasury);
+        when(entityManager.find(Wallet.class, 200L, LockModeType.PESSIMISTIC_WRITE, Map.of())).thenReturn(user);
+
+        Map<Long, Wallet> locked = locks.lock("spend", List.of(200L, 100L, 200L));
+
+        assertEquals(List.of(100L, 200L), List.copyOf(locked.keySet()));
+        var order = inOrder(entityManager);
+        order.verify(entityManager).find(Wallet.class, 100L, LockModeType.PESSIMISTIC_WRITE, Map.of());
+        order.verify(entityManager).find(Wallet.class, 200L, LockModeType.PESSIMISTIC_WRITE, Map.of());
+        assertEquals(2, meterRegistry.get("wallet.lock.wait").tag("outcome", "acquired").timer().count());
+    }
+
+    @Test
+    public void testNowaitFailureIsTimedAndPropagated() {
+        WalletLocks locks = walletLocks(WalletLocks.Mode.NOWAIT, 1);
+        when(walletRepository.findSystemWalletId("TREASURY", goldCoins)).thenReturn(Optional.of(100L));
+        when(entityManager.find(Wallet.class, 100L, LockModeType.PESSIMISTIC_WRITE,
+                Map.of(AvailableSettings.JAKARTA_LOCK_TIMEOUT, LockOptions.NO_WAIT)))
+                .thenThrow(new LockTimeoutException("could not obtain lock"));
+
+        locks.systemWalletId("TREASURY", goldCoins);
+        assertThrows(LockTimeoutException.class, () -> locks.lock("top_up", List.of(100L)));
+
+        assertEquals(1, meterRegistry.get("wallet.lock.wait")
+                .tags("class", "system", "operation", "top_up", "outcome", "failed").timer().count());
+    }
+
+    @Test
+    public void testShardedTreasuryIsClaimedWithoutWaiting() {
+        WalletLocks locks = walletLocks(WalletLocks.Mode.WAIT, 3);
+        Wallet shard = Wallet.builder().id(102L).systemWalletId("TREASURY#2").build();
+        when(walletRepository.claimFreeSystemWalletShard(goldCoins.getId(), List.of("TREASURY", "TREASURY#1", "TREASURY#2"),
+                new BigDecimal("5.00"))).thenReturn(Optional.of(shard));
+
+        assertSame(shard, locks.claimSystemWallet("top_up", "TREASURY", goldCoins, new BigDecimal("5.00")));
+    }
+
+    private WalletLocks walletLocks(WalletLocks.Mode mode, int shards) {
+        return new WalletLocks(walletRepository, entityManager,
+                new SystemWalletShards(walletRepository, ledgerRepository, shards),
+                meterRegistry, dataSource, mode, 2000, 2000, 1000);
+    }
+}
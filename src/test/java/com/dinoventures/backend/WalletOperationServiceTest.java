@@ -0,0 +1,112 @@
+package com.dinoventures.backend.wallet.operation;
+
+import com.dinoventures.backend.exception.InvalidRequestException;
+import com.dinoventures.backend.model.User;
+import com.dinoventures.backend.wallet.dto.BatchOperationItem.OperationType;
+import com.dinoventures.backend.wallet.journal.WalletJournal;
+import com.dinoventures.backend.wallet.journal.WalletJournalAppendedEvent;
+import com.dinoventures.backend.wallet.operation.WalletOperation.OperationStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class WalletOperationServiceTest {
+
+    @Mock
+    private WalletOperationRepository operationRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private WalletJournal journal;
+
+    private WalletOperationService operationService;
+
+    private User testUser;
+
+    @BeforeEach
+    void setUp() {
+        operationService = new WalletOperationService(operationRepository, eventPublisher, journal, true);
+        testUser = User.builder().id(1L).email("john@example.com").build();
+    }
+
+    @Test
+    public void testEnqueueQueuesPendingOperationAndWakesWorkers() {
+        when(operationRepository.findByIdempotencyKey("key-1")).thenReturn(Optional.empty());
+        when(operationRepository.saveAndFlush(any(WalletOperation.class))).thenAnswer(invocation -> {
+            WalletOperation operation = invocation.getArgument(0);
+            operation.setId(5L);
+            return operation;
+        });
+
+        WalletOperation operation = operationService.enqueue(testUser, OperationType.TOP_UP, "GOLD_COINS",
+                new BigDecimal("10.00"), "key-1", "Top-up");
+
+        assertEquals(OperationStatus.PENDING, operation.getStatus());
+        assertEquals(1L, operation.getUserId());
+        verify(eventPublisher).publishEvent(new WalletOperationQueuedEvent(5L));
+    }
+
+    @Test
+    public void testEnqueueWithKnownKeyReturnsQueuedOperation() {
+        WalletOperation queued = WalletOperation.builder().id(5L).idempotencyKey("key-1").status(OperationStatus.SUCCEEDED).build();
+        when(operationRepository.findByIdempotencyKey("key-1")).thenReturn(Optional.of(queued));
+
+        WalletOperation operation = operationService.enqueue(testUser, OperationType.TOP_UP, "GOLD_COINS",
+                new BigDecimal("10.00"), "key-1", "Top-up");
+
+        assertSame(queued, operation);
+        verify(operationRepository, never()).saveAndFlush(any());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    public void testJournalAcceptsOnceSyncedWithoutDatabase() {
+        when(journal.append(1L, OperationType.SPEND, "GOLD_COINS", new BigDecimal("3.00"), "key-3", null)).thenReturn(42L);
+
+        WalletOperation operation = operationService.journal(testUser, OperationType.SPEND, "GOLD_COINS",
+                new BigDecimal("3.00"), "key-3", null);
+
+        assertNull(operation.getId());
+        assertEquals(42L, operation.getJournalSequence());
+        assertEquals(OperationStatus.PENDING, operation.getStatus());
+        verify(journal).sync(42L);
+        verify(eventPublisher).publishEvent(new WalletJournalAppendedEvent(42L));
+        verifyNoInteractions(operationRepository);
+    }
+
+    @Test
+    public void testReleaseFailsOperationsOutOfAttempts() {
+        WalletOperation retry = WalletOperation.builder().id(1L).attempts(1).status(OperationStatus.PROCESSING).build();
+        WalletOperation exhausted = WalletOperation.builder().id(2L).attempts(5).status(OperationStatus.PROCESSING).build();
+        when(operationRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(retry, exhausted));
+
+        List<Long> failed = operationService.release(List.of(1L, 2L), "Deadlock detected", 5);
+
+        assertEquals(List.of(2L), failed);
+        assertEquals(OperationStatus.PENDING, retry.getStatus());
+        assertEquals(OperationStatus.FAILED, exhausted.getStatus());
+        assertEquals("Deadlock detected", exhausted.getErrorMessage());
+    }
+
+    @Test
+    public void testEnqueueWhenDisabledIsRejected() {
+        WalletOperationService disabled = new WalletOperationService(operationRepository, eventPublisher, journal, false);
+
+        assertThrows(InvalidRequestException.class, () -> disabled.enqueue(testUser, OperationType.SPEND,
+                "GOLD_COINS", BigDecimal.ONE, "key-2", null));
+    }
+}
@@ -0,0 +1,99 @@
+package com.dinoventures.backend.wallet.outbox;
+
+import com.dinoventures.backend.shard.ShardRouter;
+import com.dinoventures.backend.wallet.ledger.LedgerEntry.TransactionType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+public class WalletOutboxRelayTest {
+
+    private WalletOutboxRepository outboxRepository;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        outboxRepository = mock(WalletOutboxRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    public void testDeliveredBatchIsDeleted() {
+        when(outboxRepository.lockBatchIds(2)).thenReturn(List.of(1L, 2L), List.of(3L));
+        when(outboxRepository.findAllByIdOrdered(List.of(1L, 2L))).thenReturn(List.of(event(1L), event(2L)));
+        when(outboxRepository.findAllByIdOrdered(List.of(3L))).thenReturn(List.of(event(3L)));
+        InMemoryWalletEventSink sink = new InMemoryWalletEventSink();
+
+        relay(sink, 2).drain();
+
+        assertEquals(List.of(1L, 2L, 3L), sink.events().stream().map(WalletEvent::id).toList());
+        verify(outboxRepository).deleteAllByIdInBatch(List.of(1L, 2L));
+        verify(outboxRepository).deleteAllByIdInBatch(List.of(3L));
+        assertEquals(3.0, meterRegistry.counter("wallet.outbox.published").count());
+    }
+
+    @Test
+    public void testFailedDeliveryLeavesEventsQueued() {
+        when(outboxRepository.lockBatchIds(anyInt())).thenReturn(List.of(1L));
+        when(outboxRepository.findAllByIdOrdered(List.of(1L))).thenReturn(List.of(event(1L)));
+        WalletEventSink sink = events -> {
+            throw new IOException("consumer unavailable");
+        };
+
+        relay(sink, 500).drain();
+
+        verify(outboxRepository, never()).deleteAllByIdInBatch(any());
+        assertEquals(1.0, meterRegistry.counter("wallet.outbox.failures").count());
+    }
+
+    @Test
+    public void testFileSinkAppendsOneJsonLinePerEvent(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("events.ndjson");
+        FileWalletEventSink sink = new FileWalletEventSink(file, new ObjectMapper().findAndRegisterModules());
+
+        sink.publish(List.of(event(1L).toEvent()));
+        sink.publish(List.of(event(2L).toEvent(), event(3L).toEvent()));
+
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(3, lines.size());
+        assertTrue(lines.get(2).contains("\"idempotencyKey\":\"key-3\""));
+    }
+
+    private WalletOutboxRelay relay(WalletEventSink sink, int batchSize) {
+        return new WalletOutboxRelay(new WalletOutbox(outboxRepository, true), outboxRepository, sink,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), new SyncTaskExecutor(),
+                ShardRouter.single(), meterRegistry, batchSize);
+    }
+
+    private WalletOutboxEvent event(Long id) {
+        return WalletOutboxEvent.builder()
+                .id(id)
+                .eventType(TransactionType.TOP_UP)
+                .transactionId(100L + id)
+                .userId(1L)
+                .assetCode("GOLD_COINS")
+                .amount(new BigDecimal("5.00"))
+                .balanceAfter(new BigDecimal("5.00").multiply(BigDecimal.valueOf(id)))
+                .idempotencyKey("key-" + id)
+                .occurredAt(LocalDateTime.now())
+                .build();
+    }
+}
@@ -0,0 +1,96 @@
+package com.dinoventures.backend.wallet.read;
+
+import com.dinoventures.backend.dto.TransactionDTO;
+import com.dinoventures.backend.exception.ResourceNotFoundException;
+import com.dinoventures.backend.shard.ShardRouter;
+import com.dinoventures.backend.wallet.archive.LedgerArchiveStore;
+import com.dinoventures.backend.wallet.dto.LedgerEntryView;
+import com.dinoventures.backend.wallet.dto.ReadPage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.SyncTaskExecutor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletionException;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class WalletReadServiceTest {
+
+    private static final String EMAIL = "john@example.com";
+
+    @Mock
+    private WalletReadRepository walletReadRepository;
+
+    private WalletReadService walletReadService;
+
+    @BeforeEach
+    void setUp() {
+        walletReadService = new WalletReadService(walletReadRepository,
+                new SyncTaskExecutor(), new SyncTaskExecutor(), ShardRouter.single(), mock(LedgerArchiveStore.class), 3, 2);
+    }
+
+    @Test
+    public void testLedgerPageReturnsCursorWhenFull() {
+        when(walletReadRepository.findUserIdByEmail(EMAIL)).thenReturn(Optional.of(1L));
+        when(walletReadRepository.findUserWalletIds(1L, "GOLD_COINS")).thenReturn(List.of(10L));
+        when(walletReadRepository.findLedgerEntries(List.of(10L), null, null, null, 3)).thenReturn(entries(9, 8, 7));
+
+        ReadPage<LedgerEntryView> page = walletReadService.getLedgerPage(EMAIL, "GOLD_COINS", null, null, null, 50).join();
+
+        assertEquals(3, page.getItems().size());
+        assertEquals(7L, page.getNext());
+    }
+
+    @Test
+    public void testTransactionPageDetectsNextPageFromExtraRow() {
+        when(walletReadRepository.findUserIdByEmail(EMAIL)).thenReturn(Optional.of(1L));
+        List<TransactionDTO> rows = LongStream.rangeClosed(1, 4)
+                .mapToObj(id -> TransactionDTO.builder().id(id).build())
+                .toList();
+        when(walletReadRepository.findTransactions(1L, 3, 4)).thenReturn(rows);
+
+        ReadPage<TransactionDTO> page = walletReadService.getTransactionPage(EMAIL, 1, 10).join();
+
+        assertEquals(3, page.getItems().size());
+        assertEquals(2L, page.getNext());
+    }
+
+    @Test
+    public void testStreamReadsNextChunkOnlyAfterWritingPrevious() {
+        when(walletReadRepository.findUserIdByEmail(EMAIL)).thenReturn(Optional.of(1L));
+        when(walletReadRepository.findUserWalletIds(1L, null)).thenReturn(List.of(10L));
+        when(walletReadRepository.findLedgerEntries(List.of(10L), null, null, null, 2)).thenReturn(entries(5, 4));
+        when(walletReadRepository.findLedgerEntries(List.of(10L), 4L, null, null, 2)).thenReturn(entries(3));
+        List<List<LedgerEntryView>> written = new ArrayList<>();
+
+        walletReadService.streamLedger(EMAIL, null, written::add).join();
+
+        assertEquals(2, written.size());
+        assertEquals(3L, written.get(1).get(0).getId());
+        verify(walletReadRepository, times(2)).findLedgerEntries(anyList(), any(), any(), any(), anyInt());
+    }
+
+    @Test
+    public void testUnknownUserFailsFuture() {
+        when(walletReadRepository.findUserIdByEmail(EMAIL)).thenReturn(Optional.empty());
+
+        CompletionException ex = assertThrows(CompletionException.class,
+                () -> walletReadService.getBalances(EMAIL).join());
+        assertInstanceOf(ResourceNotFoundException.class, ex.getCause());
+    }
+
+    private static List<LedgerEntryView> entries(long... ids) {
+        return LongStream.of(ids)
+                .mapToObj(id -> LedgerEntryView.builder().id(id).build())
+                .toList();
+    }
+}
@@ -0,0 +1,182 @@
+package com.dinoventures.backend.wallet.service;
+
+import com.dinoventures.backend.exception.InsufficientBalanceException;
+import com.dinoventures.backend.model.User;
+import com.dinoventures.backend.wallet.Wallet;
+import com.dinoventures.backend.wallet.WalletRepository;
+import com.dinoventures.backend.wallet.asset.Asset;
+import com.dinoventures.backend.wallet.asset.AssetRepository;
+import com.dinoventures.backend.wallet.cache.BalanceCache;
+import com.dinoventures.backend.wallet.ledger.LedgerEntry;
+import com.dinoventures.backend.wallet.ledger.LedgerRepository;
+import com.dinoventures.backend.wallet.outbox.WalletOutbox;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class WalletServiceTest {
+
+    @Mock
+    private WalletRepository walletRepository;
+
+    @Mock
+    private AssetRepository assetRepository;
+
+    @Mock
+    private LedgerRepository ledgerRepository;
+
+    @Mock
+    private BalanceCache balanceCache;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private WalletLocks walletLocks;
+
+    @Mock
+    private WalletOutbox walletOutbox;
+
+    private WalletService walletService;
+
+    private User testUser;
+    private Asset goldCoins;
+    private Wallet treasury;
+
+    @BeforeEach
+    void setUp() {
+        WalletTransactionRunner transactionRunner = new WalletTransactionRunner(mock(PlatformTransactionManager.class),
+                new SimpleMeterRegistry(), "LOYALTY_POINTS", 3, 3, 0, 0, 10_000);
+        walletService = new WalletService(walletRepository, assetRepository, ledgerRepository, balanceCache,
+                eventPublisher, transactionRunner, walletLocks, walletOutbox);
+
+        testUser = User.builder()
+                .id(1L)
+                .firstName("John")
+                .lastName("Doe")
+                .email("john@example.com")
+                .build();
+
+        goldCoins = Asset.builder()
+                .id(10L)
+                .code("GOLD_COINS")
+                .name("Gold Coins")
+                .type(Asset.AssetType.GOLD_COINS)
+                .active(true)
+                .build();
+
+        treasury = Wallet.builder()
+                .id(100L)
+                .asset(goldCoins)
+                .balance(new BigDecimal("1000.00"))
+                .systemWalletId("TREASURY")
+                .isSystemWallet(true)
+                .build();
+    }
+
+    @Test
+    public void testGetBalanceOfMissingWalletReturnsZeroWithoutWrite() {
+        when(assetRepository.findByCodeAndActiveTrue("GOLD_COINS")).thenReturn(Optional.of(goldCoins));
+        when(walletRepository.findByUserAndAsset(testUser, goldCoins)).thenReturn(Optional.empty());
+
+        BigDecimal balance = walletService.getBalance(testUser, "GOLD_COINS");
+
+        assertEquals(BigDecimal.ZERO, balance);
+        verify(walletRepository, never()).save(any(Wallet.class));
+        verify(walletRepository, never()).insertUserWalletIfAbsent(anyLong(), anyLong());
+    }
+
+    @Test
+    public void testTopUpProvisionsWalletOnFirstCredit() {
+        Wallet provisioned = Wallet.builder()
+                .id(200L)
+                .user(testUser)
+                .asset(goldCoins)
+                .balance(BigDecimal.ZERO)
+                .isSystemWallet(false)
+                .build();
+
+        when(ledgerRepository.findRowByIdempotencyKey("key-1")).thenReturn(Optional.empty());
+        when(assetRepository.findByCodeAndActiveTrue("GOLD_COINS")).thenReturn(Optional.of(goldCoins));
+        when(walletRepository.findUserWalletId(testUser, goldCoins))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(200L));
+        when(walletLocks.systemWalletId("TREASURY", goldCoins)).thenReturn(Optional.of(100L));
+        when(walletLocks.lock("top_up", List.of(200L, 100L))).thenReturn(Map.of(100L, treasury, 200L, provisioned));
+
+        WalletTransactionResult result = walletService.topUp(testUser, "GOLD_COINS", new BigDecimal("50.00"), "key-1", "First top-up");
+
+        assertEquals(new BigDecimal("50.00"), result.getNewCreditBalance());
+        assertEquals(new BigDecimal("950.00"), result.getNewDebitBalance());
+        verify(walletRepository, times(1)).insertUserWalletIfAbsent(1L, 10L);
+        verify(ledgerRepository, times(1)).saveAndFlush(argThat(entry ->
+                entry.getCreditBalanceAfter().equals(new BigDecimal("50.00"))
+                        && entry.getDebitBalanceAfter().equals(new BigDecimal("950.00"))));
+    }
+
+    @Test
+    public void testSpendFromMissingWalletIsInsufficientBalance() {
+        when(ledgerRepository.findRowByIdempotencyKey("key-2")).thenReturn(Optional.empty());
+        when(assetRepository.findByCodeAndActiveTrue("GOLD_COINS")).thenReturn(Optional.of(goldCoins));
+        when(walletRepository.findUserWalletId(testUser, goldCoins)).thenReturn(Optional.empty());
+
+        assertThrows(InsufficientBalanceException.class,
+                () -> walletService.spend(testUser, "GOLD_COINS", new BigDecimal("5.00"), "key-2", "Purchase"));
+        verify(walletRepository, never()).insertUserWalletIfAbsent(anyLong(), anyLong());
+        verify(walletLocks, never()).lock(any(), any());
+        verify(ledgerRepository, never()).saveAndFlush(any(LedgerEntry.class));
+    }
+
+    @Test
+    public void testSpendOfOptimisticAssetReadsWalletWithoutLock() {
+        Asset loyaltyPoints = Asset.builder()
+                .id(11L)
+                .code("LOYALTY_POINTS")
+                .name("Loyalty Points")
+                .type(Asset.AssetType.LOYALTY_POINTS)
+                .active(true)
+                .build();
+        Wallet userWallet = Wallet.builder()
+                .id(201L)
+                .user(testUser)
+                .asset(loyaltyPoints)
+                .balance(new BigDecimal("20.00"))
+                .isSystemWallet(false)
+                .build();
+        Wallet loyaltyTreasury = Wallet.builder()
+                .id(101L)
+                .asset(loyaltyPoints)
+                .balance(new BigDecimal("1000.00"))
+                .systemWalletId("TREASURY")
+                .isSystemWallet(true)
+                .build();
+
+        when(ledgerRepository.findRowByIdempotencyKey("key-3")).thenReturn(Optional.empty());
+        when(assetRepository.findByCodeAndActiveTrue("LOYALTY_POINTS")).thenReturn(Optional.of(loyaltyPoints));
+        when(walletRepository.findUserWalletId(testUser, loyaltyPoints)).thenReturn(Optional.of(201L));
+        when(walletRepository.findById(201L)).thenReturn(Optional.of(userWallet));
+        when(walletLocks.systemWalletId("TREASURY", loyaltyPoints)).thenReturn(Optional.of(101L));
+        when(walletLocks.lock("spend", List.of(101L))).thenReturn(Map.of(101L, loyaltyTreasury));
+
+        WalletTransactionResult result = walletService.spend(testUser, "LOYALTY_POINTS", new BigDecimal("5.00"), "key-3", "Purchase");
+
+        assertEquals(new BigDecimal("15.00"), result.getNewDebitBalance());
+        verify(walletLocks, times(1)).lock("spend", List.of(101L));
+    }
+}
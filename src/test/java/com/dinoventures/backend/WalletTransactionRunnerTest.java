@@ -0,0 +1,129 @@
+package com.dinoventures.backend.wallet.service;
+
+import com.dinoventures.backend.exception.WalletContentionException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+
+public class WalletTransactionRunnerTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private WalletTransactionRunner runner;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        runner = new WalletTransactionRunner(mock(PlatformTransactionManager.class), meterRegistry,
+                "GOLD_COINS, LOYALTY_POINTS", 2, 2, 0, 0, 60_000);
+    }
+
+    @Test
+    public void testAssetsOutsideTheOptimisticListArePessimistic() {
+        assertEquals(WalletConcurrencyStrategy.OPTIMISTIC, runner.strategyFor(1L, "GOLD_COINS"));
+        assertEquals(WalletConcurrencyStrategy.PESSIMISTIC, runner.strategyFor(1L, "CREDIT_TOKENS"));
+    }
+
+    @Test
+    public void testVersionConflictIsRetriedOptimistically() {
+        List<WalletConcurrencyStrategy> attempts = new ArrayList<>();
+
+        String result = runner.run("spend", 1L, "GOLD_COINS", strategy -> {
+            attempts.add(strategy);
+            if (attempts.size() == 1) {
+                throw conflict();
+            }
+            return "done";
+        });
+
+        assertEquals("done", result);
+        assertEquals(List.of(WalletConcurrencyStrategy.OPTIMISTIC, WalletConcurrencyStrategy.OPTIMISTIC), attempts);
+        assertEquals(1.0, meterRegistry.counter("wallet.concurrency.optimistic.retries", "operation", "spend").count());
+    }
+
+    @Test
+    public void testExhaustedRetriesFallBackToLockingAndMarkWalletContended() {
+        List<WalletConcurrencyStrategy> attempts = new ArrayList<>();
+
+        runner.run("top_up", 1L, "GOLD_COINS", strategy -> {
+            attempts.add(strategy);
+            if (strategy == WalletConcurrencyStrategy.OPTIMISTIC) {
+                throw conflict();
+            }
+            return "done";
+        });
+
+        assertEquals(List.of(WalletConcurrencyStrategy.OPTIMISTIC, WalletConcurrencyStrategy.OPTIMISTIC,
+                WalletConcurrencyStrategy.OPTIMISTIC, WalletConcurrencyStrategy.PESSIMISTIC), attempts);
+        assertEquals(1.0, meterRegistry.counter("wallet.concurrency.optimistic.fallbacks", "operation", "top_up").count());
+        assertEquals(WalletConcurrencyStrategy.PESSIMISTIC, runner.strategyFor(1L, "GOLD_COINS"));
+        assertEquals(WalletConcurrencyStrategy.OPTIMISTIC, runner.strategyFor(2L, "GOLD_COINS"));
+    }
+
+    @Test
+    public void testDeadlockIsRetriedAndCountedByReason() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = runner.run("spend", 1L, "CREDIT_TOKENS", strategy -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw databaseFailure("40P01");
+            }
+            return "done";
+        });
+
+        assertEquals("done", result);
+        assertEquals(2, attempts.get());
+        assertEquals(1.0, meterRegistry.counter("wallet.transaction.retries",
+                "operation", "spend", "reason", "deadlock").count());
+    }
+
+    @Test
+    public void testPersistentSerializationFailureBecomesContention() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(WalletContentionException.class, () -> runner.run("top_up", 1L, "CREDIT_TOKENS", strategy -> {
+            attempts.incrementAndGet();
+            throw databaseFailure("40001");
+        }));
+
+        assertEquals(3, attempts.get());
+        assertEquals(1.0, meterRegistry.counter("wallet.transaction.retries.exhausted",
+                "operation", "top_up", "reason", "serialization_failure").count());
+    }
+
+    @Test
+    public void testOtherFailuresAreNotRetried() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(DataIntegrityViolationException.class, () -> runner.run("spend", 1L, "CREDIT_TOKENS", strategy -> {
+            attempts.incrementAndGet();
+            throw new DataIntegrityViolationException("duplicate key",
+                    new SQLException("duplicate key", "23505"));
+        }));
+
+        assertEquals(1, attempts.get());
+        assertNull(WalletTransactionRunner.retryReason(new IllegalStateException("boom")));
+    }
+
+    private static RuntimeException databaseFailure(String sqlState) {
+        return new CannotAcquireLockException("could not execute statement",
+                new SQLException("lock conflict", sqlState));
+    }
+
+    private static ObjectOptimisticLockingFailureException conflict() {
+        return new ObjectOptimisticLockingFailureException("Wallet", 200L);
+    }
+}